@@ -0,0 +1,130 @@
+package guru.qa.restbackend.audit;
+
+import java.io.*;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Запись журнала аудита в ротируемые gzip-файлы audit-yyyyMMdd-HHmmss-N.ndjson.gz.
+ * <p>
+ * Каждая групповая запись завершается SYNC_FLUSH gzip-потока (и fsync, если включен), поэтому
+ * текущий файл читается zcat-ом до последней зафиксированной группы. Используется только
+ * потоком-писателем журнала.
+ */
+class AuditFileWriter implements Closeable {
+
+    private static final String FILE_GLOB = "audit-*.ndjson.gz";
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final Path dir;
+    private final long maxFileBytes;
+    private final long rotationNanos;
+    private final int maxFiles;
+    private final boolean fsync;
+
+    private FileOutputStream file;
+    private OutputStream out;
+    private Path currentPath;
+    private long currentBytes;
+    private long openedAtNanos;
+    private int sequence;
+
+    AuditFileWriter(Path dir, long maxFileBytes, long rotationNanos, int maxFiles, boolean fsync) throws IOException {
+        this.dir = dir;
+        this.maxFileBytes = maxFileBytes;
+        this.rotationNanos = rotationNanos;
+        this.maxFiles = maxFiles;
+        this.fsync = fsync;
+        Files.createDirectories(dir);
+    }
+
+    /**
+     * Запись одной строки журнала (без фиксации).
+     */
+    void append(byte[] line) throws IOException {
+        if (out == null) {
+            open();
+        }
+        out.write(line);
+        out.write('\n');
+        currentBytes += line.length + 1;
+    }
+
+    /**
+     * Фиксация групповой записи: сброс сжатого потока и, если включено, fsync.
+     */
+    void commit() throws IOException {
+        if (out == null) {
+            return;
+        }
+        out.flush();
+        if (fsync) {
+            file.getFD().sync();
+        }
+        if (currentBytes >= maxFileBytes) {
+            rotate();
+        }
+    }
+
+    /**
+     * Закрытие текущего файла, если истек интервал ротации (вызывается и при пустой очереди).
+     */
+    void rotateIfExpired() throws IOException {
+        if (out != null && System.nanoTime() - openedAtNanos >= rotationNanos) {
+            rotate();
+        }
+    }
+
+    Path getCurrentPath() {
+        return currentPath;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (out != null) {
+            out.close();
+            out = null;
+            file = null;
+        }
+    }
+
+    private void rotate() throws IOException {
+        close();
+        deleteExpiredFiles();
+    }
+
+    private void open() throws IOException {
+        String time = FILE_TIME.format(LocalDateTime.now());
+        Path path;
+        do {
+            path = dir.resolve("audit-" + time + "-" + (sequence++) + ".ndjson.gz");
+        } while (Files.exists(path));
+        file = new FileOutputStream(path.toFile());
+        out = new BufferedOutputStream(new GZIPOutputStream(file, 1 << 16, true), 1 << 16);
+        currentPath = path;
+        currentBytes = 0;
+        openedAtNanos = System.nanoTime();
+    }
+
+    private void deleteExpiredFiles() throws IOException {
+        if (maxFiles <= 0) {
+            return;
+        }
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, FILE_GLOB)) {
+            stream.forEach(files::add);
+        }
+        // Имена сортируются по времени создания
+        Collections.sort(files);
+        for (int i = 0; i < files.size() - maxFiles; i++) {
+            Files.deleteIfExists(files.get(i));
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package guru.qa.restbackend.audit;
+
+import guru.qa.restbackend.domain.AuditEvent;
+import guru.qa.restbackend.domain.AuditOutcome;
+import guru.qa.restbackend.security.SessionTokenInterceptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.DispatcherServlet;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.security.Principal;
+import java.time.LocalDateTime;
+
+/**
+ * Сбор событий аудита по вызовам контроллера счетов.
+ * Тело запроса и ID транзакции из ответа складывает в атрибуты запроса {@link AuditBodyAdvice},
+ * событие собирается после завершения запроса и отдается в {@link AuditLog} без ожидания записи.
+ */
+@Component
+public class AuditInterceptor implements HandlerInterceptor {
+
+    static final String REQUEST_BODY_ATTRIBUTE = AuditInterceptor.class.getName() + ".requestBody";
+    static final String TRANSACTION_ID_ATTRIBUTE = AuditInterceptor.class.getName() + ".transactionId";
+    private static final String START_ATTRIBUTE = AuditInterceptor.class.getName() + ".start";
+
+    private final AuditLog auditLog;
+
+    @Autowired
+    public AuditInterceptor(AuditLog auditLog) {
+        this.auditLog = auditLog;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        Object start = request.getAttribute(START_ATTRIBUTE);
+        // Исключение, обработанное GlobalExceptionHandler, сюда не передается - берем его из атрибута
+        Object error = ex != null ? ex : request.getAttribute(DispatcherServlet.EXCEPTION_ATTRIBUTE);
+        int status = response.getStatus();
+        String query = request.getQueryString();
+
+        auditLog.record(AuditEvent.builder()
+                .timestamp(LocalDateTime.now())
+                .caller(caller(request))
+                .clientAddress(request.getRemoteAddr())
+                .method(request.getMethod())
+                .path(query != null ? request.getRequestURI() + "?" + query : request.getRequestURI())
+                .operation(handler instanceof HandlerMethod ? ((HandlerMethod) handler).getMethod().getName() : null)
+                .request(request.getAttribute(REQUEST_BODY_ATTRIBUTE))
+                .status(status)
+                .outcome(error == null && status < 400 ? AuditOutcome.SUCCESS : AuditOutcome.FAILURE)
+                .error(error instanceof Throwable ? ((Throwable) error).getMessage() : null)
+                .transactionId((Long) request.getAttribute(TRANSACTION_ID_ATTRIBUTE))
+                .durationMicros(start != null ? (System.nanoTime() - (Long) start) / 1000 : 0)
+                .build());
+    }
+
+    /**
+     * Вызывающий: аутентифицированный пользователь, если он известен, иначе адрес клиента.
+     */
+    private static String caller(HttpServletRequest request) {
+        Object session = request.getAttribute(SessionTokenInterceptor.PRINCIPAL_ATTRIBUTE);
+        Principal principal = session instanceof Principal ? (Principal) session : request.getUserPrincipal();
+        return principal != null ? principal.getName() : request.getRemoteAddr();
+    }
+}
@@ -0,0 +1,195 @@
+package guru.qa.restbackend.audit;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import guru.qa.restbackend.domain.AuditEvent;
+import guru.qa.restbackend.domain.AuditOverflowPolicy;
+import guru.qa.restbackend.domain.AuditStats;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Асинхронный журнал аудита.
+ * <p>
+ * Потоки запросов только кладут событие в lock-free очередь (см. {@link MpscRingBuffer}) и никогда
+ * не ждут ввода-вывода. Единственный поток-писатель забирает все накопившиеся события, сериализует
+ * их в NDJSON и фиксирует одной групповой записью: один flush и один fsync на пачку, а не на событие.
+ * Чем выше нагрузка, тем крупнее пачки. При переполнении очереди действует bank.audit.overflow-policy.
+ */
+@Slf4j
+@Component
+public class AuditLog {
+
+    // Шаг ожидания потока запроса при политике BACKPRESSURE
+    private static final long BACKPRESSURE_PAUSE_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final AuditProperties properties;
+    private final ObjectWriter eventWriter;
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder backpressured = new LongAdder();
+    // Пишутся только потоком-писателем
+    private volatile long written;
+    private volatile long failed;
+    private volatile long batches;
+
+    private MpscRingBuffer<AuditEvent> queue;
+    private AuditFileWriter fileWriter;
+    private Thread writer;
+    private volatile boolean running;
+
+    @Autowired
+    public AuditLog(AuditProperties properties, ObjectMapper objectMapper) {
+        this.properties = properties;
+        this.eventWriter = objectMapper.writerFor(AuditEvent.class);
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        queue = new MpscRingBuffer<>(properties.getQueueCapacity());
+        fileWriter = new AuditFileWriter(Paths.get(properties.getDir()), properties.getMaxFileSize().toBytes(),
+                properties.getRotationInterval().toNanos(), properties.getMaxFiles(), properties.isFsync());
+        running = true;
+        writer = new Thread(this::writeLoop, "audit-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Остановка: писатель дописывает все, что уже в очереди, и закрывает файл.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (writer == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(writer);
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    /**
+     * Запись события аудита. Не блокирует поток (при политике BACKPRESSURE ждет
+     * не дольше bank.audit.backpressure-timeout).
+     *
+     * @param event событие
+     */
+    public void record(AuditEvent event) {
+        if (!running) {
+            return;
+        }
+        if (queue.offer(event)) {
+            accepted.increment();
+            return;
+        }
+        if (properties.getOverflowPolicy() == AuditOverflowPolicy.BACKPRESSURE && awaitSpace(event)) {
+            backpressured.increment();
+            accepted.increment();
+            return;
+        }
+        dropped.increment();
+    }
+
+    /**
+     * Счетчики журнала.
+     */
+    public AuditStats getStats() {
+        long batchCount = batches;
+        return AuditStats.builder()
+                .enabled(running)
+                .overflowPolicy(properties.getOverflowPolicy())
+                .queueCapacity(queue != null ? queue.capacity() : 0)
+                .queueDepth(queue != null ? queue.size() : 0)
+                .accepted(accepted.sum())
+                .dropped(dropped.sum())
+                .backpressured(backpressured.sum())
+                .written(written)
+                .failed(failed)
+                .batches(batchCount)
+                .averageBatchSize(batchCount > 0 ? (double) (written + failed) / batchCount : 0)
+                .currentFile(fileWriter != null && fileWriter.getCurrentPath() != null ?
+                        fileWriter.getCurrentPath().toString() : null)
+                .build();
+    }
+
+    private boolean awaitSpace(AuditEvent event) {
+        long deadline = System.nanoTime() + properties.getBackpressureTimeout().toNanos();
+        LockSupport.unpark(writer);
+        while (System.nanoTime() < deadline) {
+            LockSupport.parkNanos(BACKPRESSURE_PAUSE_NANOS);
+            if (queue.offer(event)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void writeLoop() {
+        List<AuditEvent> batch = new ArrayList<>(properties.getMaxBatchSize());
+        long idleNanos = properties.getFlushInterval().toNanos();
+        long droppedReported = 0;
+        while (running || queue.size() > 0) {
+            batch.clear();
+            queue.drain(batch::add, properties.getMaxBatchSize());
+            try {
+                if (batch.isEmpty()) {
+                    fileWriter.rotateIfExpired();
+                    LockSupport.parkNanos(idleNanos);
+                    continue;
+                }
+                writeBatch(batch);
+            } catch (IOException | RuntimeException e) {
+                failed += batch.size();
+                log.error("Не удалось записать {} событий аудита", batch.size(), e);
+            }
+
+            long droppedNow = dropped.sum();
+            if (droppedNow > droppedReported) {
+                log.warn("Очередь аудита переполнена, отброшено событий: {} (всего {})",
+                        droppedNow - droppedReported, droppedNow);
+                droppedReported = droppedNow;
+            }
+        }
+        try {
+            fileWriter.close();
+        } catch (IOException e) {
+            log.error("Не удалось закрыть файл аудита", e);
+        }
+    }
+
+    private void writeBatch(List<AuditEvent> batch) throws IOException {
+        int serialized = 0;
+        for (AuditEvent event : batch) {
+            byte[] line;
+            try {
+                line = eventWriter.writeValueAsBytes(event);
+            } catch (JsonProcessingException e) {
+                // Одно несериализуемое тело запроса не должно стоить всей пачки
+                failed++;
+                log.warn("Не удалось сериализовать событие аудита {} {}", event.getMethod(), event.getPath(), e);
+                continue;
+            }
+            fileWriter.append(line);
+            serialized++;
+        }
+        fileWriter.commit();
+        written += serialized;
+        batches++;
+    }
+}
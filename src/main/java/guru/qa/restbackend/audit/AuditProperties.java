@@ -0,0 +1,74 @@
+package guru.qa.restbackend.audit;
+
+import guru.qa.restbackend.domain.AuditOverflowPolicy;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Настройки журнала аудита (префикс bank.audit).
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "bank.audit")
+public class AuditProperties {
+
+    /**
+     * Включить журнал аудита.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Каталог файлов журнала.
+     */
+    private String dir = "data/audit";
+
+    /**
+     * Емкость очереди событий (округляется вверх до степени двойки).
+     */
+    private int queueCapacity = 65_536;
+
+    /**
+     * Что делать при переполнении очереди: DROP - отбросить и посчитать,
+     * BACKPRESSURE - подождать освобождения места не дольше backpressure-timeout, затем отбросить.
+     */
+    private AuditOverflowPolicy overflowPolicy = AuditOverflowPolicy.DROP;
+
+    /**
+     * Максимальное ожидание потока запроса при политике BACKPRESSURE.
+     */
+    private Duration backpressureTimeout = Duration.ofMillis(50);
+
+    /**
+     * Максимум событий в одной групповой записи.
+     */
+    private int maxBatchSize = 4096;
+
+    /**
+     * Окно накопления событий: как часто писатель проверяет пустую очередь.
+     */
+    private Duration flushInterval = Duration.ofMillis(10);
+
+    /**
+     * Сбрасывать ли каждую групповую запись на диск (fsync).
+     */
+    private boolean fsync = true;
+
+    /**
+     * Ротация файла по объему несжатых данных.
+     */
+    private DataSize maxFileSize = DataSize.ofMegabytes(64);
+
+    /**
+     * Ротация файла по времени.
+     */
+    private Duration rotationInterval = Duration.ofHours(1);
+
+    /**
+     * Сколько последних файлов хранить (0 - без ограничения).
+     */
+    private int maxFiles = 168;
+}
@@ -0,0 +1,81 @@
+package guru.qa.restbackend.audit;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Ограниченная lock-free очередь: много производителей, один потребитель.
+ * <p>
+ * Производитель занимает ячейку CAS-ом индекса хвоста и публикует элемент release-записью.
+ * Потребитель читает ячейки по порядку acquire-чтением, обнуляет их и сдвигает голову, после чего
+ * ячейка снова доступна производителям. Ни offer, ни drain не берут блокировок и не выделяют память.
+ *
+ * @param <E> тип элементов
+ */
+public final class MpscRingBuffer<E> {
+
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(Object[].class);
+
+    private final Object[] slots;
+    private final int mask;
+    // Индексы растут монотонно, ячейка - индекс по маске
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+
+    public MpscRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.slots = new Object[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * Добавление элемента (любой поток).
+     *
+     * @return false, если очередь заполнена
+     */
+    public boolean offer(E element) {
+        long index;
+        do {
+            index = tail.get();
+            if (index - head.get() >= slots.length) {
+                return false;
+            }
+        } while (!tail.compareAndSet(index, index + 1));
+        SLOTS.setRelease(slots, (int) index & mask, element);
+        return true;
+    }
+
+    /**
+     * Извлечение до limit элементов в порядке добавления (только поток-потребитель).
+     * Останавливается на ячейке, которую производитель уже занял, но еще не опубликовал.
+     *
+     * @return количество извлеченных элементов
+     */
+    @SuppressWarnings("unchecked")
+    public int drain(Consumer<? super E> consumer, int limit) {
+        long index = head.get();
+        int drained = 0;
+        while (drained < limit) {
+            int slot = (int) index & mask;
+            Object element = SLOTS.getAcquire(slots, slot);
+            if (element == null) {
+                break;
+            }
+            SLOTS.setOpaque(slots, slot, null);
+            head.lazySet(++index);
+            drained++;
+            consumer.accept((E) element);
+        }
+        return drained;
+    }
+
+    public int size() {
+        return (int) Math.max(0, tail.get() - head.get());
+    }
+
+    public int capacity() {
+        return slots.length;
+    }
+}
@@ -0,0 +1,121 @@
+package guru.qa.restbackend.batch;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Контрольная точка закрытия дня: журнал завершенных партиций в файле.
+ * Каждая строка дописывается и сбрасывается на диск сразу после обработки партиции,
+ * поэтому повторный запуск за ту же дату пропускает уже обработанные партиции. Партиция, прерванная
+ * посередине, в журнал не попадает и проходится заново.
+ * <p>
+ * Формат файла: заголовок "partition-size N", строки "done P", в конце "finished".
+ */
+class EndOfDayCheckpoint implements Closeable {
+
+    private static final String HEADER = "partition-size ";
+    private static final String DONE = "done ";
+    private static final String FINISHED = "finished";
+
+    private final FileChannel channel;
+    private final Set<Integer> completed = ConcurrentHashMap.newKeySet();
+    private volatile boolean finished;
+    // Журнал за эту дату уже был - запуск продолжает прерванный
+    private boolean resumed;
+
+    private EndOfDayCheckpoint(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Открытие (или создание) контрольной точки за дату.
+     *
+     * @param dir           каталог контрольных точек
+     * @param businessDate  дата закрываемого дня
+     * @param partitionSize текущий размер партиции
+     * @return контрольная точка с прочитанным прогрессом
+     */
+    static EndOfDayCheckpoint open(Path dir, LocalDate businessDate, int partitionSize) throws IOException {
+        Files.createDirectories(dir);
+        Path file = dir.resolve("eod-" + businessDate + ".checkpoint");
+        boolean exists = Files.exists(file);
+        List<String> lines = exists ? Files.readAllLines(file, StandardCharsets.UTF_8) : List.of();
+
+        EndOfDayCheckpoint checkpoint = new EndOfDayCheckpoint(FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND));
+        if (!exists || lines.isEmpty()) {
+            checkpoint.append(HEADER + partitionSize);
+            return checkpoint;
+        }
+
+        // Номера партиций зависят от их размера: чужой журнал применять нельзя
+        if (!lines.get(0).equals(HEADER + partitionSize)) {
+            checkpoint.close();
+            throw new IllegalStateException("Контрольная точка " + file + " создана с другим размером партиции: "
+                    + lines.get(0));
+        }
+        checkpoint.resumed = true;
+        for (String line : lines.subList(1, lines.size())) {
+            if (line.startsWith(DONE)) {
+                checkpoint.completed.add(Integer.parseInt(line.substring(DONE.length())));
+            } else if (line.equals(FINISHED)) {
+                checkpoint.finished = true;
+            }
+        }
+        return checkpoint;
+    }
+
+    boolean isFinished() {
+        return finished;
+    }
+
+    boolean isResumed() {
+        return resumed;
+    }
+
+    boolean isCompleted(int partition) {
+        return completed.contains(partition);
+    }
+
+    int completedCount() {
+        return completed.size();
+    }
+
+    void markCompleted(int partition) {
+        completed.add(partition);
+        append(DONE + partition);
+    }
+
+    void markFinished() {
+        finished = true;
+        append(FINISHED);
+    }
+
+    private synchronized void append(String line) {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap((line + "\n").getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось записать контрольную точку", e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
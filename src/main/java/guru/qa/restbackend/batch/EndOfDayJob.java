@@ -0,0 +1,366 @@
+package guru.qa.restbackend.batch;
+
+import guru.qa.restbackend.domain.*;
+import guru.qa.restbackend.exception.AccountBlockedException;
+import guru.qa.restbackend.exception.BatchAlreadyRunningException;
+import guru.qa.restbackend.exception.InsufficientFundsException;
+import guru.qa.restbackend.monitoring.OnlineLatencyMonitor;
+import guru.qa.restbackend.service.PaymentService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Пакетная задача закрытия дня: начисление процентов на остаток и списание комиссий
+ * по всем активным счетам.
+ * <p>
+ * Активные счета обходятся партициями по диапазонам ID в fork-join пуле с настраиваемым параллелизмом.
+ * ID берутся из колоночной таблицы счетов, поэтому диапазоны без счетов (редкие ID после импорта)
+ * не проходятся вовсе.
+ * После каждой партиции прогресс фиксируется в контрольной точке, так что повторный запуск
+ * за ту же дату продолжает работу с места остановки. Партиция, прерванная посередине, проходится
+ * заново, поэтому при повторном запуске проводка делается, только если такой же проводки за эту дату
+ * еще нет в истории счета. Проводки задачи имеют типы INTEREST и FEE, которые через API не создаются,
+ * так что клиентская операция с похожим описанием за проводку задачи не сойдет. Потоки задачи следят за p99 онлайн-запросов и притормаживают, если он
+ * выходит за бюджет.
+ */
+@Slf4j
+@Component
+public class EndOfDayJob {
+
+    private static final String JOB_NAME = "закрытия дня";
+    private static final String INTEREST_DESCRIPTION = "Начисление процентов за ";
+    private static final String FEE_DESCRIPTION = "Комиссия за обслуживание за ";
+
+    // Как часто (в счетах) поток сверяется с латентностью онлайн-трафика
+    private static final int THROTTLE_CHECK_INTERVAL = 256;
+
+    private final PaymentService paymentService;
+    private final EndOfDayProperties properties;
+    private final OnlineLatencyMonitor latencyMonitor;
+
+    private final ExecutorService launcher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "eod-launcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicReference<Run> currentRun = new AtomicReference<>();
+    private volatile Run lastRun;
+
+    @Autowired
+    public EndOfDayJob(PaymentService paymentService, EndOfDayProperties properties,
+                       OnlineLatencyMonitor latencyMonitor) {
+        this.paymentService = paymentService;
+        this.properties = properties;
+        this.latencyMonitor = latencyMonitor;
+    }
+
+    /**
+     * Запуск по расписанию: закрывается предыдущий календарный день.
+     */
+    @Scheduled(cron = "${bank.eod.cron:-}")
+    public void scheduledRun() {
+        try {
+            start(LocalDate.now().minusDays(1));
+        } catch (BatchAlreadyRunningException e) {
+            log.warn("Пропуск запуска по расписанию: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Асинхронный запуск закрытия дня.
+     *
+     * @param businessDate закрываемая дата
+     * @return прогресс только что запущенной задачи
+     * @throws BatchAlreadyRunningException если задача уже выполняется
+     */
+    public EndOfDayProgress start(LocalDate businessDate) {
+        Run run = new Run(businessDate);
+        if (!currentRun.compareAndSet(null, run)) {
+            throw new BatchAlreadyRunningException(JOB_NAME);
+        }
+        launcher.submit(() -> execute(run));
+        return run.progress();
+    }
+
+    /**
+     * Прогресс текущего или последнего запуска.
+     */
+    public EndOfDayProgress getProgress() {
+        Run run = currentRun.get();
+        if (run == null) {
+            run = lastRun;
+        }
+        return run != null ? run.progress() : EndOfDayProgress.builder().state(BatchJobState.IDLE).build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        launcher.shutdownNow();
+    }
+
+    private void execute(Run run) {
+        ForkJoinPool pool = new ForkJoinPool(properties.getParallelism() > 0 ?
+                properties.getParallelism() : Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+        BatchJobState outcome = BatchJobState.FAILED;
+        try (EndOfDayCheckpoint checkpoint = EndOfDayCheckpoint.open(
+                Paths.get(properties.getCheckpointDir()), run.businessDate, properties.getPartitionSize())) {
+            run.checkpoint = checkpoint;
+            // Счета, открытые после старта задачи, в закрываемый день не попадают
+            run.lastAccountId = paymentService.getLastAccountId();
+            partition(run);
+
+            if (checkpoint.isFinished()) {
+                log.info("Закрытие дня {} уже выполнено, повторный запуск пропущен", run.businessDate);
+            } else {
+                log.info("Закрытие дня {}: {} партиций, {} уже обработано", run.businessDate,
+                        run.totalPartitions, run.resumedPartitions);
+                pool.invoke(new PartitionTask(run, 0, run.totalPartitions - run.resumedPartitions));
+                checkpoint.markFinished();
+            }
+            outcome = BatchJobState.COMPLETED;
+        } catch (Exception e) {
+            run.error = e.getMessage();
+            log.error("Закрытие дня {} прервано, повторный запуск продолжит с контрольной точки",
+                    run.businessDate, e);
+        } finally {
+            pool.shutdownNow();
+            run.finishedNanos = System.nanoTime();
+            lastRun = run;
+            currentRun.set(null);
+            // Итоговое состояние - после освобождения задачи: увидев его, клиент может сразу запустить ее снова
+            run.state = outcome;
+        }
+        if (outcome == BatchJobState.COMPLETED) {
+            log.info("Закрытие дня {} завершено: {}", run.businessDate, run.progress());
+        }
+    }
+
+    /**
+     * Раскладка активных счетов по партициям: партиция P - счета с ID в [P * size + 1, (P + 1) * size].
+     * В задачу попадают только непустые и еще не обработанные партиции.
+     */
+    private void partition(Run run) {
+        int size = properties.getPartitionSize();
+        long[] ids = paymentService.getAccountIdsByStatus(AccountStatus.ACTIVE);
+        int count = 0;
+        // Счета, открытые после старта задачи, в закрываемый день не попадают
+        while (count < ids.length && ids[count] <= run.lastAccountId) {
+            count++;
+        }
+        List<int[]> pending = new ArrayList<>();
+        int total = 0;
+        for (int start = 0; start < count; ) {
+            int partition = (int) ((ids[start] - 1) / size);
+            int end = start;
+            while (end < count && (ids[end] - 1) / size == partition) {
+                end++;
+            }
+            total++;
+            if (!run.checkpoint.isCompleted(partition)) {
+                pending.add(new int[]{partition, start, end});
+            }
+            start = end;
+        }
+        run.accountIds = ids;
+        run.partitions = pending;
+        run.totalPartitions = total;
+        run.resumedPartitions = total - pending.size();
+    }
+
+    /**
+     * Обработка одной партиции из списка непустых.
+     */
+    private void processPartition(Run run, int index) {
+        int[] slice = run.partitions.get(index);
+        for (int i = slice[1]; i < slice[2]; i++) {
+            if ((i - slice[1]) % THROTTLE_CHECK_INTERVAL == 0) {
+                throttle(run);
+            }
+            // Статус в таблице - кандидат: перепроверяется по текущему состоянию счета
+            paymentService.findAccount(run.accountIds[i])
+                    .filter(account -> account.getStatus() == AccountStatus.ACTIVE)
+                    .ifPresent(account -> processAccount(run, account));
+        }
+
+        run.checkpoint.markCompleted(slice[0]);
+        reportProgress(run, run.completedPartitions.incrementAndGet());
+    }
+
+    private void processAccount(Run run, Account account) {
+        run.accountsProcessed.increment();
+        try {
+            String interestDescription = INTEREST_DESCRIPTION + run.businessDate;
+            Optional<BigDecimal> interest = calculateInterest(account, run.businessDate);
+            if (interest.isPresent() && !alreadyPosted(run, account, TransactionType.INTEREST, interestDescription)) {
+                paymentService.postInterest(account.getId(), interest.get(), interestDescription);
+                run.interestPosted.increment();
+            }
+            String feeDescription = FEE_DESCRIPTION + run.businessDate;
+            BigDecimal fee = properties.getMaintenanceFees().get(account.getCurrency());
+            if (fee != null && fee.signum() > 0 && !alreadyPosted(run, account, TransactionType.FEE, feeDescription)) {
+                paymentService.chargeFee(account.getId(), fee, feeDescription);
+                run.feesPosted.increment();
+            }
+        } catch (AccountBlockedException | InsufficientFundsException e) {
+            // Счет заблокировали или опустошили параллельно с задачей - пропускаем
+            run.skipped.increment();
+        }
+    }
+
+    /**
+     * Проводка за дату уже сделана прерванным запуском: ключ проводки - тип задачи и описание с датой.
+     * При первом запуске за дату история не читается.
+     */
+    private boolean alreadyPosted(Run run, Account account, TransactionType type, String description) {
+        if (!run.checkpoint.isResumed()) {
+            return false;
+        }
+        for (Transaction transaction : paymentService.getAccountTransactionsByType(account.getId(), type)) {
+            if (transaction.getStatus() == TransactionStatus.SUCCESS && description.equals(transaction.getDescription())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Дневные проценты на положительный остаток: остаток * ставка / 100 / дней в году,
+     * с банковским округлением до копеек.
+     */
+    private Optional<BigDecimal> calculateInterest(Account account, LocalDate businessDate) {
+        BigDecimal rate = properties.getInterestRates().get(account.getCurrency());
+        if (rate == null || rate.signum() <= 0 || account.getBalance().signum() <= 0) {
+            return Optional.empty();
+        }
+        BigDecimal interest = account.getBalance().multiply(rate)
+                .divide(BigDecimal.valueOf(100L * businessDate.lengthOfYear()), 2, RoundingMode.HALF_EVEN);
+        return interest.signum() > 0 ? Optional.of(interest) : Optional.empty();
+    }
+
+    /**
+     * Пауза, пока p99 онлайн-запросов выше бюджета (но не дольше maxThrottleMs за раз).
+     */
+    private void throttle(Run run) {
+        long budgetMicros = TimeUnit.MILLISECONDS.toMicros(properties.getLatencyBudgetMs());
+        long waited = 0;
+        while (latencyMonitor.getRecentP99Micros() > budgetMicros && waited < properties.getMaxThrottleMs()) {
+            try {
+                Thread.sleep(properties.getThrottlePauseMs());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Закрытие дня прервано");
+            }
+            waited += properties.getThrottlePauseMs();
+        }
+        if (waited > 0) {
+            run.throttledMs.add(waited);
+        }
+    }
+
+    /**
+     * Логирование прогресса на каждых 10% партиций.
+     */
+    private void reportProgress(Run run, int completed) {
+        int total = run.totalPartitions - run.resumedPartitions;
+        if (total > 0 && completed * 10 / total != (completed - 1) * 10 / total) {
+            EndOfDayProgress progress = run.progress();
+            log.info("Закрытие дня {}: {}/{} партиций, {} счетов, {} счетов/с, пауз {} мс",
+                    run.businessDate, progress.getCompletedPartitions(), progress.getTotalPartitions(),
+                    progress.getAccountsProcessed(), progress.getAccountsPerSecond(), progress.getThrottledMs());
+        }
+    }
+
+    /**
+     * Рекурсивное деление диапазона [from, to) списка партиций до одной партиции.
+     */
+    private class PartitionTask extends RecursiveAction {
+        private final Run run;
+        private final int from;
+        private final int to;
+
+        PartitionTask(Run run, int from, int to) {
+            this.run = run;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 1) {
+                if (from < to) {
+                    processPartition(run, from);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new PartitionTask(run, from, middle), new PartitionTask(run, middle, to));
+        }
+    }
+
+    /**
+     * Состояние одного запуска.
+     */
+    private static class Run {
+        final LocalDate businessDate;
+        final LocalDateTime startedAt = LocalDateTime.now();
+        final long startedNanos = System.nanoTime();
+        final AtomicInteger completedPartitions = new AtomicInteger();
+        final LongAdder accountsProcessed = new LongAdder();
+        final LongAdder interestPosted = new LongAdder();
+        final LongAdder feesPosted = new LongAdder();
+        final LongAdder skipped = new LongAdder();
+        final LongAdder throttledMs = new LongAdder();
+
+        volatile EndOfDayCheckpoint checkpoint;
+        volatile long lastAccountId;
+        // Активные счета по возрастанию ID и необработанные партиции: {номер, начало, конец} в accountIds
+        volatile long[] accountIds;
+        volatile List<int[]> partitions;
+        volatile int totalPartitions;
+        volatile int resumedPartitions;
+        volatile BatchJobState state = BatchJobState.RUNNING;
+        volatile String error;
+        volatile long finishedNanos;
+
+        Run(LocalDate businessDate) {
+            this.businessDate = businessDate;
+        }
+
+        EndOfDayProgress progress() {
+            long elapsedNanos = (finishedNanos != 0 ? finishedNanos : System.nanoTime()) - startedNanos;
+            long processed = accountsProcessed.sum();
+            return EndOfDayProgress.builder()
+                    .businessDate(businessDate)
+                    .state(state)
+                    .totalPartitions(totalPartitions)
+                    .completedPartitions(resumedPartitions + completedPartitions.get())
+                    .resumedPartitions(resumedPartitions)
+                    .accountsProcessed(processed)
+                    .interestPosted(interestPosted.sum())
+                    .feesPosted(feesPosted.sum())
+                    .skipped(skipped.sum())
+                    .throttledMs(throttledMs.sum())
+                    .startedAt(startedAt)
+                    .elapsedMs(TimeUnit.NANOSECONDS.toMillis(elapsedNanos))
+                    .accountsPerSecond(elapsedNanos > 0 ? processed * 1_000_000_000L / elapsedNanos : 0)
+                    .error(error)
+                    .build();
+        }
+    }
+}
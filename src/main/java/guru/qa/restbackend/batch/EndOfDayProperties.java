@@ -0,0 +1,67 @@
+package guru.qa.restbackend.batch;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Настройки пакетной задачи закрытия дня (префикс bank.eod).
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "bank.eod")
+public class EndOfDayProperties {
+
+    /**
+     * Расписание запуска (cron). "-" отключает автоматический запуск.
+     */
+    private String cron = "-";
+
+    /**
+     * Число потоков fork-join пула (0 - половина процессоров, минимум 1).
+     */
+    private int parallelism = 0;
+
+    /**
+     * Размер партиции в ID счетов. Партиция - единица параллелизма и контрольной точки.
+     */
+    private int partitionSize = 4096;
+
+    /**
+     * Каталог файлов контрольных точек.
+     */
+    private String checkpointDir = "data/eod";
+
+    /**
+     * Бюджет p99 латентности онлайн-запросов, при превышении задача притормаживает.
+     */
+    private long latencyBudgetMs = 200;
+
+    /**
+     * Пауза между проверками при превышении бюджета.
+     */
+    private long throttlePauseMs = 50;
+
+    /**
+     * Максимальное ожидание за одну проверку: задача не должна останавливаться навсегда.
+     */
+    private long maxThrottleMs = 2000;
+
+    /**
+     * Годовые процентные ставки на остаток по валютам, в процентах.
+     */
+    private Map<String, BigDecimal> interestRates = new HashMap<>(Map.of(
+            "USD", new BigDecimal("1.5"),
+            "EUR", new BigDecimal("1.0"),
+            "RUB", new BigDecimal("8.0")
+    ));
+
+    /**
+     * Ежедневная комиссия за обслуживание по валютам.
+     */
+    private Map<String, BigDecimal> maintenanceFees = new HashMap<>();
+}
@@ -0,0 +1,222 @@
+package guru.qa.restbackend.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import guru.qa.restbackend.domain.Account;
+import guru.qa.restbackend.domain.ResponseCacheStats;
+import guru.qa.restbackend.storage.AccountCommitListener;
+import guru.qa.restbackend.storage.AccountRepository;
+import guru.qa.restbackend.storage.AccountState;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Кэш сериализованных ответов чтения одного счета: готовый JSON счета и баланса,
+ * который контроллер отдает как есть, без повторной сериализации Jackson.
+ * <p>
+ * Запись инвалидируется при каждой фиксации счета в хранилище (все изменяющие операции
+ * PaymentService, пакетные задачи и импорт проходят через фиксацию). Чтобы ответ, собранный
+ * до изменения, не попал в кэш после инвалидации, у полосы счетов есть штамп: инвалидация
+ * увеличивает его и удаляет запись, а заполнение после вставки сверяет штамп, прочитанный
+ * до загрузки счета, и при расхождении убирает свою запись.
+ * <p>
+ * Попадание - поиск в ConcurrentHashMap без блокировок; учет обращения для политики вытеснения
+ * делается только если ее блокировка свободна (при конкуренции обращение теряется, как в буферах
+ * чтения Caffeine). Размер ограничен бюджетом в байтах, порядок вытеснения - {@link EvictionPolicy}.
+ */
+@Component
+public class AccountResponseCache implements AccountCommitListener {
+
+    private static final int ACCOUNT = 0;
+    private static final int BALANCE = 1;
+    private static final int STAMP_STRIPES = 1024;
+    // Узел, ключ в карте и заголовок массива
+    private static final int ENTRY_OVERHEAD = 128;
+    // Средний размер записи для подбора ширины частотного счетчика
+    private static final int EXPECTED_ENTRY_SIZE = 256;
+
+    private final ObjectMapper objectMapper;
+    private final ResponseCacheProperties properties;
+    private final ObjectProvider<AccountRepository> accountStore;
+
+    private final Map<Long, EvictionPolicy.Node> entries = new ConcurrentHashMap<>();
+    private final AtomicLongArray stamps = new AtomicLongArray(STAMP_STRIPES);
+    private final ReentrantLock policyLock = new ReentrantLock();
+    private final EvictionPolicy policy;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    @Autowired
+    public AccountResponseCache(ObjectMapper objectMapper, ResponseCacheProperties properties,
+                                ObjectProvider<AccountRepository> accountStore) {
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        // Хранилище само уведомляет кэш о фиксациях, поэтому берется лениво
+        this.accountStore = accountStore;
+        long maxBytes = properties.getMaxSize().toBytes();
+        this.policy = new EvictionPolicy(properties.getEviction(), maxBytes, maxBytes / EXPECTED_ENTRY_SIZE);
+    }
+
+    /**
+     * JSON текущего состояния счета.
+     *
+     * @param accountId ID счета
+     * @param loader    загрузка счета при промахе (исключения пробрасываются и не кэшируются)
+     * @return сериализованный счет
+     */
+    public byte[] account(Long accountId, Supplier<Account> loader) {
+        return get(accountId, ACCOUNT, loader);
+    }
+
+    /**
+     * JSON текущего баланса счета.
+     *
+     * @param accountId ID счета
+     * @param loader    загрузка баланса при промахе
+     * @return сериализованный баланс
+     */
+    public byte[] balance(Long accountId, Supplier<BigDecimal> loader) {
+        return get(accountId, BALANCE, loader);
+    }
+
+    @Override
+    public void committed(AccountState previous, AccountState current) {
+        if (previous != null && properties.isEnabled()) {
+            invalidate(current.getId());
+        }
+    }
+
+    /**
+     * Удаление всех ответов по счету.
+     */
+    public void invalidate(long accountId) {
+        stamps.incrementAndGet(stripe(accountId));
+        invalidations.increment();
+        discard(entries.remove(key(accountId, ACCOUNT)));
+        discard(entries.remove(key(accountId, BALANCE)));
+    }
+
+    public ResponseCacheStats getStats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long size;
+        long weight;
+        long rejections;
+        policyLock.lock();
+        try {
+            size = policy.size();
+            weight = policy.weight();
+            rejections = policy.rejections();
+        } finally {
+            policyLock.unlock();
+        }
+        return ResponseCacheStats.builder()
+                .enabled(properties.isEnabled())
+                .eviction(properties.getEviction())
+                .entries(size)
+                .bytes(weight)
+                .maxBytes(properties.getMaxSize().toBytes())
+                .hits(hitCount)
+                .misses(missCount)
+                .hitRate(hitCount + missCount > 0 ? (double) hitCount / (hitCount + missCount) : 0)
+                .evictions(evictions.sum())
+                .admissionRejections(rejections)
+                .invalidations(invalidations.sum())
+                .build();
+    }
+
+    private byte[] get(long accountId, int kind, Supplier<?> loader) {
+        if (!properties.isEnabled()) {
+            return serialize(loader.get());
+        }
+        long key = key(accountId, kind);
+        EvictionPolicy.Node node = entries.get(key);
+        if (node != null) {
+            hits.increment();
+            if (policyLock.tryLock()) {
+                try {
+                    policy.onAccess(node);
+                } finally {
+                    policyLock.unlock();
+                }
+            }
+            return node.bytes;
+        }
+
+        misses.increment();
+        int stripe = stripe(accountId);
+        long stamp = stamps.get(stripe);
+        byte[] bytes = serialize(loader.get());
+        // Баланс счета в режиме полос читается из снимка, который может отставать от инвалидации
+        if (!accountStore.getObject().isStriped(accountId)) {
+            admit(new EvictionPolicy.Node(key, accountId, bytes, bytes.length + ENTRY_OVERHEAD), stripe, stamp);
+        }
+        return bytes;
+    }
+
+    private void admit(EvictionPolicy.Node node, int stripe, long stamp) {
+        if (stamps.get(stripe) != stamp) {
+            return;
+        }
+        policyLock.lock();
+        try {
+            if (entries.putIfAbsent(node.key, node) != null) {
+                return;
+            }
+            if (!policy.add(node, this::evict)) {
+                entries.remove(node.key, node);
+                return;
+            }
+        } finally {
+            policyLock.unlock();
+        }
+        // Инвалидация могла пройти между проверкой штампа и вставкой: тогда запись устарела
+        if (stamps.get(stripe) != stamp && entries.remove(node.key, node)) {
+            discard(node);
+        }
+    }
+
+    private void evict(EvictionPolicy.Node node) {
+        entries.remove(node.key, node);
+        evictions.increment();
+    }
+
+    private void discard(EvictionPolicy.Node node) {
+        if (node != null) {
+            policyLock.lock();
+            try {
+                policy.remove(node);
+            } finally {
+                policyLock.unlock();
+            }
+        }
+    }
+
+    private byte[] serialize(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Не удалось сериализовать ответ", e);
+        }
+    }
+
+    private static long key(long accountId, int kind) {
+        return accountId << 1 | kind;
+    }
+
+    private static int stripe(long accountId) {
+        return (int) (accountId ^ accountId >>> 32) & (STAMP_STRIPES - 1);
+    }
+}
@@ -0,0 +1,227 @@
+package guru.qa.restbackend.cache;
+
+import guru.qa.restbackend.domain.CacheEvictionPolicy;
+
+import java.util.function.Consumer;
+
+/**
+ * Порядок вытеснения записей кэша с учетом их размера в байтах. Не потокобезопасен -
+ * все вызовы выполняются под блокировкой владельца.
+ * <p>
+ * W-TinyLFU: новые записи попадают в небольшое окно LRU (1% бюджета), вытесненные из окна -
+ * в испытательный сегмент основной части, повторное обращение переводит запись в защищенный
+ * сегмент (80% основной части). При переполнении кандидат из окна соревнуется с жертвой
+ * испытательного сегмента по оценке частоты {@link FrequencySketch}: редкие разовые чтения
+ * (например, обход всех счетов) не вымывают из кэша постоянно читаемые счета.
+ * В режиме LRU окно занимает весь бюджет, а фильтр допуска не используется.
+ */
+class EvictionPolicy {
+
+    private static final int NONE = 0;
+    private static final int WINDOW = 1;
+    private static final int PROBATION = 2;
+    private static final int PROTECTED = 3;
+
+    private final long maximum;
+    private final long windowMaximum;
+    private final long protectedMaximum;
+    private final FrequencySketch sketch;
+
+    private final Queue window = new Queue();
+    private final Queue probation = new Queue();
+    private final Queue protectedQueue = new Queue();
+
+    private long rejections;
+
+    EvictionPolicy(CacheEvictionPolicy type, long maximum, long expectedEntries) {
+        this.maximum = maximum;
+        if (type == CacheEvictionPolicy.TINY_LFU) {
+            this.windowMaximum = Math.max(1, maximum / 100);
+            this.protectedMaximum = (maximum - windowMaximum) * 8 / 10;
+            this.sketch = new FrequencySketch(expectedEntries);
+        } else {
+            this.windowMaximum = maximum;
+            this.protectedMaximum = 0;
+            this.sketch = null;
+        }
+    }
+
+    /**
+     * Добавление новой записи.
+     *
+     * @param node    запись
+     * @param evicted получатель вытесненных записей (их нужно удалить из карты кэша)
+     * @return false, если запись больше всего бюджета и не добавлена
+     */
+    boolean add(Node node, Consumer<Node> evicted) {
+        if (node.weight > maximum) {
+            return false;
+        }
+        if (sketch != null) {
+            sketch.increment(node.key);
+        }
+        window.addLast(node, WINDOW);
+        while (window.weight > windowMaximum) {
+            Node candidate = window.first;
+            window.remove(candidate);
+            if (sketch == null) {
+                evicted.accept(candidate);
+            } else {
+                probation.addLast(candidate, PROBATION);
+            }
+        }
+        while (weight() > maximum) {
+            evicted.accept(evictFromMain());
+        }
+        return true;
+    }
+
+    /**
+     * Учет обращения к записи.
+     */
+    void onAccess(Node node) {
+        if (sketch != null) {
+            sketch.increment(node.key);
+        }
+        switch (node.queue) {
+            case WINDOW:
+                window.moveToBack(node);
+                break;
+            case PROBATION:
+                probation.remove(node);
+                protectedQueue.addLast(node, PROTECTED);
+                while (protectedQueue.weight > protectedMaximum) {
+                    Node demoted = protectedQueue.first;
+                    protectedQueue.remove(demoted);
+                    probation.addLast(demoted, PROBATION);
+                }
+                break;
+            case PROTECTED:
+                protectedQueue.moveToBack(node);
+                break;
+            default:
+                // Запись уже удалена
+        }
+    }
+
+    /**
+     * Удаление записи (инвалидация). Повторное удаление ничего не делает.
+     */
+    void remove(Node node) {
+        switch (node.queue) {
+            case WINDOW:
+                window.remove(node);
+                break;
+            case PROBATION:
+                probation.remove(node);
+                break;
+            case PROTECTED:
+                protectedQueue.remove(node);
+                break;
+            default:
+        }
+    }
+
+    long weight() {
+        return window.weight + probation.weight + protectedQueue.weight;
+    }
+
+    long size() {
+        return window.size + probation.size + protectedQueue.size;
+    }
+
+    /**
+     * Сколько раз новый кандидат проиграл жертве по частоте и не был допущен в основную часть.
+     */
+    long rejections() {
+        return rejections;
+    }
+
+    /**
+     * Выбор жертвы в основной части: самый старый элемент испытательного сегмента против самого
+     * нового (только что вытесненного из окна) - остается тот, к кому обращались чаще.
+     */
+    private Node evictFromMain() {
+        Node victim = probation.first;
+        Node candidate = probation.last;
+        if (victim == null) {
+            victim = protectedQueue.first != null ? protectedQueue.first : window.first;
+        } else if (candidate != victim && sketch.frequency(candidate.key) <= sketch.frequency(victim.key)) {
+            rejections++;
+            victim = candidate;
+        }
+        remove(victim);
+        return victim;
+    }
+
+    /**
+     * Запись кэша: ключ, сериализованный ответ и ссылки на соседей в очереди политики.
+     */
+    static final class Node {
+        final long key;
+        final long accountId;
+        final byte[] bytes;
+        final long weight;
+
+        Node previous;
+        Node next;
+        int queue = NONE;
+
+        Node(long key, long accountId, byte[] bytes, long weight) {
+            this.key = key;
+            this.accountId = accountId;
+            this.bytes = bytes;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * Двусвязная очередь записей с суммарным весом.
+     */
+    private static final class Queue {
+        Node first;
+        Node last;
+        long weight;
+        long size;
+
+        void addLast(Node node, int queue) {
+            node.queue = queue;
+            node.previous = last;
+            node.next = null;
+            if (last == null) {
+                first = node;
+            } else {
+                last.next = node;
+            }
+            last = node;
+            weight += node.weight;
+            size++;
+        }
+
+        void remove(Node node) {
+            if (node.previous == null) {
+                first = node.next;
+            } else {
+                node.previous.next = node.next;
+            }
+            if (node.next == null) {
+                last = node.previous;
+            } else {
+                node.next.previous = node.previous;
+            }
+            node.previous = null;
+            node.next = null;
+            node.queue = NONE;
+            weight -= node.weight;
+            size--;
+        }
+
+        void moveToBack(Node node) {
+            if (node != last) {
+                int queue = node.queue;
+                remove(node);
+                addLast(node, queue);
+            }
+        }
+    }
+}
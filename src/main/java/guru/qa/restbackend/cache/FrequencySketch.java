@@ -0,0 +1,69 @@
+package guru.qa.restbackend.cache;
+
+/**
+ * Приблизительный счетчик частоты обращений к ключам (count-min sketch) для фильтра допуска TinyLFU.
+ * <p>
+ * Четыре строки 4-битных счетчиков (насыщение на 15). Когда число инкрементов достигает
+ * 10 * ширина, все счетчики делятся пополам: старая популярность затухает, и ключ, который был
+ * горячим вчера, не удерживает место вечно. Не потокобезопасен - вызывается под блокировкой политики.
+ */
+class FrequencySketch {
+
+    private static final int ROWS = 4;
+    private static final int MAX_COUNT = 15;
+    private static final long[] SEEDS = {
+            0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L};
+
+    private final byte[] counters;
+    private final int mask;
+    private final int sampleSize;
+    private int increments;
+
+    /**
+     * @param expectedKeys ожидаемое число ключей в кэше (ширина строки округляется до степени двойки)
+     */
+    FrequencySketch(long expectedKeys) {
+        int width = Integer.highestOneBit((int) Math.max(1024, Math.min(1 << 22, expectedKeys)) * 2 - 1);
+        counters = new byte[ROWS * width];
+        mask = width - 1;
+        sampleSize = 10 * width;
+    }
+
+    /**
+     * Оценка частоты ключа: минимум по строкам.
+     */
+    int frequency(long key) {
+        int frequency = MAX_COUNT;
+        for (int row = 0; row < ROWS; row++) {
+            frequency = Math.min(frequency, counters[index(key, row)]);
+        }
+        return frequency;
+    }
+
+    void increment(long key) {
+        boolean added = false;
+        for (int row = 0; row < ROWS; row++) {
+            int index = index(key, row);
+            if (counters[index] < MAX_COUNT) {
+                counters[index]++;
+                added = true;
+            }
+        }
+        if (added && ++increments >= sampleSize) {
+            reset();
+        }
+    }
+
+    private void reset() {
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = (byte) (counters[i] >>> 1);
+        }
+        increments /= 2;
+    }
+
+    private int index(long key, int row) {
+        long hash = (key + SEEDS[row]) * SEEDS[(row + 1) & (ROWS - 1)];
+        hash ^= hash >>> 32;
+        return row * (mask + 1) + ((int) hash & mask);
+    }
+}
@@ -0,0 +1,31 @@
+package guru.qa.restbackend.cache;
+
+import guru.qa.restbackend.domain.CacheEvictionPolicy;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Настройки кэша сериализованных ответов по счетам (префикс bank.cache.accounts).
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "bank.cache.accounts")
+public class ResponseCacheProperties {
+
+    /**
+     * Включить кэш ответов GET /account/{id} и /account/{id}/balance.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Бюджет кэша: сумма размеров JSON и служебных данных записей.
+     */
+    private DataSize maxSize = DataSize.ofMegabytes(64);
+
+    /**
+     * Политика вытеснения: LRU или W-TinyLFU (окно LRU + частотный фильтр допуска в основную часть).
+     */
+    private CacheEvictionPolicy eviction = CacheEvictionPolicy.TINY_LFU;
+}
@@ -0,0 +1,138 @@
+package guru.qa.restbackend.capture;
+
+import guru.qa.restbackend.domain.Account;
+import guru.qa.restbackend.domain.AccountStatus;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static guru.qa.restbackend.capture.CaptureFormat.*;
+
+/**
+ * Чтение файла записи трафика: запросы по одному в порядке записи (завершения), затем итоговое
+ * состояние счетов. Оборванный файл читается до последней полной пачки.
+ */
+public class CaptureFileReader implements Closeable {
+
+    private final DataInputStream in;
+    private final Instant startedAt;
+    private final List<Account> finalAccounts = new ArrayList<>();
+    private long previousStartMicros;
+    private boolean complete;
+    private boolean ended;
+
+    public CaptureFileReader(Path path) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(path), 1 << 16)));
+        if (in.readInt() != MAGIC) {
+            in.close();
+            throw new IOException(path + " не является файлом записи трафика");
+        }
+        byte version = in.readByte();
+        if (version != VERSION) {
+            in.close();
+            throw new IOException("Неподдерживаемая версия файла записи трафика: " + version);
+        }
+        this.startedAt = Instant.ofEpochMilli(in.readLong());
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    /**
+     * Следующий запрос.
+     *
+     * @return запрос или null, если запросы закончились
+     */
+    public CapturedRequest next() throws IOException {
+        while (!ended) {
+            byte type;
+            try {
+                type = in.readByte();
+                switch (type) {
+                    case REQUEST:
+                        return readRequest();
+                    case ACCOUNT:
+                        finalAccounts.add(readAccount());
+                        break;
+                    case END:
+                        readVarLong(in);
+                        complete = true;
+                        ended = true;
+                        break;
+                    default:
+                        throw new IOException("Неизвестный тип записи в файле трафика: " + type);
+                }
+            } catch (EOFException e) {
+                // Запись не была остановлена штатно
+                ended = true;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Завершена ли запись штатно (файл дочитан до маркера конца).
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Состояние счетов после остановки записи; доступно, когда {@link #next()} вернул null
+     * и {@link #isComplete()}.
+     */
+    public List<Account> getFinalAccounts() {
+        return finalAccounts;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private CapturedRequest readRequest() throws IOException {
+        long start = previousStartMicros + readSignedVarLong(in);
+        previousStartMicros = start;
+        long duration = readVarLong(in);
+        byte method = in.readByte();
+        String methodName = method == OTHER_METHOD ? in.readUTF() : METHODS[method];
+        String path = in.readUTF();
+        int status = (int) readVarLong(in);
+        byte[] body = new byte[(int) readVarLong(in)];
+        in.readFully(body);
+        return CapturedRequest.builder()
+                .startMicros(start)
+                .durationMicros(duration)
+                .method(methodName)
+                .path(path)
+                .status(status)
+                .body(body)
+                .build();
+    }
+
+    private Account readAccount() throws IOException {
+        long id = readVarLong(in);
+        AccountStatus status = AccountStatus.values()[in.readByte()];
+        int scale = in.readByte();
+        byte[] unscaled = new byte[in.readUnsignedByte()];
+        in.readFully(unscaled);
+        return Account.builder()
+                .id(id)
+                .status(status)
+                .balance(new BigDecimal(new BigInteger(unscaled), scale))
+                .currency(in.readUTF())
+                .build();
+    }
+}
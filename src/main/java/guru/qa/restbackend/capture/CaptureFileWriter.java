@@ -0,0 +1,91 @@
+package guru.qa.restbackend.capture;
+
+import guru.qa.restbackend.domain.Account;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+
+import static guru.qa.restbackend.capture.CaptureFormat.*;
+
+/**
+ * Запись файла трафика в формате {@link CaptureFormat}. Каждая пачка завершается SYNC_FLUSH
+ * gzip-потока, поэтому оборванный файл читается до последней пачки. Используется только потоком-писателем.
+ */
+class CaptureFileWriter implements Closeable {
+
+    private final FileOutputStream file;
+    private final DataOutputStream out;
+    private long previousStartMicros;
+    private long requests;
+
+    CaptureFileWriter(Path path, long startedAtMillis) throws IOException {
+        this.file = new FileOutputStream(path.toFile());
+        this.out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(file, 1 << 16, true), 1 << 16));
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeLong(startedAtMillis);
+    }
+
+    void append(CapturedRequest request) throws IOException {
+        out.writeByte(REQUEST);
+        writeSignedVarLong(out, request.getStartMicros() - previousStartMicros);
+        previousStartMicros = request.getStartMicros();
+        writeVarLong(out, request.getDurationMicros());
+        byte method = methodIndex(request.getMethod());
+        out.writeByte(method);
+        if (method == OTHER_METHOD) {
+            out.writeUTF(request.getMethod());
+        }
+        out.writeUTF(request.getPath());
+        writeVarLong(out, request.getStatus());
+        writeVarLong(out, request.getBody().length);
+        out.write(request.getBody());
+        requests++;
+    }
+
+    void append(Account account) throws IOException {
+        out.writeByte(ACCOUNT);
+        writeVarLong(out, account.getId());
+        out.writeByte(account.getStatus().ordinal());
+        BigDecimal balance = account.getBalance();
+        byte[] unscaled = balance.unscaledValue().toByteArray();
+        out.writeByte(balance.scale());
+        out.writeByte(unscaled.length);
+        out.write(unscaled);
+        out.writeUTF(account.getCurrency());
+    }
+
+    /**
+     * Фиксация пачки: сброс сжатого потока в файл.
+     */
+    void commit() throws IOException {
+        out.flush();
+    }
+
+    /**
+     * Размер сжатого файла на момент последней фиксации.
+     */
+    long size() throws IOException {
+        return file.getChannel().position();
+    }
+
+    /**
+     * Завершение записи: маркер конца с числом запросов и закрытие файла.
+     */
+    void finish() throws IOException {
+        out.writeByte(END);
+        writeVarLong(out, requests);
+        out.close();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
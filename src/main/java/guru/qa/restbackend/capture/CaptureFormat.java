@@ -0,0 +1,74 @@
+package guru.qa.restbackend.capture;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Двоичный формат файла записи трафика (сжат gzip).
+ * <p>
+ * Заголовок: MAGIC, VERSION, время начала записи (epoch millis). Далее записи с байтом-типом:
+ * <ul>
+ *     <li>REQUEST - начало запроса как разница с началом предыдущего записанного (zigzag varint, мкс;
+ *     записи идут в порядке завершения, поэтому разница бывает отрицательной), длительность (varint, мкс),
+ *     метод (индекс в METHODS или OTHER_METHOD и строка), путь с query, статус ответа (varint),
+ *     длина тела (varint) и тело;</li>
+ *     <li>ACCOUNT - итоговое состояние счета после остановки записи: ID (varint), статус, масштаб и
+ *     unscaled-значение баланса, валюта;</li>
+ *     <li>END - число записанных запросов (varint). Без END запись оборвана (процесс не был остановлен
+ *     штатно), итогового состояния в ней нет.</li>
+ * </ul>
+ */
+final class CaptureFormat {
+
+    static final int MAGIC = 0x42435031; // "BCP1"
+    static final byte VERSION = 1;
+
+    static final byte REQUEST = 1;
+    static final byte ACCOUNT = 2;
+    static final byte END = 3;
+
+    static final String[] METHODS = {"GET", "POST", "PUT", "PATCH", "DELETE"};
+    static final byte OTHER_METHOD = -1;
+
+    private CaptureFormat() {
+    }
+
+    static void writeVarLong(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    static long readVarLong(DataInput in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Некорректное varint-значение в файле записи");
+    }
+
+    static void writeSignedVarLong(DataOutput out, long value) throws IOException {
+        writeVarLong(out, (value << 1) ^ (value >> 63));
+    }
+
+    static long readSignedVarLong(DataInput in) throws IOException {
+        long value = readVarLong(in);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static byte methodIndex(String method) {
+        for (int i = 0; i < METHODS.length; i++) {
+            if (METHODS[i].equals(method)) {
+                return (byte) i;
+            }
+        }
+        return OTHER_METHOD;
+    }
+}
@@ -0,0 +1,43 @@
+package guru.qa.restbackend.capture;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Настройки записи трафика контроллера счетов (префикс bank.capture).
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "bank.capture")
+public class CaptureProperties {
+
+    /**
+     * Записывать запросы /account/** с момента запуска.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Каталог файлов записи.
+     */
+    private String dir = "data/capture";
+
+    /**
+     * Емкость очереди записанных запросов (округляется вверх до степени двойки).
+     * При переполнении запрос не записывается и учитывается как отброшенный.
+     */
+    private int queueCapacity = 65_536;
+
+    /**
+     * Максимальный размер тела запроса; запросы с телом больше не записываются.
+     */
+    private DataSize maxBodySize = DataSize.ofKilobytes(64);
+
+    /**
+     * Как часто писатель проверяет пустую очередь.
+     */
+    private Duration flushInterval = Duration.ofMillis(10);
+}
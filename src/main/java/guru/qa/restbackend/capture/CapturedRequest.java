@@ -0,0 +1,23 @@
+package guru.qa.restbackend.capture;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Записанный запрос: время начала и длительность относительно начала записи, эндпоинт, тело
+ * и статус ответа. Заголовки (в том числе токен сессии) не записываются.
+ */
+@Value
+@Builder
+public class CapturedRequest {
+    long startMicros;
+    long durationMicros;
+    String method;
+    String path;
+    int status;
+    byte[] body;
+
+    public long getEndMicros() {
+        return startMicros + durationMicros;
+    }
+}
@@ -0,0 +1,189 @@
+package guru.qa.restbackend.capture;
+
+import guru.qa.restbackend.audit.MpscRingBuffer;
+import guru.qa.restbackend.domain.Account;
+import guru.qa.restbackend.domain.CaptureStats;
+import guru.qa.restbackend.service.PaymentService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Запись трафика контроллера счетов для последующего воспроизведения на чистом экземпляре.
+ * <p>
+ * Запись идет с запуска (bank.capture.enabled), поэтому начальное состояние - то же, что у свежего
+ * экземпляра с той же конфигурацией. Как и в журнале аудита, поток запроса только кладет запись в
+ * lock-free очередь; поток-писатель пачками кодирует их в файл (см. {@link CaptureFormat}).
+ * При остановке (POST /diagnostics/capture/stop или завершение процесса) писатель дописывает очередь
+ * и итоговое состояние счетов, с которым инструмент воспроизведения сверяет результат. Для точной сверки
+ * трафик перед остановкой должен быть погашен: запросы, завершившиеся после остановки, не записываются.
+ */
+@Slf4j
+@Component
+public class TrafficCapture {
+
+    private static final int MAX_BATCH_SIZE = 4096;
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final CaptureProperties properties;
+    private final PaymentService paymentService;
+
+    private final LongAdder captured = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder oversized = new LongAdder();
+    // Пишутся только потоком-писателем
+    private volatile long written;
+    private volatile long bytes;
+    private volatile boolean finished;
+
+    private MpscRingBuffer<CapturedRequest> queue;
+    private Path file;
+    private LocalDateTime startedAt;
+    private long startNanos;
+    private Thread writer;
+    private volatile boolean running;
+
+    @Autowired
+    public TrafficCapture(CaptureProperties properties, PaymentService paymentService) {
+        this.properties = properties;
+        this.paymentService = paymentService;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        Path dir = Paths.get(properties.getDir());
+        Files.createDirectories(dir);
+        startedAt = LocalDateTime.now();
+        file = dir.resolve("capture-" + FILE_TIME.format(startedAt) + ".bcap.gz");
+        CaptureFileWriter fileWriter = new CaptureFileWriter(file,
+                startedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        queue = new MpscRingBuffer<>(properties.getQueueCapacity());
+        startNanos = System.nanoTime();
+        running = true;
+        writer = new Thread(() -> writeLoop(fileWriter), "capture-writer");
+        writer.setDaemon(true);
+        writer.start();
+        log.info("Запись трафика /account/** в {}", file);
+    }
+
+    /**
+     * Остановка записи: писатель дописывает очередь, итоговое состояние счетов и маркер конца.
+     * Повторный вызов ничего не делает.
+     */
+    @PreDestroy
+    public synchronized void stop() throws InterruptedException {
+        if (writer == null || !running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(writer);
+        writer.join(TimeUnit.SECONDS.toMillis(30));
+    }
+
+    public boolean isCapturing() {
+        return running;
+    }
+
+    /**
+     * Запись завершенного запроса (поток запроса, без ожидания).
+     *
+     * @param startNanos  System.nanoTime() начала обработки
+     * @param endNanos    System.nanoTime() завершения
+     * @param method      HTTP-метод
+     * @param path        путь с query
+     * @param status      статус ответа
+     * @param body        тело запроса
+     */
+    public void record(long startNanos, long endNanos, String method, String path, int status, byte[] body) {
+        if (!running) {
+            return;
+        }
+        if (body.length >= properties.getMaxBodySize().toBytes()) {
+            oversized.increment();
+            return;
+        }
+        CapturedRequest request = CapturedRequest.builder()
+                .startMicros(TimeUnit.NANOSECONDS.toMicros(startNanos - this.startNanos))
+                .durationMicros(TimeUnit.NANOSECONDS.toMicros(endNanos - startNanos))
+                .method(method)
+                .path(path)
+                .status(status)
+                .body(body)
+                .build();
+        if (queue.offer(request)) {
+            captured.increment();
+        } else {
+            dropped.increment();
+        }
+    }
+
+    public CaptureStats getStats() {
+        return CaptureStats.builder()
+                .capturing(running)
+                .file(file != null ? file.toString() : null)
+                .startedAt(startedAt)
+                .captured(captured.sum())
+                .dropped(dropped.sum())
+                .oversized(oversized.sum())
+                .written(written)
+                .bytes(bytes)
+                .queueDepth(queue != null ? queue.size() : 0)
+                .finished(finished)
+                .build();
+    }
+
+    private void writeLoop(CaptureFileWriter fileWriter) {
+        List<CapturedRequest> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        long idleNanos = properties.getFlushInterval().toNanos();
+        try {
+            while (running || queue.size() > 0) {
+                batch.clear();
+                queue.drain(batch::add, MAX_BATCH_SIZE);
+                if (batch.isEmpty()) {
+                    LockSupport.parkNanos(idleNanos);
+                    continue;
+                }
+                for (CapturedRequest request : batch) {
+                    fileWriter.append(request);
+                }
+                fileWriter.commit();
+                written += batch.size();
+                bytes = fileWriter.size();
+            }
+            for (Account account : paymentService.getAllAccounts()) {
+                fileWriter.append(account);
+            }
+            fileWriter.finish();
+            bytes = Files.size(file);
+            finished = true;
+            log.info("Запись трафика завершена: {} запросов, {} байт, отброшено {}", written, bytes, dropped.sum());
+        } catch (IOException | RuntimeException e) {
+            // Записанное до ошибки остается читаемым, но без итогового состояния
+            running = false;
+            log.error("Запись трафика прервана", e);
+            try {
+                fileWriter.close();
+            } catch (IOException closeError) {
+                log.error("Не удалось закрыть файл записи трафика", closeError);
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package guru.qa.restbackend.capture;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingRequestWrapper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Передача запросов в {@link TrafficCapture}. Тело берется из копии, которую накапливает обертка
+ * запроса по мере чтения конвертером, без повторного разбора. Пока запись выключена, фильтр ничего не делает.
+ * Пути задаются при регистрации (см. WebMvcConfig).
+ */
+@Component
+public class TrafficCaptureFilter extends OncePerRequestFilter {
+
+    private final TrafficCapture capture;
+    private final CaptureProperties properties;
+
+    @Autowired
+    public TrafficCaptureFilter(TrafficCapture capture, CaptureProperties properties) {
+        this.capture = capture;
+        this.properties = properties;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (!capture.isCapturing()) {
+            chain.doFilter(request, response);
+            return;
+        }
+        ContentCachingRequestWrapper recorded = new ContentCachingRequestWrapper(request,
+                (int) properties.getMaxBodySize().toBytes());
+        long start = System.nanoTime();
+        try {
+            chain.doFilter(recorded, response);
+        } finally {
+            String query = request.getQueryString();
+            capture.record(start, System.nanoTime(), request.getMethod(),
+                    query != null ? request.getRequestURI() + "?" + query : request.getRequestURI(),
+                    response.getStatus(), recorded.getContentAsByteArray());
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package guru.qa.restbackend.config;
+
+import guru.qa.restbackend.audit.AuditInterceptor;
+import guru.qa.restbackend.capture.TrafficCaptureFilter;
+import guru.qa.restbackend.monitoring.OnlineLatencyMonitor;
+import guru.qa.restbackend.monitoring.RequestTimingAdvice;
+import guru.qa.restbackend.monitoring.RequestTimingFilter;
+import guru.qa.restbackend.security.SessionTokenInterceptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Регистрация перехватчиков и фильтров Spring MVC.
+ */
+@Configuration
+public class WebMvcConfig implements WebMvcConfigurer {
+
+    private final OnlineLatencyMonitor onlineLatencyMonitor;
+    private final AuditInterceptor auditInterceptor;
+    private final SessionTokenInterceptor sessionTokenInterceptor;
+    private final RequestTimingAdvice requestTimingAdvice;
+
+    @Autowired
+    public WebMvcConfig(OnlineLatencyMonitor onlineLatencyMonitor, AuditInterceptor auditInterceptor,
+                        SessionTokenInterceptor sessionTokenInterceptor, RequestTimingAdvice requestTimingAdvice) {
+        this.onlineLatencyMonitor = onlineLatencyMonitor;
+        this.auditInterceptor = auditInterceptor;
+        this.sessionTokenInterceptor = sessionTokenInterceptor;
+        this.requestTimingAdvice = requestTimingAdvice;
+    }
+
+    /**
+     * Замер фаз онлайн-запросов (Server-Timing и гистограммы /stats/latency). Фильтр стоит первым,
+     * чтобы общее время включало все остальные фильтры.
+     */
+    @Bean
+    public FilterRegistrationBean<RequestTimingFilter> requestTimingFilterRegistration(RequestTimingFilter filter) {
+        FilterRegistrationBean<RequestTimingFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.addUrlPatterns("/account/*", "/user/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    /**
+     * Запись трафика контроллера счетов (bank.capture.enabled). Стоит сразу после замера фаз, чтобы
+     * в записанное время вошли остальные фильтры.
+     */
+    @Bean
+    public FilterRegistrationBean<TrafficCaptureFilter> trafficCaptureFilterRegistration(TrafficCaptureFilter filter) {
+        FilterRegistrationBean<TrafficCaptureFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.addUrlPatterns("/account/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registration;
+    }
+
+    @Override
+    public void extendHandlerExceptionResolvers(List<HandlerExceptionResolver> resolvers) {
+        // Первым в цепочке: только отмечает начало обработки исключения
+        resolvers.add(0, requestTimingAdvice);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // Онлайн-трафик клиентов: по нему фоновые задачи оценивают свое влияние
+        registry.addInterceptor(onlineLatencyMonitor)
+                .addPathPatterns("/account/**", "/user/**");
+        // Журнал аудита всех вызовов контроллера счетов
+        registry.addInterceptor(auditInterceptor)
+                .addPathPatterns("/account/**");
+        // Токен сессии проверяется после аудита, чтобы отказы в доступе тоже попадали в журнал
+        registry.addInterceptor(sessionTokenInterceptor)
+                .addPathPatterns("/account/**");
+    }
+}
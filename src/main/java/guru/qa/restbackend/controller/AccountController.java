@@ -1,15 +1,19 @@
 package guru.qa.restbackend.controller;
 
+import guru.qa.restbackend.cache.AccountResponseCache;
 import guru.qa.restbackend.domain.*;
 import guru.qa.restbackend.service.PaymentService;
 import io.swagger.annotations.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -20,11 +24,16 @@ import java.util.List;
 @Api(tags = "Account Management", description = "Управление банковскими счетами")
 public class AccountController {
 
+    // Номер снимка, на котором выполнено чтение: его можно передать в ?asOf= для повторяемого чтения
+    private static final String LEDGER_SEQUENCE_HEADER = "X-Ledger-Sequence";
+
     private final PaymentService paymentService;
+    private final AccountResponseCache responseCache;
 
     @Autowired
-    public AccountController(PaymentService paymentService) {
+    public AccountController(PaymentService paymentService, AccountResponseCache responseCache) {
         this.paymentService = paymentService;
+        this.responseCache = responseCache;
     }
 
     /**
@@ -51,18 +60,28 @@ public class AccountController {
      * GET /account/{id}
      */
     @GetMapping("/{id}")
-    @ApiOperation(value = "Получить счет", notes = "Возвращает информацию о счете по его ID")
+    @ApiOperation(value = "Получить счет", notes = "Возвращает информацию о счете по его ID (с asOf - на момент снимка)")
     @ApiResponses({
             @ApiResponse(code = 200, message = "Счет успешно получен", response = Account.class),
             @ApiResponse(code = 404, message = "Счет с указанным ID не найден", response = ErrorResponse.class),
+            @ApiResponse(code = 410, message = "Снимок с указанным номером недоступен", response = ErrorResponse.class),
             @ApiResponse(code = 500, message = "Внутренняя ошибка сервера", response = ErrorResponse.class)
     })
-    public ResponseEntity<Account> getAccount(
+    public ResponseEntity<?> getAccount(
             @ApiParam(value = "ID счета", required = true, example = "1")
-            @PathVariable Long id) {
+            @PathVariable Long id,
+            @ApiParam(value = "Номер снимка из заголовка X-Ledger-Sequence", example = "42")
+            @RequestParam(required = false) Long asOf) {
 
-        Account account = paymentService.getAccount(id);
-        return ResponseEntity.ok(account);
+        if (asOf == null) {
+            // Текущее состояние отдается готовым JSON из кэша ответов
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(responseCache.account(id, () -> paymentService.getAccount(id)));
+        }
+        return ResponseEntity.ok()
+                .header(LEDGER_SEQUENCE_HEADER, String.valueOf(asOf))
+                .body(paymentService.getAccount(id, asOf));
     }
 
     /**
@@ -70,14 +89,55 @@ public class AccountController {
      * GET /account/all
      */
     @GetMapping("/all")
-    @ApiOperation(value = "Получить все счета", notes = "Возвращает список всех счетов в системе")
+    @ApiOperation(value = "Получить все счета",
+            notes = "Возвращает согласованный снимок всех счетов; номер снимка - в заголовке X-Ledger-Sequence. " +
+                    "С параметром status - только счета с этим статусом: без asOf это текущие состояния " +
+                    "по возрастанию ID (поиск по колоночной таблице счетов), с asOf - счета снимка")
     @ApiResponses({
             @ApiResponse(code = 200, message = "Список счетов успешно получен", response = Account.class, responseContainer = "List"),
+            @ApiResponse(code = 410, message = "Снимок с указанным номером недоступен", response = ErrorResponse.class),
+            @ApiResponse(code = 500, message = "Внутренняя ошибка сервера", response = ErrorResponse.class)
+    })
+    public ResponseEntity<List<Account>> getAllAccounts(
+            @ApiParam(value = "Номер снимка из заголовка X-Ledger-Sequence", example = "42")
+            @RequestParam(required = false) Long asOf,
+            @ApiParam(value = "Статус счетов", example = "BLOCKED")
+            @RequestParam(required = false) AccountStatus status) {
+
+        long sequence = asOf != null ? asOf : paymentService.getLedgerSequence();
+        List<Account> accounts;
+        if (status == null) {
+            accounts = paymentService.getAllAccounts(sequence);
+        } else if (asOf == null) {
+            accounts = paymentService.getAccountsByStatus(status);
+        } else {
+            accounts = paymentService.getAccountsByStatus(status, sequence);
+        }
+        return ResponseEntity.ok()
+                .header(LEDGER_SEQUENCE_HEADER, String.valueOf(sequence))
+                .body(accounts);
+    }
+
+    /**
+     * Итоги по всем счетам.
+     * GET /account/totals
+     */
+    @GetMapping("/totals")
+    @ApiOperation(value = "Итоги по счетам",
+            notes = "Суммы балансов по валютам и количество счетов по статусам в согласованном снимке")
+    @ApiResponses({
+            @ApiResponse(code = 200, message = "Итоги успешно получены", response = LedgerTotals.class),
+            @ApiResponse(code = 410, message = "Снимок с указанным номером недоступен", response = ErrorResponse.class),
             @ApiResponse(code = 500, message = "Внутренняя ошибка сервера", response = ErrorResponse.class)
     })
-    public ResponseEntity<List<Account>> getAllAccounts() {
-        List<Account> accounts = paymentService.getAllAccounts();
-        return ResponseEntity.ok(accounts);
+    public ResponseEntity<LedgerTotals> getTotals(
+            @ApiParam(value = "Номер снимка из заголовка X-Ledger-Sequence", example = "42")
+            @RequestParam(required = false) Long asOf) {
+
+        long sequence = asOf != null ? asOf : paymentService.getLedgerSequence();
+        return ResponseEntity.ok()
+                .header(LEDGER_SEQUENCE_HEADER, String.valueOf(sequence))
+                .body(paymentService.getTotals(sequence));
     }
 
     /**
@@ -85,18 +145,32 @@ public class AccountController {
      * GET /account/{id}/balance
      */
     @GetMapping("/{id}/balance")
-    @ApiOperation(value = "Получить баланс", notes = "Возвращает текущий баланс счета")
+    @ApiOperation(value = "Получить баланс",
+            notes = "Возвращает текущий баланс счета. С параметром at - баланс на момент времени по истории " +
+                    "транзакций (транзакции с меткой времени не позже at), asOf при этом не учитывается")
     @ApiResponses({
             @ApiResponse(code = 200, message = "Баланс успешно получен", response = BigDecimal.class),
             @ApiResponse(code = 404, message = "Счет с указанным ID не найден", response = ErrorResponse.class),
+            @ApiResponse(code = 410, message = "Снимок с указанным номером недоступен", response = ErrorResponse.class),
             @ApiResponse(code = 500, message = "Внутренняя ошибка сервера", response = ErrorResponse.class)
     })
-    public ResponseEntity<BigDecimal> getBalance(
+    public ResponseEntity<?> getBalance(
             @ApiParam(value = "ID счета", required = true, example = "1")
-            @PathVariable Long id) {
+            @PathVariable Long id,
+            @ApiParam(value = "Номер снимка из заголовка X-Ledger-Sequence", example = "42")
+            @RequestParam(required = false) Long asOf,
+            @ApiParam(value = "Момент времени (ISO-8601)", example = "2024-01-01T12:00:00")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
 
-        BigDecimal balance = paymentService.getBalance(id);
-        return ResponseEntity.ok(balance);
+        if (at != null) {
+            return ResponseEntity.ok(paymentService.getBalanceAt(id, at));
+        }
+        if (asOf != null) {
+            return ResponseEntity.ok(paymentService.getBalance(id, asOf));
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(responseCache.balance(id, () -> paymentService.getBalance(id)));
     }
 
     /**
@@ -0,0 +1,42 @@
+package guru.qa.restbackend.controller;
+
+import guru.qa.restbackend.audit.AuditLog;
+import guru.qa.restbackend.domain.AuditStats;
+import guru.qa.restbackend.domain.ErrorResponse;
+import io.swagger.annotations.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * REST контроллер для состояния журнала аудита.
+ */
+@RestController
+@RequestMapping("/audit")
+@Api(tags = "Audit", description = "Журнал аудита")
+public class AuditController {
+
+    private final AuditLog auditLog;
+
+    @Autowired
+    public AuditController(AuditLog auditLog) {
+        this.auditLog = auditLog;
+    }
+
+    /**
+     * Счетчики журнала аудита.
+     * GET /audit/stats
+     */
+    @GetMapping("/stats")
+    @ApiOperation(value = "Счетчики журнала аудита",
+            notes = "Возвращает глубину очереди, число записанных и отброшенных событий и средний размер групповой записи")
+    @ApiResponses({
+            @ApiResponse(code = 200, message = "Счетчики успешно получены", response = AuditStats.class),
+            @ApiResponse(code = 500, message = "Внутренняя ошибка сервера", response = ErrorResponse.class)
+    })
+    public ResponseEntity<AuditStats> getStats() {
+        return ResponseEntity.ok(auditLog.getStats());
+    }
+}
@@ -3,8 +3,11 @@ package guru.qa.restbackend.controller;
 import guru.qa.restbackend.domain.LoginInfo;
 import guru.qa.restbackend.domain.UserInfo;
 import guru.qa.restbackend.exception.InvalidUsernameException;
+import guru.qa.restbackend.security.SessionPrincipal;
+import guru.qa.restbackend.security.SessionTokenService;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -25,13 +28,24 @@ public class BankController {
             "Dasha", UserInfo.builder().userName("Dasha").build()
     );
 
+    private final SessionTokenService sessionTokens;
+
+    @Autowired
+    public BankController(SessionTokenService sessionTokens) {
+        this.sessionTokens = sessionTokens;
+    }
+
     @PostMapping("user/login")
-    @ApiOperation("Авторизация пользователя")
+    @ApiOperation(value = "Авторизация пользователя",
+            notes = "Выдает подписанный токен сессии для заголовка Authorization: Bearer <token> запросов /account/**")
     public UserInfo doLogin(@RequestBody LoginInfo loginInfo) {
         if (loginInfo.getUserName().equals("Sergey")) {
+            SessionPrincipal session = sessionTokens.issue(loginInfo.getUserName());
             return UserInfo.builder()
                     .loginDate(new Date())
                     .userName(loginInfo.getUserName())
+                    .token(session.getToken())
+                    .tokenExpiresAt(Date.from(session.getExpiresAt()))
                     .build();
         } else {
             throw new InvalidUsernameException(loginInfo.getUserName());
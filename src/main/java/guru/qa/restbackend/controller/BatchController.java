@@ -0,0 +1,64 @@
+package guru.qa.restbackend.controller;
+
+import guru.qa.restbackend.batch.EndOfDayJob;
+import guru.qa.restbackend.domain.EndOfDayProgress;
+import guru.qa.restbackend.domain.ErrorResponse;
+import io.swagger.annotations.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+
+/**
+ * REST контроллер для управления пакетными задачами.
+ */
+@RestController
+@RequestMapping("/batch")
+@Api(tags = "Batch Jobs", description = "Пакетные задачи")
+public class BatchController {
+
+    private final EndOfDayJob endOfDayJob;
+
+    @Autowired
+    public BatchController(EndOfDayJob endOfDayJob) {
+        this.endOfDayJob = endOfDayJob;
+    }
+
+    /**
+     * Запуск закрытия дня.
+     * POST /batch/eod/run
+     */
+    @PostMapping("/eod/run")
+    @ApiOperation(value = "Запустить закрытие дня",
+            notes = "Асинхронно начисляет проценты и комиссии по всем активным счетам. " +
+                    "Повторный запуск за ту же дату продолжает с контрольной точки.")
+    @ApiResponses({
+            @ApiResponse(code = 202, message = "Задача запущена", response = EndOfDayProgress.class),
+            @ApiResponse(code = 409, message = "Задача уже выполняется", response = ErrorResponse.class),
+            @ApiResponse(code = 500, message = "Внутренняя ошибка сервера", response = ErrorResponse.class)
+    })
+    public ResponseEntity<EndOfDayProgress> runEndOfDay(
+            @ApiParam(value = "Закрываемая дата (по умолчанию вчера)", example = "2024-01-31")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+
+        EndOfDayProgress progress = endOfDayJob.start(date != null ? date : LocalDate.now().minusDays(1));
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(progress);
+    }
+
+    /**
+     * Прогресс закрытия дня.
+     * GET /batch/eod/status
+     */
+    @GetMapping("/eod/status")
+    @ApiOperation(value = "Прогресс закрытия дня", notes = "Возвращает прогресс и пропускную способность текущего или последнего запуска")
+    @ApiResponses({
+            @ApiResponse(code = 200, message = "Прогресс успешно получен", response = EndOfDayProgress.class),
+            @ApiResponse(code = 500, message = "Внутренняя ошибка сервера", response = ErrorResponse.class)
+    })
+    public ResponseEntity<EndOfDayProgress> getEndOfDayStatus() {
+        return ResponseEntity.ok(endOfDayJob.getProgress());
+    }
+}
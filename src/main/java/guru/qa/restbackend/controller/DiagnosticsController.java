@@ -0,0 +1,97 @@
+package guru.qa.restbackend.controller;
+
+import guru.qa.restbackend.capture.TrafficCapture;
+import guru.qa.restbackend.domain.CaptureStats;
+import guru.qa.restbackend.domain.ContentionReport;
+import guru.qa.restbackend.domain.ErrorResponse;
+import guru.qa.restbackend.monitoring.ContentionTracker;
+import io.swagger.annotations.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * REST контроллер для диагностики: конкуренция за счета и запись трафика.
+ */
+@RestController
+@RequestMapping("/diagnostics")
+@Api(tags = "Diagnostics", description = "Диагностика производительности")
+public class DiagnosticsController {
+
+    private final ContentionTracker contentionTracker;
+    private final TrafficCapture trafficCapture;
+
+    @Autowired
+    public DiagnosticsController(ContentionTracker contentionTracker, TrafficCapture trafficCapture) {
+        this.contentionTracker = contentionTracker;
+        this.trafficCapture = trafficCapture;
+    }
+
+    /**
+     * Самые конфликтные счета.
+     * GET /diagnostics/contention
+     */
+    @GetMapping("/contention")
+    @ApiOperation(value = "Самые конфликтные счета",
+            notes = "Счета, на которых операции чаще всего конфликтовали с параллельными писателями (проигранный CAS, " +
+                    "ожидание резерва или монитора счета), по убыванию числа таких операций, с суммарным и " +
+                    "максимальным временем ожидания. Отслеживается ограниченное число счетов (bank.diagnostics." +
+                    "contention.capacity); contendedOperations может быть завышено не больше чем на overestimate")
+    @ApiResponses({
+            @ApiResponse(code = 200, message = "Отчет успешно получен", response = ContentionReport.class),
+            @ApiResponse(code = 500, message = "Внутренняя ошибка сервера", response = ErrorResponse.class)
+    })
+    public ResponseEntity<ContentionReport> getContention(
+            @ApiParam(value = "Сколько счетов вернуть", example = "20")
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(contentionTracker.getReport(limit));
+    }
+
+    /**
+     * Сброс отчета о конфликтах.
+     * DELETE /diagnostics/contention
+     */
+    @DeleteMapping("/contention")
+    @ApiOperation(value = "Сбросить отчет о конфликтах", notes = "Учет конфликтов начинается заново")
+    @ApiResponses({
+            @ApiResponse(code = 204, message = "Отчет сброшен"),
+            @ApiResponse(code = 500, message = "Внутренняя ошибка сервера", response = ErrorResponse.class)
+    })
+    public ResponseEntity<Void> resetContention() {
+        contentionTracker.reset();
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Состояние записи трафика.
+     * GET /diagnostics/capture
+     */
+    @GetMapping("/capture")
+    @ApiOperation(value = "Состояние записи трафика",
+            notes = "Файл записи запросов /account/** (bank.capture.enabled), число записанных, отброшенных " +
+                    "при переполнении очереди и пропущенных из-за размера тела запросов")
+    @ApiResponses({
+            @ApiResponse(code = 200, message = "Состояние успешно получено", response = CaptureStats.class),
+            @ApiResponse(code = 500, message = "Внутренняя ошибка сервера", response = ErrorResponse.class)
+    })
+    public ResponseEntity<CaptureStats> getCapture() {
+        return ResponseEntity.ok(trafficCapture.getStats());
+    }
+
+    /**
+     * Остановка записи трафика.
+     * POST /diagnostics/capture/stop
+     */
+    @PostMapping("/capture/stop")
+    @ApiOperation(value = "Остановить запись трафика",
+            notes = "Дописывает очередь и итоговое состояние счетов для сверки при воспроизведении. " +
+                    "Если запись не велась, возвращает текущее состояние")
+    @ApiResponses({
+            @ApiResponse(code = 200, message = "Запись остановлена", response = CaptureStats.class),
+            @ApiResponse(code = 500, message = "Внутренняя ошибка сервера", response = ErrorResponse.class)
+    })
+    public ResponseEntity<CaptureStats> stopCapture() throws InterruptedException {
+        trafficCapture.stop();
+        return ResponseEntity.ok(trafficCapture.getStats());
+    }
+}
@@ -0,0 +1,71 @@
+package guru.qa.restbackend.controller;
+
+import guru.qa.restbackend.domain.ErrorResponse;
+import guru.qa.restbackend.domain.ExportFormat;
+import guru.qa.restbackend.export.LedgerExportService;
+import guru.qa.restbackend.service.PaymentService;
+import io.swagger.annotations.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.*;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+/**
+ * REST контроллер для выгрузки журнала транзакций.
+ */
+@RestController
+@RequestMapping("/export")
+@Api(tags = "Ledger Export", description = "Выгрузка журнала транзакций")
+public class ExportController {
+
+    private final LedgerExportService ledgerExportService;
+    private final PaymentService paymentService;
+
+    @Autowired
+    public ExportController(LedgerExportService ledgerExportService, PaymentService paymentService) {
+        this.ledgerExportService = ledgerExportService;
+        this.paymentService = paymentService;
+    }
+
+    /**
+     * Потоковая выгрузка транзакций.
+     * GET /export/transactions
+     * <p>
+     * Ответ пишется синхронно прямо в поток сервлета: выгрузка всего журнала может идти дольше
+     * таймаута асинхронных запросов.
+     */
+    @GetMapping("/transactions")
+    @ApiOperation(value = "Выгрузка транзакций",
+            notes = "Потоково выгружает журнал транзакций в CSV или NDJSON с фильтрами по периоду и счету")
+    @ApiResponses({
+            @ApiResponse(code = 200, message = "Выгрузка успешно сформирована"),
+            @ApiResponse(code = 404, message = "Счет с указанным ID не найден", response = ErrorResponse.class),
+            @ApiResponse(code = 500, message = "Внутренняя ошибка сервера", response = ErrorResponse.class)
+    })
+    public void exportTransactions(
+            @ApiParam(value = "Формат выгрузки (CSV, NDJSON)")
+            @RequestParam(defaultValue = "CSV") ExportFormat format,
+            @ApiParam(value = "Начало периода включительно", example = "2024-01-01T00:00:00")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @ApiParam(value = "Конец периода не включительно", example = "2024-02-01T00:00:00")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @ApiParam(value = "Фильтр по ID счета", example = "1")
+            @RequestParam(required = false) Long accountId,
+            HttpServletResponse response) throws IOException {
+
+        if (accountId != null) {
+            // Проверяем существование счета до начала записи ответа
+            paymentService.getAccount(accountId);
+        }
+
+        response.setContentType(format.getContentType());
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"ledger." + format.getExtension() + "\"");
+        ledgerExportService.export(format, from, to, accountId, response.getOutputStream());
+    }
+}
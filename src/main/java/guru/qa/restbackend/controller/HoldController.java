@@ -0,0 +1,119 @@
+package guru.qa.restbackend.controller;
+
+import guru.qa.restbackend.domain.CaptureHoldRequest;
+import guru.qa.restbackend.domain.ErrorResponse;
+import guru.qa.restbackend.domain.Hold;
+import guru.qa.restbackend.domain.HoldRequest;
+import guru.qa.restbackend.domain.Transaction;
+import guru.qa.restbackend.hold.HoldManager;
+import io.swagger.annotations.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import javax.validation.Valid;
+
+/**
+ * REST контроллер для холдов: резервирование средств на счете, списание и снятие.
+ */
+@RestController
+@RequestMapping("/account")
+@Api(tags = "Holds", description = "Холды (резервирование средств)")
+public class HoldController {
+
+    private final HoldManager holdManager;
+
+    @Autowired
+    public HoldController(HoldManager holdManager) {
+        this.holdManager = holdManager;
+    }
+
+    /**
+     * Холд на счете.
+     * POST /account/{id}/holds
+     */
+    @PostMapping("/{id}/holds")
+    @ApiOperation(value = "Зарезервировать средства",
+            notes = "Уменьшает доступный остаток счета на сумму, баланс не меняется. Без списания холд снимается " +
+                    "по истечении ttl (ISO-8601, например PT15M; по умолчанию bank.holds.default-ttl)")
+    @ApiResponses({
+            @ApiResponse(code = 201, message = "Холд создан", response = Hold.class),
+            @ApiResponse(code = 400, message = "Невалидная сумма или срок, недостаточно доступных средств", response = ErrorResponse.class),
+            @ApiResponse(code = 403, message = "Счет заблокирован или закрыт", response = ErrorResponse.class),
+            @ApiResponse(code = 404, message = "Счет с указанным ID не найден", response = ErrorResponse.class),
+            @ApiResponse(code = 500, message = "Внутренняя ошибка сервера", response = ErrorResponse.class)
+    })
+    public ResponseEntity<Hold> placeHold(
+            @ApiParam(value = "ID счета", required = true, example = "1")
+            @PathVariable Long id,
+            @ApiParam(value = "Сумма, описание и срок холда", required = true)
+            @RequestBody @Valid HoldRequest request) {
+
+        Hold hold = holdManager.place(id, request);
+        return ResponseEntity.status(HttpStatus.CREATED).body(hold);
+    }
+
+    /**
+     * Получение холда.
+     * GET /account/holds/{holdId}
+     */
+    @GetMapping("/holds/{holdId}")
+    @ApiOperation(value = "Получить холд",
+            notes = "Активный холд (ACTIVE) или один из последних завершенных: CAPTURED, RELEASED или EXPIRED")
+    @ApiResponses({
+            @ApiResponse(code = 200, message = "Холд успешно получен", response = Hold.class),
+            @ApiResponse(code = 404, message = "Холд с указанным ID не найден", response = ErrorResponse.class),
+            @ApiResponse(code = 500, message = "Внутренняя ошибка сервера", response = ErrorResponse.class)
+    })
+    public ResponseEntity<Hold> getHold(
+            @ApiParam(value = "ID холда", required = true, example = "1")
+            @PathVariable Long holdId) {
+
+        return ResponseEntity.ok(holdManager.getHold(holdId));
+    }
+
+    /**
+     * Списание по холду.
+     * POST /account/holds/{holdId}/capture
+     */
+    @PostMapping("/holds/{holdId}/capture")
+    @ApiOperation(value = "Списать по холду",
+            notes = "Списывает сумму из запроса (без нее - всю сумму холда) транзакцией снятия; " +
+                    "несписанный остаток холда снимается")
+    @ApiResponses({
+            @ApiResponse(code = 201, message = "Транзакция успешно выполнена", response = Transaction.class),
+            @ApiResponse(code = 400, message = "Сумма больше суммы холда или невалидна", response = ErrorResponse.class),
+            @ApiResponse(code = 404, message = "Холд с указанным ID не найден", response = ErrorResponse.class),
+            @ApiResponse(code = 409, message = "Холд уже списан, снят или истек", response = ErrorResponse.class),
+            @ApiResponse(code = 500, message = "Внутренняя ошибка сервера", response = ErrorResponse.class)
+    })
+    public ResponseEntity<Transaction> captureHold(
+            @ApiParam(value = "ID холда", required = true, example = "1")
+            @PathVariable Long holdId,
+            @ApiParam(value = "Сумма и описание списания")
+            @RequestBody(required = false) @Valid CaptureHoldRequest request) {
+
+        Transaction transaction = holdManager.capture(holdId, request != null ? request : new CaptureHoldRequest());
+        return ResponseEntity.status(HttpStatus.CREATED).body(transaction);
+    }
+
+    /**
+     * Снятие холда.
+     * POST /account/holds/{holdId}/release
+     */
+    @PostMapping("/holds/{holdId}/release")
+    @ApiOperation(value = "Снять холд", notes = "Возвращает сумму холда в доступный остаток без списания")
+    @ApiResponses({
+            @ApiResponse(code = 200, message = "Холд снят", response = Hold.class),
+            @ApiResponse(code = 404, message = "Холд с указанным ID не найден", response = ErrorResponse.class),
+            @ApiResponse(code = 409, message = "Холд уже списан, снят или истек", response = ErrorResponse.class),
+            @ApiResponse(code = 500, message = "Внутренняя ошибка сервера", response = ErrorResponse.class)
+    })
+    public ResponseEntity<Hold> releaseHold(
+            @ApiParam(value = "ID холда", required = true, example = "1")
+            @PathVariable Long holdId) {
+
+        return ResponseEntity.ok(holdManager.release(holdId));
+    }
+}
@@ -0,0 +1,81 @@
+package guru.qa.restbackend.controller;
+
+import guru.qa.restbackend.domain.ErrorResponse;
+import guru.qa.restbackend.domain.ExportFormat;
+import guru.qa.restbackend.domain.ImportReport;
+import guru.qa.restbackend.importer.LedgerImporter;
+import io.swagger.annotations.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+
+/**
+ * REST контроллер для массового импорта данных из другой системы.
+ * Тело запроса - файл целиком (CSV с заголовком или NDJSON).
+ */
+@RestController
+@RequestMapping("/import")
+@Api(tags = "Ledger Import", description = "Массовый импорт счетов и истории транзакций")
+public class ImportController {
+
+    private final LedgerImporter ledgerImporter;
+
+    @Autowired
+    public ImportController(LedgerImporter ledgerImporter) {
+        this.ledgerImporter = ledgerImporter;
+    }
+
+    /**
+     * Импорт счетов.
+     * POST /import/accounts
+     */
+    @PostMapping("/accounts")
+    @ApiOperation(value = "Импорт счетов",
+            notes = "Загружает счета с их ID и балансами. Колонки CSV: id,accountNumber,balance,currency,status,createdAt,ownerName")
+    @ApiResponses({
+            @ApiResponse(code = 200, message = "Импорт выполнен, ошибки по записям - в отчете", response = ImportReport.class),
+            @ApiResponse(code = 400, message = "Некорректный заголовок файла", response = ErrorResponse.class),
+            @ApiResponse(code = 500, message = "Внутренняя ошибка сервера", response = ErrorResponse.class)
+    })
+    public ResponseEntity<ImportReport> importAccounts(
+            @ApiParam(value = "Формат файла (по умолчанию - по Content-Type)")
+            @RequestParam(required = false) ExportFormat format,
+            HttpServletRequest request) throws IOException {
+
+        return ResponseEntity.ok(ledgerImporter.importAccounts(request.getInputStream(), resolveFormat(format, request)));
+    }
+
+    /**
+     * Импорт истории транзакций.
+     * POST /import/transactions
+     */
+    @PostMapping("/transactions")
+    @ApiOperation(value = "Импорт истории транзакций",
+            notes = "Загружает транзакции уже импортированных счетов без пересчета балансов. " +
+                    "Формат совпадает с выгрузкой /export/transactions")
+    @ApiResponses({
+            @ApiResponse(code = 200, message = "Импорт выполнен, ошибки по записям - в отчете", response = ImportReport.class),
+            @ApiResponse(code = 400, message = "Некорректный заголовок файла", response = ErrorResponse.class),
+            @ApiResponse(code = 500, message = "Внутренняя ошибка сервера", response = ErrorResponse.class)
+    })
+    public ResponseEntity<ImportReport> importTransactions(
+            @ApiParam(value = "Формат файла (по умолчанию - по Content-Type)")
+            @RequestParam(required = false) ExportFormat format,
+            HttpServletRequest request) throws IOException {
+
+        return ResponseEntity.ok(ledgerImporter.importTransactions(request.getInputStream(), resolveFormat(format, request)));
+    }
+
+    private static ExportFormat resolveFormat(ExportFormat format, HttpServletRequest request) {
+        if (format != null) {
+            return format;
+        }
+        String contentType = request.getHeader(HttpHeaders.CONTENT_TYPE);
+        return contentType != null && contentType.startsWith(ExportFormat.CSV.getContentType()) ?
+                ExportFormat.CSV : ExportFormat.NDJSON;
+    }
+}
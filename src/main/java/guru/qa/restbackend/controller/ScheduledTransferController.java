@@ -0,0 +1,91 @@
+package guru.qa.restbackend.controller;
+
+import guru.qa.restbackend.domain.ErrorResponse;
+import guru.qa.restbackend.domain.ScheduleTransferRequest;
+import guru.qa.restbackend.domain.ScheduledTransfer;
+import guru.qa.restbackend.schedule.TransferScheduler;
+import io.swagger.annotations.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import javax.validation.Valid;
+
+/**
+ * REST контроллер для запланированных и повторяющихся переводов.
+ */
+@RestController
+@RequestMapping("/account/scheduled")
+@Api(tags = "Scheduled Transfers", description = "Запланированные переводы")
+public class ScheduledTransferController {
+
+    private final TransferScheduler transferScheduler;
+
+    @Autowired
+    public ScheduledTransferController(TransferScheduler transferScheduler) {
+        this.transferScheduler = transferScheduler;
+    }
+
+    /**
+     * Планирование перевода.
+     * POST /account/scheduled
+     */
+    @PostMapping
+    @ApiOperation(value = "Запланировать перевод",
+            notes = "Перевод исполняется не раньше executeAt; с repeatEvery (ISO-8601, например P1D) повторяется " +
+                    "с этим интервалом maxRuns раз или бессрочно. До исполнения расписание в статусе PENDING")
+    @ApiResponses({
+            @ApiResponse(code = 201, message = "Перевод запланирован", response = ScheduledTransfer.class),
+            @ApiResponse(code = 400, message = "Невалидные данные (тот же счет, сумма, интервал или количество повторов)", response = ErrorResponse.class),
+            @ApiResponse(code = 404, message = "Один из счетов не найден", response = ErrorResponse.class),
+            @ApiResponse(code = 500, message = "Внутренняя ошибка сервера", response = ErrorResponse.class)
+    })
+    public ResponseEntity<ScheduledTransfer> scheduleTransfer(
+            @ApiParam(value = "Данные перевода и расписания", required = true)
+            @RequestBody @Valid ScheduleTransferRequest request) {
+
+        ScheduledTransfer schedule = transferScheduler.schedule(request);
+        return ResponseEntity.status(HttpStatus.CREATED).body(schedule);
+    }
+
+    /**
+     * Получение запланированного перевода.
+     * GET /account/scheduled/{id}
+     */
+    @GetMapping("/{id}")
+    @ApiOperation(value = "Получить запланированный перевод",
+            notes = "Активное расписание (PENDING) или одно из последних завершенных: SUCCESS или FAILED " +
+                    "(последний перевод не удался или расписание отменено)")
+    @ApiResponses({
+            @ApiResponse(code = 200, message = "Расписание успешно получено", response = ScheduledTransfer.class),
+            @ApiResponse(code = 404, message = "Расписание с указанным ID не найдено", response = ErrorResponse.class),
+            @ApiResponse(code = 500, message = "Внутренняя ошибка сервера", response = ErrorResponse.class)
+    })
+    public ResponseEntity<ScheduledTransfer> getScheduledTransfer(
+            @ApiParam(value = "ID расписания", required = true, example = "1")
+            @PathVariable Long id) {
+
+        return ResponseEntity.ok(transferScheduler.getSchedule(id));
+    }
+
+    /**
+     * Отмена запланированного перевода.
+     * DELETE /account/scheduled/{id}
+     */
+    @DeleteMapping("/{id}")
+    @ApiOperation(value = "Отменить запланированный перевод",
+            notes = "Следующих переводов по расписанию не будет; уже исполняющийся перевод доводится до конца")
+    @ApiResponses({
+            @ApiResponse(code = 204, message = "Расписание отменено"),
+            @ApiResponse(code = 404, message = "Активное расписание с указанным ID не найдено", response = ErrorResponse.class),
+            @ApiResponse(code = 500, message = "Внутренняя ошибка сервера", response = ErrorResponse.class)
+    })
+    public ResponseEntity<Void> cancelScheduledTransfer(
+            @ApiParam(value = "ID расписания", required = true, example = "1")
+            @PathVariable Long id) {
+
+        transferScheduler.cancel(id);
+        return ResponseEntity.noContent().build();
+    }
+}
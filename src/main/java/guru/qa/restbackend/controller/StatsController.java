@@ -0,0 +1,161 @@
+package guru.qa.restbackend.controller;
+
+import guru.qa.restbackend.cache.AccountResponseCache;
+import guru.qa.restbackend.domain.AccountStatus;
+import guru.qa.restbackend.domain.BalanceTotals;
+import guru.qa.restbackend.domain.BankStats;
+import guru.qa.restbackend.domain.ErrorResponse;
+import guru.qa.restbackend.domain.HoldStats;
+import guru.qa.restbackend.domain.LatencyStats;
+import guru.qa.restbackend.domain.ResponseCacheStats;
+import guru.qa.restbackend.domain.SchedulerStats;
+import guru.qa.restbackend.hold.HoldManager;
+import guru.qa.restbackend.monitoring.LatencyHistograms;
+import guru.qa.restbackend.schedule.TransferScheduler;
+import guru.qa.restbackend.service.PaymentService;
+import guru.qa.restbackend.stats.LedgerStatistics;
+import io.swagger.annotations.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * REST контроллер для живой статистики банка.
+ */
+@RestController
+@RequestMapping("/stats")
+@Api(tags = "Statistics", description = "Статистика банка")
+public class StatsController {
+
+    private final LedgerStatistics statistics;
+    private final AccountResponseCache responseCache;
+    private final LatencyHistograms latencyHistograms;
+    private final TransferScheduler transferScheduler;
+    private final HoldManager holdManager;
+    private final PaymentService paymentService;
+
+    @Autowired
+    public StatsController(LedgerStatistics statistics, AccountResponseCache responseCache,
+                           LatencyHistograms latencyHistograms, TransferScheduler transferScheduler,
+                           HoldManager holdManager, PaymentService paymentService) {
+        this.statistics = statistics;
+        this.responseCache = responseCache;
+        this.latencyHistograms = latencyHistograms;
+        this.transferScheduler = transferScheduler;
+        this.holdManager = holdManager;
+        this.paymentService = paymentService;
+    }
+
+    /**
+     * Текущая статистика банка.
+     * GET /stats
+     */
+    @GetMapping
+    @ApiOperation(value = "Статистика банка",
+            notes = "Возвращает балансы по валютам, количество счетов по статусам и количество и объем транзакций " +
+                    "по типам за последнюю минуту, час и сутки. Счетчики поддерживаются при фиксации изменений, " +
+                    "чтение не обходит счета и транзакции")
+    @ApiResponses({
+            @ApiResponse(code = 200, message = "Статистика успешно получена", response = BankStats.class),
+            @ApiResponse(code = 500, message = "Внутренняя ошибка сервера", response = ErrorResponse.class)
+    })
+    public ResponseEntity<BankStats> getStats() {
+        return ResponseEntity.ok(statistics.getStats());
+    }
+
+    /**
+     * Статистика кэша ответов по счетам.
+     * GET /stats/response-cache
+     */
+    @GetMapping("/response-cache")
+    @ApiOperation(value = "Статистика кэша ответов",
+            notes = "Попадания, промахи, доля попаданий, вытеснения и занятый объем кэша готовых JSON-ответов " +
+                    "GET /account/{id} и /account/{id}/balance")
+    @ApiResponses({
+            @ApiResponse(code = 200, message = "Статистика успешно получена", response = ResponseCacheStats.class),
+            @ApiResponse(code = 500, message = "Внутренняя ошибка сервера", response = ErrorResponse.class)
+    })
+    public ResponseEntity<ResponseCacheStats> getResponseCacheStats() {
+        return ResponseEntity.ok(responseCache.getStats());
+    }
+
+    /**
+     * Латентность онлайн-запросов по эндпоинтам и фазам.
+     * GET /stats/latency
+     */
+    @GetMapping("/latency")
+    @ApiOperation(value = "Латентность по фазам запроса",
+            notes = "p50, p99, p999, среднее и максимум в микросекундах с момента запуска для каждого эндпоинта " +
+                    "/account/** и /user/** и каждой фазы: разбор тела, проверка, поиск счетов, ожидание блокировок, " +
+                    "фиксация, обработка ошибки, сериализация и общее время. Те же фазы конкретного запроса " +
+                    "приходят в его заголовке Server-Timing")
+    @ApiResponses({
+            @ApiResponse(code = 200, message = "Статистика успешно получена", response = LatencyStats.class,
+                    responseContainer = "List"),
+            @ApiResponse(code = 500, message = "Внутренняя ошибка сервера", response = ErrorResponse.class)
+    })
+    public ResponseEntity<List<LatencyStats>> getLatencyStats() {
+        return ResponseEntity.ok(latencyHistograms.getStats());
+    }
+
+    /**
+     * Состояние планировщика переводов.
+     * GET /stats/scheduler
+     */
+    @GetMapping("/scheduler")
+    @ApiOperation(value = "Статистика планировщика переводов",
+            notes = "Число ожидающих расписаний, исполненные и неудавшиеся переводы, размер и время последней пачки, " +
+                    "размер журнала расписаний")
+    @ApiResponses({
+            @ApiResponse(code = 200, message = "Статистика успешно получена", response = SchedulerStats.class),
+            @ApiResponse(code = 500, message = "Внутренняя ошибка сервера", response = ErrorResponse.class)
+    })
+    public ResponseEntity<SchedulerStats> getSchedulerStats() {
+        return ResponseEntity.ok(transferScheduler.getStats());
+    }
+
+    /**
+     * Состояние холдов.
+     * GET /stats/holds
+     */
+    @GetMapping("/holds")
+    @ApiOperation(value = "Статистика холдов",
+            notes = "Число активных холдов, созданные, списанные, снятые и истекшие холды, размер и время " +
+                    "последнего прохода истечения")
+    @ApiResponses({
+            @ApiResponse(code = 200, message = "Статистика успешно получена", response = HoldStats.class),
+            @ApiResponse(code = 500, message = "Внутренняя ошибка сервера", response = ErrorResponse.class)
+    })
+    public ResponseEntity<HoldStats> getHoldStats() {
+        return ResponseEntity.ok(holdManager.getStats());
+    }
+
+    /**
+     * Суммы балансов по статусу и времени открытия счетов.
+     * GET /stats/balances
+     */
+    @GetMapping("/balances")
+    @ApiOperation(value = "Балансы по статусу счетов",
+            notes = "Суммы балансов по валютам и количество счетов с указанным статусом (без него - всех), " +
+                    "открытых до указанного времени. Считается проходом по колоночной таблице счетов; " +
+                    "как и /stats, это не согласованный снимок")
+    @ApiResponses({
+            @ApiResponse(code = 200, message = "Итоги успешно получены", response = BalanceTotals.class),
+            @ApiResponse(code = 500, message = "Внутренняя ошибка сервера", response = ErrorResponse.class)
+    })
+    public ResponseEntity<BalanceTotals> getBalanceTotals(
+            @ApiParam(value = "Статус счетов", example = "ACTIVE")
+            @RequestParam(required = false) AccountStatus status,
+            @ApiParam(value = "Счета, открытые до этого времени (ISO-8601)", example = "2024-01-01T00:00:00")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime openedBefore) {
+
+        return ResponseEntity.ok(paymentService.getBalanceTotals(status, openedBefore));
+    }
+}
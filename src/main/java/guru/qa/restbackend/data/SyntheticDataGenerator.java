@@ -0,0 +1,283 @@
+package guru.qa.restbackend.data;
+
+import guru.qa.restbackend.domain.*;
+import guru.qa.restbackend.service.PaymentService;
+import guru.qa.restbackend.storage.TransactionIdGenerator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
+
+/**
+ * Генератор синтетических данных для нагрузочного тестирования.
+ * Заполняет PaymentService при старте приложения, если включен bank.synthetic.enabled
+ * (или активен профиль synthetic).
+ * <p>
+ * Генерация детерминирована: у каждого счета свой генератор случайных чисел, зависящий
+ * только от seed и порядкового номера счета, поэтому результат не зависит от порядка
+ * выполнения потоков. Метки времени отсчитываются от начала текущих суток.
+ * <p>
+ * Счета открываются по всей глубине истории. Транзакции счета идут после его открытия, а зачисление
+ * переводом - еще и после открытия счета получателя.
+ * <p>
+ * Балансы согласованы с историей: итоговый баланс счета равен сумме всех его транзакций.
+ * ID транзакций строятся из их меток времени, как у онлайн-транзакций (см. {@link TransactionIdGenerator}).
+ */
+@Component
+@ConditionalOnProperty(prefix = "bank.synthetic", name = "enabled", havingValue = "true")
+public class SyntheticDataGenerator {
+
+    // Счета генерируются пачками, каждая пачка загружается в сервис одним вызовом
+    private static final int CHUNK_SIZE = 4096;
+
+    // Суммы операций в копейках/центах: от 1.00 до 1000.00
+    private static final long MIN_AMOUNT_MINOR = 100;
+    private static final long MAX_AMOUNT_MINOR = 100_000;
+
+    // Распределение типов операций (после начального пополнения), в процентах
+    private static final int TRANSFER_PERCENT = 50;
+    private static final int DEPOSIT_PERCENT = 30;
+
+    private static final String OPENING_DESCRIPTION = "Начальное пополнение";
+    private static final long SECONDS_PER_DAY = 86_400;
+    // Метки времени генерируются с точностью до секунды: номер транзакции раскладывается
+    // на миллисекунду внутри секунды и 22 младших бита ID
+    private static final int DISCRIMINATOR_BITS = 22;
+    private static final long MAX_TRANSACTIONS = 1000L << DISCRIMINATOR_BITS;
+
+    private static final String[] FIRST_NAMES = {
+            "Sergey", "Dima", "Alex", "Dasha", "Ivan", "Maria", "Olga", "Pavel", "Anna", "Nikita"
+    };
+    private static final String[] LAST_NAMES = {
+            "Gluhov", "Ivanov", "Petrov", "Smirnova", "Sidorov", "Volkova", "Orlov", "Kuznetsova"
+    };
+
+    private final PaymentService paymentService;
+    private final SyntheticDataProperties properties;
+
+    @Autowired
+    public SyntheticDataGenerator(PaymentService paymentService, SyntheticDataProperties properties) {
+        this.paymentService = paymentService;
+        this.properties = properties;
+    }
+
+    /**
+     * Генерация и загрузка данных при старте приложения.
+     */
+    @PostConstruct
+    public void populate() {
+        int accountCount = properties.getAccounts();
+        if (accountCount <= 0) {
+            return;
+        }
+        long startedAt = System.nanoTime();
+
+        Plan plan = new Plan(accountCount);
+        int chunks = (accountCount + CHUNK_SIZE - 1) / CHUNK_SIZE;
+
+        ForkJoinPool pool = new ForkJoinPool(properties.getParallelism() > 0 ?
+                properties.getParallelism() : Runtime.getRuntime().availableProcessors());
+        try {
+            // Сначала транзакции: они же накапливают итоговые балансы счетов
+            pool.submit(() -> IntStream.range(0, chunks).parallel()
+                    .forEach(chunk -> generateTransactions(plan, chunk))).join();
+            pool.submit(() -> IntStream.range(0, chunks).parallel()
+                    .forEach(chunk -> generateAccounts(plan, chunk))).join();
+        } finally {
+            pool.shutdown();
+        }
+
+        long elapsedMs = (System.nanoTime() - startedAt) / 1_000_000;
+        System.out.println("✅ Синтетические данные сгенерированы за " + elapsedMs + " мс (seed=" + properties.getSeed() + "):");
+        System.out.println("   - " + accountCount + " счетов, из них " + plan.hotCount + " горячих");
+        System.out.println("   - " + (long) accountCount * plan.perAccount + " транзакций добавлено");
+    }
+
+    /**
+     * Генерация транзакций, инициированных счетами одной пачки.
+     */
+    private void generateTransactions(Plan plan, int chunk) {
+        int from = chunk * CHUNK_SIZE;
+        int to = Math.min(from + CHUNK_SIZE, plan.accountCount);
+        List<Transaction> batch = new ArrayList<>((to - from) * plan.perAccount);
+        // Зачисления на горячие счета копятся локально, чтобы не биться за одни и те же ячейки
+        long[] hotCredits = new long[plan.hotCount];
+
+        for (int index = from; index < to; index++) {
+            SplittableRandom random = plan.random(index);
+            String currency = plan.pickCurrency(random);
+            long createdOffset = plan.createdOffsets[index];
+            LocalDateTime createdAt = plan.historyStart.plusSeconds(createdOffset);
+            long accountId = plan.firstAccountId + index;
+            long firstTransaction = (long) index * plan.perAccount;
+            long spanSeconds = plan.historySeconds - createdOffset;
+
+            long balance = plan.perAccount * MAX_AMOUNT_MINOR;
+            batch.add(transaction(firstTransaction, TransactionType.DEPOSIT, balance,
+                    null, accountId, createdAt, OPENING_DESCRIPTION));
+
+            for (int j = 1; j < plan.perAccount; j++) {
+                long amount = random.nextLong(MIN_AMOUNT_MINOR, MAX_AMOUNT_MINOR + 1);
+                long offset = createdOffset + (long) (spanSeconds * (j + random.nextDouble()) / plan.perAccount);
+                int roll = random.nextInt(100);
+
+                if (roll < TRANSFER_PERCENT && plan.accountCount > 1) {
+                    int counterpart = plan.pickCounterpart(random, index);
+                    // Получатель мог открыть счет позже - перевод сдвигается после его открытия
+                    offset = Math.max(offset, plan.createdOffsets[counterpart] + 1);
+                    batch.add(transaction(firstTransaction + j, TransactionType.TRANSFER, amount,
+                            accountId, plan.firstAccountId + counterpart, plan.historyStart.plusSeconds(offset),
+                            PaymentService.TRANSFER_DESCRIPTION));
+                    balance -= amount;
+                    if (counterpart < plan.hotCount) {
+                        hotCredits[counterpart] += amount;
+                    } else {
+                        plan.balances.getAndAdd(counterpart, amount);
+                    }
+                } else if (roll < TRANSFER_PERCENT + DEPOSIT_PERCENT || plan.accountCount == 1) {
+                    batch.add(transaction(firstTransaction + j, TransactionType.DEPOSIT, amount,
+                            null, accountId, plan.historyStart.plusSeconds(offset), PaymentService.DEPOSIT_DESCRIPTION));
+                    balance += amount;
+                } else {
+                    batch.add(transaction(firstTransaction + j, TransactionType.WITHDRAWAL, amount,
+                            accountId, null, plan.historyStart.plusSeconds(offset), PaymentService.WITHDRAWAL_DESCRIPTION));
+                    balance -= amount;
+                }
+            }
+            plan.balances.getAndAdd(index, balance);
+        }
+
+        for (int hot = 0; hot < hotCredits.length; hot++) {
+            if (hotCredits[hot] != 0) {
+                plan.balances.getAndAdd(hot, hotCredits[hot]);
+            }
+        }
+        paymentService.loadTransactions(batch);
+    }
+
+    /**
+     * Создание счетов одной пачки с итоговыми балансами.
+     */
+    private void generateAccounts(Plan plan, int chunk) {
+        int from = chunk * CHUNK_SIZE;
+        int to = Math.min(from + CHUNK_SIZE, plan.accountCount);
+        List<Account> batch = new ArrayList<>(to - from);
+
+        for (int index = from; index < to; index++) {
+            // Тот же генератор, что и для транзакций: первое значение - валюта
+            SplittableRandom random = plan.random(index);
+            long accountId = plan.firstAccountId + index;
+
+            batch.add(Account.builder()
+                    .id(accountId)
+                    .accountNumber(PaymentService.generateAccountNumber(accountId))
+                    .balance(BigDecimal.valueOf(plan.balances.get(index), 2))
+                    .currency(plan.pickCurrency(random))
+                    .status(AccountStatus.ACTIVE)
+                    .createdAt(plan.historyStart.plusSeconds(plan.createdOffsets[index]))
+                    .ownerName(FIRST_NAMES[index % FIRST_NAMES.length] + " "
+                            + LAST_NAMES[(index / FIRST_NAMES.length) % LAST_NAMES.length])
+                    .build());
+        }
+        paymentService.loadAccounts(batch);
+    }
+
+    /**
+     * Транзакция с ID, построенным из метки времени и порядкового номера транзакции в генерации.
+     */
+    private Transaction transaction(long number, TransactionType type, long amountMinor, Long fromAccountId,
+                                    Long toAccountId, LocalDateTime timestamp, String description) {
+        long id = TransactionIdGenerator.idAt(
+                timestamp.plusNanos((number >>> DISCRIMINATOR_BITS) * 1_000_000L),
+                number & ((1L << DISCRIMINATOR_BITS) - 1));
+        return Transaction.builder()
+                .id(id)
+                .type(type)
+                .amount(BigDecimal.valueOf(amountMinor, 2))
+                .fromAccountId(fromAccountId)
+                .toAccountId(toAccountId)
+                .timestamp(TransactionIdGenerator.timestampOf(id))
+                .description(description)
+                .status(TransactionStatus.SUCCESS)
+                .build();
+    }
+
+    /**
+     * Параметры одного запуска генерации: диапазоны ID, распределения и накопленные балансы.
+     */
+    private class Plan {
+        final int accountCount;
+        final int perAccount;
+        final int hotCount;
+        final long firstAccountId;
+        final long historySeconds;
+        final LocalDateTime historyStart;
+        final String[] currencies;
+        final int[] cumulativeWeights;
+        // Итоговые балансы в минимальных единицах валюты, индекс - порядковый номер счета
+        final AtomicLongArray balances;
+        // Время открытия счета в секундах от historyStart, индекс - порядковый номер счета
+        final long[] createdOffsets;
+
+        Plan(int accountCount) {
+            this.accountCount = accountCount;
+            this.perAccount = Math.max(1, properties.getTransactionsPerAccount());
+            this.hotCount = properties.getHotAccountRatio() > 0 ?
+                    (int) Math.max(1, Math.min(accountCount, Math.round(accountCount * properties.getHotAccountRatio()))) : 0;
+            this.firstAccountId = paymentService.reserveAccountIds(accountCount);
+            if ((long) accountCount * perAccount > MAX_TRANSACTIONS) {
+                throw new IllegalArgumentException("Слишком много транзакций для генерации: максимум " + MAX_TRANSACTIONS);
+            }
+            this.historySeconds = Math.max(1, properties.getHistoryDays()) * SECONDS_PER_DAY;
+            this.historyStart = LocalDate.now().atStartOfDay().minusSeconds(historySeconds);
+            this.balances = new AtomicLongArray(accountCount);
+            // Отдельный поток генератора: время открытия нужно раньше, чем до счета дойдет его пачка
+            this.createdOffsets = new long[accountCount];
+            for (int index = 0; index < accountCount; index++) {
+                createdOffsets[index] = new SplittableRandom(properties.getSeed() * 0xC2B2AE3D27D4EB4FL + index)
+                        .nextLong(historySeconds - 1);
+            }
+
+            // Сортировка по коду валюты делает выбор независимым от порядка ключей в настройках
+            Map<String, Integer> weights = new TreeMap<>(properties.getCurrencies());
+            weights.values().removeIf(weight -> weight == null || weight <= 0);
+            if (weights.isEmpty()) {
+                weights.put("USD", 1);
+            }
+            this.currencies = weights.keySet().toArray(new String[0]);
+            this.cumulativeWeights = new int[currencies.length];
+            int total = 0;
+            for (int i = 0; i < currencies.length; i++) {
+                total += weights.get(currencies[i]);
+                cumulativeWeights[i] = total;
+            }
+        }
+
+        SplittableRandom random(int index) {
+            return new SplittableRandom(properties.getSeed() * 0x9E3779B97F4A7C15L + index);
+        }
+
+        String pickCurrency(SplittableRandom random) {
+            int roll = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+            int i = 0;
+            while (roll >= cumulativeWeights[i]) {
+                i++;
+            }
+            return currencies[i];
+        }
+
+        int pickCounterpart(SplittableRandom random, int index) {
+            int counterpart = hotCount > 0 && random.nextDouble() < properties.getHotTrafficRatio() ?
+                    random.nextInt(hotCount) : random.nextInt(accountCount);
+            return counterpart != index ? counterpart : (counterpart + 1) % accountCount;
+        }
+    }
+}
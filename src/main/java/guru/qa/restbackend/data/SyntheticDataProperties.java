@@ -0,0 +1,67 @@
+package guru.qa.restbackend.data;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Настройки генератора синтетических данных (префикс bank.synthetic).
+ * Включаются свойством bank.synthetic.enabled=true или профилем synthetic.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "bank.synthetic")
+public class SyntheticDataProperties {
+
+    /**
+     * Включить генерацию данных при старте приложения.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Количество генерируемых счетов.
+     */
+    private int accounts = 100_000;
+
+    /**
+     * Количество транзакций, инициируемых каждым счетом (включая начальное пополнение).
+     */
+    private int transactionsPerAccount = 10;
+
+    /**
+     * Доля "горячих" счетов среди сгенерированных (0..1).
+     */
+    private double hotAccountRatio = 0.01;
+
+    /**
+     * Доля переводов, получателем которых выбирается "горячий" счет (0..1).
+     */
+    private double hotTrafficRatio = 0.5;
+
+    /**
+     * Веса валют: валюта -> относительная доля счетов.
+     */
+    private Map<String, Integer> currencies = new LinkedHashMap<>(Map.of(
+            "USD", 50,
+            "EUR", 30,
+            "RUB", 20
+    ));
+
+    /**
+     * Глубина истории в днях: счета открываются не раньше этого срока.
+     */
+    private int historyDays = 365;
+
+    /**
+     * Зерно генератора. Один и тот же seed дает одни и те же данные.
+     */
+    private long seed = 42L;
+
+    /**
+     * Параллелизм генерации (0 - по числу процессоров).
+     */
+    private int parallelism = 0;
+}
@@ -20,4 +20,5 @@ public class Account {
     private AccountStatus status;
     private LocalDateTime createdAt;
     private String ownerName;
+    private BigDecimal heldAmount;
 }
@@ -0,0 +1,20 @@
+package guru.qa.restbackend.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class AccountContention {
+    private Long accountId;
+    private long contendedOperations;
+    private long overestimate;
+    private long conflicts;
+    private long waits;
+    private long waitMicros;
+    private long maxWaitMicros;
+}
@@ -0,0 +1,27 @@
+package guru.qa.restbackend.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class AuditEvent {
+    private LocalDateTime timestamp;
+    private String caller;
+    private String clientAddress;
+    private String method;
+    private String path;
+    private String operation;
+    private Object request;
+    private int status;
+    private AuditOutcome outcome;
+    private String error;
+    private Long transactionId;
+    private long durationMicros;
+}
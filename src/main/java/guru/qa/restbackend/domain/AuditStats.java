@@ -0,0 +1,25 @@
+package guru.qa.restbackend.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class AuditStats {
+    private boolean enabled;
+    private AuditOverflowPolicy overflowPolicy;
+    private int queueCapacity;
+    private int queueDepth;
+    private long accepted;
+    private long dropped;
+    private long backpressured;
+    private long written;
+    private long failed;
+    private long batches;
+    private double averageBatchSize;
+    private String currentFile;
+}
@@ -0,0 +1,21 @@
+package guru.qa.restbackend.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BalanceTotals {
+    private AccountStatus status;
+    private LocalDateTime openedBefore;
+    private long accounts;
+    private Map<String, BigDecimal> balancesByCurrency;
+}
@@ -0,0 +1,20 @@
+package guru.qa.restbackend.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BankStats {
+    private long accounts;
+    private Map<String, BigDecimal> balancesByCurrency;
+    private Map<AccountStatus, Long> accountsByStatus;
+    private Map<String, Map<TransactionType, TransactionStats>> transactions;
+}
@@ -0,0 +1,8 @@
+package guru.qa.restbackend.domain;
+
+public enum BatchJobState {
+    IDLE,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,6 @@
+package guru.qa.restbackend.domain;
+
+public enum CacheEvictionPolicy {
+    LRU,
+    TINY_LFU
+}
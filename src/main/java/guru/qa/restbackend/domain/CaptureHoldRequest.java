@@ -0,0 +1,21 @@
+package guru.qa.restbackend.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.DecimalMin;
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class CaptureHoldRequest {
+
+    @DecimalMin(value = "0.01", message = "Минимальная сумма 0.01")
+    private BigDecimal amount;
+
+    private String description;
+}
@@ -0,0 +1,25 @@
+package guru.qa.restbackend.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class CaptureStats {
+    private boolean capturing;
+    private String file;
+    private LocalDateTime startedAt;
+    private long captured;
+    private long dropped;
+    private long oversized;
+    private long written;
+    private long bytes;
+    private int queueDepth;
+    private boolean finished;
+}
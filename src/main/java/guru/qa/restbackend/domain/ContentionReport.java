@@ -0,0 +1,21 @@
+package guru.qa.restbackend.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ContentionReport {
+    private LocalDateTime since;
+    private int capacity;
+    private long operations;
+    private long contendedOperations;
+    private List<AccountContention> accounts;
+}
@@ -0,0 +1,30 @@
+package guru.qa.restbackend.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class EndOfDayProgress {
+    private LocalDate businessDate;
+    private BatchJobState state;
+    private int totalPartitions;
+    private int completedPartitions;
+    private int resumedPartitions;
+    private long accountsProcessed;
+    private long interestPosted;
+    private long feesPosted;
+    private long skipped;
+    private long throttledMs;
+    private LocalDateTime startedAt;
+    private long elapsedMs;
+    private long accountsPerSecond;
+    private String error;
+}
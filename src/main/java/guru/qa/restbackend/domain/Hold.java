@@ -0,0 +1,26 @@
+package guru.qa.restbackend.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class Hold {
+    private Long id;
+    private Long accountId;
+    private BigDecimal amount;
+    private BigDecimal capturedAmount;
+    private String description;
+    private HoldStatus status;
+    private LocalDateTime createdAt;
+    private LocalDateTime expiresAt;
+    private LocalDateTime finishedAt;
+    private Long transactionId;
+}
@@ -0,0 +1,28 @@
+package guru.qa.restbackend.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.Digits;
+import javax.validation.constraints.NotNull;
+import java.math.BigDecimal;
+import java.time.Duration;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class HoldRequest {
+
+    @NotNull(message = "Сумма обязательна")
+    @DecimalMin(value = "0.01", message = "Минимальная сумма 0.01")
+    @Digits(integer = 17, fraction = 2, message = "Не больше 17 знаков до запятой и 2 после")
+    private BigDecimal amount;
+
+    private String description;
+
+    private Duration ttl;
+}
@@ -0,0 +1,23 @@
+package guru.qa.restbackend.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class HoldStats {
+    private long active;
+    private long placed;
+    private long captured;
+    private long released;
+    private long expired;
+    private long tickMillis;
+    private long expiryBatches;
+    private int lastExpiryBatchSize;
+    private int lastExpiryAccounts;
+    private long lastExpiryMillis;
+}
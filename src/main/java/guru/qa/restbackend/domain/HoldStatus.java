@@ -0,0 +1,8 @@
+package guru.qa.restbackend.domain;
+
+public enum HoldStatus {
+    ACTIVE,
+    CAPTURED,
+    RELEASED,
+    EXPIRED
+}
@@ -0,0 +1,24 @@
+package guru.qa.restbackend.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ImportReport {
+    private String target;
+    private ExportFormat format;
+    private long bytes;
+    private long recordsRead;
+    private long recordsImported;
+    private long recordsRejected;
+    private long elapsedMs;
+    private long recordsPerSecond;
+    private List<ImportRecordError> errors;
+}
@@ -0,0 +1,21 @@
+package guru.qa.restbackend.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class LatencyStats {
+    private String endpoint;
+    private RequestPhase phase;
+    private long count;
+    private double meanMicros;
+    private long p50Micros;
+    private long p99Micros;
+    private long p999Micros;
+    private long maxMicros;
+}
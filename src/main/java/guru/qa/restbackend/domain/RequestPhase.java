@@ -0,0 +1,12 @@
+package guru.qa.restbackend.domain;
+
+public enum RequestPhase {
+    BIND,
+    VALIDATE,
+    LOOKUP,
+    LOCK,
+    COMMIT,
+    ERROR,
+    SERIALIZE,
+    TOTAL
+}
@@ -0,0 +1,24 @@
+package guru.qa.restbackend.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ResponseCacheStats {
+    private boolean enabled;
+    private CacheEvictionPolicy eviction;
+    private long entries;
+    private long bytes;
+    private long maxBytes;
+    private long hits;
+    private long misses;
+    private double hitRate;
+    private long evictions;
+    private long admissionRejections;
+    private long invalidations;
+}
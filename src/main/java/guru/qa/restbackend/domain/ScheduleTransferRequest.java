@@ -0,0 +1,44 @@
+package guru.qa.restbackend.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.Digits;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ScheduleTransferRequest {
+
+    @NotNull(message = "ID счета отправителя обязателен")
+    private Long fromAccountId;
+
+    @NotNull(message = "ID счета получателя обязателен")
+    private Long toAccountId;
+
+    @NotNull(message = "Сумма обязательна")
+    @DecimalMin(value = "0.01", message = "Минимальная сумма 0.01")
+    @Digits(integer = 17, fraction = 2, message = "Не больше 17 знаков до запятой и 2 после")
+    private BigDecimal amount;
+
+    @Size(max = 1000, message = "Описание не длиннее 1000 символов")
+    private String description;
+
+    @NotNull(message = "Время первого перевода обязательно")
+    private LocalDateTime executeAt;
+
+    private Duration repeatEvery;
+
+    @Min(value = 1, message = "Количество повторов должно быть не меньше 1")
+    private Integer maxRuns;
+}
@@ -0,0 +1,31 @@
+package guru.qa.restbackend.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ScheduledTransfer {
+    private Long id;
+    private Long fromAccountId;
+    private Long toAccountId;
+    private BigDecimal amount;
+    private String description;
+    private TransactionStatus status;
+    private LocalDateTime nextRunAt;
+    private Duration repeatEvery;
+    private Integer remainingRuns;
+    private int runs;
+    private int failedRuns;
+    private Long lastTransactionId;
+    private String lastError;
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,25 @@
+package guru.qa.restbackend.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class SchedulerStats {
+    private boolean enabled;
+    private long pending;
+    private long tickMillis;
+    private long currentTick;
+    private long executed;
+    private long failed;
+    private long batches;
+    private int lastBatchSize;
+    private long lastBatchMillis;
+    private long journalRecords;
+    private long journalBytes;
+    private long compactions;
+}
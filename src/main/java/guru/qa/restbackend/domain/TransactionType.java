@@ -3,5 +3,8 @@ package guru.qa.restbackend.domain;
 public enum TransactionType {
     DEPOSIT,
     WITHDRAWAL,
-    TRANSFER
+    TRANSFER,
+    // Проводки закрытия дня: через API не создаются
+    INTEREST,
+    FEE
 }
\ No newline at end of file
@@ -6,6 +6,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.Digits;
 import javax.validation.constraints.NotNull;
 import java.math.BigDecimal;
 
@@ -23,6 +24,7 @@ public class TransferRequest {
 
     @NotNull(message = "Сумма обязательна")
     @DecimalMin(value = "0.01", message = "Минимальная сумма 0.01")
+    @Digits(integer = 17, fraction = 2, message = "Не больше 17 знаков до запятой и 2 после")
     private BigDecimal amount;
 
     private String description;
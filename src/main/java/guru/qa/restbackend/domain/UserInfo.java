@@ -14,4 +14,6 @@ import java.util.Date;
 public class UserInfo {
     private Date loginDate;
     private String userName;
+    private String token;
+    private Date tokenExpiresAt;
 }
@@ -0,0 +1,11 @@
+package guru.qa.restbackend.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.CONFLICT)
+public class BatchAlreadyRunningException extends RuntimeException {
+    public BatchAlreadyRunningException(String jobName) {
+        super("Задача " + jobName + " уже выполняется");
+    }
+}
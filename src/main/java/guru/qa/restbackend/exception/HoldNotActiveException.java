@@ -0,0 +1,16 @@
+package guru.qa.restbackend.exception;
+
+import guru.qa.restbackend.domain.HoldStatus;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.CONFLICT)
+public class HoldNotActiveException extends RuntimeException {
+    public HoldNotActiveException(Long holdId, HoldStatus status) {
+        super("Холд " + holdId + " уже не активен (статус " + status + ")");
+    }
+
+    public HoldNotActiveException(Long holdId) {
+        super("Холд " + holdId + " уже списывается или снимается");
+    }
+}
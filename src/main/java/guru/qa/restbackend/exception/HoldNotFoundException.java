@@ -0,0 +1,11 @@
+package guru.qa.restbackend.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.NOT_FOUND)
+public class HoldNotFoundException extends RuntimeException {
+    public HoldNotFoundException(Long holdId) {
+        super("Холд с ID " + holdId + " не найден");
+    }
+}
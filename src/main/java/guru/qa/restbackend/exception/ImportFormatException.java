@@ -0,0 +1,11 @@
+package guru.qa.restbackend.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.BAD_REQUEST)
+public class ImportFormatException extends RuntimeException {
+    public ImportFormatException(String message) {
+        super(message);
+    }
+}
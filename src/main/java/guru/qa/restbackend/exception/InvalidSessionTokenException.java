@@ -0,0 +1,16 @@
+package guru.qa.restbackend.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.UNAUTHORIZED)
+public class InvalidSessionTokenException extends RuntimeException {
+
+    public InvalidSessionTokenException() {
+        super("Требуется токен сессии: заголовок Authorization: Bearer <token>");
+    }
+
+    public InvalidSessionTokenException(String reason) {
+        super("Недействительный токен сессии: " + reason);
+    }
+}
@@ -0,0 +1,11 @@
+package guru.qa.restbackend.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.NOT_FOUND)
+public class ScheduledTransferNotFoundException extends RuntimeException {
+    public ScheduledTransferNotFoundException(Long scheduleId) {
+        super("Запланированный перевод с ID " + scheduleId + " не найден");
+    }
+}
@@ -0,0 +1,11 @@
+package guru.qa.restbackend.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.GONE)
+public class SnapshotUnavailableException extends RuntimeException {
+    public SnapshotUnavailableException(long sequence, String reason) {
+        super("Снимок на момент " + sequence + " недоступен: " + reason);
+    }
+}
@@ -0,0 +1,124 @@
+package guru.qa.restbackend.export;
+
+import guru.qa.restbackend.domain.ExportFormat;
+import guru.qa.restbackend.domain.Transaction;
+import guru.qa.restbackend.storage.TransactionSegment;
+import guru.qa.restbackend.storage.TransactionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Потоковая выгрузка журнала транзакций.
+ * <p>
+ * Транзакции пишутся в ответ по одной, без сборки DTO в памяти: сначала холодные сегменты
+ * (от старых к новым), затем горячий уровень по снимку ссылок на его записи. Перенос в сегменты
+ * во время выгрузки не блокируется. Внутри сегмента строки идут по времени, горячий
+ * уровень выгружается в порядке обхода карты. Без фильтра по счету сегмент отдается из готового
+ * файла выгрузки через FileChannel.transferTo, с фильтром - читаются только блоки этого счета.
+ */
+@Service
+public class LedgerExportService {
+
+    private final TransactionRepository transactionStore;
+    private final LedgerRowWriter rowWriter;
+    private final Map<String, SegmentRendition> renditions = new ConcurrentHashMap<>();
+
+    @Autowired
+    public LedgerExportService(TransactionRepository transactionStore, LedgerRowWriter rowWriter) {
+        this.transactionStore = transactionStore;
+        this.rowWriter = rowWriter;
+    }
+
+    /**
+     * Выгрузка транзакций в поток.
+     *
+     * @param format    формат строк
+     * @param from      начало периода включительно (null - без ограничения)
+     * @param to        конец периода не включительно (null - без ограничения)
+     * @param accountId фильтр по счету (null - все счета)
+     * @param out       поток ответа
+     */
+    public void export(ExportFormat format, LocalDateTime from, LocalDateTime to, Long accountId,
+                       OutputStream out) throws IOException {
+        BufferedOutputStream buffered = new BufferedOutputStream(out, 1 << 16);
+        WritableByteChannel channel = Channels.newChannel(out);
+        buffered.write(rowWriter.header(format));
+
+        transactionStore.visitTiers((segments, hot) -> {
+            for (TransactionSegment segment : segments) {
+                if (!overlaps(segment, from, to)) {
+                    continue;
+                }
+                if (accountId == null) {
+                    // Байты файла выгрузки идут мимо буфера, поэтому буфер сбрасывается перед ними
+                    buffered.flush();
+                    rendition(segment, format).transferTo(from, to, channel);
+                } else {
+                    segment.forEachOfAccount(accountId, transaction -> {
+                        if (inPeriod(transaction, from, to)) {
+                            writeRow(buffered, format, transaction);
+                        }
+                    });
+                }
+            }
+            for (Transaction transaction : hot) {
+                if (inPeriod(transaction, from, to) && involves(transaction, accountId)) {
+                    writeRow(buffered, format, transaction);
+                }
+            }
+        });
+        buffered.flush();
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        for (SegmentRendition rendition : renditions.values()) {
+            rendition.close();
+        }
+    }
+
+    private SegmentRendition rendition(TransactionSegment segment, ExportFormat format) {
+        return renditions.computeIfAbsent(segment.getPath() + "#" + format, key -> {
+            try {
+                return SegmentRendition.build(segment, format, rowWriter);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Не удалось подготовить выгрузку сегмента " + segment.getPath(), e);
+            }
+        });
+    }
+
+    private void writeRow(OutputStream out, ExportFormat format, Transaction transaction) {
+        try {
+            out.write(rowWriter.row(format, transaction));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static boolean overlaps(TransactionSegment segment, LocalDateTime from, LocalDateTime to) {
+        return (to == null || segment.getMinTimestamp().isBefore(to))
+                && (from == null || !segment.getMaxTimestamp().isBefore(from));
+    }
+
+    private static boolean inPeriod(Transaction transaction, LocalDateTime from, LocalDateTime to) {
+        return (from == null || !transaction.getTimestamp().isBefore(from))
+                && (to == null || transaction.getTimestamp().isBefore(to));
+    }
+
+    private static boolean involves(Transaction transaction, Long accountId) {
+        return accountId == null
+                || accountId.equals(transaction.getFromAccountId())
+                || accountId.equals(transaction.getToAccountId());
+    }
+}
@@ -0,0 +1,81 @@
+package guru.qa.restbackend.export;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import guru.qa.restbackend.domain.ExportFormat;
+import guru.qa.restbackend.domain.Transaction;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Форматирование строк выгрузки журнала.
+ * Одни и те же байты используются и при потоковой выгрузке, и в готовых файлах выгрузки сегментов,
+ * поэтому строка транзакции не зависит от того, на каком уровне хранилища она лежит.
+ */
+@Component
+public class LedgerRowWriter {
+
+    private static final byte[] CSV_HEADER =
+            "id,timestamp,type,status,amount,fromAccountId,toAccountId,description\n".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] NO_HEADER = new byte[0];
+
+    private final ObjectWriter jsonWriter;
+
+    @Autowired
+    public LedgerRowWriter(ObjectMapper objectMapper) {
+        // Тот же ObjectMapper, что и у REST API: формат даты и полей совпадает с /account/{id}/transactions
+        this.jsonWriter = objectMapper.writerFor(Transaction.class);
+    }
+
+    public byte[] header(ExportFormat format) {
+        return format == ExportFormat.CSV ? CSV_HEADER : NO_HEADER;
+    }
+
+    public byte[] row(ExportFormat format, Transaction transaction) {
+        return format == ExportFormat.CSV ? csvRow(transaction) : jsonRow(transaction);
+    }
+
+    private byte[] jsonRow(Transaction transaction) {
+        try {
+            byte[] json = jsonWriter.writeValueAsBytes(transaction);
+            byte[] row = new byte[json.length + 1];
+            System.arraycopy(json, 0, row, 0, json.length);
+            row[json.length] = '\n';
+            return row;
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private byte[] csvRow(Transaction transaction) {
+        StringBuilder row = new StringBuilder(128)
+                .append(transaction.getId()).append(',')
+                .append(DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(transaction.getTimestamp())).append(',')
+                .append(transaction.getType()).append(',')
+                .append(transaction.getStatus()).append(',')
+                .append(transaction.getAmount().toPlainString()).append(',')
+                .append(transaction.getFromAccountId() != null ? transaction.getFromAccountId() : "").append(',')
+                .append(transaction.getToAccountId() != null ? transaction.getToAccountId() : "").append(',');
+        appendCsvField(row, transaction.getDescription());
+        return row.append('\n').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Экранирование по RFC 4180: поле с запятой, кавычкой или переводом строки берется в кавычки.
+     */
+    private static void appendCsvField(StringBuilder row, String value) {
+        if (value == null) {
+            return;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            row.append(value);
+            return;
+        }
+        row.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+}
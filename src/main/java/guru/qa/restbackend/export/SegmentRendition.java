@@ -0,0 +1,138 @@
+package guru.qa.restbackend.export;
+
+import guru.qa.restbackend.domain.ExportFormat;
+import guru.qa.restbackend.domain.Transaction;
+import guru.qa.restbackend.storage.TransactionSegment;
+
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Готовый файл выгрузки одного сегмента в заданном формате.
+ * <p>
+ * Строки отсортированы по времени, каждая транзакция встречается один раз. Рядом лежит плотный
+ * индекс строк (время в наносекундах эпохи и смещение строки), отображенный в память. Диапазон
+ * времени превращается в один непрерывный диапазон байт файла, который отдается клиенту
+ * через {@link FileChannel#transferTo} без разбора и повторного форматирования.
+ * <p>
+ * Сегменты неизменяемы, поэтому файл выгрузки строится один раз, при первом обращении.
+ */
+class SegmentRendition implements Closeable {
+
+    private static final int INDEX_ENTRY_SIZE = 2 * Long.BYTES;
+
+    private final FileChannel data;
+    private final long dataSize;
+    private final MappedByteBuffer index;
+    private final int rows;
+
+    private SegmentRendition(Path dataPath, Path indexPath) throws IOException {
+        this.data = FileChannel.open(dataPath, StandardOpenOption.READ);
+        this.dataSize = data.size();
+        try (FileChannel indexChannel = FileChannel.open(indexPath, StandardOpenOption.READ)) {
+            this.index = indexChannel.map(FileChannel.MapMode.READ_ONLY, 0, indexChannel.size());
+            this.rows = (int) (indexChannel.size() / INDEX_ENTRY_SIZE);
+        }
+    }
+
+    /**
+     * Построение файла выгрузки сегмента и его индекса.
+     *
+     * @param segment   сегмент транзакций
+     * @param format    формат строк
+     * @param rowWriter форматирование строк
+     * @return открытый файл выгрузки
+     */
+    static SegmentRendition build(TransactionSegment segment, ExportFormat format,
+                                  LedgerRowWriter rowWriter) throws IOException {
+        Path dataPath = Paths.get(segment.getPath() + "." + format.getExtension());
+        Path indexPath = Paths.get(dataPath + ".idx");
+
+        List<Transaction> transactions = new ArrayList<>((int) segment.getTransactionCount());
+        segment.forEach(transactions::add);
+        transactions.sort(Comparator.comparing(Transaction::getTimestamp).thenComparing(Transaction::getId));
+
+        Path dataTemp = Paths.get(dataPath + ".tmp");
+        Path indexTemp = Paths.get(indexPath + ".tmp");
+        try (OutputStream dataOut = new BufferedOutputStream(Files.newOutputStream(dataTemp), 1 << 16);
+             DataOutputStream indexOut = new DataOutputStream(
+                     new BufferedOutputStream(Files.newOutputStream(indexTemp), 1 << 16))) {
+            long offset = 0;
+            for (Transaction transaction : transactions) {
+                byte[] row = rowWriter.row(format, transaction);
+                indexOut.writeLong(epochNanos(transaction.getTimestamp()));
+                indexOut.writeLong(offset);
+                dataOut.write(row);
+                offset += row.length;
+            }
+        }
+        Files.move(indexTemp, indexPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        Files.move(dataTemp, dataPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return new SegmentRendition(dataPath, indexPath);
+    }
+
+    /**
+     * Передача строк со временем в [from, to) в канал.
+     *
+     * @param from   начало периода включительно (null - без ограничения)
+     * @param to     конец периода не включительно (null - без ограничения)
+     * @param target канал ответа
+     * @return количество переданных строк
+     */
+    long transferTo(LocalDateTime from, LocalDateTime to, WritableByteChannel target) throws IOException {
+        int first = from != null ? lowerBound(epochNanos(from)) : 0;
+        int last = to != null ? lowerBound(epochNanos(to)) : rows;
+        if (first >= last) {
+            return 0;
+        }
+
+        long position = offset(first);
+        long end = last < rows ? offset(last) : dataSize;
+        while (position < end) {
+            position += data.transferTo(position, end - position, target);
+        }
+        return last - first;
+    }
+
+    @Override
+    public void close() throws IOException {
+        data.close();
+    }
+
+    /**
+     * Первая строка со временем не меньше заданного (бинарный поиск по индексу).
+     */
+    private int lowerBound(long epochNanos) {
+        int low = 0;
+        int high = rows;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (index.getLong(middle * INDEX_ENTRY_SIZE) < epochNanos) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private long offset(int row) {
+        return index.getLong(row * INDEX_ENTRY_SIZE + Long.BYTES);
+    }
+
+    private static long epochNanos(LocalDateTime timestamp) {
+        return timestamp.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + timestamp.getNano();
+    }
+}
@@ -0,0 +1,335 @@
+package guru.qa.restbackend.history;
+
+import guru.qa.restbackend.domain.Account;
+import guru.qa.restbackend.domain.Transaction;
+import guru.qa.restbackend.domain.TransactionStatus;
+import guru.qa.restbackend.exception.AccountNotFoundException;
+import guru.qa.restbackend.storage.AccountCommitListener;
+import guru.qa.restbackend.storage.AccountState;
+import guru.qa.restbackend.storage.TransactionIdGenerator;
+import guru.qa.restbackend.storage.TransactionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Баланс счета на момент времени: контрольные точки баланса и пересчет транзакций после ближайшей из них.
+ * <p>
+ * Контрольная точка - баланс после всех транзакций счета с ключом порядка
+ * ({@link TransactionIdGenerator#orderKey(Transaction)}) не больше ее ключа. Точки онлайн-операций
+ * ставятся при фиксации: хранилище счетов передает ID транзакции вместе с состоянием, поэтому
+ * изменение баланса учитывается под своим ключом еще до записи транзакции в журнал. Фиксации одного
+ * счета могут прийти не в порядке ключей; изменение с ключом меньше уже поставленных точек
+ * добавляется и к ним, так что точки точны, как только получены все изменения до их ключа.
+ * Точка ставится через каждые bank.balance-history.checkpoint-interval изменений, поэтому запрос читает
+ * из истории не больше стольких транзакций, какой бы длинной она ни была.
+ * <p>
+ * Загруженная история (тестовые и синтетические данные, импорт) фиксаций не проходит: баланс счета при
+ * открытии (или замене целиком) уже включает ее, а все ее ключи не больше ключа открытия. Точки внутри
+ * нее строятся одним проходом при первом запросе момента до открытия и хранятся до следующей загрузки
+ * истории этого счета; онлайн-операции на это построение не влияют. Операция, зафиксированная, но еще
+ * не полученная или не записанная в журнал, может быть не видна в ответе, но в точки не попадает с ошибкой.
+ */
+@Component
+public class BalanceHistory implements AccountCommitListener {
+
+    private static final Comparator<Transaction> CHRONOLOGICAL =
+            Comparator.comparingLong(TransactionIdGenerator::orderKey);
+    // Ключ "до всей истории"
+    private static final long NONE = Long.MIN_VALUE;
+
+    private final TransactionRepository transactions;
+    private final BalanceHistoryProperties properties;
+    private final Map<Long, Ledger> ledgers = new ConcurrentHashMap<>();
+
+    @Autowired
+    public BalanceHistory(TransactionRepository transactions, BalanceHistoryProperties properties) {
+        this.transactions = transactions;
+        this.properties = properties;
+    }
+
+    /**
+     * Точки одного счета. Изменяются под блокировкой самого объекта.
+     */
+    private static final class Ledger {
+        // Баланс при открытии счета; вся загруженная история - с ключами не больше anchorKey
+        BigDecimal anchorBalance = BigDecimal.ZERO;
+        long anchorKey = NONE;
+        // Баланс при открытии плюс все полученные изменения онлайн-операций
+        BigDecimal balance = BigDecimal.ZERO;
+        long maxKey = NONE;
+        // Точки онлайн-операций по возрастанию ключа (ключи больше anchorKey)
+        long[] keys;
+        BigDecimal[] balances;
+        int size;
+        int sinceCheckpoint;
+        // Точки загруженной истории; null - еще не построены
+        LoadedHistory loaded;
+        // Растет при каждом изменении загруженной истории: построенные раньше точки не запоминаются
+        long generation;
+
+        void open(BigDecimal opening, long key) {
+            anchorBalance = opening;
+            anchorKey = Math.max(anchorKey, key);
+            balance = opening;
+            maxKey = NONE;
+            size = 0;
+            sinceCheckpoint = 0;
+            loaded = null;
+            generation++;
+        }
+
+        void apply(long key, BigDecimal delta, int interval) {
+            balance = balance.add(delta);
+            if (key > maxKey) {
+                maxKey = key;
+            } else {
+                // Изменение пришло после точек с большими ключами - они его еще не учли
+                for (int i = size - 1; i >= 0 && keys[i] >= key; i--) {
+                    balances[i] = balances[i].add(delta);
+                }
+            }
+            if (++sinceCheckpoint >= interval && (size == 0 || keys[size - 1] < maxKey)) {
+                if (keys == null || size == keys.length) {
+                    int capacity = keys == null ? 4 : size * 2;
+                    keys = keys == null ? new long[capacity] : Arrays.copyOf(keys, capacity);
+                    balances = balances == null ? new BigDecimal[capacity] : Arrays.copyOf(balances, capacity);
+                }
+                keys[size] = maxKey;
+                balances[size] = balance;
+                size++;
+                sinceCheckpoint = 0;
+            }
+        }
+    }
+
+    /**
+     * Точки загруженной истории счета (неизменяемые).
+     */
+    private static final class LoadedHistory {
+        // Баланс до первой транзакции
+        final BigDecimal opening;
+        final long[] keys;
+        final BigDecimal[] balances;
+
+        LoadedHistory(BigDecimal opening, long[] keys, BigDecimal[] balances) {
+            this.opening = opening;
+            this.keys = keys;
+            this.balances = balances;
+        }
+    }
+
+    /**
+     * Открытие счета (загрузка, создание): от его баланса отсчитываются изменения онлайн-операций.
+     * Остальные фиксации без транзакции (холды, статусы, перенос баланса между полосами) баланс
+     * счета не меняют.
+     */
+    @Override
+    public void committed(AccountState previous, AccountState current) {
+        if (previous == null) {
+            Ledger ledger = ledgers.computeIfAbsent(current.getId(), id -> new Ledger());
+            synchronized (ledger) {
+                ledger.open(current.getBalance(), TransactionIdGenerator.currentFloor() - 1);
+            }
+        }
+    }
+
+    /**
+     * Изменение баланса операцией: учитывается под ключом ее транзакции. У счета в режиме полос
+     * приходит по частям, сумма частей - изменение баланса счета.
+     */
+    @Override
+    public void committed(AccountState previous, AccountState current, long transactionId) {
+        BigDecimal delta = current.getBalance().subtract(previous.getBalance());
+        Ledger ledger = ledgers.get(current.getId());
+        if (delta.signum() == 0 || ledger == null) {
+            return;
+        }
+        synchronized (ledger) {
+            ledger.apply(transactionId, delta, properties.getCheckpointInterval());
+        }
+    }
+
+    /**
+     * Баланс счета на момент: после всех транзакций с меткой времени не позже at (с точностью до миллисекунды).
+     *
+     * @throws AccountNotFoundException если счет не открывался
+     */
+    public BigDecimal balanceAt(Long accountId, LocalDateTime at) {
+        Ledger ledger = ledgers.get(accountId);
+        if (ledger == null) {
+            throw new AccountNotFoundException(accountId);
+        }
+        long bound = TransactionIdGenerator.lastKeyAt(at);
+        long baseKey;
+        BigDecimal base;
+        LoadedHistory loaded = null;
+        BigDecimal anchorBalance = null;
+        long anchorKey = NONE;
+        long generation = 0;
+        synchronized (ledger) {
+            if (bound >= ledger.anchorKey && bound >= ledger.maxKey) {
+                return ledger.balance;
+            }
+            if (bound >= ledger.anchorKey) {
+                int index = lastNotAfter(ledger.keys, ledger.size, bound);
+                baseKey = index >= 0 ? ledger.keys[index] : ledger.anchorKey;
+                base = index >= 0 ? ledger.balances[index] : ledger.anchorBalance;
+            } else {
+                baseKey = NONE;
+                base = null;
+                loaded = ledger.loaded;
+                anchorBalance = ledger.anchorBalance;
+                anchorKey = ledger.anchorKey;
+                generation = ledger.generation;
+            }
+        }
+
+        // Журнал читается уже без блокировки: фиксации счета чтение не ждут
+        if (base == null) {
+            if (loaded == null) {
+                loaded = build(accountId, anchorBalance, anchorKey);
+                synchronized (ledger) {
+                    if (ledger.generation == generation) {
+                        ledger.loaded = loaded;
+                    }
+                }
+            }
+            int index = lastNotAfter(loaded.keys, loaded.keys.length, bound);
+            baseKey = index >= 0 ? loaded.keys[index] : NONE;
+            base = index >= 0 ? loaded.balances[index] : loaded.opening;
+        }
+        return replay(accountId, base, baseKey, bound);
+    }
+
+    /**
+     * Загружена история задним числом: ключ открытия сдвигается за нее, точки загруженной
+     * истории счетов строятся заново.
+     */
+    public void historyLoaded(Collection<Transaction> batch) {
+        for (Transaction transaction : batch) {
+            long key = TransactionIdGenerator.orderKey(transaction);
+            loaded(transaction.getFromAccountId(), key);
+            loaded(transaction.getToAccountId(), key);
+        }
+    }
+
+    /**
+     * Счет заменен целиком: отсчет заново от нового баланса.
+     */
+    public void accountReplaced(Account account) {
+        Ledger ledger = ledgers.computeIfAbsent(account.getId(), id -> new Ledger());
+        synchronized (ledger) {
+            ledger.open(account.getBalance(), TransactionIdGenerator.currentFloor() - 1);
+        }
+    }
+
+    private void loaded(Long accountId, long key) {
+        if (accountId == null) {
+            return;
+        }
+        Ledger ledger = ledgers.computeIfAbsent(accountId, id -> new Ledger());
+        synchronized (ledger) {
+            ledger.anchorKey = Math.max(ledger.anchorKey, key);
+            ledger.loaded = null;
+            ledger.generation++;
+        }
+    }
+
+    /**
+     * Начальный баланс и точки загруженной истории: один проход по транзакциям с ключом не больше
+     * ключа открытия. Точка ставится через каждые checkpoint-interval транзакций, но только между
+     * транзакциями с разными ключами - иначе граница точки разделила бы их.
+     */
+    private LoadedHistory build(Long accountId, BigDecimal anchorBalance, long anchorKey) {
+        List<Transaction> history = transactions.findByAccount(accountId, null, endOf(anchorKey));
+        history.removeIf(transaction -> TransactionIdGenerator.orderKey(transaction) > anchorKey);
+        history.sort(CHRONOLOGICAL);
+        BigDecimal balance = anchorBalance;
+        for (Transaction transaction : history) {
+            balance = balance.subtract(effect(transaction, accountId));
+        }
+
+        BigDecimal opening = balance;
+        int interval = properties.getCheckpointInterval();
+        long[] keys = new long[history.size() / interval];
+        BigDecimal[] balances = new BigDecimal[keys.length];
+        int size = 0;
+        int count = 0;
+        for (int i = 0; i < history.size(); i++) {
+            Transaction transaction = history.get(i);
+            balance = balance.add(effect(transaction, accountId));
+            long key = TransactionIdGenerator.orderKey(transaction);
+            if (++count >= interval && size < keys.length
+                    && (i + 1 == history.size() || TransactionIdGenerator.orderKey(history.get(i + 1)) > key)) {
+                keys[size] = key;
+                balances[size] = balance;
+                size++;
+                count = 0;
+            }
+        }
+        return new LoadedHistory(opening, Arrays.copyOf(keys, size), Arrays.copyOf(balances, size));
+    }
+
+    /**
+     * Баланс точки плюс транзакции счета с ключом в (fromKey, toKey].
+     */
+    private BigDecimal replay(Long accountId, BigDecimal base, long fromKey, long toKey) {
+        if (toKey < 0) {
+            return base;
+        }
+        LocalDateTime from = fromKey != NONE ? TransactionIdGenerator.timestampOf(fromKey) : null;
+        BigDecimal balance = base;
+        for (Transaction transaction : transactions.findByAccount(accountId, from, endOf(toKey))) {
+            long key = TransactionIdGenerator.orderKey(transaction);
+            if (key > fromKey && key <= toKey) {
+                balance = balance.add(effect(transaction, accountId));
+            }
+        }
+        return balance;
+    }
+
+    /**
+     * Граница периода (не включая) для транзакций с ключом не больше key.
+     */
+    private static LocalDateTime endOf(long key) {
+        return TransactionIdGenerator.timestampOf(key).plus(1, ChronoUnit.MILLIS);
+    }
+
+    /**
+     * Индекс последней точки с ключом не больше key или -1.
+     */
+    private static int lastNotAfter(long[] keys, int size, long key) {
+        if (size == 0) {
+            return -1;
+        }
+        int index = Arrays.binarySearch(keys, 0, size, key);
+        return index >= 0 ? index : -index - 2;
+    }
+
+    /**
+     * Изменение баланса счета транзакцией: зачисление - плюс, списание - минус, неуспешная - ноль.
+     */
+    private static BigDecimal effect(Transaction transaction, Long accountId) {
+        if (transaction.getStatus() != TransactionStatus.SUCCESS) {
+            return BigDecimal.ZERO;
+        }
+        BigDecimal effect = BigDecimal.ZERO;
+        if (accountId.equals(transaction.getToAccountId())) {
+            effect = effect.add(transaction.getAmount());
+        }
+        if (accountId.equals(transaction.getFromAccountId())) {
+            effect = effect.subtract(transaction.getAmount());
+        }
+        return effect;
+    }
+}
@@ -0,0 +1,20 @@
+package guru.qa.restbackend.history;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Настройки исторических балансов (префикс bank.balance-history).
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "bank.balance-history")
+public class BalanceHistoryProperties {
+
+    /**
+     * Через сколько транзакций счета ставится контрольная точка баланса: запрос баланса на момент
+     * пересчитывает не больше стольких транзакций.
+     */
+    private int checkpointInterval = 256;
+}
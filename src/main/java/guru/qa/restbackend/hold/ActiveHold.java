@@ -0,0 +1,46 @@
+package guru.qa.restbackend.hold;
+
+import guru.qa.restbackend.domain.Hold;
+import guru.qa.restbackend.domain.HoldStatus;
+import guru.qa.restbackend.schedule.TimingWheel;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Активный холд в {@link HoldManager}. Изменяется только под его блокировкой.
+ */
+final class ActiveHold {
+
+    long id;
+    long accountId;
+    BigDecimal amount;
+    String description;
+    long createdAt;
+    long expiresAt;
+
+    TimingWheel.Timer<ActiveHold> timer;
+    // Холд списывается или снимается: сумма на счете меняется вне блокировки
+    boolean settling;
+
+    Hold toHold(HoldStatus status, BigDecimal capturedAmount, Long transactionId, Long finishedAt, ZoneId zone) {
+        return Hold.builder()
+                .id(id)
+                .accountId(accountId)
+                .amount(amount)
+                .capturedAmount(capturedAmount)
+                .description(description)
+                .status(status)
+                .createdAt(time(createdAt, zone))
+                .expiresAt(time(expiresAt, zone))
+                .finishedAt(finishedAt != null ? time(finishedAt, zone) : null)
+                .transactionId(transactionId)
+                .build();
+    }
+
+    private static LocalDateTime time(long epochMillis, ZoneId zone) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), zone);
+    }
+}
@@ -0,0 +1,337 @@
+package guru.qa.restbackend.hold;
+
+import guru.qa.restbackend.domain.CaptureHoldRequest;
+import guru.qa.restbackend.domain.Hold;
+import guru.qa.restbackend.domain.HoldRequest;
+import guru.qa.restbackend.domain.HoldStats;
+import guru.qa.restbackend.domain.HoldStatus;
+import guru.qa.restbackend.domain.Transaction;
+import guru.qa.restbackend.exception.HoldNotActiveException;
+import guru.qa.restbackend.exception.HoldNotFoundException;
+import guru.qa.restbackend.exception.InvalidHoldException;
+import guru.qa.restbackend.schedule.TimingWheel;
+import guru.qa.restbackend.service.PaymentService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Холды: резервирование суммы на счете до списания (reserve), списание всей суммы или части (capture)
+ * и снятие (release).
+ * <p>
+ * Сумма холдов счета хранится в состоянии счета ({@code held}), поэтому проверка доступного остатка
+ * при снятии и переводе - одно сравнение, без обхода холдов. Здесь хранятся сами холды: активные
+ * лежат в колесе времени ({@link TimingWheel}) по сроку истечения, и поток истечения на каждом шаге
+ * забирает только истекшие, снимая холды одного счета одной фиксацией.
+ * <p>
+ * Холды живут только в памяти: после перезапуска их нет, и суммы холдов на счетах не восстанавливаются.
+ */
+@Slf4j
+@Component
+public class HoldManager {
+
+    private final HoldProperties properties;
+    private final PaymentService paymentService;
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final long tickMillis;
+
+    // Под блокировкой this
+    private final Map<Long, ActiveHold> active = new HashMap<>();
+    private final ArrayDeque<ActiveHold> due = new ArrayDeque<>();
+    private final Map<Long, Hold> finished;
+    private TimingWheel<ActiveHold> wheel;
+
+    private final AtomicLong ids = new AtomicLong();
+    private final LongAdder placed = new LongAdder();
+    private final LongAdder captured = new LongAdder();
+    private final LongAdder released = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private volatile long expiryBatches;
+    private volatile int lastExpiryBatchSize;
+    private volatile int lastExpiryAccounts;
+    private volatile long lastExpiryMillis;
+
+    private Thread expirer;
+    private volatile boolean running;
+
+    @Autowired
+    public HoldManager(HoldProperties properties, PaymentService paymentService) {
+        this.properties = properties;
+        this.paymentService = paymentService;
+        this.tickMillis = Math.max(1, properties.getTick().toMillis());
+        int retention = properties.getFinishedRetention();
+        this.finished = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Hold> eldest) {
+                return size() > retention;
+            }
+        };
+    }
+
+    @PostConstruct
+    public void start() {
+        synchronized (this) {
+            wheel = new TimingWheel<>(Math.floorDiv(System.currentTimeMillis(), tickMillis));
+        }
+        running = true;
+        expirer = new Thread(this::expiryLoop, "hold-expiry");
+        expirer.setDaemon(true);
+        expirer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(expirer);
+        expirer.join(TimeUnit.SECONDS.toMillis(30));
+    }
+
+    /**
+     * Холд на счете.
+     *
+     * @param accountId ID счета
+     * @param request   сумма, описание и срок
+     * @return активный холд
+     */
+    public Hold place(Long accountId, HoldRequest request) {
+        Duration ttl = request.getTtl() != null ? request.getTtl() : properties.getDefaultTtl();
+        if (ttl.isNegative() || ttl.isZero() || ttl.compareTo(properties.getMaxTtl()) > 0) {
+            throw new InvalidHoldException("Срок холда должен быть больше нуля и не больше " + properties.getMaxTtl());
+        }
+        paymentService.placeHold(accountId, request.getAmount());
+
+        ActiveHold hold = new ActiveHold();
+        hold.id = ids.incrementAndGet();
+        hold.accountId = accountId;
+        hold.amount = request.getAmount();
+        hold.description = request.getDescription();
+        hold.createdAt = System.currentTimeMillis();
+        hold.expiresAt = hold.createdAt + ttl.toMillis();
+        placed.increment();
+        synchronized (this) {
+            active.put(hold.id, hold);
+            arm(hold);
+            return hold.toHold(HoldStatus.ACTIVE, null, null, null, zone);
+        }
+    }
+
+    /**
+     * Холд по ID: активный или один из последних завершенных.
+     */
+    public synchronized Hold getHold(Long holdId) {
+        ActiveHold hold = active.get(holdId);
+        if (hold != null) {
+            return hold.toHold(HoldStatus.ACTIVE, null, null, null, zone);
+        }
+        Hold done = finished.get(holdId);
+        if (done == null) {
+            throw new HoldNotFoundException(holdId);
+        }
+        return done;
+    }
+
+    /**
+     * Списание по холду: сумма из запроса (без нее - вся сумма холда) списывается транзакцией снятия,
+     * остаток холда снимается.
+     *
+     * @return транзакция снятия
+     */
+    public Transaction capture(Long holdId, CaptureHoldRequest request) {
+        ActiveHold hold;
+        BigDecimal amount;
+        synchronized (this) {
+            hold = settle(holdId);
+            amount = request.getAmount() != null ? request.getAmount() : hold.amount;
+            if (amount.compareTo(hold.amount) > 0) {
+                restore(hold);
+                throw new InvalidHoldException("Сумма списания " + amount + " больше суммы холда " + hold.amount);
+            }
+        }
+        Transaction transaction;
+        try {
+            transaction = paymentService.captureHold(hold.accountId, hold.amount, amount,
+                    request.getDescription() != null ? request.getDescription() : hold.description);
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                restore(hold);
+            }
+            throw e;
+        }
+        captured.increment();
+        synchronized (this) {
+            finish(hold, hold.toHold(HoldStatus.CAPTURED, amount, transaction.getId(), System.currentTimeMillis(), zone));
+        }
+        return transaction;
+    }
+
+    /**
+     * Снятие холда без списания.
+     *
+     * @return снятый холд
+     */
+    public Hold release(Long holdId) {
+        ActiveHold hold;
+        synchronized (this) {
+            hold = settle(holdId);
+        }
+        try {
+            paymentService.releaseHold(hold.accountId, hold.amount);
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                restore(hold);
+            }
+            throw e;
+        }
+        released.increment();
+        Hold result = hold.toHold(HoldStatus.RELEASED, null, null, System.currentTimeMillis(), zone);
+        synchronized (this) {
+            finish(hold, result);
+        }
+        return result;
+    }
+
+    public HoldStats getStats() {
+        long count;
+        synchronized (this) {
+            count = active.size();
+        }
+        return HoldStats.builder()
+                .active(count)
+                .placed(placed.sum())
+                .captured(captured.sum())
+                .released(released.sum())
+                .expired(expired.sum())
+                .tickMillis(tickMillis)
+                .expiryBatches(expiryBatches)
+                .lastExpiryBatchSize(lastExpiryBatchSize)
+                .lastExpiryAccounts(lastExpiryAccounts)
+                .lastExpiryMillis(lastExpiryMillis)
+                .build();
+    }
+
+    /**
+     * Начало списания или снятия: холд остается активным, но таймер истечения снят и второй
+     * участник получит отказ. Под блокировкой this.
+     */
+    private ActiveHold settle(Long holdId) {
+        ActiveHold hold = active.get(holdId);
+        if (hold == null) {
+            Hold done = finished.get(holdId);
+            if (done != null) {
+                throw new HoldNotActiveException(holdId, done.getStatus());
+            }
+            throw new HoldNotFoundException(holdId);
+        }
+        if (hold.settling) {
+            throw new HoldNotActiveException(holdId);
+        }
+        if (!wheel.cancel(hold.timer)) {
+            // Срок уже наступил, но поток истечения его еще не забрал
+            due.remove(hold);
+        }
+        hold.timer = null;
+        hold.settling = true;
+        return hold;
+    }
+
+    /**
+     * Возврат холда в активные после неудачного списания или снятия. Под блокировкой this.
+     */
+    private void restore(ActiveHold hold) {
+        hold.settling = false;
+        arm(hold);
+    }
+
+    private void finish(ActiveHold hold, Hold result) {
+        active.remove(hold.id);
+        finished.put(hold.id, result);
+    }
+
+    private void arm(ActiveHold hold) {
+        // Не раньше срока: шаг, на котором время шага уже не меньше срока
+        long deadlineTick = Math.floorDiv(hold.expiresAt + tickMillis - 1, tickMillis);
+        hold.timer = wheel.add(deadlineTick, hold, due::add);
+    }
+
+    private void expiryLoop() {
+        List<ActiveHold> batch = new ArrayList<>();
+        while (running) {
+            long now = System.currentTimeMillis();
+            batch.clear();
+            synchronized (this) {
+                wheel.advance(Math.floorDiv(now, tickMillis), due::add);
+                while (batch.size() < properties.getExpiryBatchSize() && !due.isEmpty()) {
+                    ActiveHold hold = due.poll();
+                    hold.timer = null;
+                    hold.settling = true;
+                    batch.add(hold);
+                }
+            }
+            if (batch.isEmpty()) {
+                long nextTick = (Math.floorDiv(now, tickMillis) + 1) * tickMillis;
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(Math.max(1, nextTick - now)));
+                continue;
+            }
+            try {
+                expire(batch);
+            } catch (RuntimeException e) {
+                log.error("Ошибка снятия истекших холдов", e);
+            }
+        }
+    }
+
+    /**
+     * Снятие истекших холдов: суммы холдов одного счета складываются и снимаются одной фиксацией.
+     */
+    private void expire(List<ActiveHold> batch) {
+        long started = System.nanoTime();
+        Map<Long, BigDecimal> byAccount = new HashMap<>();
+        for (ActiveHold hold : batch) {
+            byAccount.merge(hold.accountId, hold.amount, BigDecimal::add);
+        }
+        List<Long> failedAccounts = new ArrayList<>();
+        for (Map.Entry<Long, BigDecimal> entry : byAccount.entrySet()) {
+            try {
+                paymentService.releaseHold(entry.getKey(), entry.getValue());
+            } catch (RuntimeException e) {
+                log.error("Не удалось снять истекшие холды счета {} на сумму {}", entry.getKey(), entry.getValue(), e);
+                failedAccounts.add(entry.getKey());
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        int done = 0;
+        synchronized (this) {
+            for (ActiveHold hold : batch) {
+                if (failedAccounts.contains(hold.accountId)) {
+                    // Повтор на следующем шаге
+                    restore(hold);
+                    continue;
+                }
+                finish(hold, hold.toHold(HoldStatus.EXPIRED, null, null, now, zone));
+                done++;
+            }
+        }
+        expired.add(done);
+        expiryBatches++;
+        lastExpiryBatchSize = batch.size();
+        lastExpiryAccounts = byAccount.size();
+        lastExpiryMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+    }
+}
@@ -0,0 +1,41 @@
+package guru.qa.restbackend.hold;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Настройки холдов (префикс bank.holds).
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "bank.holds")
+public class HoldProperties {
+
+    /**
+     * Шаг колеса времени истечения: холд снимается не раньше срока, но может опоздать на шаг.
+     */
+    private Duration tick = Duration.ofSeconds(1);
+
+    /**
+     * Срок холда, если он не задан в запросе.
+     */
+    private Duration defaultTtl = Duration.ofDays(7);
+
+    /**
+     * Максимальный срок холда.
+     */
+    private Duration maxTtl = Duration.ofDays(30);
+
+    /**
+     * Максимум истекших холдов, снимаемых за один проход (холды одного счета снимаются одной фиксацией).
+     */
+    private int expiryBatchSize = 10_000;
+
+    /**
+     * Сколько последних завершенных холдов доступно по ID.
+     */
+    private int finishedRetention = 10_000;
+}
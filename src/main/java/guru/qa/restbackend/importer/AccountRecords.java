@@ -0,0 +1,101 @@
+package guru.qa.restbackend.importer;
+
+import guru.qa.restbackend.domain.Account;
+import guru.qa.restbackend.domain.AccountStatus;
+import guru.qa.restbackend.service.PaymentService;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Импорт счетов. Колонки CSV: id,accountNumber,balance,currency,status,createdAt,ownerName.
+ * Балансы переносятся как есть, номер счета и дата открытия при отсутствии заполняются.
+ */
+class AccountRecords implements RecordType<Account> {
+
+    private static final List<String> REQUIRED_COLUMNS = List.of("id", "balance", "currency", "ownerName");
+
+    private final PaymentService paymentService;
+    private final long maxAccountId;
+
+    AccountRecords(PaymentService paymentService, long maxAccountId) {
+        this.paymentService = paymentService;
+        this.maxAccountId = maxAccountId;
+    }
+
+    @Override
+    public String getName() {
+        return "accounts";
+    }
+
+    @Override
+    public Class<Account> getRecordClass() {
+        return Account.class;
+    }
+
+    @Override
+    public List<String> getRequiredColumns() {
+        return REQUIRED_COLUMNS;
+    }
+
+    @Override
+    public Account fromCsv(CsvRecord record) {
+        String balance = record.get("balance");
+        String status = record.get("status");
+        String createdAt = record.get("createdAt");
+        return Account.builder()
+                .id(record.getLong("id"))
+                .accountNumber(record.get("accountNumber"))
+                .balance(balance != null ? new BigDecimal(balance) : null)
+                .currency(record.get("currency"))
+                .status(status != null ? AccountStatus.valueOf(status) : null)
+                .createdAt(createdAt != null ? LocalDateTime.parse(createdAt) : null)
+                .ownerName(record.get("ownerName"))
+                .build();
+    }
+
+    @Override
+    public void normalize(Account account) {
+        if (account.getId() == null || account.getId() <= 0) {
+            throw new IllegalArgumentException("ID счета должен быть положительным");
+        }
+        if (account.getId() > maxAccountId) {
+            throw new IllegalArgumentException("ID счета не может быть больше " + maxAccountId);
+        }
+        if (account.getBalance() == null) {
+            throw new IllegalArgumentException("Баланс не может быть null");
+        }
+        if (account.getBalance().signum() < 0) {
+            throw new IllegalArgumentException("Баланс не может быть отрицательным");
+        }
+        if (account.getBalance().scale() > 2) {
+            throw new IllegalArgumentException("Максимум 2 знака после запятой");
+        }
+        if (account.getCurrency() == null || !account.getCurrency().matches("[A-Z]{3}")) {
+            throw new IllegalArgumentException("Валюта должна быть трехбуквенным кодом ISO 4217");
+        }
+        if (account.getOwnerName() == null || account.getOwnerName().isBlank()) {
+            throw new IllegalArgumentException("Имя владельца не может быть пустым");
+        }
+        if (account.getAccountNumber() == null) {
+            account.setAccountNumber(PaymentService.generateAccountNumber(account.getId()));
+        }
+        if (account.getStatus() == null) {
+            account.setStatus(AccountStatus.ACTIVE);
+        }
+        if (account.getCreatedAt() == null) {
+            account.setCreatedAt(LocalDateTime.now());
+        }
+    }
+
+    @Override
+    public List<Account> load(List<Account> batch) {
+        return paymentService.importAccounts(batch);
+    }
+
+    @Override
+    public String rejectionMessage(Account account) {
+        return "Счет с ID " + account.getId() + " уже существует";
+    }
+}
@@ -0,0 +1,77 @@
+package guru.qa.restbackend.importer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Разбор CSV по RFC 4180 прямо из байтов файла: поля в кавычках могут содержать запятые,
+ * удвоенные кавычки и переводы строк. Строки создаются только для значений полей.
+ */
+final class CsvParser {
+
+    private CsvParser() {
+    }
+
+    /**
+     * Разбор одной записи.
+     *
+     * @param data   байты куска файла
+     * @param from   начало записи
+     * @param to     конец куска
+     * @param fields список, в который добавляются значения полей
+     * @return позиция сразу за записью (после перевода строки)
+     * @throws IllegalArgumentException если кавычка не закрыта до конца куска
+     */
+    static int parseRecord(byte[] data, int from, int to, List<String> fields) {
+        int pos = from;
+        while (true) {
+            if (pos < to && data[pos] == '"') {
+                int start = ++pos;
+                boolean escaped = false;
+                while (true) {
+                    if (pos >= to) {
+                        throw new IllegalArgumentException("Незакрытая кавычка в записи CSV");
+                    }
+                    if (data[pos] == '"') {
+                        if (pos + 1 < to && data[pos + 1] == '"') {
+                            escaped = true;
+                            pos += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    pos++;
+                }
+                String value = new String(data, start, pos - start, StandardCharsets.UTF_8);
+                fields.add(escaped ? value.replace("\"\"", "\"") : value);
+                pos++;
+            } else {
+                int start = pos;
+                while (pos < to && data[pos] != ',' && data[pos] != '\n') {
+                    pos++;
+                }
+                int end = pos > start && data[pos - 1] == '\r' ? pos - 1 : pos;
+                fields.add(new String(data, start, end - start, StandardCharsets.UTF_8));
+            }
+
+            if (pos >= to) {
+                return to;
+            }
+            if (data[pos] == ',') {
+                pos++;
+            } else if (data[pos] == '\n') {
+                return pos + 1;
+            } else if (data[pos] == '\r' && pos + 1 < to && data[pos + 1] == '\n') {
+                return pos + 2;
+            } else {
+                // Мусор после закрывающей кавычки - доклеиваем к полю до разделителя
+                int start = pos;
+                while (pos < to && data[pos] != ',' && data[pos] != '\n') {
+                    pos++;
+                }
+                int last = fields.size() - 1;
+                fields.set(last, fields.get(last) + new String(data, start, pos - start, StandardCharsets.UTF_8).trim());
+            }
+        }
+    }
+}
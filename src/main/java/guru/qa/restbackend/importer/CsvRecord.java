@@ -0,0 +1,42 @@
+package guru.qa.restbackend.importer;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Запись CSV с доступом к полям по имени колонки из заголовка.
+ */
+final class CsvRecord {
+
+    private final List<String> fields;
+    private final Map<String, Integer> columns;
+
+    CsvRecord(List<String> fields, Map<String, Integer> columns) {
+        this.fields = fields;
+        this.columns = columns;
+    }
+
+    /**
+     * Значение поля или null, если колонки нет или поле пустое.
+     */
+    String get(String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    Long getLong(String column) {
+        String value = get(column);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Long.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Поле " + column + " должно быть целым числом: " + value);
+        }
+    }
+}
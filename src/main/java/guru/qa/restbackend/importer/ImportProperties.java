@@ -0,0 +1,56 @@
+package guru.qa.restbackend.importer;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Настройки массового импорта (префикс bank.import).
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "bank.import")
+public class ImportProperties {
+
+    /**
+     * Число потоков разбора (0 - по числу процессоров).
+     */
+    private int parallelism = 0;
+
+    /**
+     * Размер куска файла, который разбирается одним потоком и загружается одной пачкой.
+     */
+    private DataSize chunkSize = DataSize.ofMegabytes(8);
+
+    /**
+     * Наибольший допустимый ID импортируемого счета. Новые счета получают ID после наибольшего
+     * загруженного, поэтому ID у границы Long.MAX_VALUE исчерпали бы диапазон.
+     */
+    private long maxAccountId = 1_000_000_000L;
+
+    /**
+     * Сколько ошибок по записям попадает в отчет (остальные только подсчитываются).
+     */
+    private int maxReportedErrors = 1000;
+
+    /**
+     * Каталог для временных копий файлов, загруженных через REST.
+     */
+    private String spoolDir = "data/import";
+
+    /**
+     * Файл счетов для импорта при старте (формат по расширению: .csv, .ndjson, .jsonl).
+     */
+    private String accountsFile;
+
+    /**
+     * Файл истории транзакций для импорта при старте (загружается после счетов).
+     */
+    private String transactionsFile;
+
+    /**
+     * Завершить приложение после импорта при старте (код 1, если были отклоненные записи).
+     */
+    private boolean exit = false;
+}
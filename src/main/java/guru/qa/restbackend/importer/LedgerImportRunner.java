@@ -0,0 +1,77 @@
+package guru.qa.restbackend.importer;
+
+import guru.qa.restbackend.domain.ExportFormat;
+import guru.qa.restbackend.domain.ImportRecordError;
+import guru.qa.restbackend.domain.ImportReport;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Paths;
+
+/**
+ * Импорт из командной строки при старте приложения, например:
+ * <pre>
+ * java -jar rest-backend.jar --spring.main.web-application-type=none \
+ *     --bank.import.accounts-file=accounts.csv \
+ *     --bank.import.transactions-file=history.ndjson \
+ *     --bank.import.exit=true
+ * </pre>
+ * Счета загружаются раньше истории. С bank.import.exit=true приложение завершается после импорта
+ * с кодом 1, если были отклоненные записи.
+ */
+@Slf4j
+@Component
+public class LedgerImportRunner implements ApplicationRunner {
+
+    // Сколько ошибок по записям выводится в лог
+    private static final int LOGGED_ERRORS = 20;
+
+    private final LedgerImporter ledgerImporter;
+    private final ImportProperties properties;
+    private final ApplicationContext context;
+
+    @Autowired
+    public LedgerImportRunner(LedgerImporter ledgerImporter, ImportProperties properties, ApplicationContext context) {
+        this.ledgerImporter = ledgerImporter;
+        this.properties = properties;
+        this.context = context;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        if (properties.getAccountsFile() == null && properties.getTransactionsFile() == null) {
+            return;
+        }
+
+        long rejected = 0;
+        if (properties.getAccountsFile() != null) {
+            String file = properties.getAccountsFile();
+            rejected += print(file, ledgerImporter.importAccounts(Paths.get(file), ExportFormat.fromFileName(file)));
+        }
+        if (properties.getTransactionsFile() != null) {
+            String file = properties.getTransactionsFile();
+            rejected += print(file, ledgerImporter.importTransactions(Paths.get(file), ExportFormat.fromFileName(file)));
+        }
+
+        if (properties.isExit()) {
+            int exitCode = rejected > 0 ? 1 : 0;
+            System.exit(SpringApplication.exit(context, () -> exitCode));
+        }
+    }
+
+    private long print(String file, ImportReport report) {
+        System.out.println((report.getRecordsRejected() == 0 ? "✅" : "⚠️") + " Импорт " + report.getTarget()
+                + " из " + file + " за " + report.getElapsedMs() + " мс:");
+        System.out.println("   - " + report.getRecordsImported() + " записей загружено, "
+                + report.getRecordsRejected() + " отклонено");
+        System.out.println("   - " + report.getRecordsPerSecond() + " записей/с, " + report.getBytes() + " байт");
+        report.getErrors().stream().limit(LOGGED_ERRORS).forEach((ImportRecordError error) ->
+                log.warn("{}:{}: {}", file, error.getLine(), error.getMessage()));
+        return report.getRecordsRejected();
+    }
+}
@@ -0,0 +1,401 @@
+package guru.qa.restbackend.importer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import guru.qa.restbackend.domain.*;
+import guru.qa.restbackend.exception.ImportFormatException;
+import guru.qa.restbackend.service.PaymentService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Массовый импорт счетов и истории транзакций из CSV и NDJSON.
+ * <p>
+ * Файл делится на куски по границам записей, куски читаются позиционными чтениями FileChannel
+ * и разбираются параллельно в fork-join пуле. Проверенные записи куска загружаются в сервис одной
+ * пачкой, генераторы ID сдвигаются за максимальный загруженный ID. Ошибочные записи не прерывают
+ * импорт и попадают в отчет с номером строки файла.
+ */
+@Slf4j
+@Service
+public class LedgerImporter {
+
+    // Окно отображения файла в память при поиске границ записей CSV
+    private static final long SCAN_WINDOW = 1L << 28;
+
+    private final PaymentService paymentService;
+    private final ImportProperties properties;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public LedgerImporter(PaymentService paymentService, ImportProperties properties, ObjectMapper objectMapper) {
+        this.paymentService = paymentService;
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Импорт счетов из файла.
+     */
+    public ImportReport importAccounts(Path file, ExportFormat format) throws IOException {
+        return importFile(file, format, new AccountRecords(paymentService, properties.getMaxAccountId()));
+    }
+
+    /**
+     * Импорт истории транзакций из файла. Счета должны быть импортированы заранее.
+     */
+    public ImportReport importTransactions(Path file, ExportFormat format) throws IOException {
+        return importFile(file, format, new TransactionRecords(paymentService));
+    }
+
+    /**
+     * Импорт счетов из потока (тело запроса сохраняется во временный файл).
+     */
+    public ImportReport importAccounts(InputStream in, ExportFormat format) throws IOException {
+        return importSpooled(in, format, new AccountRecords(paymentService, properties.getMaxAccountId()));
+    }
+
+    /**
+     * Импорт истории транзакций из потока (тело запроса сохраняется во временный файл).
+     */
+    public ImportReport importTransactions(InputStream in, ExportFormat format) throws IOException {
+        return importSpooled(in, format, new TransactionRecords(paymentService));
+    }
+
+    private ImportReport importSpooled(InputStream in, ExportFormat format, RecordType<?> type) throws IOException {
+        Path dir = Paths.get(properties.getSpoolDir());
+        Files.createDirectories(dir);
+        Path spool = Files.createTempFile(dir, type.getName() + "-", "." + format.getExtension());
+        try {
+            Files.copy(in, spool, StandardCopyOption.REPLACE_EXISTING);
+            return importFile(spool, format, type);
+        } finally {
+            Files.deleteIfExists(spool);
+        }
+    }
+
+    private <T> ImportReport importFile(Path file, ExportFormat format, RecordType<T> type) throws IOException {
+        long startedAt = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+
+            Map<String, Integer> columns = Map.of();
+            long dataStart = 0;
+            int headerLines = 0;
+            if (format == ExportFormat.CSV && size > 0) {
+                byte[] header = readHeader(channel);
+                columns = parseHeader(header, type);
+                dataStart = header.length;
+                headerLines = 1;
+            }
+
+            List<Chunk> chunks = format == ExportFormat.CSV ?
+                    planCsvChunks(channel, dataStart, size) : planLineChunks(channel, dataStart, size);
+
+            Map<String, Integer> csvColumns = columns;
+            ObjectReader jsonReader = objectMapper.readerFor(type.getRecordClass());
+            ForkJoinPool pool = new ForkJoinPool(properties.getParallelism() > 0 ?
+                    properties.getParallelism() : Runtime.getRuntime().availableProcessors());
+            List<ChunkResult> results;
+            try {
+                results = pool.submit(() -> IntStream.range(0, chunks.size()).parallel()
+                        .mapToObj(i -> processChunk(channel, chunks.get(i), format, type, csvColumns, jsonReader))
+                        .collect(Collectors.toList())).join();
+            } finally {
+                pool.shutdown();
+            }
+
+            return report(type, format, size, headerLines, results, System.nanoTime() - startedAt);
+        }
+    }
+
+    /**
+     * Разбор и загрузка одного куска. Номера строк в ошибках - относительно начала куска,
+     * абсолютные номера считаются при сборке отчета.
+     */
+    private <T> ChunkResult processChunk(FileChannel channel, Chunk chunk, ExportFormat format, RecordType<T> type,
+                                         Map<String, Integer> columns, ObjectReader jsonReader) {
+        byte[] data = read(channel, chunk);
+        ChunkResult result = new ChunkResult();
+        List<T> batch = new ArrayList<>();
+        List<Integer> batchLines = new ArrayList<>();
+        List<String> fields = new ArrayList<>();
+
+        int line = 0;
+        int pos = 0;
+        while (pos < data.length) {
+            int start = pos;
+            int recordLine = line;
+            T record = null;
+            String error = null;
+
+            if (format == ExportFormat.CSV) {
+                fields.clear();
+                try {
+                    pos = CsvParser.parseRecord(data, start, data.length, fields);
+                } catch (IllegalArgumentException e) {
+                    pos = lineEnd(data, start);
+                    error = e.getMessage();
+                }
+            } else {
+                pos = lineEnd(data, start);
+            }
+            line += countLines(data, start, pos);
+
+            if (error == null && isBlank(data, start, pos)) {
+                continue;
+            }
+            result.recordsRead++;
+            if (error == null) {
+                try {
+                    record = format == ExportFormat.CSV ?
+                            type.fromCsv(new CsvRecord(new ArrayList<>(fields), columns)) :
+                            jsonReader.readValue(data, start, pos - start);
+                    type.normalize(record);
+                } catch (JsonProcessingException e) {
+                    error = "Некорректный JSON: " + e.getOriginalMessage();
+                } catch (IOException e) {
+                    error = e.getMessage();
+                } catch (RuntimeException e) {
+                    error = e.getMessage() != null ? e.getMessage() : e.toString();
+                }
+            }
+
+            if (error != null) {
+                result.reject(recordLine, error, properties.getMaxReportedErrors());
+            } else {
+                batch.add(record);
+                batchLines.add(recordLine);
+            }
+        }
+        result.lines = line;
+
+        if (!batch.isEmpty()) {
+            Set<T> rejected = Collections.newSetFromMap(new IdentityHashMap<>());
+            rejected.addAll(type.load(batch));
+            for (int i = 0; i < batch.size(); i++) {
+                if (rejected.contains(batch.get(i))) {
+                    result.reject(batchLines.get(i), type.rejectionMessage(batch.get(i)), properties.getMaxReportedErrors());
+                } else {
+                    result.imported++;
+                }
+            }
+        }
+        return result;
+    }
+
+    private ImportReport report(RecordType<?> type, ExportFormat format, long size, int headerLines,
+                                List<ChunkResult> results, long elapsedNanos) {
+        long read = 0;
+        long imported = 0;
+        long rejected = 0;
+        long firstLine = headerLines + 1;
+        List<ImportRecordError> errors = new ArrayList<>();
+        for (ChunkResult result : results) {
+            read += result.recordsRead;
+            imported += result.imported;
+            rejected += result.rejected;
+            for (int i = 0; i < result.errorLines.size() && errors.size() < properties.getMaxReportedErrors(); i++) {
+                errors.add(ImportRecordError.builder()
+                        .line(firstLine + result.errorLines.get(i))
+                        .message(result.errorMessages.get(i))
+                        .build());
+            }
+            firstLine += result.lines;
+        }
+        errors.sort(Comparator.comparingLong(ImportRecordError::getLine));
+
+        long elapsedMs = elapsedNanos / 1_000_000;
+        log.info("Импорт {}: прочитано {}, загружено {}, отклонено {} записей за {} мс",
+                type.getName(), read, imported, rejected, elapsedMs);
+        return ImportReport.builder()
+                .target(type.getName())
+                .format(format)
+                .bytes(size)
+                .recordsRead(read)
+                .recordsImported(imported)
+                .recordsRejected(rejected)
+                .elapsedMs(elapsedMs)
+                .recordsPerSecond(elapsedNanos > 0 ? read * 1_000_000_000L / elapsedNanos : 0)
+                .errors(errors)
+                .build();
+    }
+
+    private byte[] readHeader(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(channel.size(), 64 * 1024));
+        channel.read(buffer, 0);
+        byte[] bytes = buffer.array();
+        for (int i = 0; i < buffer.position(); i++) {
+            if (bytes[i] == '\n') {
+                return Arrays.copyOf(bytes, i + 1);
+            }
+        }
+        return Arrays.copyOf(bytes, buffer.position());
+    }
+
+    private Map<String, Integer> parseHeader(byte[] header, RecordType<?> type) {
+        List<String> names = new ArrayList<>();
+        CsvParser.parseRecord(header, 0, header.length, names);
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            // BOM в начале файла от табличных редакторов
+            columns.put(names.get(i).replace("\uFEFF", "").trim(), i);
+        }
+        List<String> missing = type.getRequiredColumns().stream()
+                .filter(column -> !columns.containsKey(column))
+                .collect(Collectors.toList());
+        if (!missing.isEmpty()) {
+            throw new ImportFormatException("В заголовке CSV нет обязательных колонок: " + String.join(", ", missing));
+        }
+        return columns;
+    }
+
+    /**
+     * Деление NDJSON на куски: перевод строки внутри JSON-строки всегда экранирован,
+     * поэтому граница куска - первый перевод строки после номинального размера.
+     */
+    private List<Chunk> planLineChunks(FileChannel channel, long start, long size) throws IOException {
+        long chunkSize = properties.getChunkSize().toBytes();
+        List<Chunk> chunks = new ArrayList<>();
+        ByteBuffer probe = ByteBuffer.allocate(64 * 1024);
+        long position = start;
+        while (position < size) {
+            long end = Math.min(position + chunkSize, size);
+            boolean found = end == size;
+            while (!found) {
+                probe.clear();
+                int read = channel.read(probe, end);
+                for (int i = 0; i < read && !found; i++) {
+                    end++;
+                    found = probe.get(i) == '\n';
+                }
+                found |= end >= size;
+            }
+            chunks.add(new Chunk(position, end));
+            position = end;
+        }
+        return chunks;
+    }
+
+    /**
+     * Деление CSV на куски: перевод строки может оказаться внутри поля в кавычках, поэтому
+     * файл один раз просматривается последовательно через отображение в память с учетом кавычек.
+     */
+    private List<Chunk> planCsvChunks(FileChannel channel, long start, long size) throws IOException {
+        long chunkSize = properties.getChunkSize().toBytes();
+        List<Chunk> chunks = new ArrayList<>();
+        long chunkStart = start;
+        boolean quoted = false;
+        for (long windowStart = start; windowStart < size; windowStart += SCAN_WINDOW) {
+            long windowSize = Math.min(SCAN_WINDOW, size - windowStart);
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowSize);
+            for (int i = 0; i < windowSize; i++) {
+                byte b = window.get(i);
+                if (b == '"') {
+                    quoted = !quoted;
+                } else if (b == '\n' && !quoted && windowStart + i + 1 - chunkStart >= chunkSize) {
+                    chunks.add(new Chunk(chunkStart, windowStart + i + 1));
+                    chunkStart = windowStart + i + 1;
+                }
+            }
+        }
+        if (chunkStart < size) {
+            chunks.add(new Chunk(chunkStart, size));
+        }
+        return chunks;
+    }
+
+    private static byte[] read(FileChannel channel, Chunk chunk) {
+        ByteBuffer buffer = ByteBuffer.allocate((int) (chunk.end - chunk.start));
+        try {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, chunk.start + buffer.position()) < 0) {
+                    throw new IOException("Файл импорта изменился во время чтения");
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.array();
+    }
+
+    private static int lineEnd(byte[] data, int from) {
+        for (int i = from; i < data.length; i++) {
+            if (data[i] == '\n') {
+                return i + 1;
+            }
+        }
+        return data.length;
+    }
+
+    private static int countLines(byte[] data, int from, int to) {
+        int lines = 0;
+        for (int i = from; i < to; i++) {
+            if (data[i] == '\n') {
+                lines++;
+            }
+        }
+        return lines;
+    }
+
+    private static boolean isBlank(byte[] data, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (data[i] != '\n' && data[i] != '\r' && data[i] != ' ' && data[i] != '\t') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Кусок файла [start, end), выровненный по границам записей.
+     */
+    private static class Chunk {
+        final long start;
+        final long end;
+
+        Chunk(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    /**
+     * Итог обработки куска.
+     */
+    private static class ChunkResult {
+        long recordsRead;
+        long imported;
+        long rejected;
+        int lines;
+        final List<Integer> errorLines = new ArrayList<>();
+        final List<String> errorMessages = new ArrayList<>();
+
+        void reject(int line, String message, int maxReported) {
+            rejected++;
+            if (errorLines.size() < maxReported) {
+                errorLines.add(line);
+                errorMessages.add(message);
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package guru.qa.restbackend.importer;
+
+import java.util.List;
+
+/**
+ * Тип импортируемых записей: разбор, проверка и пакетная загрузка в сервис.
+ * Ошибки отдельной записи сообщаются через IllegalArgumentException с текстом для отчета.
+ *
+ * @param <T> доменный класс записи
+ */
+interface RecordType<T> {
+
+    /**
+     * Имя типа в отчете (accounts, transactions).
+     */
+    String getName();
+
+    Class<T> getRecordClass();
+
+    /**
+     * Колонки, без которых CSV-файл не принимается.
+     */
+    List<String> getRequiredColumns();
+
+    T fromCsv(CsvRecord record);
+
+    /**
+     * Проверка записи и заполнение значений по умолчанию.
+     */
+    void normalize(T record);
+
+    /**
+     * Загрузка пачки проверенных записей.
+     *
+     * @return записи, отклоненные при загрузке (например, из-за совпадения ID)
+     */
+    List<T> load(List<T> batch);
+
+    /**
+     * Текст ошибки для записи, отклоненной при загрузке.
+     */
+    String rejectionMessage(T record);
+}
@@ -0,0 +1,130 @@
+package guru.qa.restbackend.importer;
+
+import guru.qa.restbackend.domain.Transaction;
+import guru.qa.restbackend.domain.TransactionStatus;
+import guru.qa.restbackend.domain.TransactionType;
+import guru.qa.restbackend.service.PaymentService;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Импорт истории транзакций. Колонки CSV совпадают с выгрузкой /export/transactions:
+ * id,timestamp,type,status,amount,fromAccountId,toAccountId,description.
+ * <p>
+ * Счета должны быть загружены заранее. Балансы не пересчитываются: история переносится
+ * вместе с итоговыми балансами счетов.
+ */
+class TransactionRecords implements RecordType<Transaction> {
+
+    private static final List<String> REQUIRED_COLUMNS = List.of("id", "timestamp", "type", "amount");
+
+    private final PaymentService paymentService;
+
+    TransactionRecords(PaymentService paymentService) {
+        this.paymentService = paymentService;
+    }
+
+    @Override
+    public String getName() {
+        return "transactions";
+    }
+
+    @Override
+    public Class<Transaction> getRecordClass() {
+        return Transaction.class;
+    }
+
+    @Override
+    public List<String> getRequiredColumns() {
+        return REQUIRED_COLUMNS;
+    }
+
+    @Override
+    public Transaction fromCsv(CsvRecord record) {
+        String timestamp = record.get("timestamp");
+        String type = record.get("type");
+        String status = record.get("status");
+        String amount = record.get("amount");
+        return Transaction.builder()
+                .id(record.getLong("id"))
+                .timestamp(timestamp != null ? LocalDateTime.parse(timestamp) : null)
+                .type(type != null ? TransactionType.valueOf(type) : null)
+                .status(status != null ? TransactionStatus.valueOf(status) : null)
+                .amount(amount != null ? new BigDecimal(amount) : null)
+                .fromAccountId(record.getLong("fromAccountId"))
+                .toAccountId(record.getLong("toAccountId"))
+                .description(record.get("description"))
+                .build();
+    }
+
+    @Override
+    public void normalize(Transaction transaction) {
+        if (transaction.getId() == null || transaction.getId() <= 0) {
+            throw new IllegalArgumentException("ID транзакции должен быть положительным");
+        }
+        if (transaction.getTimestamp() == null) {
+            throw new IllegalArgumentException("Время транзакции не может быть null");
+        }
+        if (transaction.getType() == null) {
+            throw new IllegalArgumentException("Тип транзакции не может быть null");
+        }
+        if (transaction.getAmount() == null) {
+            throw new IllegalArgumentException("Сумма не может быть null");
+        }
+        if (transaction.getAmount().signum() < 0) {
+            throw new IllegalArgumentException("Сумма не может быть отрицательной");
+        }
+        if (transaction.getAmount().scale() > 2) {
+            throw new IllegalArgumentException("Максимум 2 знака после запятой");
+        }
+
+        Long from = transaction.getFromAccountId();
+        Long to = transaction.getToAccountId();
+        switch (transaction.getType()) {
+            case DEPOSIT:
+            case INTEREST:
+                requireAccounts(from == null && to != null, "Пополнение должно иметь только счет получателя");
+                break;
+            case WITHDRAWAL:
+            case FEE:
+                requireAccounts(from != null && to == null, "Снятие должно иметь только счет отправителя");
+                break;
+            case TRANSFER:
+                requireAccounts(from != null && to != null && !from.equals(to),
+                        "Перевод должен иметь два разных счета");
+                break;
+            default:
+                break;
+        }
+        requireExisting(from);
+        requireExisting(to);
+
+        if (transaction.getStatus() == null) {
+            transaction.setStatus(TransactionStatus.SUCCESS);
+        }
+    }
+
+    @Override
+    public List<Transaction> load(List<Transaction> batch) {
+        return paymentService.loadTransactions(batch);
+    }
+
+    @Override
+    public String rejectionMessage(Transaction transaction) {
+        return "Транзакция с ID " + transaction.getId() + " уже существует";
+    }
+
+    private static void requireAccounts(boolean valid, String message) {
+        if (!valid) {
+            throw new IllegalArgumentException(message);
+        }
+    }
+
+    private void requireExisting(Long accountId) {
+        if (accountId != null && paymentService.findAccount(accountId).isEmpty()) {
+            throw new IllegalArgumentException("Счет с ID " + accountId + " не найден");
+        }
+    }
+}
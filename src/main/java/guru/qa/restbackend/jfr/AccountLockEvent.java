@@ -0,0 +1,56 @@
+package guru.qa.restbackend.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Ожидание захвата счетов хранилищем: резервирование голов и полос (RESERVATION), монитор счета
+ * в режиме update-mode=LOCK (MONITOR), блокировка строки в H2 (ROW). Длительность - время ожидания.
+ * <p>
+ * Захватов на каждый запрос несколько, поэтому по умолчанию пишутся только ожидания дольше порога.
+ */
+@Name("guru.qa.restbackend.AccountLock")
+@Label("Account Lock")
+@Category({"Bank", "Ledger", "Locks"})
+@StackTrace(false)
+@Threshold("100 us")
+public class AccountLockEvent extends Event {
+
+    public static final String RESERVATION = "RESERVATION";
+    public static final String MONITOR = "MONITOR";
+    public static final String ROW = "ROW";
+
+    @Label("Account")
+    @Description("ID счета, 0 - нет")
+    private long accountId;
+
+    @Label("Other Account")
+    @Description("ID второго счета операции, 0 - нет")
+    private long otherAccountId;
+
+    @Label("Locks")
+    @Description("Сколько голов и полос захвачено")
+    private int locks;
+
+    @Label("Mode")
+    private String mode;
+
+    /**
+     * Фиксация после захвата.
+     */
+    public void acquired(Long accountId, Long otherAccountId, int locks, String mode) {
+        end();
+        if (shouldCommit()) {
+            this.accountId = accountId != null ? accountId : 0L;
+            this.otherAccountId = otherAccountId != null ? otherAccountId : 0L;
+            this.locks = locks;
+            this.mode = mode;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package guru.qa.restbackend.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Пополнение счета (PaymentService.deposit).
+ */
+@Name("guru.qa.restbackend.Deposit")
+@Label("Deposit")
+@Category({"Bank", "Ledger"})
+@StackTrace(false)
+public class DepositEvent extends LedgerOperationEvent {
+
+    @Override
+    protected String operation() {
+        return "DEPOSIT";
+    }
+}
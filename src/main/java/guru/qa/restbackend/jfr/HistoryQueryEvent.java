@@ -0,0 +1,60 @@
+package guru.qa.restbackend.jfr;
+
+import guru.qa.restbackend.domain.TransactionType;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Чтение истории счета (PaymentService.getAccountTransactions*): длительность - проверка счета,
+ * поиск в хранилище и фильтрация.
+ */
+@Name("guru.qa.restbackend.HistoryQuery")
+@Label("History Query")
+@Category({"Bank", "Ledger"})
+@StackTrace(false)
+public class HistoryQueryEvent extends Event {
+
+    @Label("Account")
+    private long accountId;
+
+    @Label("Transaction Type")
+    @Description("Фильтр по типу, пусто - все транзакции")
+    private String transactionType;
+
+    @Label("Transactions")
+    @Description("Количество возвращенных транзакций")
+    private int transactions;
+
+    @Label("Outcome")
+    private String outcome;
+
+    public void complete(Long accountId, TransactionType type, int transactions) {
+        end();
+        if (shouldCommit()) {
+            setQuery(accountId, type);
+            this.transactions = transactions;
+            this.outcome = LedgerOperationEvent.SUCCESS;
+            commit();
+        }
+    }
+
+    public void reject(Long accountId, TransactionType type, RuntimeException error) {
+        end();
+        String reason = OperationRejectedEvent.reasonOf(error);
+        if (shouldCommit()) {
+            setQuery(accountId, type);
+            this.outcome = reason;
+            commit();
+        }
+        OperationRejectedEvent.emit("HISTORY", accountId, null, null, reason, error);
+    }
+
+    private void setQuery(Long accountId, TransactionType type) {
+        this.accountId = accountId != null ? accountId : 0L;
+        this.transactionType = type != null ? type.name() : null;
+    }
+}
@@ -0,0 +1,78 @@
+package guru.qa.restbackend.jfr;
+
+import guru.qa.restbackend.domain.Transaction;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+
+import java.math.BigDecimal;
+
+/**
+ * Общая часть событий денежных операций: счета, сумма, итог. Длительность события - вся операция
+ * в сервисе, от проверок до записи транзакции.
+ * <p>
+ * Событие создается и начинается до операции и фиксируется одним из методов complete/reject.
+ * Поля заполняются, только если событие будет записано: при выключенной записи JFR остаются
+ * создание объекта (обычно устраняется JIT) и проверки включенности.
+ */
+public abstract class LedgerOperationEvent extends Event {
+
+    public static final String SUCCESS = "SUCCESS";
+
+    @Label("From Account")
+    @Description("ID счета списания, 0 - нет")
+    private long fromAccountId;
+
+    @Label("To Account")
+    @Description("ID счета зачисления, 0 - нет")
+    private long toAccountId;
+
+    @Label("Amount")
+    private double amount;
+
+    @Label("Transaction")
+    @Description("ID записанной транзакции, 0 - операция отклонена")
+    private long transactionId;
+
+    @Label("Outcome")
+    @Description("SUCCESS или причина отказа (имя исключения без суффикса Exception)")
+    private String outcome;
+
+    /**
+     * Операция для события отказа: DEPOSIT, WITHDRAWAL, TRANSFER.
+     */
+    protected abstract String operation();
+
+    /**
+     * Фиксация успешной операции.
+     */
+    public void complete(Long fromAccountId, Long toAccountId, BigDecimal amount, Transaction transaction) {
+        end();
+        if (shouldCommit()) {
+            setAccounts(fromAccountId, toAccountId, amount);
+            this.transactionId = transaction.getId();
+            this.outcome = SUCCESS;
+            commit();
+        }
+    }
+
+    /**
+     * Фиксация отклоненной операции; дополнительно пишется событие отказа.
+     */
+    public void reject(Long fromAccountId, Long toAccountId, BigDecimal amount, RuntimeException error) {
+        end();
+        String reason = OperationRejectedEvent.reasonOf(error);
+        if (shouldCommit()) {
+            setAccounts(fromAccountId, toAccountId, amount);
+            this.outcome = reason;
+            commit();
+        }
+        OperationRejectedEvent.emit(operation(), fromAccountId, toAccountId, amount, reason, error);
+    }
+
+    private void setAccounts(Long fromAccountId, Long toAccountId, BigDecimal amount) {
+        this.fromAccountId = fromAccountId != null ? fromAccountId : 0L;
+        this.toAccountId = toAccountId != null ? toAccountId : 0L;
+        this.amount = amount != null ? amount.doubleValue() : 0;
+    }
+}
@@ -0,0 +1,95 @@
+package guru.qa.restbackend.jfr;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Запись JFR с профилем jfr/ledger.jfc на все время работы приложения (bank.jfr.enabled=true).
+ * Файл записи пишется при остановке; снять его раньше можно через jcmd &lt;pid&gt; JFR.dump name=ledger.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "bank.jfr", name = "enabled", havingValue = "true")
+public class LedgerRecording {
+
+    public static final String PROFILE = "jfr/ledger.jfc";
+    public static final String RECORDING_NAME = "ledger";
+
+    private final LedgerRecordingProperties properties;
+    private Recording recording;
+
+    @Autowired
+    public LedgerRecording(LedgerRecordingProperties properties) {
+        this.properties = properties;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        Path destination = Paths.get(properties.getDestination());
+        if (destination.getParent() != null) {
+            Files.createDirectories(destination.getParent());
+        }
+        recording = new Recording(settings(properties.getSettings()));
+        recording.setName(RECORDING_NAME);
+        recording.setToDisk(true);
+        recording.setMaxAge(properties.getMaxAge());
+        recording.setMaxSize(properties.getMaxSize().toBytes());
+        recording.setDestination(destination);
+        recording.start();
+        log.info("Запись JFR {} запущена: профиль {} + {}, файл {}", RECORDING_NAME, properties.getSettings(),
+                PROFILE, destination.toAbsolutePath());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (recording != null) {
+            recording.stop();
+            recording.close();
+        }
+    }
+
+    /**
+     * Настройки записи: стандартный профиль JDK, поверх него - jfr/ledger.jfc.
+     *
+     * @param base имя профиля JDK (default, profile) или none - только события ledger.jfc
+     */
+    public static Map<String, String> settings(String base) {
+        Map<String, String> settings = new HashMap<>();
+        try {
+            if (!"none".equalsIgnoreCase(base)) {
+                settings.putAll(Configuration.getConfiguration(base).getSettings());
+            }
+            InputStream profile = LedgerRecording.class.getClassLoader().getResourceAsStream(PROFILE);
+            if (profile == null) {
+                throw new IllegalStateException("Профиль " + PROFILE + " не найден в classpath");
+            }
+            try (Reader reader = new InputStreamReader(profile, StandardCharsets.UTF_8)) {
+                settings.putAll(Configuration.create(reader).getSettings());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось прочитать профиль JFR", e);
+        } catch (ParseException e) {
+            throw new IllegalStateException("Неверный профиль JFR " + base + " / " + PROFILE, e);
+        }
+        return settings;
+    }
+}
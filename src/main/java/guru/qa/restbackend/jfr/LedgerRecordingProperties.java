@@ -0,0 +1,43 @@
+package guru.qa.restbackend.jfr;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Настройки записи JFR, которую запускает само приложение (префикс bank.jfr).
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "bank.jfr")
+public class LedgerRecordingProperties {
+
+    /**
+     * Запустить запись при старте. Без нее события пишутся только в записи, запущенные снаружи
+     * (-XX:StartFlightRecording, jcmd JFR.start).
+     */
+    private boolean enabled = false;
+
+    /**
+     * Стандартный профиль JDK, на который накладывается jfr/ledger.jfc: default, profile или none.
+     */
+    private String settings = "default";
+
+    /**
+     * Файл записи: пишется при остановке приложения и по jcmd JFR.dump.
+     */
+    private String destination = "data/jfr/ledger.jfr";
+
+    /**
+     * Сколько последних событий хранить на диске.
+     */
+    private Duration maxAge = Duration.ofHours(1);
+
+    /**
+     * Предел размера хранимых событий.
+     */
+    private DataSize maxSize = DataSize.ofMegabytes(256);
+}
@@ -0,0 +1,65 @@
+package guru.qa.restbackend.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.math.BigDecimal;
+
+/**
+ * Отказ в операции (нехватка средств, заблокированный счет, неверная сумма, нет счета).
+ * Мгновенное событие: длительность отклоненной операции - в ее собственном событии с тем же outcome.
+ * Отдельный тип позволяет писать все отказы, пока успешные операции пишутся только выше порога.
+ */
+@Name("guru.qa.restbackend.OperationRejected")
+@Label("Operation Rejected")
+@Category({"Bank", "Ledger"})
+@StackTrace(false)
+public class OperationRejectedEvent extends Event {
+
+    private static final String EXCEPTION_SUFFIX = "Exception";
+
+    @Label("Operation")
+    @Description("DEPOSIT, WITHDRAWAL, TRANSFER или HISTORY")
+    private String operation;
+
+    @Label("From Account")
+    private long fromAccountId;
+
+    @Label("To Account")
+    private long toAccountId;
+
+    @Label("Amount")
+    private double amount;
+
+    @Label("Reason")
+    private String reason;
+
+    @Label("Message")
+    private String message;
+
+    static void emit(String operation, Long fromAccountId, Long toAccountId, BigDecimal amount,
+                     String reason, RuntimeException error) {
+        OperationRejectedEvent event = new OperationRejectedEvent();
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.fromAccountId = fromAccountId != null ? fromAccountId : 0L;
+            event.toAccountId = toAccountId != null ? toAccountId : 0L;
+            event.amount = amount != null ? amount.doubleValue() : 0;
+            event.reason = reason;
+            event.message = error.getMessage();
+            event.commit();
+        }
+    }
+
+    /**
+     * Причина отказа: имя класса исключения без суффикса Exception (InsufficientFunds, AccountBlocked).
+     */
+    static String reasonOf(RuntimeException error) {
+        String name = error.getClass().getSimpleName();
+        return name.endsWith(EXCEPTION_SUFFIX) ? name.substring(0, name.length() - EXCEPTION_SUFFIX.length()) : name;
+    }
+}
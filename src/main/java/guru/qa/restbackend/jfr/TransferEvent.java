@@ -0,0 +1,21 @@
+package guru.qa.restbackend.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Перевод между счетами (PaymentService.transfer).
+ */
+@Name("guru.qa.restbackend.Transfer")
+@Label("Transfer")
+@Category({"Bank", "Ledger"})
+@StackTrace(false)
+public class TransferEvent extends LedgerOperationEvent {
+
+    @Override
+    protected String operation() {
+        return "TRANSFER";
+    }
+}
@@ -0,0 +1,21 @@
+package guru.qa.restbackend.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Снятие со счета (PaymentService.withdraw).
+ */
+@Name("guru.qa.restbackend.Withdraw")
+@Label("Withdraw")
+@Category({"Bank", "Ledger"})
+@StackTrace(false)
+public class WithdrawEvent extends LedgerOperationEvent {
+
+    @Override
+    protected String operation() {
+        return "WITHDRAWAL";
+    }
+}
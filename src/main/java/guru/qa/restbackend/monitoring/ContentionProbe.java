@@ -0,0 +1,73 @@
+package guru.qa.restbackend.monitoring;
+
+/**
+ * Конфликты и ожидания хранилища в текущей операции со счетами. PaymentService начинает замер
+ * перед изменением счетов ({@link #start()}) и после него передает замер в {@link ContentionTracker};
+ * хранилище отмечает проигранные CAS и ожидания чужих резервов и мониторов.
+ * <p>
+ * Отметки делаются только на путях конфликта, поэтому операция без конкурентов платит лишь за
+ * обращение к ThreadLocal в start.
+ */
+public final class ContentionProbe {
+
+    private static final ThreadLocal<ContentionProbe> CURRENT = ThreadLocal.withInitial(ContentionProbe::new);
+
+    private int conflicts;
+    private int waits;
+    private long waitNanos;
+    private long maxWaitNanos;
+
+    private ContentionProbe() {
+    }
+
+    /**
+     * Начало замера в текущем потоке: отметки прошлых операций сбрасываются.
+     */
+    public static ContentionProbe start() {
+        ContentionProbe probe = CURRENT.get();
+        probe.conflicts = 0;
+        probe.waits = 0;
+        probe.waitNanos = 0;
+        probe.maxWaitNanos = 0;
+        return probe;
+    }
+
+    /**
+     * Изменение не удалось из-за параллельного писателя и будет повторено (проигранный CAS).
+     */
+    public static void conflict() {
+        CURRENT.get().conflicts++;
+    }
+
+    /**
+     * Ожидание счета, занятого параллельным писателем.
+     *
+     * @param nanos длительность ожидания
+     */
+    public static void waited(long nanos) {
+        ContentionProbe probe = CURRENT.get();
+        probe.waits++;
+        probe.waitNanos += nanos;
+        probe.maxWaitNanos = Math.max(probe.maxWaitNanos, nanos);
+    }
+
+    public boolean isContended() {
+        return conflicts > 0 || waits > 0;
+    }
+
+    public int getConflicts() {
+        return conflicts;
+    }
+
+    public int getWaits() {
+        return waits;
+    }
+
+    public long getWaitNanos() {
+        return waitNanos;
+    }
+
+    public long getMaxWaitNanos() {
+        return maxWaitNanos;
+    }
+}
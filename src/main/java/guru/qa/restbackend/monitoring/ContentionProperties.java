@@ -0,0 +1,25 @@
+package guru.qa.restbackend.monitoring;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Настройки отчета о конфликтах по счетам (префикс bank.diagnostics.contention).
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "bank.diagnostics.contention")
+public class ContentionProperties {
+
+    /**
+     * Учитывать конфликты и ожидания операций со счетами.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Сколько счетов отслеживается одновременно (K в top-K). Память постоянна; счет, вытесненный
+     * новым, передает ему свой счетчик как оценку сверху (overestimate).
+     */
+    private int capacity = 128;
+}
@@ -0,0 +1,357 @@
+package guru.qa.restbackend.monitoring;
+
+import guru.qa.restbackend.domain.AccountContention;
+import guru.qa.restbackend.domain.ContentionReport;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Самые конфликтные счета: ограниченный top-K по алгоритму Space-Saving.
+ * <p>
+ * Отслеживается не больше capacity счетов. Операция счета из таблицы увеличивает его счетчик;
+ * новый счет при заполненной таблице вытесняет счет с наименьшим счетчиком и получает этот счетчик + 1,
+ * а прежнее значение запоминается как overestimate. Счетчик завышен не больше чем на overestimate,
+ * и любой счет, на который пришлось больше N / capacity конфликтных операций из N, гарантированно в таблице.
+ * Конфликты и ожидания счета точны с момента его попадания в таблицу.
+ * <p>
+ * Счетчики лежат в корзинах по значению (stream-summary): корзины связаны по возрастанию, поэтому
+ * увеличение счетчика и вытеснение наименьшего стоят O(1) независимо от capacity.
+ * <p>
+ * Учитываются только операции, в которых хранилище отметило конфликт или ожидание; операции без
+ * конфликтов стоят одного увеличения LongAdder. Замеры копятся в буфере потока и переносятся в таблицу
+ * пачкой по {@value #BUFFER_SIZE} под общей блокировкой: замер не теряется, а потоки горячего счета
+ * встречаются на блокировке таблицы в {@value #BUFFER_SIZE} раз реже. Отчет и сброс сначала переносят
+ * буферы всех потоков, поэтому отчет учитывает все завершенные операции.
+ */
+@Component
+public class ContentionTracker {
+
+    private static final int BUFFER_SIZE = 64;
+
+    private final ContentionProperties properties;
+    private final LongAdder operations = new LongAdder();
+    private final LongAdder contended = new LongAdder();
+    // Блокировка таблицы; берется после блокировки буфера, никогда наоборот
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<Long, Counter> counters = new HashMap<>();
+    // Корзина с наименьшим значением
+    private Bucket head;
+    private final Set<SampleBuffer> buffers = ConcurrentHashMap.newKeySet();
+    private final ThreadLocal<SampleBuffer> localBuffer = ThreadLocal.withInitial(this::register);
+    private volatile LocalDateTime since = LocalDateTime.now();
+
+    @Autowired
+    public ContentionTracker(ContentionProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Учет завершенной операции. У перевода конфликты и ожидания относятся к обоим счетам:
+     * хранилище не различает, чей резерв ждала операция.
+     *
+     * @param probe          замер операции
+     * @param firstAccountId ID счета или null
+     * @param otherAccountId ID второго счета операции или null
+     */
+    public void record(ContentionProbe probe, Long firstAccountId, Long otherAccountId) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        operations.increment();
+        if (!probe.isContended()) {
+            return;
+        }
+        contended.increment();
+        SampleBuffer buffer = localBuffer.get();
+        buffer.lock.lock();
+        try {
+            if (firstAccountId != null) {
+                buffer.add(firstAccountId, probe);
+            }
+            if (otherAccountId != null) {
+                buffer.add(otherAccountId, probe);
+            }
+        } finally {
+            buffer.lock.unlock();
+        }
+    }
+
+    /**
+     * Самые конфликтные счета по убыванию числа конфликтных операций.
+     *
+     * @param limit сколько счетов вернуть (не больше capacity)
+     */
+    public ContentionReport getReport(int limit) {
+        drainAll();
+        List<AccountContention> accounts = new ArrayList<>();
+        lock.lock();
+        try {
+            for (Counter counter : counters.values()) {
+                accounts.add(counter.toStats());
+            }
+        } finally {
+            lock.unlock();
+        }
+        accounts.sort(Comparator.comparingLong(AccountContention::getContendedOperations).reversed()
+                .thenComparing(AccountContention::getAccountId));
+        return ContentionReport.builder()
+                .since(since)
+                .capacity(properties.getCapacity())
+                .operations(operations.sum())
+                .contendedOperations(contended.sum())
+                .accounts(new ArrayList<>(accounts.subList(0, Math.min(Math.max(limit, 0), accounts.size()))))
+                .build();
+    }
+
+    /**
+     * Сброс отчета: учет начинается заново.
+     */
+    public void reset() {
+        for (SampleBuffer buffer : buffers) {
+            buffer.lock.lock();
+            try {
+                buffer.size = 0;
+            } finally {
+                buffer.lock.unlock();
+            }
+        }
+        lock.lock();
+        try {
+            counters.clear();
+            head = null;
+            operations.reset();
+            contended.reset();
+            since = LocalDateTime.now();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private SampleBuffer register() {
+        SampleBuffer buffer = new SampleBuffer(Thread.currentThread());
+        buffers.add(buffer);
+        return buffer;
+    }
+
+    /**
+     * Перенос буферов всех потоков в таблицу; буферы завершившихся потоков удаляются.
+     */
+    private void drainAll() {
+        for (SampleBuffer buffer : buffers) {
+            buffer.lock.lock();
+            try {
+                buffer.drain();
+            } finally {
+                buffer.lock.unlock();
+            }
+            if (!buffer.owner.isAlive()) {
+                buffers.remove(buffer);
+            }
+        }
+    }
+
+    /**
+     * Учет одного замера счета (вызывается под блокировкой таблицы).
+     */
+    private void add(long accountId, int conflicts, int waits, long waitNanos, long maxWaitNanos) {
+        Counter counter = counters.get(accountId);
+        if (counter == null) {
+            counter = insert(accountId);
+        }
+        increment(counter);
+        counter.conflicts += conflicts;
+        counter.waits += waits;
+        counter.waitNanos += waitNanos;
+        counter.maxWaitNanos = Math.max(counter.maxWaitNanos, maxWaitNanos);
+    }
+
+    /**
+     * Новый счетчик; при заполненной таблице вытесняется счетчик из наименьшей корзины,
+     * и новый начинает с его значения.
+     */
+    private Counter insert(long accountId) {
+        long inherited = 0;
+        if (counters.size() >= Math.max(1, properties.getCapacity())) {
+            Counter min = head.first;
+            inherited = head.count;
+            detach(min);
+            counters.remove(min.accountId);
+        }
+        // Унаследованное значение не больше любого в таблице: корзина - первая
+        Bucket bucket = head != null && head.count == inherited ? head : linkAfter(null, inherited);
+        Counter counter = new Counter(accountId, inherited);
+        attach(counter, bucket);
+        counters.put(accountId, counter);
+        return counter;
+    }
+
+    /**
+     * Перенос счетчика в корзину со значением на единицу больше.
+     */
+    private void increment(Counter counter) {
+        Bucket bucket = counter.bucket;
+        long next = bucket.count + 1;
+        Bucket target = bucket.next != null && bucket.next.count == next ? bucket.next : linkAfter(bucket, next);
+        detach(counter);
+        attach(counter, target);
+    }
+
+    /**
+     * Новая корзина после previous (null - в начало).
+     */
+    private Bucket linkAfter(Bucket previous, long count) {
+        Bucket bucket = new Bucket(count);
+        bucket.prev = previous;
+        bucket.next = previous != null ? previous.next : head;
+        if (bucket.next != null) {
+            bucket.next.prev = bucket;
+        }
+        if (previous != null) {
+            previous.next = bucket;
+        } else {
+            head = bucket;
+        }
+        return bucket;
+    }
+
+    private static void attach(Counter counter, Bucket bucket) {
+        counter.bucket = bucket;
+        counter.prev = null;
+        counter.next = bucket.first;
+        if (bucket.first != null) {
+            bucket.first.prev = counter;
+        }
+        bucket.first = counter;
+    }
+
+    /**
+     * Удаление счетчика из его корзины; опустевшая корзина удаляется из списка.
+     */
+    private void detach(Counter counter) {
+        Bucket bucket = counter.bucket;
+        if (counter.prev != null) {
+            counter.prev.next = counter.next;
+        } else {
+            bucket.first = counter.next;
+        }
+        if (counter.next != null) {
+            counter.next.prev = counter.prev;
+        }
+        counter.prev = null;
+        counter.next = null;
+        if (bucket.first == null) {
+            if (bucket.prev != null) {
+                bucket.prev.next = bucket.next;
+            } else {
+                head = bucket.next;
+            }
+            if (bucket.next != null) {
+                bucket.next.prev = bucket.prev;
+            }
+        }
+    }
+
+    /**
+     * Замеры одного потока, еще не перенесенные в таблицу. Пишет поток-владелец; отчет забирает их
+     * под той же блокировкой, которая без отчета почти никогда не занята другим потоком.
+     */
+    private final class SampleBuffer {
+        final Thread owner;
+        final ReentrantLock lock = new ReentrantLock();
+        final long[] accountIds = new long[BUFFER_SIZE];
+        final int[] conflicts = new int[BUFFER_SIZE];
+        final int[] waits = new int[BUFFER_SIZE];
+        final long[] waitNanos = new long[BUFFER_SIZE];
+        final long[] maxWaitNanos = new long[BUFFER_SIZE];
+        int size;
+
+        SampleBuffer(Thread owner) {
+            this.owner = owner;
+        }
+
+        void add(long accountId, ContentionProbe probe) {
+            if (size == BUFFER_SIZE) {
+                drain();
+            }
+            accountIds[size] = accountId;
+            conflicts[size] = probe.getConflicts();
+            waits[size] = probe.getWaits();
+            waitNanos[size] = probe.getWaitNanos();
+            maxWaitNanos[size] = probe.getMaxWaitNanos();
+            size++;
+        }
+
+        /**
+         * Перенос замеров в таблицу (вызывается под блокировкой буфера).
+         */
+        void drain() {
+            if (size == 0) {
+                return;
+            }
+            ContentionTracker.this.lock.lock();
+            try {
+                for (int i = 0; i < size; i++) {
+                    ContentionTracker.this.add(accountIds[i], conflicts[i], waits[i], waitNanos[i], maxWaitNanos[i]);
+                }
+            } finally {
+                ContentionTracker.this.lock.unlock();
+            }
+            size = 0;
+        }
+    }
+
+    /**
+     * Счетчики с одинаковым значением.
+     */
+    private static final class Bucket {
+        final long count;
+        Bucket prev;
+        Bucket next;
+        Counter first;
+
+        Bucket(long count) {
+            this.count = count;
+        }
+    }
+
+    private static final class Counter {
+        final long accountId;
+        final long overestimate;
+        Bucket bucket;
+        Counter prev;
+        Counter next;
+        long conflicts;
+        long waits;
+        long waitNanos;
+        long maxWaitNanos;
+
+        Counter(long accountId, long inherited) {
+            this.accountId = accountId;
+            this.overestimate = inherited;
+        }
+
+        AccountContention toStats() {
+            return AccountContention.builder()
+                    .accountId(accountId)
+                    .contendedOperations(bucket.count)
+                    .overestimate(overestimate)
+                    .conflicts(conflicts)
+                    .waits(waits)
+                    .waitMicros(TimeUnit.NANOSECONDS.toMicros(waitNanos))
+                    .maxWaitMicros(TimeUnit.NANOSECONDS.toMicros(maxWaitNanos))
+                    .build();
+        }
+    }
+}
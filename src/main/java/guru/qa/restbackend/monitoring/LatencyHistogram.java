@@ -0,0 +1,97 @@
+package guru.qa.restbackend.monitoring;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Гистограмма латентности в микросекундах с логарифмически-линейными корзинами (как в HdrHistogram).
+ * <p>
+ * Значения меньше 128 хранятся точно, дальше каждый интервал [2^k, 2^(k+1)) делится на 64 равные корзины,
+ * поэтому относительная погрешность перцентиля не больше 1/64 при фиксированном объеме памяти
+ * (около 14 КБ на диапазон до часа). Запись - одно атомарное увеличение счетчика, без блокировок.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int HALF = 1 << (SUB_BUCKET_BITS - 1);
+    private static final long MAX_VALUE = (1L << 32) - 1;
+    private static final int BUCKETS = index(MAX_VALUE) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Запись значения; значения больше ~71 минуты попадают в последнюю корзину.
+     *
+     * @param micros длительность в микросекундах
+     */
+    public void record(long micros) {
+        long value = Math.min(Math.max(micros, 0), MAX_VALUE);
+        counts.incrementAndGet(index(value));
+        count.increment();
+        sum.add(value);
+        if (value > max.get()) {
+            max.accumulateAndGet(value, Math::max);
+        }
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        long total = count.sum();
+        return total > 0 ? (double) sum.sum() / total : 0;
+    }
+
+    /**
+     * Значение перцентиля: верхняя граница корзины, в которую попадает доля quantile записей.
+     *
+     * @param quantile доля от 0 до 1 (0.999 - p999)
+     * @return значение в микросекундах, 0 если записей нет
+     */
+    public long getValueAt(double quantile) {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= target) {
+                return Math.min(upperBound(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    static int index(long value) {
+        if (value < 2 * HALF) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+        return (shift + 1) * HALF + (int) (value >>> shift) - HALF;
+    }
+
+    static long upperBound(int index) {
+        if (index < 2 * HALF) {
+            return index;
+        }
+        int shift = index / HALF - 1;
+        long subBucket = index % HALF + HALF;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
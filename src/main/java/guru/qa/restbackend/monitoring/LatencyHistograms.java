@@ -0,0 +1,72 @@
+package guru.qa.restbackend.monitoring;
+
+import guru.qa.restbackend.domain.LatencyStats;
+import guru.qa.restbackend.domain.RequestPhase;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Гистограммы латентности по эндпоинтам и фазам запроса.
+ * Гистограмма фазы создается при первой записи: эндпоинт без тела не тратит память на разбор и проверку.
+ */
+@Component
+public class LatencyHistograms {
+
+    private static final RequestPhase[] PHASES = RequestPhase.values();
+
+    private final Map<String, AtomicReferenceArray<LatencyHistogram>> endpoints = new ConcurrentHashMap<>();
+
+    /**
+     * Запись всех фаз завершенного запроса.
+     *
+     * @param endpoint метод и шаблон пути, например "POST /account/transfer"
+     * @param timing   замеры запроса
+     */
+    void record(String endpoint, RequestTiming timing) {
+        AtomicReferenceArray<LatencyHistogram> histograms =
+                endpoints.computeIfAbsent(endpoint, key -> new AtomicReferenceArray<>(PHASES.length));
+        for (RequestPhase phase : PHASES) {
+            if (timing.isRecorded(phase)) {
+                LatencyHistogram histogram = histograms.get(phase.ordinal());
+                if (histogram == null) {
+                    histograms.compareAndSet(phase.ordinal(), null, new LatencyHistogram());
+                    histogram = histograms.get(phase.ordinal());
+                }
+                histogram.record(TimeUnit.NANOSECONDS.toMicros(timing.getNanos(phase)));
+            }
+        }
+    }
+
+    /**
+     * Перцентили по всем эндпоинтам и фазам, по алфавиту эндпоинтов и порядку фаз в запросе.
+     */
+    public List<LatencyStats> getStats() {
+        List<LatencyStats> result = new ArrayList<>();
+        for (Map.Entry<String, AtomicReferenceArray<LatencyHistogram>> endpoint : new TreeMap<>(endpoints).entrySet()) {
+            for (RequestPhase phase : PHASES) {
+                LatencyHistogram histogram = endpoint.getValue().get(phase.ordinal());
+                if (histogram == null) {
+                    continue;
+                }
+                result.add(LatencyStats.builder()
+                        .endpoint(endpoint.getKey())
+                        .phase(phase)
+                        .count(histogram.getCount())
+                        .meanMicros(Math.round(histogram.getMean() * 10) / 10.0)
+                        .p50Micros(histogram.getValueAt(0.5))
+                        .p99Micros(histogram.getValueAt(0.99))
+                        .p999Micros(histogram.getValueAt(0.999))
+                        .maxMicros(histogram.getMax())
+                        .build());
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,89 @@
+package guru.qa.restbackend.monitoring;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Монитор латентности онлайн-запросов.
+ * Хранит последние запросы в кольцевом буфере и отдает p99 за скользящее окно.
+ * Используется фоновыми задачами, чтобы притормаживать, когда онлайн-трафик страдает.
+ */
+@Component
+public class OnlineLatencyMonitor implements HandlerInterceptor {
+
+    private static final int CAPACITY = 4096;
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(5);
+    // p99 пересчитывается не чаще, чем раз в этот интервал
+    private static final long CACHE_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final String START_ATTRIBUTE = OnlineLatencyMonitor.class.getName() + ".start";
+
+    private final AtomicLongArray finishedAt = new AtomicLongArray(CAPACITY);
+    private final AtomicLongArray latencies = new AtomicLongArray(CAPACITY);
+    private final AtomicLong cursor = new AtomicLong();
+
+    private volatile long cachedP99Micros;
+    private volatile long cachedAt = System.nanoTime() - CACHE_NANOS;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
+                                Object handler, Exception ex) {
+        Object start = request.getAttribute(START_ATTRIBUTE);
+        if (start instanceof Long) {
+            record(System.nanoTime() - (Long) start);
+        }
+    }
+
+    /**
+     * Запись латентности одного запроса.
+     *
+     * @param latencyNanos длительность запроса в наносекундах
+     */
+    public void record(long latencyNanos) {
+        int slot = (int) (cursor.getAndIncrement() & (CAPACITY - 1));
+        latencies.set(slot, latencyNanos);
+        finishedAt.set(slot, System.nanoTime());
+    }
+
+    /**
+     * 99-й перцентиль латентности за последние 5 секунд.
+     *
+     * @return p99 в микросекундах, 0 если запросов не было
+     */
+    public long getRecentP99Micros() {
+        long now = System.nanoTime();
+        if (now - cachedAt < CACHE_NANOS) {
+            return cachedP99Micros;
+        }
+
+        long[] window = new long[CAPACITY];
+        int size = 0;
+        for (int slot = 0; slot < CAPACITY; slot++) {
+            long finished = finishedAt.get(slot);
+            if (finished != 0 && now - finished <= WINDOW_NANOS) {
+                window[size++] = latencies.get(slot);
+            }
+        }
+
+        long p99 = 0;
+        if (size > 0) {
+            Arrays.sort(window, 0, size);
+            p99 = TimeUnit.NANOSECONDS.toMicros(window[(int) Math.ceil(size * 0.99) - 1]);
+        }
+        cachedP99Micros = p99;
+        cachedAt = now;
+        return p99;
+    }
+}
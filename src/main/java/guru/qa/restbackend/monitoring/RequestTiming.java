@@ -0,0 +1,143 @@
+package guru.qa.restbackend.monitoring;
+
+import guru.qa.restbackend.domain.RequestPhase;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Таймеры фаз текущего запроса. Живут в потоке запроса между началом и концом
+ * {@link RequestTimingFilter}; в остальных потоках (пакетные задачи, импорт) все вызовы - пустые.
+ * <p>
+ * Замер фазы в коде сервиса и хранилища:
+ * <pre>
+ * long started = RequestTiming.begin();
+ * ...
+ * RequestTiming.end(RequestPhase.LOOKUP, started);
+ * </pre>
+ * Повторные замеры одной фазы складываются. Фазы, начинающиеся и заканчивающиеся в разных
+ * обработчиках Spring (разбор тела, обработка ошибки, сериализация), отмечаются open/close.
+ */
+public final class RequestTiming {
+
+    private static final ThreadLocal<RequestTiming> CURRENT = new ThreadLocal<>();
+    private static final RequestPhase[] PHASES = RequestPhase.values();
+    private static final String[] HEADER_NAMES = new String[PHASES.length];
+
+    static {
+        for (RequestPhase phase : PHASES) {
+            HEADER_NAMES[phase.ordinal()] = phase.name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final long startedNanos;
+    private final long[] nanos = new long[PHASES.length];
+    private final long[] openedAt = new long[PHASES.length];
+    private int recorded;
+
+    private RequestTiming(long startedNanos) {
+        this.startedNanos = startedNanos;
+    }
+
+    /**
+     * Начало замера фазы.
+     *
+     * @return отметка времени или 0, если поток не обрабатывает запрос
+     */
+    public static long begin() {
+        return CURRENT.get() != null ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * Конец замера фазы, начатого {@link #begin()}.
+     */
+    public static void end(RequestPhase phase, long startedNanos) {
+        if (startedNanos != 0L) {
+            RequestTiming timing = CURRENT.get();
+            if (timing != null) {
+                timing.add(phase, System.nanoTime() - startedNanos);
+            }
+        }
+    }
+
+    /**
+     * Открытие фазы, которую закроет другой обработчик.
+     */
+    public static void open(RequestPhase phase) {
+        RequestTiming timing = CURRENT.get();
+        if (timing != null) {
+            timing.openedAt[phase.ordinal()] = System.nanoTime();
+        }
+    }
+
+    /**
+     * Закрытие открытой фазы (без открытия - ничего не делает).
+     */
+    public static void close(RequestPhase phase) {
+        RequestTiming timing = CURRENT.get();
+        if (timing != null) {
+            timing.closeOpened(phase, System.nanoTime());
+        }
+    }
+
+    static RequestTiming start() {
+        RequestTiming timing = new RequestTiming(System.nanoTime());
+        CURRENT.set(timing);
+        return timing;
+    }
+
+    /**
+     * Завершение замеров: незакрытые фазы закрываются, записывается общее время, поток отвязывается.
+     */
+    void finish() {
+        long now = System.nanoTime();
+        for (RequestPhase phase : PHASES) {
+            closeOpened(phase, now);
+        }
+        add(RequestPhase.TOTAL, now - startedNanos);
+        CURRENT.remove();
+    }
+
+    boolean isRecorded(RequestPhase phase) {
+        return (recorded & (1 << phase.ordinal())) != 0;
+    }
+
+    long getNanos(RequestPhase phase) {
+        return nanos[phase.ordinal()];
+    }
+
+    /**
+     * Значение заголовка Server-Timing: записанные фазы с длительностью в миллисекундах.
+     */
+    String toServerTiming() {
+        StringBuilder header = new StringBuilder(128);
+        for (RequestPhase phase : PHASES) {
+            if (isRecorded(phase)) {
+                long micros = TimeUnit.NANOSECONDS.toMicros(nanos[phase.ordinal()]);
+                if (header.length() > 0) {
+                    header.append(", ");
+                }
+                header.append(HEADER_NAMES[phase.ordinal()]).append(";dur=").append(micros / 1000).append('.');
+                long fraction = micros % 1000;
+                if (fraction < 100) {
+                    header.append(fraction < 10 ? "00" : "0");
+                }
+                header.append(fraction);
+            }
+        }
+        return header.toString();
+    }
+
+    private void add(RequestPhase phase, long elapsedNanos) {
+        nanos[phase.ordinal()] += elapsedNanos;
+        recorded |= 1 << phase.ordinal();
+    }
+
+    private void closeOpened(RequestPhase phase, long now) {
+        long opened = openedAt[phase.ordinal()];
+        if (opened != 0L) {
+            openedAt[phase.ordinal()] = 0L;
+            add(phase, now - opened);
+        }
+    }
+}
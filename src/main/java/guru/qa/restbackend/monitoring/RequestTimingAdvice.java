@@ -0,0 +1,126 @@
+package guru.qa.restbackend.monitoring;
+
+import guru.qa.restbackend.domain.RequestPhase;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.validation.Errors;
+import org.springframework.validation.SmartValidator;
+import org.springframework.validation.Validator;
+import org.springframework.web.bind.WebDataBinder;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.InitBinder;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.mvc.method.annotation.RequestBodyAdviceAdapter;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * Границы фаз, которые проходят через обработчики Spring MVC:
+ * разбор JSON тела (до и после чтения), проверка @Valid (обертка валидатора привязки),
+ * обработка исключения (от первого резолвера до записи ответа) и сериализация (от записи ответа
+ * до конца фильтра).
+ */
+@ControllerAdvice
+public class RequestTimingAdvice extends RequestBodyAdviceAdapter
+        implements ResponseBodyAdvice<Object>, HandlerExceptionResolver {
+
+    @InitBinder
+    public void timeValidation(WebDataBinder binder) {
+        Validator validator = binder.getValidator();
+        if (validator instanceof SmartValidator && !(validator instanceof TimedValidator)) {
+            binder.replaceValidators(new TimedValidator((SmartValidator) validator));
+        }
+    }
+
+    @Override
+    public boolean supports(MethodParameter methodParameter, Type targetType,
+                            Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public HttpInputMessage beforeBodyRead(HttpInputMessage inputMessage, MethodParameter parameter,
+                                           Type targetType, Class<? extends HttpMessageConverter<?>> converterType)
+            throws IOException {
+        RequestTiming.open(RequestPhase.BIND);
+        return inputMessage;
+    }
+
+    @Override
+    public Object afterBodyRead(Object body, HttpInputMessage inputMessage, MethodParameter parameter,
+                                Type targetType, Class<? extends HttpMessageConverter<?>> converterType) {
+        RequestTiming.close(RequestPhase.BIND);
+        return body;
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        RequestTiming.close(RequestPhase.ERROR);
+        RequestTiming.open(RequestPhase.SERIALIZE);
+        return body;
+    }
+
+    /**
+     * Отметка начала обработки исключения; сам резолвер ничего не обрабатывает.
+     */
+    @Override
+    public ModelAndView resolveException(HttpServletRequest request, HttpServletResponse response,
+                                         Object handler, Exception ex) {
+        // Неразобранное тело тоже закрывает фазу разбора
+        RequestTiming.close(RequestPhase.BIND);
+        RequestTiming.open(RequestPhase.ERROR);
+        return null;
+    }
+
+    /**
+     * Валидатор привязки с замером фазы VALIDATE.
+     */
+    private static final class TimedValidator implements SmartValidator {
+        private final SmartValidator delegate;
+
+        TimedValidator(SmartValidator delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public boolean supports(Class<?> clazz) {
+            return delegate.supports(clazz);
+        }
+
+        @Override
+        public void validate(Object target, Errors errors) {
+            long started = RequestTiming.begin();
+            try {
+                delegate.validate(target, errors);
+            } finally {
+                RequestTiming.end(RequestPhase.VALIDATE, started);
+            }
+        }
+
+        @Override
+        public void validate(Object target, Errors errors, Object... validationHints) {
+            long started = RequestTiming.begin();
+            try {
+                delegate.validate(target, errors, validationHints);
+            } finally {
+                RequestTiming.end(RequestPhase.VALIDATE, started);
+            }
+        }
+    }
+}
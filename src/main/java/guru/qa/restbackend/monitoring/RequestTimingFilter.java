@@ -0,0 +1,61 @@
+package guru.qa.restbackend.monitoring;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Замер фаз запроса: привязывает {@link RequestTiming} к потоку запроса, после обработки пишет
+ * фазы в гистограммы эндпоинта и добавляет к ответу заголовок Server-Timing.
+ * Пути, к которым применяется фильтр, задаются при регистрации (см. WebMvcConfig).
+ */
+@Component
+public class RequestTimingFilter extends OncePerRequestFilter {
+
+    public static final String SERVER_TIMING_HEADER = "Server-Timing";
+
+    private static final String UNMATCHED = "UNMATCHED";
+
+    private final RequestTimingProperties properties;
+    private final LatencyHistograms histograms;
+
+    @Autowired
+    public RequestTimingFilter(RequestTimingProperties properties, LatencyHistograms histograms) {
+        this.properties = properties;
+        this.histograms = histograms;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (!properties.isEnabled()) {
+            chain.doFilter(request, response);
+            return;
+        }
+        // Тело держится в буфере до конца сериализации, иначе заголовок уже не добавить
+        ContentCachingResponseWrapper buffered = properties.isServerTimingHeader() ?
+                new ContentCachingResponseWrapper(response) : null;
+        RequestTiming timing = RequestTiming.start();
+        try {
+            chain.doFilter(request, buffered != null ? buffered : response);
+        } finally {
+            timing.finish();
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            histograms.record(request.getMethod() + " " + (pattern != null ? pattern : UNMATCHED), timing);
+            if (buffered != null) {
+                if (!response.isCommitted()) {
+                    response.setHeader(SERVER_TIMING_HEADER, timing.toServerTiming());
+                }
+                buffered.copyBodyToResponse();
+            }
+        }
+    }
+}
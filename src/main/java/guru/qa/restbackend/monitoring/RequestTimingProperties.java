@@ -0,0 +1,25 @@
+package guru.qa.restbackend.monitoring;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Настройки замера фаз запросов (префикс bank.timing).
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "bank.timing")
+public class RequestTimingProperties {
+
+    /**
+     * Включить таймеры фаз и гистограммы латентности по эндпоинтам.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Добавлять к ответам заголовок Server-Timing. Чтобы в нем была и сериализация, тело ответа
+     * собирается в буфер и отправляется после нее.
+     */
+    private boolean serverTimingHeader = true;
+}
@@ -0,0 +1,89 @@
+package guru.qa.restbackend.schedule;
+
+import guru.qa.restbackend.domain.ScheduledTransfer;
+import guru.qa.restbackend.domain.TransactionStatus;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Расписание перевода в планировщике. Изменяется только под блокировкой {@link TransferScheduler}.
+ */
+final class Schedule {
+
+    static final int UNLIMITED = -1;
+    static final long ONCE = 0;
+
+    long id;
+    long fromAccountId;
+    long toAccountId;
+    BigDecimal amount;
+    String description;
+    long nextRunAt;
+    // Интервал повторения в мс (ONCE - однократный перевод)
+    long intervalMillis;
+    // Сколько переводов осталось, включая ближайший (UNLIMITED - без ограничения)
+    int remainingRuns;
+    int runs;
+    int failedRuns;
+    long lastTransactionId;
+    String lastError;
+    long createdAt;
+
+    // Срок, переданный на исполнение (из журнала): если результата нет, исход перевода неизвестен
+    long claimedRunAt = -1;
+    TimingWheel.Timer<Schedule> timer;
+    boolean running;
+    boolean cancelled;
+
+    boolean isRecurring() {
+        return intervalMillis != ONCE;
+    }
+
+    /**
+     * Переход к следующему сроку после исполнения срока nextRunAt. Пропущенные сроки (планировщик
+     * стоял дольше интервала) не наверстываются: следующий срок - первый после now.
+     *
+     * @return false, если переводов больше не будет
+     */
+    boolean advance(long now) {
+        if (remainingRuns != UNLIMITED) {
+            remainingRuns--;
+        }
+        if (!isRecurring() || remainingRuns == 0) {
+            return false;
+        }
+        long next = nextRunAt + intervalMillis;
+        if (next <= now) {
+            next += ((now - next) / intervalMillis + 1) * intervalMillis;
+        }
+        nextRunAt = next;
+        return true;
+    }
+
+    ScheduledTransfer toTransfer(TransactionStatus status, ZoneId zone) {
+        return ScheduledTransfer.builder()
+                .id(id)
+                .fromAccountId(fromAccountId)
+                .toAccountId(toAccountId)
+                .amount(amount)
+                .description(description)
+                .status(status)
+                .nextRunAt(status == TransactionStatus.PENDING ? time(nextRunAt, zone) : null)
+                .repeatEvery(isRecurring() ? Duration.ofMillis(intervalMillis) : null)
+                .remainingRuns(remainingRuns != UNLIMITED ? remainingRuns : null)
+                .runs(runs)
+                .failedRuns(failedRuns)
+                .lastTransactionId(lastTransactionId != 0 ? lastTransactionId : null)
+                .lastError(lastError)
+                .createdAt(time(createdAt, zone))
+                .build();
+    }
+
+    private static LocalDateTime time(long epochMillis, ZoneId zone) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), zone);
+    }
+}
@@ -0,0 +1,327 @@
+package guru.qa.restbackend.schedule;
+
+import guru.qa.restbackend.domain.TransactionStatus;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Журнал расписаний: файл записей [длина][CRC32][данные], дописывается в конец.
+ * <p>
+ * SCHEDULE - полное состояние расписания (создание и каждый следующий срок), CLAIM - срок передан
+ * на исполнение, FINISH - расписание исчерпано, CANCEL - отменено. Записи копятся в буфере и попадают
+ * в файл одной записью с fsync при {@link #commit()}. Состояние восстанавливается чтением журнала
+ * по порядку; оборванная последняя запись (сбой во время записи) отбрасывается, а запись, которую
+ * не удается разобрать, считается концом журнала - расписания после нее теряются, но сервис стартует.
+ * Строки пишутся как [длина][UTF-8] без ограничения writeUTF в 64 КБ. Когда записей
+ * становится намного больше, чем расписаний, журнал переписывается снимком активных расписаний.
+ */
+@Slf4j
+final class ScheduleJournal implements Closeable {
+
+    private static final String FILE = "schedules.journal";
+    private static final byte SCHEDULE = 1;
+    private static final byte CLAIM = 2;
+    private static final byte FINISH = 3;
+    private static final byte CANCEL = 4;
+    private static final int MAX_ERROR_LENGTH = 200;
+    // Запись длиннее при чтении считается мусором
+    private static final int MAX_RECORD_LENGTH = 1 << 20;
+
+    private final Path file;
+    private final boolean fsync;
+    private final ByteArrayOutputStream record = new ByteArrayOutputStream(128);
+    private final DataOutputStream recordOut = new DataOutputStream(record);
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream(1 << 16);
+    private final DataOutputStream pendingOut = new DataOutputStream(pending);
+    private final CRC32 crc = new CRC32();
+    private FileChannel channel;
+    private long records;
+
+    private ScheduleJournal(Path file, boolean fsync) {
+        this.file = file;
+        this.fsync = fsync;
+    }
+
+    /**
+     * Открытие журнала и восстановление расписаний.
+     *
+     * @param dir       каталог журнала
+     * @param fsync     сбрасывать ли записи на диск
+     * @param schedules получатель активных расписаний по ID
+     */
+    static ScheduleJournal open(Path dir, boolean fsync, Map<Long, Schedule> schedules) throws IOException {
+        Files.createDirectories(dir);
+        ScheduleJournal journal = new ScheduleJournal(dir.resolve(FILE), fsync);
+        long validBytes = Files.exists(journal.file) ? journal.replay(schedules) : 0;
+        journal.channel = FileChannel.open(journal.file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        if (journal.channel.size() > validBytes) {
+            log.warn("Журнал расписаний {} оборван, отброшено {} байт", journal.file, journal.channel.size() - validBytes);
+            journal.channel.truncate(validBytes);
+        }
+        journal.channel.position(validBytes);
+        return journal;
+    }
+
+    synchronized void schedule(Schedule schedule) {
+        append(() -> {
+            recordOut.writeByte(SCHEDULE);
+            recordOut.writeLong(schedule.id);
+            recordOut.writeLong(schedule.fromAccountId);
+            recordOut.writeLong(schedule.toAccountId);
+            byte[] unscaled = schedule.amount.unscaledValue().toByteArray();
+            recordOut.writeByte(schedule.amount.scale());
+            recordOut.writeByte(unscaled.length);
+            recordOut.write(unscaled);
+            writeNullable(schedule.description);
+            recordOut.writeLong(schedule.nextRunAt);
+            recordOut.writeLong(schedule.intervalMillis);
+            recordOut.writeInt(schedule.remainingRuns);
+            recordOut.writeInt(schedule.runs);
+            recordOut.writeInt(schedule.failedRuns);
+            recordOut.writeLong(schedule.lastTransactionId);
+            writeNullable(schedule.lastError != null && schedule.lastError.length() > MAX_ERROR_LENGTH ?
+                    schedule.lastError.substring(0, MAX_ERROR_LENGTH) : schedule.lastError);
+            recordOut.writeLong(schedule.createdAt);
+        });
+    }
+
+    synchronized void claim(long id, long runAt) {
+        append(() -> {
+            recordOut.writeByte(CLAIM);
+            recordOut.writeLong(id);
+            recordOut.writeLong(runAt);
+        });
+    }
+
+    synchronized void finish(long id, TransactionStatus status) {
+        append(() -> {
+            recordOut.writeByte(FINISH);
+            recordOut.writeLong(id);
+            recordOut.writeByte(status.ordinal());
+        });
+    }
+
+    synchronized void cancel(long id) {
+        append(() -> {
+            recordOut.writeByte(CANCEL);
+            recordOut.writeLong(id);
+        });
+    }
+
+    /**
+     * Запись накопленных записей в файл одной операцией (и fsync, если включен).
+     */
+    synchronized void commit() {
+        if (pending.size() == 0) {
+            return;
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(pending.toByteArray());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (fsync) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось записать журнал расписаний", e);
+        } finally {
+            pending.reset();
+        }
+    }
+
+    /**
+     * Перезапись журнала снимком активных расписаний. Вызывающий гарантирует, что расписания
+     * не меняются и незакоммиченных записей нет.
+     */
+    synchronized void compact(Collection<Schedule> active) throws IOException {
+        commit();
+        Path compacted = file.resolveSibling(FILE + ".tmp");
+        records = 0;
+        try (FileChannel out = FileChannel.open(compacted, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (Schedule schedule : active) {
+                schedule(schedule);
+                if (pending.size() >= 1 << 20) {
+                    writeTo(out);
+                }
+            }
+            writeTo(out);
+            out.force(true);
+        }
+        channel.close();
+        Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    synchronized long records() {
+        return records;
+    }
+
+    synchronized long bytes() {
+        try {
+            return channel.size();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        commit();
+        channel.close();
+    }
+
+    private void writeTo(FileChannel out) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(pending.toByteArray());
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        pending.reset();
+    }
+
+    /**
+     * Сборка записи и ее добавление в буфер. Буфер записи очищается в любом случае: недописанная
+     * запись не должна попасть в начало следующей.
+     */
+    private void append(RecordBody body) {
+        try {
+            body.write();
+            if (record.size() > MAX_RECORD_LENGTH) {
+                throw new IllegalArgumentException("Запись журнала расписаний длиннее " + MAX_RECORD_LENGTH + " байт");
+            }
+            crc.reset();
+            crc.update(record.toByteArray());
+            pendingOut.writeInt(record.size());
+            pendingOut.writeInt((int) crc.getValue());
+            record.writeTo(pendingOut);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            record.reset();
+        }
+        records++;
+    }
+
+    private void writeNullable(String value) throws IOException {
+        recordOut.writeBoolean(value != null);
+        if (value != null) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            recordOut.writeInt(bytes.length);
+            recordOut.write(bytes);
+        }
+    }
+
+    /**
+     * Чтение журнала.
+     *
+     * @return длина целой части файла в байтах
+     */
+    private long replay(Map<Long, Schedule> schedules) throws IOException {
+        long valid = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            while (true) {
+                byte[] payload;
+                try {
+                    int length = in.readInt();
+                    int checksum = in.readInt();
+                    if (length <= 0 || length > MAX_RECORD_LENGTH) {
+                        break;
+                    }
+                    payload = new byte[length];
+                    in.readFully(payload);
+                    crc.reset();
+                    crc.update(payload);
+                    if ((int) crc.getValue() != checksum) {
+                        break;
+                    }
+                } catch (EOFException e) {
+                    break;
+                }
+                try {
+                    apply(new DataInputStream(new ByteArrayInputStream(payload)), schedules);
+                } catch (IOException | RuntimeException e) {
+                    log.warn("Запись журнала расписаний {} на смещении {} не разбирается: {}", file, valid, e.toString());
+                    break;
+                }
+                valid += 8 + payload.length;
+                records++;
+            }
+        }
+        return valid;
+    }
+
+    private static void apply(DataInputStream in, Map<Long, Schedule> schedules) throws IOException {
+        byte type = in.readByte();
+        long id = in.readLong();
+        switch (type) {
+            case SCHEDULE:
+                Schedule schedule = new Schedule();
+                schedule.id = id;
+                schedule.fromAccountId = in.readLong();
+                schedule.toAccountId = in.readLong();
+                int scale = in.readByte();
+                byte[] unscaled = new byte[in.readUnsignedByte()];
+                in.readFully(unscaled);
+                schedule.amount = new BigDecimal(new BigInteger(unscaled), scale);
+                schedule.description = readNullable(in);
+                schedule.nextRunAt = in.readLong();
+                schedule.intervalMillis = in.readLong();
+                schedule.remainingRuns = in.readInt();
+                schedule.runs = in.readInt();
+                schedule.failedRuns = in.readInt();
+                schedule.lastTransactionId = in.readLong();
+                schedule.lastError = readNullable(in);
+                schedule.createdAt = in.readLong();
+                schedules.put(id, schedule);
+                break;
+            case CLAIM:
+                Schedule claimed = schedules.get(id);
+                if (claimed != null) {
+                    claimed.claimedRunAt = in.readLong();
+                }
+                break;
+            case FINISH:
+            case CANCEL:
+                schedules.remove(id);
+                break;
+            default:
+                throw new IOException("Неизвестный тип записи журнала расписаний: " + type);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        int length = in.readInt();
+        // Поток записи - массив в памяти: available() точен, длина не выделит лишнего
+        if (length < 0 || length > in.available()) {
+            throw new EOFException("Длина строки " + length + " за пределами записи");
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Тело записи: пишет поля в recordOut.
+     */
+    @FunctionalInterface
+    private interface RecordBody {
+        void write() throws IOException;
+    }
+}
@@ -0,0 +1,58 @@
+package guru.qa.restbackend.schedule;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Настройки запланированных переводов (префикс bank.schedule).
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "bank.schedule")
+public class ScheduleProperties {
+
+    /**
+     * Исполнять запланированные переводы. Выключенный планировщик принимает и хранит расписания,
+     * но не исполняет их.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Каталог журнала расписаний.
+     */
+    private String dir = "data/schedule";
+
+    /**
+     * Шаг колеса времени: точность срабатывания (перевод не исполняется раньше срока,
+     * но может опоздать на шаг).
+     */
+    private Duration tick = Duration.ofMillis(100);
+
+    /**
+     * Максимум переводов в одной пачке: одна запись журнала перед исполнением и одна после.
+     */
+    private int batchSize = 1000;
+
+    /**
+     * Минимальный интервал повторяющегося перевода.
+     */
+    private Duration minInterval = Duration.ofSeconds(1);
+
+    /**
+     * Сбрасывать ли записи журнала на диск (fsync).
+     */
+    private boolean fsync = true;
+
+    /**
+     * Сжатие журнала, когда записей в нем больше, чем активных расписаний, на это число.
+     */
+    private long compactionThreshold = 100_000;
+
+    /**
+     * Сколько последних завершенных или отмененных расписаний доступно по ID (только в памяти).
+     */
+    private int finishedRetention = 10_000;
+}
@@ -0,0 +1,176 @@
+package guru.qa.restbackend.schedule;
+
+import java.util.function.Consumer;
+
+/**
+ * Иерархическое колесо времени: LEVELS уровней по SLOTS ячеек, ячейка уровня L покрывает SLOTS^L шагов.
+ * <p>
+ * Таймер кладется в ячейку самого младшего уровня, в диапазон которого попадает его срок, и хранится
+ * в двусвязном списке ячейки: добавление и отмена - O(1) независимо от числа таймеров. Когда младший
+ * уровень проходит полный оборот, ячейка старшего уровня с наступающим диапазоном переносится вниз
+ * (каждый таймер переносится не больше LEVELS раз). Сроки дальше старшего уровня хранятся в его
+ * ячейках и при переносе кладутся обратно, пока не приблизятся.
+ * <p>
+ * Шаги - абсолютные номера (время / шаг колеса). Не потокобезопасно: вызывающий держит блокировку.
+ *
+ * @param <T> данные таймера
+ */
+public final class TimingWheel<T> {
+
+    public static final int SLOT_BITS = 6;
+    public static final int SLOTS = 1 << SLOT_BITS;
+    public static final int LEVELS = 6;
+    private static final int MASK = SLOTS - 1;
+
+    private final Timer<T>[][] wheel;
+    private long currentTick;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long startTick) {
+        this.currentTick = startTick;
+        this.wheel = new Timer[LEVELS][SLOTS];
+        for (int level = 0; level < LEVELS; level++) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                // Пустой таймер - голова кольцевого списка ячейки
+                Timer<T> head = new Timer<>(0, null);
+                head.prev = head;
+                head.next = head;
+                wheel[level][slot] = head;
+            }
+        }
+    }
+
+    public long currentTick() {
+        return currentTick;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Добавление таймера.
+     *
+     * @param deadlineTick шаг срабатывания
+     * @param payload      данные
+     * @param due          получатель таймеров, срок которых уже наступил (срабатывают сразу)
+     * @return таймер для отмены или null, если он сработал сразу
+     */
+    public Timer<T> add(long deadlineTick, T payload, Consumer<T> due) {
+        if (deadlineTick <= currentTick) {
+            due.accept(payload);
+            return null;
+        }
+        Timer<T> timer = new Timer<>(deadlineTick, payload);
+        place(timer);
+        size++;
+        return timer;
+    }
+
+    /**
+     * Отмена таймера.
+     *
+     * @return false, если таймер уже сработал или отменен
+     */
+    public boolean cancel(Timer<T> timer) {
+        if (timer == null || timer.prev == null) {
+            return false;
+        }
+        unlink(timer);
+        size--;
+        return true;
+    }
+
+    /**
+     * Продвижение колеса до шага tick включительно.
+     *
+     * @param due получатель сработавших таймеров в порядке шагов
+     */
+    public void advance(long tick, Consumer<T> due) {
+        while (currentTick < tick) {
+            currentTick++;
+            cascade();
+            Timer<T> head = wheel[0][(int) currentTick & MASK];
+            while (head.next != head) {
+                Timer<T> timer = head.next;
+                unlink(timer);
+                size--;
+                due.accept(timer.payload);
+            }
+            if (size == 0) {
+                // Пустое колесо: пропускаем оставшиеся шаги целиком
+                currentTick = Math.max(currentTick, tick);
+            }
+        }
+    }
+
+    /**
+     * Перенос вниз ячеек старших уровней, диапазон которых начинается на текущем шаге.
+     */
+    private void cascade() {
+        int levels = 0;
+        while (levels + 1 < LEVELS && (currentTick & ((1L << (SLOT_BITS * (levels + 1))) - 1)) == 0) {
+            levels++;
+        }
+        // Сначала старшие уровни: их таймеры могут попасть в переносимые ячейки младших
+        for (int level = levels; level >= 1; level--) {
+            Timer<T> head = wheel[level][(int) (currentTick >>> (SLOT_BITS * level)) & MASK];
+            Timer<T> timer = head.next;
+            head.next = head;
+            head.prev = head;
+            while (timer != head) {
+                Timer<T> next = timer.next;
+                place(timer);
+                timer = next;
+            }
+        }
+    }
+
+    private void place(Timer<T> timer) {
+        long delta = timer.deadlineTick - currentTick;
+        int level = 0;
+        while (level + 1 < LEVELS && delta >= 1L << (SLOT_BITS * (level + 1))) {
+            level++;
+        }
+        // Дальше старшего уровня: ячейка последнего шага его оборота, при переносе таймер вернется наверх
+        long tick = level + 1 == LEVELS && delta >= 1L << (SLOT_BITS * LEVELS) ?
+                currentTick + (1L << (SLOT_BITS * LEVELS)) - 1 : timer.deadlineTick;
+        if (delta <= 0) {
+            // Срок наступил при переносе: ячейка текущего шага младшего уровня еще будет обработана
+            tick = currentTick;
+            level = 0;
+        }
+        Timer<T> head = wheel[level][(int) (tick >>> (SLOT_BITS * level)) & MASK];
+        timer.prev = head.prev;
+        timer.next = head;
+        head.prev.next = timer;
+        head.prev = timer;
+    }
+
+    private static <T> void unlink(Timer<T> timer) {
+        timer.prev.next = timer.next;
+        timer.next.prev = timer.prev;
+        timer.prev = null;
+        timer.next = null;
+    }
+
+    /**
+     * Таймер в ячейке колеса.
+     */
+    public static final class Timer<T> {
+        private final long deadlineTick;
+        private final T payload;
+        private Timer<T> prev;
+        private Timer<T> next;
+
+        private Timer(long deadlineTick, T payload) {
+            this.deadlineTick = deadlineTick;
+            this.payload = payload;
+        }
+
+        public long getDeadlineTick() {
+            return deadlineTick;
+        }
+    }
+}
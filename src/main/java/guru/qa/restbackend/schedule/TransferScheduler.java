@@ -0,0 +1,338 @@
+package guru.qa.restbackend.schedule;
+
+import guru.qa.restbackend.domain.ScheduleTransferRequest;
+import guru.qa.restbackend.domain.ScheduledTransfer;
+import guru.qa.restbackend.domain.SchedulerStats;
+import guru.qa.restbackend.domain.Transaction;
+import guru.qa.restbackend.domain.TransactionStatus;
+import guru.qa.restbackend.domain.TransferRequest;
+import guru.qa.restbackend.exception.InvalidScheduleException;
+import guru.qa.restbackend.exception.SameAccountTransferException;
+import guru.qa.restbackend.exception.ScheduledTransferNotFoundException;
+import guru.qa.restbackend.service.PaymentService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Запланированные и повторяющиеся переводы.
+ * <p>
+ * Расписания лежат в иерархическом колесе времени ({@link TimingWheel}): создание и отмена - O(1),
+ * а поток планировщика на каждом шаге забирает только наступившие сроки, не обходя остальные миллионы
+ * расписаний. Наступившие переводы исполняются пачками через {@link PaymentService#transfer}.
+ * <p>
+ * Расписания переживают перезапуск: каждое изменение пишется в журнал ({@link ScheduleJournal}).
+ * До исполнения расписание имеет статус PENDING. Перед исполнением пачки в журнал с fsync пишется, что
+ * ее сроки переданы на исполнение, после - результат, поэтому после сбоя посередине пачки срок не
+ * исполняется второй раз (не больше одного перевода на срок); такие сроки считаются исполненными с
+ * неизвестным исходом, результат виден в истории транзакций счета.
+ */
+@Slf4j
+@Component
+public class TransferScheduler {
+
+    private static final String CANCELLED = "Перевод отменен";
+    private static final String UNKNOWN_OUTCOME = "Исход перевода неизвестен: планировщик остановлен во время исполнения";
+
+    private final ScheduleProperties properties;
+    private final PaymentService paymentService;
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final long tickMillis;
+
+    // Под блокировкой this
+    private final Map<Long, Schedule> active = new HashMap<>();
+    private final ArrayDeque<Schedule> due = new ArrayDeque<>();
+    private final Map<Long, ScheduledTransfer> finished;
+    private TimingWheel<Schedule> wheel;
+
+    private final AtomicLong ids = new AtomicLong();
+    private final LongAdder executed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private volatile long batches;
+    private volatile int lastBatchSize;
+    private volatile long lastBatchMillis;
+    private volatile long compactions;
+
+    private ScheduleJournal journal;
+    private Thread runner;
+    private volatile boolean running;
+
+    @Autowired
+    public TransferScheduler(ScheduleProperties properties, PaymentService paymentService) {
+        this.properties = properties;
+        this.paymentService = paymentService;
+        this.tickMillis = Math.max(1, properties.getTick().toMillis());
+        int retention = properties.getFinishedRetention();
+        this.finished = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, ScheduledTransfer> eldest) {
+                return size() > retention;
+            }
+        };
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        Map<Long, Schedule> restored = new HashMap<>();
+        journal = ScheduleJournal.open(Paths.get(properties.getDir()), properties.isFsync(), restored);
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            wheel = new TimingWheel<>(Math.floorDiv(now, tickMillis));
+            for (Schedule schedule : restored.values()) {
+                ids.accumulateAndGet(schedule.id, Math::max);
+                if (schedule.claimedRunAt == schedule.nextRunAt) {
+                    log.warn("Запланированный перевод {}: срок {} передан на исполнение до остановки, результат " +
+                            "не записан; срок считается исполненным", schedule.id, schedule.nextRunAt);
+                    schedule.lastError = UNKNOWN_OUTCOME;
+                    if (!schedule.advance(now)) {
+                        finished.put(schedule.id, schedule.toTransfer(TransactionStatus.FAILED, zone));
+                        continue;
+                    }
+                }
+                active.put(schedule.id, schedule);
+                arm(schedule);
+            }
+            // Снимок вместо истории: журнал начинается с активных расписаний
+            journal.compact(active.values());
+        }
+        if (!active.isEmpty()) {
+            log.info("Восстановлено запланированных переводов: {}", active.size());
+        }
+        if (properties.isEnabled()) {
+            running = true;
+            runner = new Thread(this::runLoop, "transfer-scheduler");
+            runner.setDaemon(true);
+            runner.start();
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException, IOException {
+        running = false;
+        if (runner != null) {
+            LockSupport.unpark(runner);
+            runner.join(TimeUnit.SECONDS.toMillis(30));
+        }
+        journal.close();
+    }
+
+    /**
+     * Создание расписания перевода.
+     *
+     * @param request данные перевода и расписания
+     * @return расписание в статусе PENDING
+     */
+    public ScheduledTransfer schedule(ScheduleTransferRequest request) {
+        if (request.getFromAccountId().equals(request.getToAccountId())) {
+            throw new SameAccountTransferException();
+        }
+        paymentService.getAccount(request.getFromAccountId());
+        paymentService.getAccount(request.getToAccountId());
+        if (request.getRepeatEvery() == null && request.getMaxRuns() != null && request.getMaxRuns() > 1) {
+            throw new InvalidScheduleException("Количество повторов задается только вместе с интервалом repeatEvery");
+        }
+        if (request.getRepeatEvery() != null && request.getRepeatEvery().compareTo(properties.getMinInterval()) < 0) {
+            throw new InvalidScheduleException("Интервал повторения должен быть не меньше " + properties.getMinInterval());
+        }
+
+        Schedule schedule = new Schedule();
+        schedule.id = ids.incrementAndGet();
+        schedule.fromAccountId = request.getFromAccountId();
+        schedule.toAccountId = request.getToAccountId();
+        schedule.amount = request.getAmount();
+        schedule.description = request.getDescription();
+        schedule.nextRunAt = request.getExecuteAt().atZone(zone).toInstant().toEpochMilli();
+        schedule.intervalMillis = request.getRepeatEvery() != null ? request.getRepeatEvery().toMillis() : Schedule.ONCE;
+        schedule.remainingRuns = request.getRepeatEvery() == null ? 1 :
+                request.getMaxRuns() != null ? request.getMaxRuns() : Schedule.UNLIMITED;
+        schedule.createdAt = System.currentTimeMillis();
+
+        ScheduledTransfer result;
+        synchronized (this) {
+            journal.schedule(schedule);
+            active.put(schedule.id, schedule);
+            arm(schedule);
+            result = schedule.toTransfer(TransactionStatus.PENDING, zone);
+        }
+        journal.commit();
+        LockSupport.unpark(runner);
+        return result;
+    }
+
+    /**
+     * Расписание по ID: активное или одно из последних завершенных.
+     */
+    public synchronized ScheduledTransfer getSchedule(Long scheduleId) {
+        Schedule schedule = active.get(scheduleId);
+        if (schedule != null) {
+            return schedule.toTransfer(TransactionStatus.PENDING, zone);
+        }
+        ScheduledTransfer done = finished.get(scheduleId);
+        if (done == null) {
+            throw new ScheduledTransferNotFoundException(scheduleId);
+        }
+        return done;
+    }
+
+    /**
+     * Отмена расписания. Перевод, который уже исполняется, доводится до конца, следующих не будет.
+     */
+    public void cancel(Long scheduleId) {
+        synchronized (this) {
+            Schedule schedule = active.remove(scheduleId);
+            if (schedule == null) {
+                throw new ScheduledTransferNotFoundException(scheduleId);
+            }
+            schedule.cancelled = true;
+            if (!wheel.cancel(schedule.timer) && !schedule.running) {
+                // Срок уже наступил, но пачка его еще не забрала
+                due.remove(schedule);
+            }
+            schedule.lastError = CANCELLED;
+            journal.cancel(schedule.id);
+            finished.put(schedule.id, schedule.toTransfer(TransactionStatus.FAILED, zone));
+        }
+        journal.commit();
+    }
+
+    public SchedulerStats getStats() {
+        long pending;
+        long tick;
+        synchronized (this) {
+            pending = active.size();
+            tick = wheel.currentTick();
+        }
+        return SchedulerStats.builder()
+                .enabled(running)
+                .pending(pending)
+                .tickMillis(tickMillis)
+                .currentTick(tick)
+                .executed(executed.sum())
+                .failed(failed.sum())
+                .batches(batches)
+                .lastBatchSize(lastBatchSize)
+                .lastBatchMillis(lastBatchMillis)
+                .journalRecords(journal.records())
+                .journalBytes(journal.bytes())
+                .compactions(compactions)
+                .build();
+    }
+
+    private void arm(Schedule schedule) {
+        // Не раньше срока: шаг, на котором время шага уже не меньше срока
+        long deadlineTick = Math.floorDiv(schedule.nextRunAt + tickMillis - 1, tickMillis);
+        schedule.timer = wheel.add(deadlineTick, schedule, due::add);
+    }
+
+    private void runLoop() {
+        List<Schedule> batch = new ArrayList<>(properties.getBatchSize());
+        while (running) {
+            long now = System.currentTimeMillis();
+            batch.clear();
+            synchronized (this) {
+                wheel.advance(Math.floorDiv(now, tickMillis), due::add);
+                while (batch.size() < properties.getBatchSize() && !due.isEmpty()) {
+                    Schedule schedule = due.poll();
+                    schedule.timer = null;
+                    schedule.running = true;
+                    batch.add(schedule);
+                }
+            }
+            if (batch.isEmpty()) {
+                long nextTick = (Math.floorDiv(now, tickMillis) + 1) * tickMillis;
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(Math.max(1, nextTick - now)));
+                continue;
+            }
+            try {
+                execute(batch);
+                compactIfNeeded();
+            } catch (RuntimeException | IOException e) {
+                log.error("Ошибка исполнения пачки запланированных переводов", e);
+            }
+        }
+    }
+
+    private void execute(List<Schedule> batch) {
+        long started = System.nanoTime();
+        for (Schedule schedule : batch) {
+            journal.claim(schedule.id, schedule.nextRunAt);
+        }
+        journal.commit();
+
+        Transaction[] transactions = new Transaction[batch.size()];
+        String[] errors = new String[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            Schedule schedule = batch.get(i);
+            try {
+                transactions[i] = paymentService.transfer(TransferRequest.builder()
+                        .fromAccountId(schedule.fromAccountId)
+                        .toAccountId(schedule.toAccountId)
+                        .amount(schedule.amount)
+                        .description(schedule.description)
+                        .build());
+                executed.increment();
+            } catch (RuntimeException e) {
+                errors[i] = e.getMessage();
+                failed.increment();
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            for (int i = 0; i < batch.size(); i++) {
+                Schedule schedule = batch.get(i);
+                schedule.running = false;
+                if (transactions[i] != null) {
+                    schedule.runs++;
+                    schedule.lastTransactionId = transactions[i].getId();
+                    schedule.lastError = null;
+                } else {
+                    schedule.failedRuns++;
+                    schedule.lastError = errors[i];
+                }
+                if (schedule.cancelled) {
+                    continue;
+                }
+                if (schedule.advance(now)) {
+                    journal.schedule(schedule);
+                    arm(schedule);
+                } else {
+                    TransactionStatus status = transactions[i] != null ? TransactionStatus.SUCCESS : TransactionStatus.FAILED;
+                    journal.finish(schedule.id, status);
+                    active.remove(schedule.id);
+                    finished.put(schedule.id, schedule.toTransfer(status, zone));
+                }
+            }
+        }
+        journal.commit();
+        batches++;
+        lastBatchSize = batch.size();
+        lastBatchMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+    }
+
+    private void compactIfNeeded() throws IOException {
+        synchronized (this) {
+            if (journal.records() - active.size() < properties.getCompactionThreshold()) {
+                return;
+            }
+            journal.compact(active.values());
+        }
+        compactions++;
+    }
+}
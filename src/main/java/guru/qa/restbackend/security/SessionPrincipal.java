@@ -0,0 +1,42 @@
+package guru.qa.restbackend.security;
+
+import java.security.Principal;
+import java.time.Instant;
+
+/**
+ * Пользователь, подтвержденный токеном сессии.
+ */
+public final class SessionPrincipal implements Principal {
+
+    private final String name;
+    private final long expiresAtSeconds;
+    private final String token;
+
+    SessionPrincipal(String name, long expiresAtSeconds, String token) {
+        this.name = name;
+        this.expiresAtSeconds = expiresAtSeconds;
+        this.token = token;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    public Instant getExpiresAt() {
+        return Instant.ofEpochSecond(expiresAtSeconds);
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    boolean isExpired(long nowSeconds) {
+        return nowSeconds >= expiresAtSeconds;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
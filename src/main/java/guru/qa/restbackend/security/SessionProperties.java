@@ -0,0 +1,37 @@
+package guru.qa.restbackend.security;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Настройки токенов сессии (префикс bank.security.session).
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "bank.security.session")
+public class SessionProperties {
+
+    /**
+     * Требовать токен сессии на /account/**.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Ключ подписи HMAC-SHA256 в Base64, не короче 32 байт.
+     * Пустой - случайный ключ на время жизни процесса (токены не переживают перезапуск).
+     */
+    private String secret = "";
+
+    /**
+     * Время жизни токена.
+     */
+    private Duration ttl = Duration.ofHours(1);
+
+    /**
+     * Емкость LRU-кэша уже проверенных токенов (0 - проверять подпись на каждом запросе).
+     */
+    private int cacheCapacity = 10_000;
+}
@@ -0,0 +1,42 @@
+package guru.qa.restbackend.security;
+
+import guru.qa.restbackend.exception.InvalidSessionTokenException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Проверка токена сессии перед вызовом контроллера счетов.
+ * Ошибка проверки уходит в GlobalExceptionHandler как {@link InvalidSessionTokenException} (401),
+ * подтвержденный пользователь кладется в атрибут запроса {@link #PRINCIPAL_ATTRIBUTE}.
+ */
+@Component
+public class SessionTokenInterceptor implements HandlerInterceptor {
+
+    public static final String PRINCIPAL_ATTRIBUTE = SessionTokenInterceptor.class.getName() + ".principal";
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final SessionTokenService tokens;
+
+    @Autowired
+    public SessionTokenInterceptor(SessionTokenService tokens) {
+        this.tokens = tokens;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!tokens.isEnabled()) {
+            return true;
+        }
+        String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (authorization == null || !authorization.regionMatches(true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length())) {
+            throw new InvalidSessionTokenException();
+        }
+        request.setAttribute(PRINCIPAL_ATTRIBUTE, tokens.verify(authorization.substring(BEARER_PREFIX.length()).trim()));
+        return true;
+    }
+}
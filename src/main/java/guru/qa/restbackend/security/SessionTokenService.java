@@ -0,0 +1,179 @@
+package guru.qa.restbackend.security;
+
+import guru.qa.restbackend.exception.InvalidSessionTokenException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Выпуск и проверка токенов сессии без хранения состояния на сервере.
+ * <p>
+ * Токен: base64url(данные).base64url(HMAC-SHA256(данные)), данные - [версия][срок действия, с][имя].
+ * Проверка подписи - самая дорогая часть аутентификации запроса, поэтому успешно проверенные
+ * токены запоминаются в {@link VerifiedTokenCache}: повторный запрос с тем же токеном стоит
+ * одного поиска в карте и сравнения срока действия.
+ */
+@Slf4j
+@Component
+public class SessionTokenService {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final byte VERSION = 1;
+    private static final int HEADER_SIZE = Byte.BYTES + Long.BYTES;
+    private static final int MIN_SECRET_BYTES = 32;
+    // Ограничение длины отсекает заведомо мусорные заголовки до декодирования и подсчета HMAC
+    private static final int MAX_TOKEN_LENGTH = 512;
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final SessionProperties properties;
+    private final SecretKeySpec key;
+    private final ThreadLocal<Mac> macs;
+    private final VerifiedTokenCache cache;
+
+    @Autowired
+    public SessionTokenService(SessionProperties properties) {
+        this.properties = properties;
+        this.key = new SecretKeySpec(secret(properties), ALGORITHM);
+        this.macs = ThreadLocal.withInitial(this::newMac);
+        this.cache = properties.getCacheCapacity() > 0 ? new VerifiedTokenCache(properties.getCacheCapacity()) : null;
+        // Ранняя проверка доступности алгоритма и ключа
+        newMac();
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * Выпуск токена для пользователя.
+     *
+     * @param userName имя пользователя
+     * @return пользователь сессии вместе с токеном и сроком его действия
+     */
+    public SessionPrincipal issue(String userName) {
+        long expiresAt = nowSeconds() + properties.getTtl().getSeconds();
+        byte[] name = userName.getBytes(StandardCharsets.UTF_8);
+        byte[] payload = ByteBuffer.allocate(HEADER_SIZE + name.length)
+                .put(VERSION)
+                .putLong(expiresAt)
+                .put(name)
+                .array();
+        String token = ENCODER.encodeToString(payload) + '.' + ENCODER.encodeToString(sign(payload));
+        return new SessionPrincipal(userName, expiresAt, token);
+    }
+
+    /**
+     * Проверка токена: сначала по кэшу проверенных, иначе по подписи.
+     *
+     * @param token токен из заголовка Authorization
+     * @return пользователь сессии
+     * @throws InvalidSessionTokenException если токен поврежден, подделан или истек
+     */
+    public SessionPrincipal verify(String token) {
+        long now = nowSeconds();
+        if (cache != null) {
+            SessionPrincipal cached = cache.get(token);
+            if (cached != null) {
+                if (cached.isExpired(now)) {
+                    cache.remove(token);
+                    throw new InvalidSessionTokenException("срок действия истек");
+                }
+                return cached;
+            }
+        }
+
+        SessionPrincipal principal = decode(token);
+        if (principal.isExpired(now)) {
+            throw new InvalidSessionTokenException("срок действия истек");
+        }
+        if (cache != null) {
+            cache.put(token, principal);
+        }
+        return principal;
+    }
+
+    /**
+     * Количество проверок, обслуженных кэшем.
+     */
+    public long getCacheHits() {
+        return cache != null ? cache.getHits() : 0;
+    }
+
+    /**
+     * Количество проверок, потребовавших подсчета подписи.
+     */
+    public long getCacheMisses() {
+        return cache != null ? cache.getMisses() : 0;
+    }
+
+    private SessionPrincipal decode(String token) {
+        int dot = token.indexOf('.');
+        if (token.length() > MAX_TOKEN_LENGTH || dot <= 0 || dot != token.lastIndexOf('.')) {
+            throw new InvalidSessionTokenException("неверный формат");
+        }
+        byte[] payload;
+        byte[] signature;
+        try {
+            payload = DECODER.decode(token.substring(0, dot));
+            signature = DECODER.decode(token.substring(dot + 1));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidSessionTokenException("неверный формат");
+        }
+        // Сравнение за постоянное время: по времени ответа нельзя подобрать подпись побайтно
+        if (!MessageDigest.isEqual(sign(payload), signature)) {
+            throw new InvalidSessionTokenException("неверная подпись");
+        }
+        if (payload.length <= HEADER_SIZE || payload[0] != VERSION) {
+            throw new InvalidSessionTokenException("неподдерживаемая версия");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(payload, 1, payload.length - 1);
+        long expiresAt = buffer.getLong();
+        String name = new String(payload, HEADER_SIZE, payload.length - HEADER_SIZE, StandardCharsets.UTF_8);
+        return new SessionPrincipal(name, expiresAt, token);
+    }
+
+    private byte[] sign(byte[] payload) {
+        // Экземпляр Mac не потокобезопасен: у каждого потока свой, doFinal сбрасывает его состояние
+        return macs.get().doFinal(payload);
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Не удалось инициализировать " + ALGORITHM, e);
+        }
+    }
+
+    private static byte[] secret(SessionProperties properties) {
+        if (properties.getSecret() == null || properties.getSecret().isBlank()) {
+            log.warn("Ключ подписи токенов не задан (bank.security.session.secret), используется случайный: "
+                    + "токены сессий не переживут перезапуск");
+            byte[] random = new byte[MIN_SECRET_BYTES];
+            new SecureRandom().nextBytes(random);
+            return random;
+        }
+        byte[] secret = Base64.getDecoder().decode(properties.getSecret());
+        if (secret.length < MIN_SECRET_BYTES) {
+            throw new IllegalStateException("Ключ bank.security.session.secret короче " + MIN_SECRET_BYTES + " байт");
+        }
+        return secret;
+    }
+
+    private static long nowSeconds() {
+        return System.currentTimeMillis() / 1000;
+    }
+}
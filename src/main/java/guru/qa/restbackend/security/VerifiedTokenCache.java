@@ -0,0 +1,98 @@
+package guru.qa.restbackend.security;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ограниченный LRU-кэш токенов, подпись которых уже проверена.
+ * <p>
+ * Кэш разбит на сегменты по хешу токена, каждый сегмент - LinkedHashMap в порядке доступа
+ * под собственным монитором: параллельные запросы с разными токенами почти не конкурируют,
+ * а вытеснение старейшей записи в сегменте стоит O(1). Кладутся только успешно проверенные токены,
+ * поэтому поддельный токен не может вытеснить настоящие, не пройдя проверку подписи.
+ */
+class VerifiedTokenCache {
+
+    private static final int MAX_SEGMENTS = 16;
+
+    private final Segment[] segments;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    VerifiedTokenCache(int capacity) {
+        int count = 1;
+        while (count < MAX_SEGMENTS && count * 2 * 64 <= capacity) {
+            count *= 2;
+        }
+        segments = new Segment[count];
+        int segmentCapacity = (capacity + count - 1) / count;
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment(segmentCapacity);
+        }
+    }
+
+    /**
+     * Проверенный ранее токен или null.
+     */
+    SessionPrincipal get(String token) {
+        Segment segment = segmentFor(token);
+        SessionPrincipal principal;
+        synchronized (segment) {
+            principal = segment.get(token);
+        }
+        (principal != null ? hits : misses).increment();
+        return principal;
+    }
+
+    void put(String token, SessionPrincipal principal) {
+        Segment segment = segmentFor(token);
+        synchronized (segment) {
+            segment.put(token, principal);
+        }
+    }
+
+    void remove(String token) {
+        Segment segment = segmentFor(token);
+        synchronized (segment) {
+            segment.remove(token);
+        }
+    }
+
+    long getHits() {
+        return hits.sum();
+    }
+
+    long getMisses() {
+        return misses.sum();
+    }
+
+    int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    private Segment segmentFor(String token) {
+        int hash = token.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & (segments.length - 1)];
+    }
+
+    private static class Segment extends LinkedHashMap<String, SessionPrincipal> {
+        private final int capacity;
+
+        Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, SessionPrincipal> eldest) {
+            return size() > capacity;
+        }
+    }
+}
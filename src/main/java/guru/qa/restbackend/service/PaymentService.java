@@ -3,6 +3,20 @@ package guru.qa.restbackend.service;
 import guru.qa.restbackend.data.TestDataInitializer;
 import guru.qa.restbackend.domain.*;
 import guru.qa.restbackend.exception.*;
+import guru.qa.restbackend.history.BalanceHistory;
+import guru.qa.restbackend.jfr.DepositEvent;
+import guru.qa.restbackend.jfr.HistoryQueryEvent;
+import guru.qa.restbackend.jfr.TransferEvent;
+import guru.qa.restbackend.jfr.WithdrawEvent;
+import guru.qa.restbackend.monitoring.ContentionProbe;
+import guru.qa.restbackend.monitoring.ContentionTracker;
+import guru.qa.restbackend.monitoring.RequestTiming;
+import guru.qa.restbackend.stats.LedgerStatistics;
+import guru.qa.restbackend.storage.AccountRepository;
+import guru.qa.restbackend.storage.AccountState;
+import guru.qa.restbackend.storage.AccountTable;
+import guru.qa.restbackend.storage.TransactionIdGenerator;
+import guru.qa.restbackend.storage.TransactionRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -10,9 +24,11 @@ import javax.annotation.PostConstruct;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 /**
  * Сервис для управления счетами и транзакциями.
@@ -21,20 +37,50 @@ import java.util.stream.Collectors;
 @Service
 public class PaymentService {
 
-    // Хранилища данных (в памяти, для учебных целей)
-    private final Map<Long, Account> accounts = new ConcurrentHashMap<>();
-    private final Map<Long, Transaction> transactions = new ConcurrentHashMap<>();
+    // Описания транзакций по умолчанию
+    public static final String DEPOSIT_DESCRIPTION = "Пополнение счета";
+    public static final String WITHDRAWAL_DESCRIPTION = "Снятие со счета";
+    public static final String TRANSFER_DESCRIPTION = "Перевод между счетами";
+    public static final String CAPTURE_DESCRIPTION = "Списание по холду";
 
-    // Генераторы ID
-    private final AtomicLong accountIdGenerator = new AtomicLong(1);
-    private final AtomicLong transactionIdGenerator = new AtomicLong(1);
+    // Предел суммы и баланса: помещается в DECIMAL(19,2) и в long в копейках (статистика, таблица счетов)
+    public static final BigDecimal MAX_AMOUNT = BigDecimal.valueOf(Long.MAX_VALUE, 2);
+
+    // Хранилища данных (реализация выбирается настройкой bank.storage.type)
+    private final AccountRepository accounts;
+    private final TransactionRepository transactions;
+
+    // Живая статистика: онлайн-транзакции учитываются в скользящих окнах при фиксации
+    private final LedgerStatistics statistics;
+
+    // Колоночная таблица счетов для проходов по всем счетам (итоги и фильтр по статусу)
+    private final AccountTable accountTable;
+
+    // Контрольные точки балансов для запросов баланса на момент времени
+    private final BalanceHistory balanceHistory;
+
+    // Генератор ID транзакций (ID упорядочены по времени и несут метку времени); ID счетов выдает хранилище
+    private final TransactionIdGenerator transactionIds;
+
+    // Самые конфликтные счета (GET /diagnostics/contention)
+    private final ContentionTracker contention;
 
     // Инициализатор тестовых данных
     private final TestDataInitializer testDataInitializer;
 
     @Autowired
-    public PaymentService(TestDataInitializer testDataInitializer) {
+    public PaymentService(TestDataInitializer testDataInitializer, AccountRepository accounts,
+                          TransactionRepository transactions, LedgerStatistics statistics, AccountTable accountTable,
+                          BalanceHistory balanceHistory, TransactionIdGenerator transactionIds,
+                          ContentionTracker contention) {
         this.testDataInitializer = testDataInitializer;
+        this.accounts = accounts;
+        this.transactions = transactions;
+        this.statistics = statistics;
+        this.accountTable = accountTable;
+        this.balanceHistory = balanceHistory;
+        this.transactionIds = transactionIds;
+        this.contention = contention;
     }
 
     /**
@@ -43,7 +89,7 @@ public class PaymentService {
      */
     @PostConstruct
     public void initTestData() {
-        if (accounts.isEmpty()) {
+        if (accounts.size() == 0) {
             loadTestData();
         }
     }
@@ -52,29 +98,75 @@ public class PaymentService {
      * Загрузка тестовых данных из TestDataInitializer.
      */
     private void loadTestData() {
-        // Загружаем счета
-        List<Account> testAccounts = testDataInitializer.createTestAccounts();
-        testAccounts.forEach(account -> {
-            accounts.put(account.getId(), account);
-            // Обновляем генератор ID до максимального + 1
-            if (account.getId() >= accountIdGenerator.get()) {
-                accountIdGenerator.set(account.getId() + 1);
-            }
-        });
-
-        // Загружаем транзакции
-        List<Transaction> testTransactions = testDataInitializer.createTestTransactions();
-        testTransactions.forEach(transaction -> {
-            transactions.put(transaction.getId(), transaction);
-            // Обновляем генератор ID до максимального + 1
-            if (transaction.getId() >= transactionIdGenerator.get()) {
-                transactionIdGenerator.set(transaction.getId() + 1);
-            }
-        });
+        loadAccounts(testDataInitializer.createTestAccounts());
+        loadTransactions(testDataInitializer.createTestTransactions());
 
         System.out.println("✅ Тестовые данные успешно загружены:");
         System.out.println("   - " + accounts.size() + " счетов создано");
-        System.out.println("   - " + transactions.size() + " транзакций добавлено");
+        System.out.println("   - " + transactions.count() + " транзакций добавлено");
+    }
+
+    /**
+     * Массовая загрузка готовых счетов (тестовые и синтетические данные).
+     * Бизнес-проверки не выполняются, генератор ID сдвигается за максимальный загруженный ID.
+     * Потокобезопасна: может вызываться параллельно из нескольких потоков.
+     *
+     * @param batch пачка счетов с уже назначенными ID
+     */
+    public void loadAccounts(Collection<Account> batch) {
+        for (Account existing : accounts.insertAll(batch)) {
+            accounts.put(existing);
+            balanceHistory.accountReplaced(existing);
+        }
+    }
+
+    /**
+     * Массовая загрузка готовых транзакций (тестовые и синтетические данные).
+     * Балансы счетов не пересчитываются, генератор ID сдвигается за максимальный загруженный ID.
+     * Потокобезопасна: может вызываться параллельно из нескольких потоков.
+     *
+     * @param batch пачка транзакций с уже назначенными ID
+     * @return транзакции, не загруженные из-за совпадения ID с существующими
+     */
+    public List<Transaction> loadTransactions(Collection<Transaction> batch) {
+        long maxId = 0;
+        for (Transaction transaction : batch) {
+            maxId = Math.max(maxId, transaction.getId());
+        }
+        // Генератор сдвигается до записи, чтобы новые онлайн-транзакции не получили ID из пачки
+        transactionIds.advancePast(maxId);
+        List<Transaction> conflicts = transactions.saveAll(batch);
+        if (conflicts.isEmpty()) {
+            balanceHistory.historyLoaded(batch);
+        } else {
+            Set<Transaction> rejected = Collections.newSetFromMap(new IdentityHashMap<>());
+            rejected.addAll(conflicts);
+            balanceHistory.historyLoaded(batch.stream().filter(transaction -> !rejected.contains(transaction))
+                    .collect(Collectors.toList()));
+        }
+        return conflicts;
+    }
+
+    /**
+     * Массовая загрузка счетов, перенесенных из другой системы.
+     * В отличие от loadAccounts существующие счета не перезаписываются.
+     * Потокобезопасна: может вызываться параллельно из нескольких потоков.
+     *
+     * @param batch пачка счетов с уже назначенными ID
+     * @return счета, не загруженные из-за совпадения ID с существующими
+     */
+    public List<Account> importAccounts(Collection<Account> batch) {
+        return accounts.insertAll(batch);
+    }
+
+    /**
+     * Резервирование непрерывного диапазона ID счетов для массовой загрузки.
+     *
+     * @param count количество ID
+     * @return первый ID диапазона
+     */
+    public long reserveAccountIds(long count) {
+        return accounts.reserveIds(count);
     }
 
     /**
@@ -84,19 +176,20 @@ public class PaymentService {
      * @return созданный счет с уникальным ID и номером
      */
     public Account createAccount(CreateAccountRequest request) {
-        Long accountId = accountIdGenerator.getAndIncrement();
+        Long accountId = accounts.nextId();
 
         Account account = Account.builder()
                 .id(accountId)
                 .accountNumber(generateAccountNumber(accountId))
                 .balance(BigDecimal.ZERO)  // Начальный баланс = 0
+                .heldAmount(BigDecimal.ZERO)
                 .currency(request.getCurrency())
                 .status(AccountStatus.ACTIVE)
                 .createdAt(LocalDateTime.now())
                 .ownerName(request.getOwnerName())
                 .build();
 
-        accounts.put(accountId, account);
+        accounts.insertAll(List.of(account));
         return account;
     }
 
@@ -108,11 +201,51 @@ public class PaymentService {
      * @throws AccountNotFoundException если счет не найден
      */
     public Account getAccount(Long accountId) {
-        Account account = accounts.get(accountId);
-        if (account == null) {
-            throw new AccountNotFoundException(accountId);
+        long started = RequestTiming.begin();
+        try {
+            return accounts.findLatest(accountId)
+                    .orElseThrow(() -> new AccountNotFoundException(accountId));
+        } finally {
+            RequestTiming.end(RequestPhase.LOOKUP, started);
         }
-        return account;
+    }
+
+    /**
+     * Получение счета в согласованном снимке.
+     *
+     * @param accountId ID счета
+     * @param sequence  номер снимка (см. getLedgerSequence)
+     * @return счет в том состоянии, в котором он был на момент снимка
+     * @throws AccountNotFoundException     если счета на момент снимка не было
+     * @throws SnapshotUnavailableException если снимок недоступен
+     */
+    public Account getAccount(Long accountId, long sequence) {
+        long started = RequestTiming.begin();
+        try {
+            return accounts.findAt(accountId, sequence)
+                    .orElseThrow(() -> new AccountNotFoundException(accountId));
+        } finally {
+            RequestTiming.end(RequestPhase.LOOKUP, started);
+        }
+    }
+
+    /**
+     * Поиск счета по ID без исключения (для пакетных задач, обходящих диапазоны ID).
+     *
+     * @param accountId ID счета
+     * @return счет, если он существует
+     */
+    public Optional<Account> findAccount(Long accountId) {
+        return accounts.findLatest(accountId);
+    }
+
+    /**
+     * Максимальный выданный ID счета. Все существующие счета имеют ID в диапазоне [1, lastAccountId].
+     *
+     * @return последний выданный ID счета
+     */
+    public long getLastAccountId() {
+        return accounts.lastId();
     }
 
     /**
@@ -121,7 +254,108 @@ public class PaymentService {
      * @return список всех счетов
      */
     public List<Account> getAllAccounts() {
-        return new ArrayList<>(accounts.values());
+        return getAllAccounts(getLedgerSequence());
+    }
+
+    /**
+     * Получение всех счетов в согласованном снимке: ни одна операция не видна наполовину.
+     *
+     * @param sequence номер снимка
+     * @return список счетов на момент снимка
+     */
+    public List<Account> getAllAccounts(long sequence) {
+        List<Account> result = new ArrayList<>(accounts.size());
+        accounts.forEachAt(sequence, result::add);
+        return result;
+    }
+
+    /**
+     * Текущие состояния счетов со статусом: кандидаты находит проход по колоночной таблице,
+     * объекты строятся только для них, и статус перепроверяется по хранилищу.
+     *
+     * @param status статус
+     * @return счета по возрастанию ID
+     */
+    public List<Account> getAccountsByStatus(AccountStatus status) {
+        List<Account> result = new ArrayList<>();
+        accountTable.forEachId(status, id -> accounts.findLatest(id)
+                .filter(account -> account.getStatus() == status)
+                .ifPresent(result::add));
+        return result;
+    }
+
+    /**
+     * ID счетов со статусом по возрастанию из колоночной таблицы. Это кандидаты: статус перепроверяется
+     * при чтении счета.
+     *
+     * @param status статус
+     * @return ID счетов
+     */
+    public long[] getAccountIdsByStatus(AccountStatus status) {
+        LongStream.Builder ids = LongStream.builder();
+        accountTable.forEachId(status, ids::add);
+        return ids.build().sorted().toArray();
+    }
+
+    /**
+     * Счета со статусом в согласованном снимке.
+     *
+     * @param status   статус
+     * @param sequence номер снимка
+     * @return счета на момент снимка
+     */
+    public List<Account> getAccountsByStatus(AccountStatus status, long sequence) {
+        List<Account> result = new ArrayList<>();
+        accounts.forEachAt(sequence, account -> {
+            if (account.getStatus() == status) {
+                result.add(account);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Суммы балансов по валютам для счетов со статусом, открытых до указанного времени
+     * (проход по колоночной таблице, без согласованного снимка).
+     *
+     * @param status       статус; null - все счета
+     * @param openedBefore граница времени открытия; null - без ограничения
+     * @return итоги
+     */
+    public BalanceTotals getBalanceTotals(AccountStatus status, LocalDateTime openedBefore) {
+        return accountTable.totals(status, openedBefore);
+    }
+
+    /**
+     * Номер текущего согласованного снимка счетов. Чтения с этим номером (?asOf=) повторяемы.
+     *
+     * @return номер последней завершенной фиксации
+     */
+    public long getLedgerSequence() {
+        return accounts.currentSequence();
+    }
+
+    /**
+     * Итоги по всем счетам в согласованном снимке: суммы балансов по валютам и количество счетов по статусам.
+     *
+     * @param sequence номер снимка
+     * @return итоги
+     */
+    public LedgerTotals getTotals(long sequence) {
+        Map<String, BigDecimal> balances = new TreeMap<>();
+        Map<AccountStatus, Long> statuses = new EnumMap<>(AccountStatus.class);
+        long[] count = new long[1];
+        accounts.forEachAt(sequence, account -> {
+            balances.merge(account.getCurrency(), account.getBalance(), BigDecimal::add);
+            statuses.merge(account.getStatus(), 1L, Long::sum);
+            count[0]++;
+        });
+        return LedgerTotals.builder()
+                .sequence(sequence)
+                .accounts(count[0])
+                .balancesByCurrency(balances)
+                .accountsByStatus(statuses)
+                .build();
     }
 
     /**
@@ -135,6 +369,30 @@ public class PaymentService {
         return account.getBalance();
     }
 
+    /**
+     * Получение баланса счета в согласованном снимке.
+     *
+     * @param accountId ID счета
+     * @param sequence  номер снимка
+     * @return баланс на момент снимка
+     */
+    public BigDecimal getBalance(Long accountId, long sequence) {
+        return getAccount(accountId, sequence).getBalance();
+    }
+
+    /**
+     * Баланс счета на момент времени: ближайшая контрольная точка не позже at и пересчет
+     * транзакций после нее (не больше bank.balance-history.checkpoint-interval).
+     *
+     * @param accountId ID счета
+     * @param at        момент времени; учитываются транзакции с меткой времени не позже него
+     * @return баланс на момент
+     */
+    public BigDecimal getBalanceAt(Long accountId, LocalDateTime at) {
+        getAccount(accountId);
+        return balanceHistory.balanceAt(accountId, at);
+    }
+
     /**
      * Пополнение счета.
      *
@@ -143,28 +401,59 @@ public class PaymentService {
      * @return транзакция пополнения
      */
     public Transaction deposit(Long accountId, TransactionRequest request) {
-        Account account = getAccount(accountId);
-        validateAccountActive(account);
-        validateAmount(request.getAmount());
-
-        // Увеличиваем баланс
-        account.setBalance(account.getBalance().add(request.getAmount()));
+        return credit(accountId, request.getAmount(), request.getDescription() != null ?
+                request.getDescription() : DEPOSIT_DESCRIPTION, TransactionType.DEPOSIT);
+    }
 
-        // Создаем транзакцию
-        Transaction transaction = Transaction.builder()
-                .id(transactionIdGenerator.getAndIncrement())
-                .type(TransactionType.DEPOSIT)
-                .amount(request.getAmount())
-                .fromAccountId(null)  // Пополнение извне
-                .toAccountId(accountId)
-                .timestamp(LocalDateTime.now())
-                .description(request.getDescription() != null ?
-                        request.getDescription() : "Пополнение счета")
-                .status(TransactionStatus.SUCCESS)
-                .build();
+    /**
+     * Начисление процентов (закрытие дня). Тип INTEREST через API не создается: по нему задача
+     * отличает свои проводки от клиентских.
+     *
+     * @param accountId   ID счета
+     * @param amount      сумма процентов
+     * @param description описание проводки
+     * @return транзакция начисления
+     */
+    public Transaction postInterest(Long accountId, BigDecimal amount, String description) {
+        return credit(accountId, amount, description, TransactionType.INTEREST);
+    }
 
-        transactions.put(transaction.getId(), transaction);
-        return transaction;
+    /**
+     * Зачисление на счет извне: пополнение или начисление.
+     */
+    private Transaction credit(Long accountId, BigDecimal amount, String description, TransactionType type) {
+        DepositEvent event = new DepositEvent();
+        event.begin();
+        try {
+            // Транзакция собирается до фиксации: хранилище передает ее ID получателям фиксаций
+            // вместе с балансом, а хранилище, которое пишет и транзакции, фиксирует ее с балансом
+            long transactionId = transactionIds.nextId();
+            Transaction transaction = Transaction.builder()
+                    .id(transactionId)
+                    .type(type)
+                    .amount(amount)
+                    .fromAccountId(null)  // Пополнение извне
+                    .toAccountId(accountId)
+                    .timestamp(TransactionIdGenerator.timestampOf(transactionId))
+                    .description(description)
+                    .status(TransactionStatus.SUCCESS)
+                    .build();
+
+            // Увеличиваем баланс (проверка может повториться при конфликте, поэтому без побочных эффектов)
+            AccountState account = move(null, accountId, amount, transaction, (from, to) -> {
+                validateAccountActive(to);
+                validateAmount(amount);
+                validateCredit(to, amount);
+            }, () -> new InsufficientFundsException(accountId));
+
+            saveTransaction(transaction);
+            statistics.recordTransaction(transaction, account.getCurrency());
+            event.complete(null, accountId, amount, transaction);
+            return transaction;
+        } catch (RuntimeException e) {
+            event.reject(null, accountId, amount, e);
+            throw e;
+        }
     }
 
     /**
@@ -175,80 +464,174 @@ public class PaymentService {
      * @return транзакция снятия
      */
     public Transaction withdraw(Long accountId, TransactionRequest request) {
-        Account account = getAccount(accountId);
-        validateAccountActive(account);
-        validateAmount(request.getAmount());
-
-        // Проверяем достаточность средств
-        if (account.getBalance().compareTo(request.getAmount()) < 0) {
-            throw new InsufficientFundsException(accountId);
-        }
-
-        // Уменьшаем баланс
-        account.setBalance(account.getBalance().subtract(request.getAmount()));
+        return debit(accountId, request.getAmount(), request.getDescription() != null ?
+                request.getDescription() : WITHDRAWAL_DESCRIPTION, TransactionType.WITHDRAWAL);
+    }
 
-        // Создаем транзакцию
-        Transaction transaction = Transaction.builder()
-                .id(transactionIdGenerator.getAndIncrement())
-                .type(TransactionType.WITHDRAWAL)
-                .amount(request.getAmount())
-                .fromAccountId(accountId)
-                .toAccountId(null)  // Снятие наличных
-                .timestamp(LocalDateTime.now())
-                .description(request.getDescription() != null ?
-                        request.getDescription() : "Снятие со счета")
-                .status(TransactionStatus.SUCCESS)
-                .build();
+    /**
+     * Списание комиссии (закрытие дня). Тип FEE через API не создается: по нему задача
+     * отличает свои проводки от клиентских.
+     *
+     * @param accountId   ID счета
+     * @param amount      сумма комиссии
+     * @param description описание проводки
+     * @return транзакция списания
+     */
+    public Transaction chargeFee(Long accountId, BigDecimal amount, String description) {
+        return debit(accountId, amount, description, TransactionType.FEE);
+    }
 
-        transactions.put(transaction.getId(), transaction);
-        return transaction;
+    /**
+     * Списание со счета во внешний мир: снятие или комиссия.
+     */
+    private Transaction debit(Long accountId, BigDecimal amount, String description, TransactionType type) {
+        WithdrawEvent event = new WithdrawEvent();
+        event.begin();
+        try {
+            // Создаем транзакцию до фиксации: метка времени берется из ID
+            long transactionId = transactionIds.nextId();
+            Transaction transaction = Transaction.builder()
+                    .id(transactionId)
+                    .type(type)
+                    .amount(amount)
+                    .fromAccountId(accountId)
+                    .toAccountId(null)  // Снятие наличных
+                    .timestamp(TransactionIdGenerator.timestampOf(transactionId))
+                    .description(description)
+                    .status(TransactionStatus.SUCCESS)
+                    .build();
+
+            // Уменьшаем баланс; достаточность средств проверяет хранилище
+            AccountState account = move(accountId, null, amount, transaction, (from, to) -> {
+                validateAccountActive(from);
+                validateAmount(amount);
+            }, () -> new InsufficientFundsException(accountId));
+
+            saveTransaction(transaction);
+            statistics.recordTransaction(transaction, account.getCurrency());
+            event.complete(accountId, null, amount, transaction);
+            return transaction;
+        } catch (RuntimeException e) {
+            event.reject(accountId, null, amount, e);
+            throw e;
+        }
     }
 
     /**
      * Перевод денег между счетами.
+     * Оба счета меняются одной фиксацией: снимок видит перевод либо целиком, либо никак.
      *
      * @param request запрос с данными перевода
      * @return транзакция перевода
      */
     public Transaction transfer(TransferRequest request) {
-        // Проверка: нельзя переводить на тот же счет
-        if (request.getFromAccountId().equals(request.getToAccountId())) {
-            throw new SameAccountTransferException();
-        }
-
-        Account fromAccount = getAccount(request.getFromAccountId());
-        Account toAccount = getAccount(request.getToAccountId());
-
-        validateAccountActive(fromAccount);
-        validateAccountActive(toAccount);
-        validateAmount(request.getAmount());
+        TransferEvent event = new TransferEvent();
+        event.begin();
+        try {
+            // Проверка: нельзя переводить на тот же счет
+            if (request.getFromAccountId().equals(request.getToAccountId())) {
+                throw new SameAccountTransferException();
+            }
 
-        // Проверяем достаточность средств
-        if (fromAccount.getBalance().compareTo(request.getAmount()) < 0) {
-            throw new InsufficientFundsException(request.getFromAccountId());
+            // Сначала отправитель: порядок ошибок 404 не зависит от порядка блокировок
+            getAccount(request.getFromAccountId());
+            getAccount(request.getToAccountId());
+
+            // Создаем транзакцию до фиксации: метка времени берется из ID
+            long transactionId = transactionIds.nextId();
+            Transaction transaction = Transaction.builder()
+                    .id(transactionId)
+                    .type(TransactionType.TRANSFER)
+                    .amount(request.getAmount())
+                    .fromAccountId(request.getFromAccountId())
+                    .toAccountId(request.getToAccountId())
+                    .timestamp(TransactionIdGenerator.timestampOf(transactionId))
+                    .description(request.getDescription() != null ?
+                            request.getDescription() : TRANSFER_DESCRIPTION)
+                    .status(TransactionStatus.SUCCESS)
+                    .build();
+
+            // Выполняем перевод; достаточность средств проверяет хранилище
+            AccountState fromAccount = move(request.getFromAccountId(), request.getToAccountId(),
+                    request.getAmount(), transaction, (from, to) -> {
+                        validateAccountActive(from);
+                        validateAccountActive(to);
+                        validateAmount(request.getAmount());
+                        validateCredit(to, request.getAmount());
+                    }, () -> new InsufficientFundsException(request.getFromAccountId()));
+
+            saveTransaction(transaction);
+            statistics.recordTransaction(transaction, fromAccount.getCurrency());
+            event.complete(request.getFromAccountId(), request.getToAccountId(), request.getAmount(), transaction);
+            return transaction;
+        } catch (RuntimeException e) {
+            event.reject(request.getFromAccountId(), request.getToAccountId(), request.getAmount(), e);
+            throw e;
         }
+    }
 
-        // Выполняем перевод
-        fromAccount.setBalance(fromAccount.getBalance().subtract(request.getAmount()));
-        toAccount.setBalance(toAccount.getBalance().add(request.getAmount()));
+    /**
+     * Холд: резервирование суммы на счете. Баланс не меняется, доступный остаток уменьшается на сумму.
+     * Холд меняет состояние счета, поэтому конкурирующие списания и холды видят друг друга.
+     *
+     * @param accountId ID счета
+     * @param amount    сумма холда
+     * @throws InsufficientFundsException если доступного остатка не хватает
+     */
+    public void placeHold(Long accountId, BigDecimal amount) {
+        update(accountId, account -> {
+            validateAccountActive(account);
+            validateAmount(amount);
+            if (account.getAvailableBalance().compareTo(amount) < 0) {
+                throw new InsufficientFundsException(accountId);
+            }
+            return account.withHeld(account.getHeld().add(amount));
+        });
+    }
 
-        // Создаем транзакцию
+    /**
+     * Списание по холду: сумма amount (не больше суммы холда) списывается, холд held снимается целиком,
+     * одной фиксацией. Средства уже зарезервированы, поэтому списание проходит и на заблокированном счете.
+     *
+     * @param accountId   ID счета
+     * @param held        сумма холда
+     * @param amount      списываемая сумма
+     * @param description описание транзакции
+     * @return транзакция снятия
+     */
+    public Transaction captureHold(Long accountId, BigDecimal held, BigDecimal amount, String description) {
+        validateAmount(amount);
+        long transactionId = transactionIds.nextId();
         Transaction transaction = Transaction.builder()
-                .id(transactionIdGenerator.getAndIncrement())
-                .type(TransactionType.TRANSFER)
-                .amount(request.getAmount())
-                .fromAccountId(request.getFromAccountId())
-                .toAccountId(request.getToAccountId())
-                .timestamp(LocalDateTime.now())
-                .description(request.getDescription() != null ?
-                        request.getDescription() : "Перевод между счетами")
+                .id(transactionId)
+                .type(TransactionType.WITHDRAWAL)
+                .amount(amount)
+                .fromAccountId(accountId)
+                .toAccountId(null)
+                .timestamp(TransactionIdGenerator.timestampOf(transactionId))
+                .description(description != null ? description : CAPTURE_DESCRIPTION)
                 .status(TransactionStatus.SUCCESS)
                 .build();
 
-        transactions.put(transaction.getId(), transaction);
+        AccountState account = update(accountId, transaction, state -> state
+                .withBalance(state.getBalance().subtract(amount))
+                .withHeld(state.getHeld().subtract(held)));
+
+        saveTransaction(transaction);
+        statistics.recordTransaction(transaction, account.getCurrency());
         return transaction;
     }
 
+    /**
+     * Снятие холдов без списания: доступный остаток увеличивается на сумму.
+     *
+     * @param accountId ID счета
+     * @param amount    сумма снимаемых холдов (несколько холдов счета снимаются одной фиксацией)
+     */
+    public void releaseHold(Long accountId, BigDecimal amount) {
+        update(accountId, account -> account.withHeld(account.getHeld().subtract(amount)));
+    }
+
     /**
      * Получение всех транзакций по счету.
      *
@@ -256,14 +639,7 @@ public class PaymentService {
      * @return список транзакций
      */
     public List<Transaction> getAccountTransactions(Long accountId) {
-        // Проверяем существование счета
-        getAccount(accountId);
-
-        return transactions.values().stream()
-                .filter(t -> accountId.equals(t.getFromAccountId()) ||
-                        accountId.equals(t.getToAccountId()))
-                .sorted(Comparator.comparing(Transaction::getTimestamp).reversed())
-                .collect(Collectors.toList());
+        return queryTransactions(accountId, null);
     }
 
     /**
@@ -274,9 +650,7 @@ public class PaymentService {
      * @return список отфильтрованных транзакций
      */
     public List<Transaction> getAccountTransactionsByType(Long accountId, TransactionType type) {
-        return getAccountTransactions(accountId).stream()
-                .filter(t -> t.getType() == type)
-                .collect(Collectors.toList());
+        return queryTransactions(accountId, type);
     }
 
     /**
@@ -287,22 +661,21 @@ public class PaymentService {
      * @return обновленный счет
      */
     public Account updateAccountStatus(Long accountId, UpdateAccountStatusRequest request) {
-        Account account = getAccount(accountId);
-
-        // Проверка: нельзя повторно закрыть уже закрытый счет
-        if (account.getStatus() == AccountStatus.CLOSED &&
-                request.getStatus() == AccountStatus.CLOSED) {
-            throw new AccountAlreadyClosedException(accountId);
-        }
+        return update(accountId, account -> {
+            // Проверка: нельзя повторно закрыть уже закрытый счет
+            if (account.getStatus() == AccountStatus.CLOSED &&
+                    request.getStatus() == AccountStatus.CLOSED) {
+                throw new AccountAlreadyClosedException(accountId);
+            }
 
-        // Проверка: при закрытии счета баланс должен быть нулевым
-        if (request.getStatus() == AccountStatus.CLOSED &&
-                account.getBalance().compareTo(BigDecimal.ZERO) != 0) {
-            throw new AccountHasBalanceException(accountId);
-        }
+            // Проверка: при закрытии счета баланс должен быть нулевым
+            if (request.getStatus() == AccountStatus.CLOSED &&
+                    account.getBalance().compareTo(BigDecimal.ZERO) != 0) {
+                throw new AccountHasBalanceException(accountId);
+            }
 
-        account.setStatus(request.getStatus());
-        return account;
+            return account.withStatus(request.getStatus());
+        }).toAccount();
     }
 
     /**
@@ -313,15 +686,14 @@ public class PaymentService {
      * @return обновленный счет
      */
     public Account updateAccountOwner(Long accountId, UpdateAccountOwnerRequest request) {
-        Account account = getAccount(accountId);
-
-        // Проверка: нельзя изменять владельца закрытого счета
-        if (account.getStatus() == AccountStatus.CLOSED) {
-            throw new AccountAlreadyClosedException(accountId);
-        }
+        return update(accountId, account -> {
+            // Проверка: нельзя изменять владельца закрытого счета
+            if (account.getStatus() == AccountStatus.CLOSED) {
+                throw new AccountAlreadyClosedException(accountId);
+            }
 
-        account.setOwnerName(request.getOwnerName());
-        return account;
+            return account.withOwnerName(request.getOwnerName());
+        }).toAccount();
     }
 
     /**
@@ -333,35 +705,117 @@ public class PaymentService {
      * @param accountId ID счета
      */
     public void deleteAccount(Long accountId) {
-        Account account = getAccount(accountId);
+        update(accountId, account -> {
+            // Проверка: нельзя удалить счет с деньгами
+            if (account.getBalance().compareTo(BigDecimal.ZERO) != 0) {
+                throw new AccountHasBalanceException(accountId);
+            }
 
-        // Проверка: нельзя удалить счет с деньгами
-        if (account.getBalance().compareTo(BigDecimal.ZERO) != 0) {
-            throw new AccountHasBalanceException(accountId);
+            // Проверка: нельзя удалить уже закрытый счет
+            if (account.getStatus() == AccountStatus.CLOSED) {
+                throw new AccountAlreadyClosedException(accountId);
+            }
+
+            // Помечаем счет как закрытый (не удаляем физически для сохранения истории)
+            return account.withStatus(AccountStatus.CLOSED);
+        });
+    }
+
+    /**
+     * История счета для getAccountTransactions*: одно событие HistoryQuery на запрос.
+     *
+     * @param type тип транзакции или null - все
+     */
+    private List<Transaction> queryTransactions(Long accountId, TransactionType type) {
+        HistoryQueryEvent event = new HistoryQueryEvent();
+        event.begin();
+        try {
+            // Проверяем существование счета
+            getAccount(accountId);
+
+            List<Transaction> result;
+            long started = RequestTiming.begin();
+            try {
+                result = transactions.findByAccount(accountId);
+            } finally {
+                RequestTiming.end(RequestPhase.LOOKUP, started);
+            }
+            if (type != null) {
+                result = result.stream()
+                        .filter(t -> t.getType() == type)
+                        .collect(Collectors.toList());
+            }
+            event.complete(accountId, type, result.size());
+            return result;
+        } catch (RuntimeException e) {
+            event.reject(accountId, type, e);
+            throw e;
         }
+    }
 
-        // Проверка: нельзя удалить уже закрытый счет
-        if (account.getStatus() == AccountStatus.CLOSED) {
-            throw new AccountAlreadyClosedException(accountId);
+    /**
+     * Перенос суммы в хранилище с учетом конфликтов и ожиданий по обоим счетам.
+     */
+    private AccountState move(Long debitId, Long creditId, BigDecimal amount, Transaction transaction,
+                              BiConsumer<AccountState, AccountState> check,
+                              Supplier<? extends RuntimeException> insufficientFunds) {
+        ContentionProbe probe = ContentionProbe.start();
+        try {
+            return accounts.move(debitId, creditId, amount, transaction, check, insufficientFunds);
+        } finally {
+            contention.record(probe, debitId, creditId);
         }
+    }
 
-        // Помечаем счет как закрытый (не удаляем физически для сохранения истории)
-        account.setStatus(AccountStatus.CLOSED);
+    /**
+     * Изменение счета в хранилище с учетом конфликтов и ожиданий.
+     */
+    private AccountState update(Long accountId, UnaryOperator<AccountState> mutation) {
+        return update(accountId, null, mutation);
     }
 
-    // ========== ПРИВАТНЫЕ ВСПОМОГАТЕЛЬНЫЕ МЕТОДЫ ==========
+    /**
+     * Изменение счета операцией с транзакцией (null - без транзакции).
+     */
+    private AccountState update(Long accountId, Transaction transaction, UnaryOperator<AccountState> mutation) {
+        ContentionProbe probe = ContentionProbe.start();
+        try {
+            return transaction != null ? accounts.update(accountId, transaction, mutation)
+                    : accounts.update(accountId, mutation);
+        } finally {
+            contention.record(probe, accountId, null);
+        }
+    }
+
+    /**
+     * Запись транзакции в журнал (фаза COMMIT запроса: вместе с фиксацией балансов). Если хранилище
+     * счетов уже записало транзакцию в фиксации балансов, повторно она не пишется.
+     */
+    private void saveTransaction(Transaction transaction) {
+        if (accounts.storesTransactions()) {
+            return;
+        }
+        long started = RequestTiming.begin();
+        try {
+            transactions.save(transaction);
+        } finally {
+            RequestTiming.end(RequestPhase.COMMIT, started);
+        }
+    }
 
     /**
      * Генерация номера счета (упрощенная версия).
      */
-    private String generateAccountNumber(Long accountId) {
+    public static String generateAccountNumber(Long accountId) {
         return String.format("40817810%012d", accountId);
     }
 
+    // ========== ПРИВАТНЫЕ ВСПОМОГАТЕЛЬНЫЕ МЕТОДЫ ==========
+
     /**
      * Проверка, что счет активен (не заблокирован и не закрыт).
      */
-    private void validateAccountActive(Account account) {
+    private void validateAccountActive(AccountState account) {
         if (account.getStatus() == AccountStatus.BLOCKED ||
                 account.getStatus() == AccountStatus.CLOSED) {
             throw new AccountBlockedException(account.getId());
@@ -381,5 +835,17 @@ public class PaymentService {
         if (amount.scale() > 2) {
             throw new InvalidAmountException("Максимум 2 знака после запятой");
         }
+        if (amount.compareTo(MAX_AMOUNT) > 0) {
+            throw new InvalidAmountException("Сумма не может быть больше " + MAX_AMOUNT.toPlainString());
+        }
+    }
+
+    /**
+     * Проверка, что баланс счета после зачисления не выйдет за предел (до фиксации).
+     */
+    private void validateCredit(AccountState account, BigDecimal amount) {
+        if (account.getBalance().add(amount).compareTo(MAX_AMOUNT) > 0) {
+            throw new InvalidAmountException("Баланс счета не может быть больше " + MAX_AMOUNT.toPlainString());
+        }
     }
 }
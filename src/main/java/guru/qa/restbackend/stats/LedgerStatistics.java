@@ -0,0 +1,111 @@
+package guru.qa.restbackend.stats;
+
+import guru.qa.restbackend.domain.AccountStatus;
+import guru.qa.restbackend.domain.BankStats;
+import guru.qa.restbackend.domain.Transaction;
+import guru.qa.restbackend.domain.TransactionStats;
+import guru.qa.restbackend.domain.TransactionType;
+import guru.qa.restbackend.storage.AccountCommitListener;
+import guru.qa.restbackend.storage.AccountState;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Живая статистика банка, которая поддерживается инкрементально при фиксации изменений,
+ * а не пересчитывается обходом счетов и транзакций.
+ * <p>
+ * Балансы по валютам и количество счетов по статусам обновляются из каждой фиксации хранилища
+ * счетов (включая загрузку, импорт и пакетные задачи) через полосатые счетчики LongAdder.
+ * Онлайн-транзакции учитываются в скользящих окнах за минуту, час и сутки. Чтение складывает
+ * счетчики и не зависит от объема данных; при параллельных изменениях итоги могут на мгновение
+ * разойтись на сумму операции в полете - точные согласованные итоги дает /account/totals?asOf=.
+ */
+@Component
+public class LedgerStatistics implements AccountCommitListener {
+
+    private final Map<String, LongAdder> balancesMinor = new ConcurrentHashMap<>();
+    private final Map<AccountStatus, LongAdder> accountsByStatus = new EnumMap<>(AccountStatus.class);
+    private final Map<String, TransactionWindow> windows = new LinkedHashMap<>();
+
+    public LedgerStatistics() {
+        for (AccountStatus status : AccountStatus.values()) {
+            accountsByStatus.put(status, new LongAdder());
+        }
+        windows.put("lastMinute", new TransactionWindow(Duration.ofMinutes(1), 60));
+        windows.put("lastHour", new TransactionWindow(Duration.ofHours(1), 60));
+        windows.put("lastDay", new TransactionWindow(Duration.ofDays(1), 96));
+    }
+
+    @Override
+    public void committed(AccountState previous, AccountState current) {
+        if (previous != null) {
+            if (previous.getStatus() == current.getStatus()
+                    && previous.getCurrency().equals(current.getCurrency())
+                    && previous.getBalance().compareTo(current.getBalance()) == 0) {
+                return;
+            }
+            balance(previous.getCurrency()).add(-toMinor(previous.getBalance()));
+            accountsByStatus.get(previous.getStatus()).decrement();
+        }
+        balance(current.getCurrency()).add(toMinor(current.getBalance()));
+        accountsByStatus.get(current.getStatus()).increment();
+    }
+
+    /**
+     * Учет онлайн-транзакции в скользящих окнах.
+     *
+     * @param transaction зафиксированная транзакция
+     * @param currency    валюта счета, с которого учитывается сумма
+     */
+    public void recordTransaction(Transaction transaction, String currency) {
+        long now = System.nanoTime();
+        long amountMinor = toMinor(transaction.getAmount());
+        for (TransactionWindow window : windows.values()) {
+            window.record(now, transaction.getType(), currency, amountMinor);
+        }
+    }
+
+    /**
+     * Текущие значения всех счетчиков.
+     */
+    public BankStats getStats() {
+        Map<String, BigDecimal> balances = new TreeMap<>();
+        balancesMinor.forEach((currency, adder) -> balances.put(currency, BigDecimal.valueOf(adder.sum(), 2)));
+
+        Map<AccountStatus, Long> statuses = new EnumMap<>(AccountStatus.class);
+        long accounts = 0;
+        for (Map.Entry<AccountStatus, LongAdder> entry : accountsByStatus.entrySet()) {
+            long count = entry.getValue().sum();
+            statuses.put(entry.getKey(), count);
+            accounts += count;
+        }
+
+        long now = System.nanoTime();
+        Map<String, Map<TransactionType, TransactionStats>> transactions = new LinkedHashMap<>();
+        windows.forEach((name, window) -> transactions.put(name, window.snapshot(now)));
+
+        return BankStats.builder()
+                .accounts(accounts)
+                .balancesByCurrency(balances)
+                .accountsByStatus(statuses)
+                .transactions(transactions)
+                .build();
+    }
+
+    private LongAdder balance(String currency) {
+        return balancesMinor.computeIfAbsent(currency, key -> new LongAdder());
+    }
+
+    /**
+     * Сумма в минимальных единицах валюты (копейках/центах).
+     */
+    private static long toMinor(BigDecimal amount) {
+        return amount.movePointRight(2).setScale(0, RoundingMode.HALF_EVEN).longValueExact();
+    }
+}
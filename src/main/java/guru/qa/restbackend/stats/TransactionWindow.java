@@ -0,0 +1,116 @@
+package guru.qa.restbackend.stats;
+
+import guru.qa.restbackend.domain.TransactionStats;
+import guru.qa.restbackend.domain.TransactionType;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Скользящее окно счетчиков транзакций: кольцо из фиксированного числа корзин по времени.
+ * <p>
+ * Запись попадает в корзину текущего интервала; корзина, оставшаяся от прошлого оборота кольца,
+ * заменяется новой одним CAS. Чтение складывает корзины, не вышедшие из окна, - его стоимость
+ * зависит только от числа корзин, а не от числа транзакций. Окно охватывает последние
+ * buckets - 1 полных интервалов плюс текущий неполный.
+ */
+class TransactionWindow {
+
+    private static final TransactionType[] TYPES = TransactionType.values();
+
+    private final long bucketNanos;
+    private final AtomicReferenceArray<Bucket> buckets;
+
+    TransactionWindow(Duration length, int bucketCount) {
+        this.bucketNanos = length.toNanos() / bucketCount;
+        this.buckets = new AtomicReferenceArray<>(bucketCount);
+        for (int slot = 0; slot < bucketCount; slot++) {
+            buckets.set(slot, new Bucket(Long.MIN_VALUE));
+        }
+    }
+
+    /**
+     * Учет транзакции.
+     *
+     * @param nanoTime    момент фиксации (System.nanoTime)
+     * @param type        тип транзакции
+     * @param currency    валюта счета, с которого учитывается сумма
+     * @param amountMinor сумма в минимальных единицах валюты
+     */
+    void record(long nanoTime, TransactionType type, String currency, long amountMinor) {
+        long epoch = Math.floorDiv(nanoTime, bucketNanos);
+        int slot = (int) Math.floorMod(epoch, (long) buckets.length());
+        Bucket bucket = buckets.get(slot);
+        while (bucket.epoch != epoch) {
+            if (bucket.epoch > epoch) {
+                // Запоздавшая запись: интервал уже вышел из окна
+                return;
+            }
+            Bucket fresh = new Bucket(epoch);
+            bucket = buckets.compareAndSet(slot, bucket, fresh) ? fresh : buckets.get(slot);
+        }
+        bucket.counts[type.ordinal()].increment();
+        bucket.volumes[type.ordinal()].computeIfAbsent(currency, key -> new LongAdder()).add(amountMinor);
+    }
+
+    /**
+     * Сумма корзин окна на момент nanoTime.
+     */
+    Map<TransactionType, TransactionStats> snapshot(long nanoTime) {
+        long oldest = Math.floorDiv(nanoTime, bucketNanos) - buckets.length() + 1;
+        long[] counts = new long[TYPES.length];
+        @SuppressWarnings("unchecked")
+        Map<String, Long>[] volumes = new Map[TYPES.length];
+        for (int type = 0; type < TYPES.length; type++) {
+            volumes[type] = new TreeMap<>();
+        }
+
+        for (int slot = 0; slot < buckets.length(); slot++) {
+            Bucket bucket = buckets.get(slot);
+            if (bucket.epoch < oldest) {
+                continue;
+            }
+            for (int type = 0; type < TYPES.length; type++) {
+                counts[type] += bucket.counts[type].sum();
+                Map<String, Long> total = volumes[type];
+                bucket.volumes[type].forEach((currency, adder) -> total.merge(currency, adder.sum(), Long::sum));
+            }
+        }
+
+        Map<TransactionType, TransactionStats> result = new EnumMap<>(TransactionType.class);
+        for (int type = 0; type < TYPES.length; type++) {
+            Map<String, BigDecimal> volume = new TreeMap<>();
+            volumes[type].forEach((currency, minor) -> volume.put(currency, BigDecimal.valueOf(minor, 2)));
+            result.put(TYPES[type], TransactionStats.builder()
+                    .count(counts[type])
+                    .volumeByCurrency(volume)
+                    .build());
+        }
+        return result;
+    }
+
+    /**
+     * Счетчики одного интервала.
+     */
+    private static class Bucket {
+        final long epoch;
+        final LongAdder[] counts = new LongAdder[TYPES.length];
+        final Map<String, LongAdder>[] volumes;
+
+        @SuppressWarnings("unchecked")
+        Bucket(long epoch) {
+            this.epoch = epoch;
+            this.volumes = new Map[TYPES.length];
+            for (int type = 0; type < TYPES.length; type++) {
+                counts[type] = new LongAdder();
+                volumes[type] = new ConcurrentHashMap<>(4);
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package guru.qa.restbackend.storage;
+
+/**
+ * Получатель фиксаций хранилища счетов.
+ * Вызывается в потоке писателя сразу после установки новой версии, поэтому должен быть быстрым.
+ * У счета в режиме полос фиксации приходят по частям: главная часть и полосы - отдельные состояния
+ * с частью баланса, сумма изменений частей равна изменению баланса счета. Исключение получателя
+ * логируется хранилищем и не отменяет фиксацию.
+ * <p>
+ * Операции с транзакцией (пополнение, снятие, перевод) передают ID транзакции вместе с состоянием:
+ * он выдается до фиксации, поэтому получатель знает, какой транзакцией изменен баланс, не дожидаясь
+ * записи транзакции в журнал.
+ */
+public interface AccountCommitListener {
+
+    /**
+     * Зафиксировано новое состояние счета.
+     *
+     * @param previous состояние до изменения (null для нового счета)
+     * @param current  зафиксированное состояние
+     */
+    void committed(AccountState previous, AccountState current);
+
+    /**
+     * Зафиксировано новое состояние счета операцией с транзакцией.
+     * По умолчанию ID транзакции не нужен получателю.
+     *
+     * @param previous      состояние до изменения
+     * @param current       зафиксированное состояние
+     * @param transactionId ID транзакции операции
+     */
+    default void committed(AccountState previous, AccountState current, long transactionId) {
+        committed(previous, current);
+    }
+}
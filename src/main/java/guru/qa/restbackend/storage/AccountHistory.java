@@ -0,0 +1,74 @@
+package guru.qa.restbackend.storage;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Транзакции одного счета по времени - индекс истории счета в памяти.
+ * <p>
+ * Онлайн-транзакции приходят по порядку и дописываются в конец; после загрузки задним числом
+ * список досортировывается при первом чтении. Выборка за период находит границы двоичным
+ * поиском, поэтому ее цена не зависит от длины истории. Все методы - под монитором самого объекта:
+ * писатели разных счетов не конкурируют.
+ */
+final class AccountHistory {
+
+    private final List<CompactTransaction> records = new ArrayList<>();
+    // Запись не по порядку (загрузка задним числом) - список досортировывается при чтении
+    private boolean sorted = true;
+
+    synchronized void add(CompactTransaction record) {
+        if (sorted && !records.isEmpty() && record.isBefore(records.get(records.size() - 1))) {
+            sorted = false;
+        }
+        records.add(record);
+    }
+
+    /**
+     * Удаление записей (перенос в сегменты). Записи сравниваются по ссылке.
+     */
+    synchronized void removeAll(Collection<CompactTransaction> removed) {
+        Set<CompactTransaction> set = Collections.newSetFromMap(new IdentityHashMap<>(removed.size() * 2));
+        set.addAll(removed);
+        records.removeIf(set::contains);
+    }
+
+    /**
+     * Записи с меткой времени в [from, to) по времени; null - без ограничения.
+     */
+    synchronized List<CompactTransaction> between(LocalDateTime from, LocalDateTime to) {
+        sort();
+        int first = from != null ? firstNotBefore(from) : 0;
+        int last = to != null ? firstNotBefore(to) : records.size();
+        return last > first ? new ArrayList<>(records.subList(first, last)) : new ArrayList<>();
+    }
+
+    private void sort() {
+        if (!sorted) {
+            records.sort((a, b) -> a.isBefore(b) ? -1 : b.isBefore(a) ? 1 : 0);
+            sorted = true;
+        }
+    }
+
+    /**
+     * Индекс первой записи с меткой времени не раньше time.
+     */
+    private int firstNotBefore(LocalDateTime time) {
+        int low = 0;
+        int high = records.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (records.get(middle).isBefore(time)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
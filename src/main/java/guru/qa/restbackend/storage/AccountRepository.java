@@ -0,0 +1,170 @@
+package guru.qa.restbackend.storage;
+
+import guru.qa.restbackend.domain.Account;
+import guru.qa.restbackend.domain.Transaction;
+import guru.qa.restbackend.exception.AccountNotFoundException;
+import guru.qa.restbackend.exception.SnapshotUnavailableException;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Хранилище счетов (SPI): выдача ID, пакетная загрузка, чтение текущего состояния и снимков,
+ * атомарные изменения. Реализация выбирается настройкой bank.storage.type.
+ * <p>
+ * Каждая фиксация передается всем {@link AccountCommitListener} (статистика, кэш ответов),
+ * поэтому производные данные не зависят от выбранной реализации.
+ */
+public interface AccountRepository {
+
+    /**
+     * ID транзакции для фиксаций без транзакции (холды, статусы, загрузка).
+     */
+    long NO_TRANSACTION = 0L;
+
+    /**
+     * Следующий свободный ID счета.
+     */
+    long nextId();
+
+    /**
+     * Резервирование непрерывного диапазона ID.
+     *
+     * @param count количество ID
+     * @return первый ID диапазона
+     */
+    long reserveIds(long count);
+
+    /**
+     * Максимальный выданный ID. Все существующие счета имеют ID в диапазоне [1, lastId].
+     */
+    long lastId();
+
+    /**
+     * Добавление новых счетов одной фиксацией; генератор ID сдвигается за максимальный добавленный ID.
+     *
+     * @param batch счета с назначенными ID
+     * @return счета, не добавленные из-за совпадения ID с существующими
+     */
+    List<Account> insertAll(Collection<Account> batch);
+
+    /**
+     * Замена существующего счета целиком или добавление нового.
+     */
+    void put(Account account);
+
+    /**
+     * Текущее состояние счета.
+     */
+    Optional<Account> findLatest(Long accountId);
+
+    /**
+     * Состояние счета в снимке.
+     *
+     * @throws SnapshotUnavailableException если снимок недоступен
+     */
+    Optional<Account> findAt(Long accountId, long sequence);
+
+    /**
+     * Счета с ID в диапазоне [fromId, toId] в снимке, по возрастанию ID.
+     *
+     * @throws SnapshotUnavailableException если снимок недоступен
+     */
+    List<Account> findRange(long fromId, long toId, long sequence);
+
+    /**
+     * Обход всех счетов снимка (в произвольном порядке).
+     *
+     * @throws SnapshotUnavailableException если снимок недоступен
+     */
+    void forEachAt(long sequence, Consumer<Account> consumer);
+
+    /**
+     * Номер согласованного снимка, включающего все завершенные изменения.
+     */
+    long currentSequence();
+
+    /**
+     * Количество счетов.
+     */
+    int size();
+
+    /**
+     * Атомарное изменение одного счета. Функция может вызываться повторно и не должна иметь побочных
+     * эффектов; исключение из нее отменяет изменение.
+     *
+     * @return зафиксированное состояние
+     * @throws AccountNotFoundException если счета нет
+     */
+    default AccountState update(Long accountId, UnaryOperator<AccountState> mutation) {
+        return update(accountId, NO_TRANSACTION, mutation);
+    }
+
+    /**
+     * Атомарное изменение одного счета операцией с транзакцией: ID транзакции передается
+     * {@link AccountCommitListener} вместе с зафиксированным состоянием.
+     *
+     * @param transactionId ID транзакции или {@link #NO_TRANSACTION}
+     * @return зафиксированное состояние
+     * @throws AccountNotFoundException если счета нет
+     */
+    AccountState update(Long accountId, long transactionId, UnaryOperator<AccountState> mutation);
+
+    /**
+     * Изменение счета операцией с записью транзакции. Хранилище, которое хранит и транзакции
+     * ({@link #storesTransactions()}), пишет строку транзакции в той же фиксации, что и состояние
+     * счета; остальные только меняют счет, а транзакцию сохраняет вызывающий.
+     *
+     * @return зафиксированное состояние
+     * @throws AccountNotFoundException если счета нет
+     */
+    default AccountState update(Long accountId, Transaction transaction, UnaryOperator<AccountState> mutation) {
+        return update(accountId, transaction.getId(), mutation);
+    }
+
+    /**
+     * Перенос суммы: списание со счета debitId и зачисление на счет creditId одной фиксацией.
+     * Одна из сторон может отсутствовать (пополнение, снятие).
+     *
+     * @param transactionId     ID транзакции переноса (передается {@link AccountCommitListener})
+     * @param check             проверка состояний списания и зачисления до изменения (без баланса)
+     * @param insufficientFunds исключение при нехватке доступного остатка (баланс без холдов) на счете списания
+     * @return состояние счета списания (без него - зачисления), прошедшее проверку
+     * @throws AccountNotFoundException если одного из счетов нет
+     */
+    AccountState move(Long debitId, Long creditId, BigDecimal amount, long transactionId,
+                      BiConsumer<AccountState, AccountState> check,
+                      Supplier<? extends RuntimeException> insufficientFunds);
+
+    /**
+     * Перенос суммы с записью транзакции: как {@link #update(Long, Transaction, UnaryOperator)},
+     * строку транзакции пишет в той же фиксации только хранилище с {@link #storesTransactions()}.
+     */
+    default AccountState move(Long debitId, Long creditId, BigDecimal amount, Transaction transaction,
+                              BiConsumer<AccountState, AccountState> check,
+                              Supplier<? extends RuntimeException> insufficientFunds) {
+        return move(debitId, creditId, amount, transaction.getId(), check, insufficientFunds);
+    }
+
+    /**
+     * Пишет ли хранилище строку транзакции вместе с изменением счета (методы с {@link Transaction}).
+     * Тогда вызывающий не сохраняет транзакцию повторно.
+     */
+    default boolean storesTransactions() {
+        return false;
+    }
+
+    /**
+     * Может ли текущее состояние счета читаться с отставанием от уже разосланной фиксации
+     * (тогда производные кэши не должны его запоминать).
+     */
+    default boolean isStriped(Long accountId) {
+        return false;
+    }
+}
@@ -0,0 +1,68 @@
+package guru.qa.restbackend.storage;
+
+import guru.qa.restbackend.domain.Account;
+import guru.qa.restbackend.domain.AccountStatus;
+import lombok.Builder;
+import lombok.Value;
+import lombok.With;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Неизменяемое состояние счета в хранилище. Изменение - новый объект (withBalance, withStatus, ...),
+ * поэтому читатель никогда не видит наполовину примененное изменение.
+ * <p>
+ * held - сумма активных холдов: она входит в баланс, но недоступна для списания. Холд меняет состояние
+ * счета так же, как списание, поэтому проверка доступного остатка (balance - held) атомарна с ним.
+ */
+@Value
+@With
+@Builder
+public class AccountState {
+    Long id;
+    String accountNumber;
+    BigDecimal balance;
+    String currency;
+    AccountStatus status;
+    LocalDateTime createdAt;
+    String ownerName;
+    @Builder.Default
+    BigDecimal held = BigDecimal.ZERO;
+
+    public static AccountState of(Account account) {
+        return AccountState.builder()
+                .id(account.getId())
+                .accountNumber(account.getAccountNumber())
+                .balance(account.getBalance())
+                .currency(account.getCurrency())
+                .status(account.getStatus())
+                .createdAt(account.getCreatedAt())
+                .ownerName(account.getOwnerName())
+                .held(account.getHeldAmount() != null ? account.getHeldAmount() : BigDecimal.ZERO)
+                .build();
+    }
+
+    /**
+     * Доступный для списания остаток: баланс без холдов.
+     */
+    public BigDecimal getAvailableBalance() {
+        return balance.subtract(held);
+    }
+
+    /**
+     * Копия в виде DTO для ответа API.
+     */
+    public Account toAccount() {
+        return Account.builder()
+                .id(id)
+                .accountNumber(accountNumber)
+                .balance(balance)
+                .currency(currency)
+                .status(status)
+                .createdAt(createdAt)
+                .ownerName(ownerName)
+                .heldAmount(held)
+                .build();
+    }
+}
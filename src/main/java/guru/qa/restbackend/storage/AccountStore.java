@@ -0,0 +1,789 @@
+package guru.qa.restbackend.storage;
+
+import guru.qa.restbackend.domain.Account;
+import guru.qa.restbackend.domain.RequestPhase;
+import guru.qa.restbackend.exception.AccountNotFoundException;
+import guru.qa.restbackend.exception.SnapshotUnavailableException;
+import guru.qa.restbackend.jfr.AccountLockEvent;
+import guru.qa.restbackend.monitoring.ContentionProbe;
+import guru.qa.restbackend.monitoring.RequestTiming;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Версионное (MVCC) хранилище счетов.
+ * <p>
+ * Состояние счета - неизменяемое значение ({@link AccountState}), каждое изменение - фиксация с номером
+ * из глобальной последовательности. Изменение одного счета не берет блокировок: новая версия ставится
+ * CAS-ом головы цепочки версий, при конфликте с параллельным писателем изменение повторяется на свежем
+ * состоянии. Изменение нескольких счетов резервирует их головы в порядке возрастания ID и ставит новые
+ * версии с одним номером. Читатели не берут блокировок: снимок с номером N видит по каждому счету последнюю
+ * версию с номером не больше N, поэтому отчеты по всем счетам согласованы и не мешают писателям.
+ * Старые версии хранятся на глубину bank.storage.accounts.retained-commits.
+ * <p>
+ * Горячий счет (например, счет сбора платежей) можно перевести в режим полос: к главной цепочке
+ * добавляются bank.storage.accounts.hot-stripes цепочек с частями баланса, баланс счета - их сумма.
+ * Зачисление резервирует одну случайную полосу, списание - тоже одну, а если в ней не хватает денег,
+ * резервирует все полосы и занимает между ними. Изменения статуса и владельца видят и меняют счет
+ * целиком. Счета переводятся автоматически, когда частота конфликтов на них превышает порог.
+ * Каждая часть баланса неотрицательна, поэтому неотрицателен и баланс счета.
+ * Используется при bank.storage.type=FILE и MEMORY (для H2 - {@link H2AccountRepository}).
+ */
+@Slf4j
+@Component
+@ConditionalOnExpression("'${bank.storage.type:FILE}' != 'H2'")
+public class AccountStore implements AccountRepository {
+
+    // Номер полосы главной цепочки в порядке резервирования (ID счета, полоса)
+    private static final int MAIN = -1;
+    // Вход в свободный монитор занимает десятки наносекунд; дольше - ожидание другого писателя
+    private static final long MONITOR_WAIT_NANOS = TimeUnit.MICROSECONDS.toNanos(10);
+
+    private final Map<Long, VersionedAccount> accounts = new ConcurrentHashMap<>();
+    private final CommitSequencer sequencer = new CommitSequencer();
+    private final LongAdder conflictRetries = new LongAdder();
+    private final LongAdder stripedAccounts = new LongAdder();
+    private final AtomicLong idGenerator = new AtomicLong(1);
+    private final AccountStoreProperties properties;
+    private final List<AccountCommitListener> listeners;
+
+    public AccountStore(AccountStoreProperties properties) {
+        this(properties, List.of());
+    }
+
+    @Autowired
+    public AccountStore(AccountStoreProperties properties, List<AccountCommitListener> listeners) {
+        this.properties = properties;
+        this.listeners = List.copyOf(listeners);
+    }
+
+    /**
+     * Текущая версия счета.
+     */
+    @Override
+    public Optional<Account> findLatest(Long accountId) {
+        VersionedAccount versioned = accounts.get(accountId);
+        return versioned != null ? Optional.of(latest(versioned).toAccount()) : Optional.empty();
+    }
+
+    /**
+     * Версия счета в снимке.
+     *
+     * @param accountId ID счета
+     * @param sequence  номер снимка
+     * @return счет, если он существовал на момент снимка
+     * @throws SnapshotUnavailableException если снимок еще не зафиксирован или уже удален
+     */
+    @Override
+    public Optional<Account> findAt(Long accountId, long sequence) {
+        checkSequence(sequence);
+        VersionedAccount versioned = accounts.get(accountId);
+        return versioned != null ? Optional.ofNullable(visible(versioned, sequence)).map(AccountState::toAccount)
+                : Optional.empty();
+    }
+
+    /**
+     * Обход всех счетов, существовавших на момент снимка (в произвольном порядке).
+     */
+    @Override
+    public void forEachAt(long sequence, Consumer<Account> consumer) {
+        checkSequence(sequence);
+        for (VersionedAccount versioned : accounts.values()) {
+            AccountState state = visible(versioned, sequence);
+            if (state != null) {
+                consumer.accept(state.toAccount());
+            }
+        }
+    }
+
+    /**
+     * Счета с ID в диапазоне [fromId, toId] в снимке. ID выдаются подряд, поэтому диапазон
+     * проходится точечными поисками, без упорядоченного индекса.
+     */
+    @Override
+    public List<Account> findRange(long fromId, long toId, long sequence) {
+        checkSequence(sequence);
+        long last = Math.min(toId, lastId());
+        List<Account> result = new ArrayList<>((int) Math.max(0, Math.min(last - fromId + 1, 1 << 16)));
+        for (long id = Math.max(1, fromId); id <= last; id++) {
+            VersionedAccount versioned = accounts.get(id);
+            AccountState state = versioned != null ? visible(versioned, sequence) : null;
+            if (state != null) {
+                result.add(state.toAccount());
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public long nextId() {
+        return idGenerator.getAndIncrement();
+    }
+
+    @Override
+    public long reserveIds(long count) {
+        return idGenerator.getAndAdd(count);
+    }
+
+    @Override
+    public long lastId() {
+        return idGenerator.get() - 1;
+    }
+
+    /**
+     * Номер согласованного снимка, включающего все уже завершенные изменения.
+     */
+    @Override
+    public long currentSequence() {
+        return sequencer.stable();
+    }
+
+    @Override
+    public int size() {
+        return accounts.size();
+    }
+
+    /**
+     * Количество повторов изменений одного счета из-за конфликта с параллельным писателем.
+     */
+    public long getConflictRetries() {
+        return conflictRetries.sum();
+    }
+
+    /**
+     * Количество счетов в режиме полос.
+     */
+    public long getStripedAccounts() {
+        return stripedAccounts.sum();
+    }
+
+    /**
+     * Переведен ли счет в режим полос (его баланс читается из согласованного снимка).
+     */
+    @Override
+    public boolean isStriped(Long accountId) {
+        VersionedAccount versioned = accounts.get(accountId);
+        return versioned != null && versioned.stripes() != null;
+    }
+
+    /**
+     * Фиксация изменения одного счета.
+     * <p>
+     * Функция получает текущее состояние и возвращает новое; она может быть вызвана несколько раз
+     * (при конфликте CAS), поэтому не должна иметь побочных эффектов. Исключение из функции
+     * отменяет изменение. В режиме bank.storage.accounts.update-mode=LOCK писатели одного счета
+     * дополнительно сериализуются его монитором. Счет в режиме полос изменяется целиком, как
+     * при изменении нескольких счетов.
+     *
+     * @param accountId     ID счета
+     * @param transactionId ID транзакции или {@link #NO_TRANSACTION}
+     * @param mutation      новое состояние из текущего
+     * @return зафиксированное состояние
+     * @throws AccountNotFoundException если счета нет
+     */
+    @Override
+    public AccountState update(Long accountId, long transactionId, UnaryOperator<AccountState> mutation) {
+        long lookup = RequestTiming.begin();
+        VersionedAccount versioned = require(accountId);
+        RequestTiming.end(RequestPhase.LOOKUP, lookup);
+        AccountState updated = versioned.stripes() == null ? compareAndSet(versioned, transactionId, mutation) : null;
+        if (updated != null) {
+            afterCommit(versioned);
+            return updated;
+        }
+        return update(List.of(accountId), transactionId,
+                current -> Map.of(accountId, mutation.apply(current.get(accountId)))).get(accountId);
+    }
+
+    /**
+     * Фиксация изменения нескольких счетов одним номером: снимок видит его целиком или никак.
+     * <p>
+     * Головы счетов (и все полосы горячих счетов) резервируются в порядке возрастания ID,
+     * поэтому функция вызывается ровно один раз. Исключение из функции отменяет изменение.
+     *
+     * @param accountIds ID затрагиваемых счетов
+     * @param mutation   новые состояния из текущих (ключ - ID счета; отсутствующие в результате не меняются)
+     * @return новые состояния
+     * @throws AccountNotFoundException если одного из счетов нет
+     */
+    public Map<Long, AccountState> update(Collection<Long> accountIds,
+                                          UnaryOperator<Map<Long, AccountState>> mutation) {
+        return update(accountIds, NO_TRANSACTION, mutation);
+    }
+
+    private Map<Long, AccountState> update(Collection<Long> accountIds, long transactionId,
+                                           UnaryOperator<Map<Long, AccountState>> mutation) {
+        Long[] ids = accountIds.stream().distinct().sorted().toArray(Long[]::new);
+        VersionedAccount[] targets = new VersionedAccount[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            targets[i] = require(ids[i]);
+        }
+
+        Map<Long, AccountState> next;
+        try (Reservation reservation = new Reservation(transactionId)) {
+            Map<Long, AccountState> current = new HashMap<>(ids.length * 2);
+            long waiting = RequestTiming.begin();
+            AccountLockEvent lockEvent = new AccountLockEvent();
+            lockEvent.begin();
+            for (int i = 0; i < ids.length; i++) {
+                reservation.reserveAccount(targets[i]);
+                current.put(ids[i], reservation.account(targets[i]));
+            }
+            lockEvent.acquired(ids[0], ids.length > 1 ? ids[1] : null, ids.length, AccountLockEvent.RESERVATION);
+            RequestTiming.end(RequestPhase.LOCK, waiting);
+            next = mutation.apply(Collections.unmodifiableMap(current));
+            for (int i = 0; i < ids.length; i++) {
+                AccountState changed = next.get(ids[i]);
+                if (changed != null) {
+                    reservation.setAccount(targets[i], changed);
+                }
+            }
+            reservation.commit();
+        }
+        for (VersionedAccount target : targets) {
+            afterCommit(target);
+        }
+        return next;
+    }
+
+    /**
+     * Перенос суммы: списание со счета debitId и зачисление на счет creditId одной фиксацией.
+     * Одна из сторон может отсутствовать (пополнение, снятие).
+     * <p>
+     * Обычный счет без второй стороны меняется CAS-ом. У счета в режиме полос меняется одна
+     * случайная полоса, а при нехватке денег в ней списание занимает у всех полос счета. Списать можно
+     * только доступный остаток - баланс без холдов ({@link AccountState#getHeld()}).
+     *
+     * @param debitId           ID счета списания или null
+     * @param creditId          ID счета зачисления или null
+     * @param amount            сумма
+     * @param transactionId     ID транзакции переноса
+     * @param check             проверка счетов до изменения (статусы, сумма); получает состояния списания
+     *                          и зачисления (null для отсутствующей стороны). Баланс в них не проверяется -
+     *                          достаточность средств проверяет хранилище. Может вызываться несколько раз
+     * @param insufficientFunds исключение при нехватке средств на счете списания
+     * @return состояние счета списания (без него - зачисления), прошедшее проверку; годится для неизменяемых
+     * полей вроде валюты, но у счета в режиме полос баланс в нем - лишь одна часть
+     * @throws AccountNotFoundException если одного из счетов нет
+     */
+    @Override
+    public AccountState move(Long debitId, Long creditId, BigDecimal amount, long transactionId,
+                             BiConsumer<AccountState, AccountState> check,
+                             Supplier<? extends RuntimeException> insufficientFunds) {
+        long lookup = RequestTiming.begin();
+        VersionedAccount debit = debitId != null ? require(debitId) : null;
+        VersionedAccount credit = creditId != null ? require(creditId) : null;
+        RequestTiming.end(RequestPhase.LOOKUP, lookup);
+
+        VersionedAccount single = debit == null ? credit : credit == null ? debit : null;
+        if (single != null && single.stripes() == null) {
+            AccountState updated = compareAndSet(single, transactionId, state -> {
+                check.accept(debit != null ? state : null, credit != null ? state : null);
+                if (debit != null && state.getAvailableBalance().compareTo(amount) < 0) {
+                    throw insufficientFunds.get();
+                }
+                return state.withBalance(debit != null ?
+                        state.getBalance().subtract(amount) : state.getBalance().add(amount));
+            });
+            if (updated != null) {
+                afterCommit(single);
+                return updated;
+            }
+        }
+
+        boolean borrow = false;
+        while (true) {
+            VersionedAccount[] debitStripes = debit != null ? debit.stripes() : null;
+            VersionedAccount[] creditStripes = credit != null ? credit.stripes() : null;
+            List<Claim> claims = new ArrayList<>(4);
+            if (debit != null) {
+                if (debitStripes == null || borrow) {
+                    claims.add(new Claim(debitId, MAIN, debit, true));
+                }
+                if (debitStripes != null) {
+                    int only = borrow ? -1 : ThreadLocalRandom.current().nextInt(debitStripes.length);
+                    for (int i = 0; i < debitStripes.length; i++) {
+                        if (only < 0 || i == only) {
+                            claims.add(new Claim(debitId, i, debitStripes[i], true));
+                        }
+                    }
+                }
+            }
+            if (credit != null) {
+                if (creditStripes == null) {
+                    claims.add(new Claim(creditId, MAIN, credit, false));
+                } else {
+                    int stripe = ThreadLocalRandom.current().nextInt(creditStripes.length);
+                    claims.add(new Claim(creditId, stripe, creditStripes[stripe], false));
+                }
+            }
+            claims.sort(Claim.ORDER);
+
+            AccountState debitState;
+            AccountState creditState;
+            try (Reservation reservation = new Reservation(transactionId)) {
+                long waiting = RequestTiming.begin();
+                AccountLockEvent lockEvent = new AccountLockEvent();
+                lockEvent.begin();
+                for (Claim claim : claims) {
+                    claim.slot = reservation.reserve(claim.node);
+                }
+                lockEvent.acquired(debitId, creditId, claims.size(), AccountLockEvent.RESERVATION);
+                RequestTiming.end(RequestPhase.LOCK, waiting);
+                // Счет перевели в режим полос, пока план резервирования строился
+                if ((debit != null && debit.stripes() != debitStripes)
+                        || (credit != null && credit.stripes() != creditStripes)) {
+                    continue;
+                }
+
+                debitState = debit != null ? reservation.statusOf(debit, claims) : null;
+                creditState = credit != null ? reservation.statusOf(credit, claims) : null;
+                check.accept(debitState, creditState);
+
+                // Холды учитываются в главной части: при холде на счете списание проверяет весь счет.
+                // Холд резервирует все полосы, поэтому зафиксированный до нашего резерва уже виден
+                if (debitStripes != null && !borrow && debit.latest().getHeld().signum() > 0) {
+                    borrow = true;
+                    continue;
+                }
+                if (debit != null && !reservation.withdraw(claims, amount)) {
+                    if (debitStripes != null && !borrow) {
+                        borrow = true;
+                        continue;
+                    }
+                    throw insufficientFunds.get();
+                }
+                if (credit != null) {
+                    reservation.deposit(claims, amount);
+                }
+                reservation.commit();
+            }
+            if (debit != null) {
+                afterCommit(debit);
+            }
+            if (credit != null) {
+                afterCommit(credit);
+            }
+            return debitState != null ? debitState : creditState;
+        }
+    }
+
+    /**
+     * Добавление новых счетов одной фиксацией; генератор ID сдвигается за максимальный добавленный ID.
+     *
+     * @param batch счета с назначенными ID
+     * @return счета, не добавленные из-за совпадения ID с существующими
+     */
+    @Override
+    public List<Account> insertAll(Collection<Account> batch) {
+        List<Account> conflicts = new ArrayList<>();
+        List<VersionedAccount> hot = new ArrayList<>();
+        long maxId = 0;
+        for (Account account : batch) {
+            maxId = Math.max(maxId, account.getId());
+        }
+        // Генератор никогда не уменьшается
+        idGenerator.accumulateAndGet(maxId + 1, Math::max);
+        long sequence = sequencer.begin();
+        try {
+            for (Account account : batch) {
+                VersionedAccount versioned = new VersionedAccount(sequence, AccountState.of(account));
+                if (accounts.putIfAbsent(account.getId(), versioned) != null) {
+                    conflicts.add(account);
+                    continue;
+                }
+                notifyCommitted(null, versioned.latest(), NO_TRANSACTION);
+                if (properties.isHotStripingEnabled() && properties.getHotAccounts().contains(account.getId())) {
+                    hot.add(versioned);
+                }
+            }
+        } finally {
+            sequencer.complete(sequence);
+        }
+        hot.forEach(this::promote);
+        return conflicts;
+    }
+
+    /**
+     * Замена существующего счета целиком (новой версией) или добавление нового.
+     */
+    @Override
+    public void put(Account account) {
+        if (insertAll(List.of(account)).isEmpty()) {
+            return;
+        }
+        AccountState replacement = AccountState.of(account);
+        update(account.getId(), current -> replacement);
+    }
+
+    /**
+     * Цикл CAS: новая версия строится из прочитанной головы и ставится, только если голова не изменилась.
+     * Номер фиксации берется после чтения головы, поэтому он больше номера любой версии в цепочке,
+     * а номер проигравшей попытки завершается пустой фиксацией.
+     *
+     * @return зафиксированное состояние или null, если счет уже в режиме полос
+     */
+    private AccountState compareAndSet(VersionedAccount versioned, long transactionId,
+                                       UnaryOperator<AccountState> mutation) {
+        if (properties.getUpdateMode() == AccountUpdateMode.LOCK) {
+            long waiting = RequestTiming.begin();
+            AccountLockEvent lockEvent = new AccountLockEvent();
+            lockEvent.begin();
+            long entering = System.nanoTime();
+            synchronized (versioned) {
+                long entered = System.nanoTime() - entering;
+                if (entered >= MONITOR_WAIT_NANOS) {
+                    ContentionProbe.waited(entered);
+                }
+                lockEvent.acquired(lockEvent.isEnabled() ? versioned.latest().getId() : null, null, 1,
+                        AccountLockEvent.MONITOR);
+                RequestTiming.end(RequestPhase.LOCK, waiting);
+                return casLoop(versioned, transactionId, mutation);
+            }
+        }
+        return casLoop(versioned, transactionId, mutation);
+    }
+
+    private AccountState casLoop(VersionedAccount versioned, long transactionId,
+                                 UnaryOperator<AccountState> mutation) {
+        while (true) {
+            long waiting = RequestTiming.begin();
+            VersionedAccount.Version current = versioned.awaitHead();
+            RequestTiming.end(RequestPhase.LOCK, waiting);
+            // Полосы ставятся до новой головы, так что CAS по прочитанной голове их уже не пропустит
+            if (versioned.stripes() != null) {
+                return null;
+            }
+            AccountState next = mutation.apply(current.state());
+            if (next.equals(current.state())) {
+                return next;
+            }
+
+            long committing = RequestTiming.begin();
+            long sequence = sequencer.begin();
+            boolean installed;
+            try {
+                installed = versioned.compareAndSet(current, sequence, next);
+            } finally {
+                sequencer.complete(sequence);
+            }
+            if (installed) {
+                versioned.prune(sequence, properties.getRetainedCommits());
+                notifyCommitted(current.state(), next, transactionId);
+                RequestTiming.end(RequestPhase.COMMIT, committing);
+                return next;
+            }
+            // Проигранная попытка - ожидание из-за конкурента, а не работа фиксации
+            RequestTiming.end(RequestPhase.LOCK, committing);
+            versioned.noteContention();
+            ContentionProbe.conflict();
+            conflictRetries.increment();
+        }
+    }
+
+    /**
+     * Автоматический перевод в режим полос, если конфликты на счете стали слишком частыми.
+     */
+    private void afterCommit(VersionedAccount versioned) {
+        if (properties.isHotStripingEnabled() && versioned.stripes() == null
+                && versioned.isContended(properties.getHotPromotionThreshold(),
+                properties.getHotPromotionWindow().toNanos())) {
+            promote(versioned);
+        }
+    }
+
+    /**
+     * Создание полос с нулевым балансом под резервом головы. Голова заменяется новой версией
+     * (а не просто снимается резерв), чтобы писатель CAS, прочитавший ее до перевода, проиграл
+     * и перечитал счет уже с полосами.
+     */
+    private void promote(VersionedAccount versioned) {
+        VersionedAccount.Version head = versioned.reserve();
+        if (versioned.stripes() != null) {
+            versioned.release(head);
+            return;
+        }
+        long sequence = sequencer.begin();
+        try {
+            // Холды остаются в главной части
+            AccountState empty = head.state().withBalance(BigDecimal.ZERO).withHeld(BigDecimal.ZERO);
+            VersionedAccount[] stripes = new VersionedAccount[Math.max(1, properties.getHotStripes())];
+            for (int i = 0; i < stripes.length; i++) {
+                stripes[i] = new VersionedAccount(sequence, empty);
+            }
+            versioned.setStripes(stripes);
+            versioned.install(head, sequence, head.state());
+        } finally {
+            sequencer.complete(sequence);
+        }
+        stripedAccounts.increment();
+        log.info("Счет {} переведен в режим полос баланса ({} полос)", head.state().getId(),
+                versioned.stripes().length);
+    }
+
+    private void notifyCommitted(AccountState previous, AccountState current, long transactionId) {
+        for (AccountCommitListener listener : listeners) {
+            try {
+                if (transactionId == NO_TRANSACTION) {
+                    listener.committed(previous, current);
+                } else {
+                    listener.committed(previous, current, transactionId);
+                }
+            } catch (RuntimeException e) {
+                // Изменение уже зафиксировано: сбой получателя не должен превращаться в ошибку операции
+                log.error("Получатель фиксаций {} не обработал счет {}", listener.getClass().getSimpleName(),
+                        current.getId(), e);
+            }
+        }
+    }
+
+    private VersionedAccount require(Long accountId) {
+        VersionedAccount versioned = accounts.get(accountId);
+        if (versioned == null) {
+            throw new AccountNotFoundException(accountId);
+        }
+        return versioned;
+    }
+
+    private void checkSequence(long sequence) {
+        if (sequence > sequencer.watermark()) {
+            throw new SnapshotUnavailableException(sequence, "изменения с этим номером еще не зафиксированы");
+        }
+    }
+
+    /**
+     * Последнее состояние; баланс счета в режиме полос берется из согласованного снимка,
+     * чтобы не увидеть наполовину примененное занимание между полосами.
+     */
+    private AccountState latest(VersionedAccount versioned) {
+        return versioned.stripes() == null ? versioned.latest() : visible(versioned, sequencer.stable());
+    }
+
+    private static AccountState visible(VersionedAccount versioned, long sequence) {
+        try {
+            AccountState main = versioned.at(sequence);
+            VersionedAccount[] stripes = versioned.stripes();
+            if (main == null || stripes == null) {
+                return main;
+            }
+            BigDecimal balance = main.getBalance();
+            for (VersionedAccount stripe : stripes) {
+                AccountState part = stripe.at(sequence);
+                if (part != null) {
+                    balance = balance.add(part.getBalance());
+                }
+            }
+            return main.withBalance(balance);
+        } catch (IllegalStateException e) {
+            throw new SnapshotUnavailableException(sequence, "версии этого момента уже удалены");
+        }
+    }
+
+    /**
+     * Часть счета, резервируемая переносом суммы: главная цепочка (MAIN) или полоса.
+     */
+    private static final class Claim {
+        static final Comparator<Claim> ORDER = Comparator.comparingLong((Claim claim) -> claim.accountId)
+                .thenComparingInt(claim -> claim.stripe);
+
+        final long accountId;
+        final int stripe;
+        final VersionedAccount node;
+        final boolean debit;
+        int slot;
+
+        Claim(long accountId, int stripe, VersionedAccount node, boolean debit) {
+            this.accountId = accountId;
+            this.stripe = stripe;
+            this.node = node;
+            this.debit = debit;
+        }
+    }
+
+    /**
+     * Набор зарезервированных голов одной фиксации. Головы резервируются по порядку (ID счета, полоса);
+     * commit ставит измененные версии с одним номером, close снимает резервы, если фиксации не было.
+     */
+    private final class Reservation implements AutoCloseable {
+        private final List<VersionedAccount> nodes = new ArrayList<>(4);
+        private final List<VersionedAccount.Version> reserved = new ArrayList<>(4);
+        private final List<AccountState> changes = new ArrayList<>(4);
+        private final Map<VersionedAccount, Integer> mainSlots = new IdentityHashMap<>(4);
+        private final long transactionId;
+        private boolean held;
+
+        Reservation(long transactionId) {
+            this.transactionId = transactionId;
+        }
+
+        int reserve(VersionedAccount node) {
+            nodes.add(node);
+            reserved.add(node.reserve());
+            changes.add(null);
+            held = true;
+            return nodes.size() - 1;
+        }
+
+        /**
+         * Резерв счета целиком: главная цепочка, затем все полосы (под резервом головы они не появятся).
+         */
+        void reserveAccount(VersionedAccount account) {
+            mainSlots.put(account, reserve(account));
+            VersionedAccount[] stripes = account.stripes();
+            if (stripes != null) {
+                for (VersionedAccount stripe : stripes) {
+                    reserve(stripe);
+                }
+            }
+        }
+
+        AccountState state(int slot) {
+            AccountState changed = changes.get(slot);
+            return changed != null ? changed : reserved.get(slot).state();
+        }
+
+        /**
+         * Состояние счета целиком: главная часть с балансом, равным сумме частей.
+         */
+        AccountState account(VersionedAccount account) {
+            int main = mainSlots.get(account);
+            VersionedAccount[] stripes = account.stripes();
+            if (stripes == null) {
+                return state(main);
+            }
+            BigDecimal balance = state(main).getBalance();
+            for (int i = 1; i <= stripes.length; i++) {
+                balance = balance.add(state(main + i).getBalance());
+            }
+            return state(main).withBalance(balance);
+        }
+
+        /**
+         * Новое состояние счета целиком. Если баланс изменился, он переносится в главную часть,
+         * а полосы обнуляются.
+         */
+        void setAccount(VersionedAccount account, AccountState next) {
+            int main = mainSlots.get(account);
+            VersionedAccount[] stripes = account.stripes();
+            if (stripes == null) {
+                changes.set(main, next);
+                return;
+            }
+            AccountState current = account(account);
+            if (next.getBalance().compareTo(current.getBalance()) == 0) {
+                changes.set(main, next.withBalance(state(main).getBalance()));
+                return;
+            }
+            changes.set(main, next);
+            for (int i = 1; i <= stripes.length; i++) {
+                changes.set(main + i, state(main + i).withBalance(BigDecimal.ZERO));
+            }
+        }
+
+        /**
+         * Состояние счета для проверки статуса: главная часть (зарезервированная или последняя зафиксированная).
+         */
+        AccountState statusOf(VersionedAccount account, List<Claim> claims) {
+            for (Claim claim : claims) {
+                if (claim.node == account) {
+                    return state(claim.slot);
+                }
+            }
+            return account.latest();
+        }
+
+        /**
+         * Списание с зарезервированных частей счета списания: сначала полосы, затем главная часть.
+         *
+         * @return false, если в них вместе (за вычетом холдов, если главная часть среди них) не хватает денег
+         */
+        boolean withdraw(List<Claim> claims, BigDecimal amount) {
+            BigDecimal available = BigDecimal.ZERO;
+            for (Claim claim : claims) {
+                if (claim.debit) {
+                    AccountState part = state(claim.slot);
+                    available = available.add(claim.stripe == MAIN ? part.getAvailableBalance() : part.getBalance());
+                }
+            }
+            if (available.compareTo(amount) < 0) {
+                return false;
+            }
+            BigDecimal remaining = amount;
+            for (int pass = 0; pass < 2 && remaining.signum() > 0; pass++) {
+                for (Claim claim : claims) {
+                    if (!claim.debit || (claim.stripe == MAIN) != (pass == 1) || remaining.signum() == 0) {
+                        continue;
+                    }
+                    AccountState part = state(claim.slot);
+                    BigDecimal taken = part.getBalance().min(remaining);
+                    if (taken.signum() > 0) {
+                        changes.set(claim.slot, part.withBalance(part.getBalance().subtract(taken)));
+                        remaining = remaining.subtract(taken);
+                    }
+                }
+            }
+            return true;
+        }
+
+        void deposit(List<Claim> claims, BigDecimal amount) {
+            for (Claim claim : claims) {
+                if (!claim.debit) {
+                    AccountState part = state(claim.slot);
+                    changes.set(claim.slot, part.withBalance(part.getBalance().add(amount)));
+                }
+            }
+        }
+
+        void commit() {
+            long committing = RequestTiming.begin();
+            long sequence = sequencer.begin();
+            try {
+                held = false;
+                for (int slot = 0; slot < nodes.size(); slot++) {
+                    VersionedAccount.Version previous = reserved.get(slot);
+                    AccountState changed = changes.get(slot);
+                    if (changed != null && !changed.equals(previous.state())) {
+                        nodes.get(slot).install(previous, sequence, changed);
+                    } else {
+                        nodes.get(slot).release(previous);
+                        changes.set(slot, null);
+                    }
+                }
+            } finally {
+                sequencer.complete(sequence);
+            }
+            for (int slot = 0; slot < nodes.size(); slot++) {
+                AccountState changed = changes.get(slot);
+                if (changed != null) {
+                    nodes.get(slot).prune(sequence, properties.getRetainedCommits());
+                    notifyCommitted(reserved.get(slot).state(), changed, transactionId);
+                }
+            }
+            RequestTiming.end(RequestPhase.COMMIT, committing);
+        }
+
+        @Override
+        public void close() {
+            if (held) {
+                for (int slot = nodes.size() - 1; slot >= 0; slot--) {
+                    nodes.get(slot).release(reserved.get(slot));
+                }
+                held = false;
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package guru.qa.restbackend.storage;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Настройки хранилища счетов (префикс bank.storage.accounts).
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "bank.storage.accounts")
+public class AccountStoreProperties {
+
+    /**
+     * Глубина повторяемого чтения: сколько последних фиксаций доступно через ?asOf=.
+     */
+    private long retainedCommits = 100_000;
+
+    /**
+     * Способ изменения одного счета: CAS - без блокировок с повтором при конфликте,
+     * LOCK - под монитором счета.
+     */
+    private AccountUpdateMode updateMode = AccountUpdateMode.CAS;
+
+    /**
+     * Разрешить перевод горячих счетов в режим полос: баланс делится на несколько частей,
+     * зачисления идут в любую из них, списания занимают между частями при нехватке.
+     */
+    private boolean hotStripingEnabled = false;
+
+    /**
+     * Число полос баланса горячего счета.
+     */
+    private int hotStripes = 8;
+
+    /**
+     * Порог автоматического перевода: столько конфликтов на счете за hot-promotion-window.
+     */
+    private int hotPromotionThreshold = 1000;
+
+    /**
+     * Окно измерения конфликтов для автоматического перевода.
+     */
+    private Duration hotPromotionWindow = Duration.ofSeconds(1);
+
+    /**
+     * Счета, заранее известные как горячие (например, счета сбора платежей): переводятся сразу при создании.
+     */
+    private Set<Long> hotAccounts = new HashSet<>();
+}
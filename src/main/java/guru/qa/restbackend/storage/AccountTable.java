@@ -0,0 +1,234 @@
+package guru.qa.restbackend.storage;
+
+import guru.qa.restbackend.domain.AccountStatus;
+import guru.qa.restbackend.domain.BalanceTotals;
+import org.springframework.stereotype.Component;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+/**
+ * Колоночная таблица счетов для отчетов, которые проходят по всем счетам.
+ * <p>
+ * Каждое поле хранится в отдельном массиве примитивов. Колонки: баланс в копейках, номер статуса,
+ * код валюты и время открытия в секундах. Строка таблицы - ID счета. ID выдаются подряд, поэтому
+ * строки лежат страницами по {@link #PAGE_SIZE} без индекса. Счета с ID от {@link #DENSE_LIMIT}
+ * (загруженные с произвольными ID) хранятся отдельными строками в упорядоченной карте, чтобы далекий
+ * ID не растягивал массив страниц. Сумма балансов или фильтр по статусу -
+ * последовательный проход по нескольким массивам, без перехода по ссылкам к объектам счетов. Объект
+ * {@link guru.qa.restbackend.domain.Account} строится только для найденных счетов, через хранилище.
+ * <p>
+ * Таблица заполняется из фиксаций хранилища ({@link AccountCommitListener}), поэтому работает с любой
+ * реализацией. Баланс меняется атомарным прибавлением разницы, поэтому части счета в режиме полос
+ * складываются. Как и у {@link guru.qa.restbackend.stats.LedgerStatistics}, проход не согласованный
+ * снимок: точные итоги на момент снимка дает /account/totals?asOf=.
+ */
+@Component
+public class AccountTable implements AccountCommitListener {
+
+    static final int PAGE_BITS = 16;
+    static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int ROW_MASK = PAGE_SIZE - 1;
+    // Страницы - для ID меньше 2^30, дальше - разреженные строки
+    private static final int MAX_PAGES = 1 << 14;
+    static final long DENSE_LIMIT = (long) MAX_PAGES << PAGE_BITS;
+    // Номер статуса в колонке на 1 больше ordinal, 0 - строки нет
+    private static final byte ABSENT = 0;
+    private static final VarHandle LONGS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final VarHandle BYTES = MethodHandles.arrayElementVarHandle(byte[].class);
+
+    private volatile Page[] pages = new Page[0];
+    private final ConcurrentSkipListMap<Long, Row> sparse = new ConcurrentSkipListMap<>();
+    // Коды валют - номера в currencies; добавление под блокировкой this
+    private volatile String[] currencies = new String[0];
+    private final Map<String, Short> currencyCodes = new ConcurrentHashMap<>();
+
+    /**
+     * Страница таблицы: колонки строк с ID [номер страницы * PAGE_SIZE, (номер + 1) * PAGE_SIZE).
+     */
+    private static final class Page {
+        final long[] balanceMinor = new long[PAGE_SIZE];
+        final long[] createdAtEpoch = new long[PAGE_SIZE];
+        final short[] currency = new short[PAGE_SIZE];
+        final byte[] status = new byte[PAGE_SIZE];
+    }
+
+    /**
+     * Строка счета с ID вне страниц. Поля пишутся так же, как колонки страницы: статус последним.
+     */
+    private static final class Row {
+        final AtomicLong balanceMinor = new AtomicLong();
+        long createdAtEpoch;
+        short currency;
+        volatile byte status;
+    }
+
+    @Override
+    public void committed(AccountState previous, AccountState current) {
+        if (previous != null
+                && previous.getStatus() == current.getStatus()
+                && previous.getCurrency().equals(current.getCurrency())
+                && previous.getBalance().compareTo(current.getBalance()) == 0) {
+            return;
+        }
+        long id = current.getId();
+        long delta = toMinor(current.getBalance()) - (previous != null ? toMinor(previous.getBalance()) : 0);
+        short currency = currencyCode(current.getCurrency());
+        LocalDateTime createdAt = current.getCreatedAt();
+        long createdAtEpoch = createdAt != null ? createdAt.toEpochSecond(ZoneOffset.UTC) : 0;
+        byte status = (byte) (current.getStatus().ordinal() + 1);
+        if (id < 0 || id >= DENSE_LIMIT) {
+            Row row = sparse.computeIfAbsent(id, key -> new Row());
+            row.balanceMinor.addAndGet(delta);
+            row.currency = currency;
+            row.createdAtEpoch = createdAtEpoch;
+            row.status = status;
+            return;
+        }
+        Page page = page(id);
+        int row = (int) (id & ROW_MASK);
+        if (delta != 0) {
+            LONGS.getAndAdd(page.balanceMinor, row, delta);
+        }
+        page.currency[row] = currency;
+        page.createdAtEpoch[row] = createdAtEpoch;
+        // Статус - последним: строка видна в проходах, когда остальные колонки уже записаны
+        BYTES.setRelease(page.status, row, status);
+    }
+
+    /**
+     * Суммы балансов по валютам и количество счетов с указанным статусом, открытых до указанного времени.
+     *
+     * @param status       статус; null - все счета
+     * @param openedBefore граница времени открытия (не включая); null - без ограничения
+     */
+    public BalanceTotals totals(AccountStatus status, LocalDateTime openedBefore) {
+        byte wanted = status != null ? (byte) (status.ordinal() + 1) : ABSENT;
+        long cutoff = openedBefore != null ? openedBefore.toEpochSecond(ZoneOffset.UTC) : Long.MAX_VALUE;
+        String[] names = currencies;
+        long[] sums = new long[names.length];
+        long accounts = 0;
+        for (Page page : pages) {
+            if (page == null) {
+                continue;
+            }
+            byte[] statuses = page.status;
+            long[] balances = page.balanceMinor;
+            long[] openedAt = page.createdAtEpoch;
+            short[] codes = page.currency;
+            for (int row = 0; row < PAGE_SIZE; row++) {
+                byte value = statuses[row];
+                // Валюта, появившаяся во время прохода, - изменение в полете
+                if ((value == wanted || wanted == ABSENT && value != ABSENT) && openedAt[row] < cutoff
+                        && codes[row] < sums.length) {
+                    sums[codes[row]] += balances[row];
+                    accounts++;
+                }
+            }
+        }
+        for (Row row : sparse.values()) {
+            byte value = row.status;
+            if ((value == wanted || wanted == ABSENT && value != ABSENT) && row.createdAtEpoch < cutoff
+                    && row.currency < sums.length) {
+                sums[row.currency] += row.balanceMinor.get();
+                accounts++;
+            }
+        }
+
+        Map<String, BigDecimal> balances = new TreeMap<>();
+        for (int code = 0; code < names.length; code++) {
+            balances.put(names[code], BigDecimal.valueOf(sums[code], 2));
+        }
+        return BalanceTotals.builder()
+                .status(status)
+                .openedBefore(openedBefore)
+                .accounts(accounts)
+                .balancesByCurrency(balances)
+                .build();
+    }
+
+    /**
+     * ID счетов с указанным статусом по возрастанию.
+     */
+    public void forEachId(AccountStatus status, LongConsumer action) {
+        byte wanted = (byte) (status.ordinal() + 1);
+        Page[] snapshot = pages;
+        for (int index = 0; index < snapshot.length; index++) {
+            Page page = snapshot[index];
+            if (page == null) {
+                continue;
+            }
+            byte[] statuses = page.status;
+            long base = (long) index << PAGE_BITS;
+            for (int row = 0; row < PAGE_SIZE; row++) {
+                if (statuses[row] == wanted) {
+                    action.accept(base + row);
+                }
+            }
+        }
+        // ID строк больше ID страниц
+        sparse.forEach((id, row) -> {
+            if (row.status == wanted) {
+                action.accept(id);
+            }
+        });
+    }
+
+    private Page page(long accountId) {
+        int index = (int) (accountId >>> PAGE_BITS);
+        Page[] snapshot = pages;
+        if (index < snapshot.length && snapshot[index] != null) {
+            return snapshot[index];
+        }
+        synchronized (this) {
+            snapshot = pages;
+            if (index >= snapshot.length) {
+                snapshot = Arrays.copyOf(snapshot, Math.max(index + 1, snapshot.length * 2));
+            } else if (snapshot[index] != null) {
+                return snapshot[index];
+            } else {
+                snapshot = snapshot.clone();
+            }
+            Page page = new Page();
+            snapshot[index] = page;
+            pages = snapshot;
+            return page;
+        }
+    }
+
+    private short currencyCode(String currency) {
+        Short code = currencyCodes.get(currency);
+        if (code != null) {
+            return code;
+        }
+        synchronized (this) {
+            code = currencyCodes.get(currency);
+            if (code == null) {
+                code = (short) currencies.length;
+                String[] names = Arrays.copyOf(currencies, currencies.length + 1);
+                names[code] = currency;
+                currencies = names;
+                currencyCodes.put(currency, code);
+            }
+            return code;
+        }
+    }
+
+    /**
+     * Сумма в минимальных единицах валюты (копейках/центах).
+     */
+    private static long toMinor(BigDecimal amount) {
+        return amount.movePointRight(2).setScale(0, RoundingMode.HALF_EVEN).longValueExact();
+    }
+}
@@ -0,0 +1,6 @@
+package guru.qa.restbackend.storage;
+
+public enum AccountUpdateMode {
+    CAS,
+    LOCK
+}
@@ -0,0 +1,77 @@
+package guru.qa.restbackend.storage;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Глобальная последовательность фиксаций и водяной знак видимости.
+ * <p>
+ * Номер фиксации выдается под блокировками изменяемых счетов, поэтому версии одного счета всегда
+ * упорядочены по номеру. Фиксации разных счетов завершаются в произвольном порядке; водяной знак -
+ * наибольший номер, до которого включительно все фиксации завершены. Снимок на водяном знаке
+ * не видит половины ни одной операции.
+ */
+final class CommitSequencer {
+
+    // Максимум одновременно незавершенных фиксаций (размер кольца отметок о завершении)
+    private static final int WINDOW = 1 << 16;
+    private static final int MASK = WINDOW - 1;
+
+    private final AtomicLong issued = new AtomicLong();
+    private final AtomicLong watermark = new AtomicLong();
+    private final AtomicLongArray completed = new AtomicLongArray(WINDOW);
+
+    /**
+     * Выдача следующего номера фиксации.
+     */
+    long begin() {
+        long sequence = issued.incrementAndGet();
+        while (sequence - watermark.get() > WINDOW) {
+            // Ячейка кольца еще занята фиксацией, отставшей на целое окно
+            Thread.onSpinWait();
+        }
+        return sequence;
+    }
+
+    /**
+     * Отметка о завершении фиксации (все ее версии установлены) и продвижение водяного знака.
+     */
+    void complete(long sequence) {
+        completed.set((int) sequence & MASK, sequence);
+        long current;
+        while (completed.get((int) ((current = watermark.get()) + 1) & MASK) == current + 1) {
+            watermark.compareAndSet(current, current + 1);
+        }
+    }
+
+    /**
+     * Номер, все фиксации до которого включительно видны читателям.
+     */
+    long watermark() {
+        return watermark.get();
+    }
+
+    /**
+     * Последний выданный номер.
+     */
+    long issued() {
+        return issued.get();
+    }
+
+    /**
+     * Номер снимка, включающего все фиксации, начатые до вызова. Ждет только установки версий
+     * уже начатых фиксаций (без бизнес-логики и ввода-вывода), писателей не блокирует.
+     */
+    long stable() {
+        long target = issued.get();
+        int spins = 0;
+        while (watermark.get() < target) {
+            if (++spins < 100) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+        return target;
+    }
+}
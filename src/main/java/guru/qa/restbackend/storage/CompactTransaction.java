@@ -0,0 +1,118 @@
+package guru.qa.restbackend.storage;
+
+import guru.qa.restbackend.domain.Transaction;
+import guru.qa.restbackend.domain.TransactionStatus;
+import guru.qa.restbackend.domain.TransactionType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+
+/**
+ * Транзакция в памяти хранилища: примитивные поля вместо DTO {@link Transaction}.
+ * <p>
+ * DTO держит три Long, LocalDateTime (три объекта), BigDecimal и собственную строку описания - около
+ * 300 байт кучи на транзакцию. Здесь ID счетов - long (0 - нет счета, как в {@link TransactionCodec}),
+ * сумма - unscaled long и масштаб (DECIMAL(19, 2) помещается), время - секунды и наносекунды
+ * (LocalDateTime условно в UTC), тип и статус - номера перечислений, описание - общий экземпляр
+ * из {@link StringDictionary}. Вместе 64 байта. DTO создается только при чтении ({@link #toTransaction()}).
+ */
+final class CompactTransaction {
+
+    static final long NO_ACCOUNT = 0L;
+    private static final byte NULL_ENUM = -1;
+    private static final TransactionType[] TYPES = TransactionType.values();
+    private static final TransactionStatus[] STATUSES = TransactionStatus.values();
+
+    final long id;
+    final long fromAccountId;
+    final long toAccountId;
+    private final long amountUnscaled;
+    private final long epochSecond;
+    private final int nano;
+    private final String description;
+    private final byte amountScale;
+    private final byte type;
+    private final byte status;
+
+    private CompactTransaction(Transaction transaction, StringDictionary descriptions) {
+        this.id = transaction.getId();
+        this.fromAccountId = transaction.getFromAccountId() != null ? transaction.getFromAccountId() : NO_ACCOUNT;
+        this.toAccountId = transaction.getToAccountId() != null ? transaction.getToAccountId() : NO_ACCOUNT;
+        // Больше 18 знаков - ArithmeticException: такую сумму не примет и хранилище H2
+        this.amountUnscaled = transaction.getAmount().unscaledValue().longValueExact();
+        this.amountScale = (byte) transaction.getAmount().scale();
+        this.epochSecond = transaction.getTimestamp().toEpochSecond(ZoneOffset.UTC);
+        this.nano = transaction.getTimestamp().getNano();
+        this.description = descriptions.intern(transaction.getDescription());
+        this.type = transaction.getType() != null ? (byte) transaction.getType().ordinal() : NULL_ENUM;
+        this.status = transaction.getStatus() != null ? (byte) transaction.getStatus().ordinal() : NULL_ENUM;
+    }
+
+    static CompactTransaction of(Transaction transaction, StringDictionary descriptions) {
+        return new CompactTransaction(transaction, descriptions);
+    }
+
+    boolean involves(long accountId) {
+        return fromAccountId == accountId || toAccountId == accountId;
+    }
+
+    /**
+     * Метка времени раньше, чем у other.
+     */
+    boolean isBefore(CompactTransaction other) {
+        return epochSecond < other.epochSecond || (epochSecond == other.epochSecond && nano < other.nano);
+    }
+
+    /**
+     * Метка времени раньше time (без создания LocalDateTime).
+     */
+    boolean isBefore(LocalDateTime time) {
+        long second = time.toEpochSecond(ZoneOffset.UTC);
+        return epochSecond < second || (epochSecond == second && nano < time.getNano());
+    }
+
+    Transaction toTransaction() {
+        return Transaction.builder()
+                .id(id)
+                .type(type != NULL_ENUM ? TYPES[type] : null)
+                .amount(BigDecimal.valueOf(amountUnscaled, amountScale))
+                .fromAccountId(fromAccountId != NO_ACCOUNT ? fromAccountId : null)
+                .toAccountId(toAccountId != NO_ACCOUNT ? toAccountId : null)
+                .timestamp(LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC))
+                .description(description)
+                .status(status != NULL_ENUM ? STATUSES[status] : null)
+                .build();
+    }
+
+    /**
+     * Коллекция DTO поверх записей: DTO создаются по одному при обходе, а не все сразу.
+     */
+    static Collection<Transaction> view(Collection<CompactTransaction> records) {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<Transaction> iterator() {
+                Iterator<CompactTransaction> iterator = records.iterator();
+                return new Iterator<>() {
+                    @Override
+                    public boolean hasNext() {
+                        return iterator.hasNext();
+                    }
+
+                    @Override
+                    public Transaction next() {
+                        return iterator.next().toTransaction();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return records.size();
+            }
+        };
+    }
+}
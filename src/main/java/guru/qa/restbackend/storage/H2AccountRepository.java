@@ -0,0 +1,629 @@
+package guru.qa.restbackend.storage;
+
+import guru.qa.restbackend.domain.Account;
+import guru.qa.restbackend.domain.AccountStatus;
+import guru.qa.restbackend.domain.RequestPhase;
+import guru.qa.restbackend.domain.Transaction;
+import guru.qa.restbackend.exception.AccountNotFoundException;
+import guru.qa.restbackend.exception.SnapshotUnavailableException;
+import guru.qa.restbackend.jfr.AccountLockEvent;
+import guru.qa.restbackend.monitoring.ContentionProbe;
+import guru.qa.restbackend.monitoring.RequestTiming;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Хранилище счетов во встроенной базе H2 (bank.storage.type=H2).
+ * <p>
+ * Текущее состояние - таблица accounts. Баланс меняется одним условным UPDATE
+ * ({@code balance = balance - ? ... AND balance - held >= ?}): проверка средств и списание выполняются базой
+ * под блокировкой строки, так что гонки чтение-изменение-запись нет. Новое состояние читается тем же
+ * оператором через FINAL TABLE. Перевод меняет обе строки в одной транзакции, в порядке возрастания ID.
+ * Строка транзакции операции вставляется в ту же транзакцию базы ({@link #storesTransactions()}):
+ * баланс и история фиксируются вместе, и сбой между ними не оставит перевода без записи.
+ * <p>
+ * Для повторяемого чтения ?asOf= каждая фиксация дописывает версии измененных счетов в account_versions
+ * с номером из {@link CommitSequencer}; номер выдается под блокировками строк и видим читателям только
+ * после фиксации транзакции. Версии глубже bank.storage.accounts.retained-commits периодически удаляются.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "bank.storage", name = "type", havingValue = "H2")
+public class H2AccountRepository implements AccountRepository {
+
+    private static final String COLUMNS = "id, account_number, balance, currency, status, created_at, owner_name, held";
+    private static final String VERSION_COLUMNS =
+            "account_id, account_number, balance, currency, status, created_at, owner_name, held";
+
+    private static final String SELECT = "SELECT " + COLUMNS + " FROM accounts WHERE id = ?";
+    private static final String SELECT_IDS = "SELECT id FROM accounts WHERE id BETWEEN ? AND ?";
+    private static final String INSERT = "INSERT INTO accounts (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String DEBIT = "SELECT " + COLUMNS + " FROM FINAL TABLE ("
+            + "UPDATE accounts SET balance = balance - ? WHERE id = ? AND status = ? AND balance - held >= ?)";
+    private static final String CREDIT = "SELECT " + COLUMNS + " FROM FINAL TABLE ("
+            + "UPDATE accounts SET balance = balance + ? WHERE id = ? AND status = ?)";
+    // Замена строки, только если баланс, холды, статус и владелец не изменились после чтения
+    private static final String REPLACE = "SELECT " + COLUMNS + " FROM FINAL TABLE ("
+            + "UPDATE accounts SET account_number = ?, balance = ?, currency = ?, status = ?, created_at = ?, "
+            + "owner_name = ?, held = ? WHERE id = ? AND balance = ? AND held = ? AND status = ? "
+            + "AND owner_name IS NOT DISTINCT FROM ?)";
+
+    private static final String INSERT_VERSION = "INSERT INTO account_versions (" + VERSION_COLUMNS + ", seq) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String SELECT_AT = "SELECT " + VERSION_COLUMNS + " FROM account_versions "
+            + "WHERE account_id = ? AND seq <= ? ORDER BY seq DESC LIMIT 1";
+    private static final String SELECT_ALL_AT = "SELECT " + VERSION_COLUMNS + " FROM account_versions v "
+            + "WHERE seq = (SELECT MAX(w.seq) FROM account_versions w WHERE w.account_id = v.account_id AND w.seq <= ?)";
+    private static final String SELECT_RANGE_AT = SELECT_ALL_AT + " AND account_id BETWEEN ? AND ? ORDER BY account_id";
+    // Удаляются версии, перекрытые более новой версией не позже горизонта: снимки от горизонта их не видят
+    private static final String PRUNE = "DELETE FROM account_versions v WHERE seq < ? AND EXISTS ("
+            + "SELECT 1 FROM account_versions w WHERE w.account_id = v.account_id AND w.seq > v.seq AND w.seq <= ?)";
+
+    private final DataSource dataSource;
+    private final AccountStoreProperties properties;
+    private final H2StorageProperties h2Properties;
+    private final List<AccountCommitListener> listeners;
+    private final CommitSequencer sequencer = new CommitSequencer();
+    private final AtomicLong idGenerator = new AtomicLong(1);
+    private final AtomicLong prunedBefore = new AtomicLong();
+    private final LongAdder conflictRetries = new LongAdder();
+
+    @Autowired
+    public H2AccountRepository(DataSource dataSource, AccountStoreProperties properties,
+                               H2StorageProperties h2Properties, List<AccountCommitListener> listeners) {
+        this.dataSource = dataSource;
+        this.properties = properties;
+        this.h2Properties = h2Properties;
+        this.listeners = List.copyOf(listeners);
+    }
+
+    /**
+     * Продолжение с данными прошлого запуска: генератор ID сдвигается за максимальный ID,
+     * история версий заменяется текущим состоянием с номером 0, подписчики получают все счета.
+     * Холды живут только в памяти, поэтому суммы холдов прошлого запуска снимаются.
+     */
+    @PostConstruct
+    public void init() {
+        List<AccountState> existing = inTransaction("Не удалось прочитать счета", connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate("UPDATE accounts SET held = 0 WHERE held <> 0");
+                statement.executeUpdate("DELETE FROM account_versions");
+                statement.executeUpdate("INSERT INTO account_versions (" + VERSION_COLUMNS + ", seq) SELECT "
+                        + COLUMNS + ", 0 FROM accounts");
+                List<AccountState> states = new ArrayList<>();
+                try (ResultSet rows = statement.executeQuery("SELECT " + COLUMNS + " FROM accounts")) {
+                    while (rows.next()) {
+                        states.add(read(rows));
+                    }
+                }
+                return states;
+            }
+        });
+        for (AccountState state : existing) {
+            idGenerator.accumulateAndGet(state.getId() + 1, Math::max);
+            notifyCommitted(null, state, NO_TRANSACTION);
+        }
+        if (!existing.isEmpty()) {
+            log.info("Хранилище H2: продолжение с {} счетами прошлого запуска", existing.size());
+        }
+    }
+
+    @Override
+    public long nextId() {
+        return idGenerator.getAndIncrement();
+    }
+
+    @Override
+    public long reserveIds(long count) {
+        return idGenerator.getAndAdd(count);
+    }
+
+    @Override
+    public long lastId() {
+        return idGenerator.get() - 1;
+    }
+
+    /**
+     * Пакетная вставка: строки и их первые версии пишутся пакетами по bank.storage.h2.batch-size
+     * в одной транзакции с одним номером фиксации.
+     */
+    @Override
+    public List<Account> insertAll(Collection<Account> batch) {
+        if (batch.isEmpty()) {
+            return List.of();
+        }
+        long minId = Long.MAX_VALUE;
+        long maxId = 0;
+        for (Account account : batch) {
+            minId = Math.min(minId, account.getId());
+            maxId = Math.max(maxId, account.getId());
+        }
+        // Генератор никогда не уменьшается
+        idGenerator.accumulateAndGet(maxId + 1, Math::max);
+
+        long fromId = minId;
+        long toId = maxId;
+        List<Account> conflicts = new ArrayList<>();
+        List<AccountState> inserted = inTransaction("Не удалось добавить счета", connection -> {
+            Set<Long> taken = new HashSet<>();
+            try (PreparedStatement select = connection.prepareStatement(SELECT_IDS)) {
+                select.setLong(1, fromId);
+                select.setLong(2, toId);
+                try (ResultSet rows = select.executeQuery()) {
+                    while (rows.next()) {
+                        taken.add(rows.getLong(1));
+                    }
+                }
+            }
+            List<AccountState> states = new ArrayList<>(batch.size());
+            try (PreparedStatement insert = connection.prepareStatement(INSERT)) {
+                for (Account account : batch) {
+                    if (!taken.add(account.getId())) {
+                        conflicts.add(account);
+                        continue;
+                    }
+                    AccountState state = AccountState.of(account);
+                    bindRow(insert, state);
+                    insert.addBatch();
+                    states.add(state);
+                    if (states.size() % h2Properties.getBatchSize() == 0) {
+                        insert.executeBatch();
+                    }
+                }
+                insert.executeBatch();
+            }
+            commit(connection, states, null);
+            return states;
+        });
+        for (AccountState state : inserted) {
+            notifyCommitted(null, state, NO_TRANSACTION);
+        }
+        return conflicts;
+    }
+
+    @Override
+    public void put(Account account) {
+        if (insertAll(List.of(account)).isEmpty()) {
+            return;
+        }
+        AccountState replacement = AccountState.of(account);
+        update(account.getId(), current -> replacement);
+    }
+
+    @Override
+    public Optional<Account> findLatest(Long accountId) {
+        return Optional.ofNullable(inTransaction("Не удалось прочитать счет " + accountId,
+                connection -> select(connection, accountId))).map(AccountState::toAccount);
+    }
+
+    @Override
+    public Optional<Account> findAt(Long accountId, long sequence) {
+        checkSequence(sequence);
+        AccountState state = inTransaction("Не удалось прочитать версию счета " + accountId, connection -> {
+            try (PreparedStatement select = connection.prepareStatement(SELECT_AT)) {
+                select.setLong(1, accountId);
+                select.setLong(2, sequence);
+                return single(select);
+            }
+        });
+        checkPruned(sequence);
+        return Optional.ofNullable(state).map(AccountState::toAccount);
+    }
+
+    @Override
+    public List<Account> findRange(long fromId, long toId, long sequence) {
+        checkSequence(sequence);
+        List<Account> result = new ArrayList<>();
+        inTransaction("Не удалось прочитать счета снимка " + sequence, connection -> {
+            try (PreparedStatement select = connection.prepareStatement(SELECT_RANGE_AT)) {
+                select.setLong(1, sequence);
+                select.setLong(2, fromId);
+                select.setLong(3, toId);
+                forEach(select, state -> result.add(state.toAccount()));
+            }
+            return null;
+        });
+        checkPruned(sequence);
+        return result;
+    }
+
+    /**
+     * Обход снимка: по каждому счету - версия с наибольшим номером не больше sequence.
+     */
+    @Override
+    public void forEachAt(long sequence, Consumer<Account> consumer) {
+        checkSequence(sequence);
+        List<Account> snapshot = new ArrayList<>();
+        inTransaction("Не удалось прочитать счета снимка " + sequence, connection -> {
+            try (PreparedStatement select = connection.prepareStatement(SELECT_ALL_AT)) {
+                select.setLong(1, sequence);
+                forEach(select, state -> snapshot.add(state.toAccount()));
+            }
+            return null;
+        });
+        // Снимок отдается только после проверки, что чистка версий его не задела
+        checkPruned(sequence);
+        snapshot.forEach(consumer);
+    }
+
+    @Override
+    public long currentSequence() {
+        return sequencer.stable();
+    }
+
+    @Override
+    public int size() {
+        return inTransaction("Не удалось посчитать счета", connection -> {
+            try (Statement statement = connection.createStatement();
+                 ResultSet rows = statement.executeQuery("SELECT COUNT(*) FROM accounts")) {
+                rows.next();
+                return rows.getInt(1);
+            }
+        });
+    }
+
+    /**
+     * Количество повторов изменений из-за конфликта с параллельной транзакцией.
+     */
+    public long getConflictRetries() {
+        return conflictRetries.sum();
+    }
+
+    /**
+     * Изменение счета: чтение, функция и условная замена строки, если баланс, статус и владелец
+     * с момента чтения не изменились; иначе повтор на свежем состоянии.
+     */
+    @Override
+    public AccountState update(Long accountId, long transactionId, UnaryOperator<AccountState> mutation) {
+        return update(accountId, transactionId, null, mutation);
+    }
+
+    @Override
+    public AccountState update(Long accountId, Transaction transaction, UnaryOperator<AccountState> mutation) {
+        return update(accountId, transaction.getId(), transaction, mutation);
+    }
+
+    @Override
+    public boolean storesTransactions() {
+        return true;
+    }
+
+    /**
+     * Изменение счета; строка row (если есть) вставляется в ту же фиксацию.
+     */
+    private AccountState update(Long accountId, long transactionId, Transaction row,
+                                UnaryOperator<AccountState> mutation) {
+        while (true) {
+            Change change = inTransaction("Не удалось изменить счет " + accountId, connection -> {
+                AccountState current = require(connection, accountId);
+                AccountState next = mutation.apply(current);
+                if (next.equals(current)) {
+                    if (row != null) {
+                        H2TransactionRepository.insert(connection, row);
+                    }
+                    return new Change(current, current);
+                }
+                AccountState updated;
+                try (PreparedStatement replace = connection.prepareStatement(REPLACE)) {
+                    bindFields(replace, 1, next);
+                    replace.setLong(8, accountId);
+                    replace.setBigDecimal(9, current.getBalance());
+                    replace.setBigDecimal(10, current.getHeld());
+                    replace.setString(11, current.getStatus().name());
+                    replace.setString(12, current.getOwnerName());
+                    updated = single(replace);
+                }
+                if (updated == null) {
+                    connection.rollback();
+                    return null;
+                }
+                commit(connection, List.of(updated), row);
+                return new Change(current, updated);
+            });
+            if (change != null) {
+                if (change.previous != change.current) {
+                    notifyCommitted(change.previous, change.current, transactionId);
+                }
+                return change.current;
+            }
+            ContentionProbe.conflict();
+            conflictRetries.increment();
+        }
+    }
+
+    /**
+     * Перенос суммы условными UPDATE. Проверка получает прочитанные состояния; UPDATE применяется,
+     * только если статус счета с тех пор не изменился, а у счета списания хватает средств. Если списание
+     * не прошло при прежнем статусе - средств не хватает; если статус изменился - повтор с проверкой.
+     */
+    @Override
+    public AccountState move(Long debitId, Long creditId, BigDecimal amount, long transactionId,
+                             BiConsumer<AccountState, AccountState> check,
+                             Supplier<? extends RuntimeException> insufficientFunds) {
+        return move(debitId, creditId, amount, transactionId, null, check, insufficientFunds);
+    }
+
+    @Override
+    public AccountState move(Long debitId, Long creditId, BigDecimal amount, Transaction transaction,
+                             BiConsumer<AccountState, AccountState> check,
+                             Supplier<? extends RuntimeException> insufficientFunds) {
+        return move(debitId, creditId, amount, transaction.getId(), transaction, check, insufficientFunds);
+    }
+
+    private AccountState move(Long debitId, Long creditId, BigDecimal amount, long transactionId, Transaction row,
+                              BiConsumer<AccountState, AccountState> check,
+                              Supplier<? extends RuntimeException> insufficientFunds) {
+        while (true) {
+            List<Change> changes = inTransaction("Не удалось перенести сумму", connection -> {
+                AccountState debit = debitId != null ? require(connection, debitId) : null;
+                AccountState credit = creditId != null ? require(connection, creditId) : null;
+                check.accept(debit, credit);
+
+                // Строки блокируются в порядке возрастания ID: встречные переводы не ждут друг друга по кругу
+                boolean debitFirst = credit == null || (debit != null && debitId < creditId);
+                AccountState debited = null;
+                AccountState credited = null;
+                for (int step = 0; step < 2; step++) {
+                    if ((step == 0) == debitFirst) {
+                        if (debit == null) {
+                            continue;
+                        }
+                        debited = apply(connection, DEBIT, debit, amount, true);
+                        if (debited == null) {
+                            AccountState actual = require(connection, debitId);
+                            connection.rollback();
+                            if (actual.getStatus() == debit.getStatus()) {
+                                throw insufficientFunds.get();
+                            }
+                            return null;
+                        }
+                    } else if (credit != null) {
+                        credited = apply(connection, CREDIT, credit, amount, false);
+                        if (credited == null) {
+                            connection.rollback();
+                            return null;
+                        }
+                    }
+                }
+
+                List<Change> committed = new ArrayList<>(2);
+                if (debited != null) {
+                    committed.add(new Change(debited.withBalance(debited.getBalance().add(amount)), debited));
+                }
+                if (credited != null) {
+                    committed.add(new Change(credited.withBalance(credited.getBalance().subtract(amount)), credited));
+                }
+                List<AccountState> versions = new ArrayList<>(2);
+                committed.forEach(change -> versions.add(change.current));
+                commit(connection, versions, row);
+                return committed;
+            });
+            if (changes != null) {
+                for (Change change : changes) {
+                    notifyCommitted(change.previous, change.current, transactionId);
+                }
+                // Первым идет счет списания (если он есть)
+                return changes.get(0).current;
+            }
+            ContentionProbe.conflict();
+            conflictRetries.increment();
+        }
+    }
+
+    /**
+     * Удаление версий, вышедших за глубину повторяемого чтения. Горизонт поднимается до удаления,
+     * поэтому снимок старше горизонта не прочитается наполовину удаленным.
+     */
+    @Scheduled(fixedDelayString = "${bank.storage.h2.prune-interval:PT30S}")
+    public void pruneVersions() {
+        long horizon = sequencer.watermark() - properties.getRetainedCommits();
+        if (horizon <= prunedBefore.get()) {
+            return;
+        }
+        prunedBefore.accumulateAndGet(horizon, Math::max);
+        int removed = inTransaction("Не удалось удалить старые версии счетов", connection -> {
+            try (PreparedStatement prune = connection.prepareStatement(PRUNE)) {
+                prune.setLong(1, horizon);
+                prune.setLong(2, horizon);
+                return prune.executeUpdate();
+            }
+        });
+        if (removed > 0) {
+            log.debug("Удалено {} версий счетов старше фиксации {}", removed, horizon);
+        }
+    }
+
+    /**
+     * Версии измененных счетов с новым номером, строка транзакции row (если есть) и фиксация. Номер
+     * выдается, пока строки заблокированы, и завершается только после фиксации - снимок не увидит
+     * незафиксированных версий.
+     */
+    private void commit(Connection connection, List<AccountState> changed, Transaction row) throws SQLException {
+        long committing = RequestTiming.begin();
+        long sequence = sequencer.begin();
+        try {
+            if (row != null) {
+                H2TransactionRepository.insert(connection, row);
+            }
+            try (PreparedStatement insert = connection.prepareStatement(INSERT_VERSION)) {
+                int pending = 0;
+                for (AccountState state : changed) {
+                    bindRow(insert, state);
+                    insert.setLong(9, sequence);
+                    insert.addBatch();
+                    if (++pending % h2Properties.getBatchSize() == 0) {
+                        insert.executeBatch();
+                    }
+                }
+                insert.executeBatch();
+            }
+            connection.commit();
+        } finally {
+            sequencer.complete(sequence);
+            RequestTiming.end(RequestPhase.COMMIT, committing);
+        }
+    }
+
+    private static AccountState apply(Connection connection, String sql, AccountState state, BigDecimal amount,
+                                      boolean debit) throws SQLException {
+        // Условный UPDATE ждет блокировку строки, занятой параллельной транзакцией
+        long waiting = RequestTiming.begin();
+        AccountLockEvent lockEvent = new AccountLockEvent();
+        lockEvent.begin();
+        try (PreparedStatement update = connection.prepareStatement(sql)) {
+            update.setBigDecimal(1, amount);
+            update.setLong(2, state.getId());
+            update.setString(3, state.getStatus().name());
+            if (debit) {
+                update.setBigDecimal(4, amount);
+            }
+            return single(update);
+        } finally {
+            lockEvent.acquired(state.getId(), null, 1, AccountLockEvent.ROW);
+            RequestTiming.end(RequestPhase.LOCK, waiting);
+        }
+    }
+
+    private static AccountState select(Connection connection, Long accountId) throws SQLException {
+        try (PreparedStatement select = connection.prepareStatement(SELECT)) {
+            select.setLong(1, accountId);
+            return single(select);
+        }
+    }
+
+    private static AccountState require(Connection connection, Long accountId) throws SQLException {
+        long lookup = RequestTiming.begin();
+        AccountState state = select(connection, accountId);
+        RequestTiming.end(RequestPhase.LOOKUP, lookup);
+        if (state == null) {
+            throw new AccountNotFoundException(accountId);
+        }
+        return state;
+    }
+
+    private static AccountState single(PreparedStatement statement) throws SQLException {
+        try (ResultSet rows = statement.executeQuery()) {
+            return rows.next() ? read(rows) : null;
+        }
+    }
+
+    private static void forEach(PreparedStatement statement, Consumer<AccountState> consumer) throws SQLException {
+        try (ResultSet rows = statement.executeQuery()) {
+            while (rows.next()) {
+                consumer.accept(read(rows));
+            }
+        }
+    }
+
+    private static AccountState read(ResultSet rows) throws SQLException {
+        return AccountState.builder()
+                .id(rows.getLong(1))
+                .accountNumber(rows.getString(2))
+                .balance(rows.getBigDecimal(3))
+                .currency(rows.getString(4))
+                .status(AccountStatus.valueOf(rows.getString(5)))
+                .createdAt(rows.getObject(6, LocalDateTime.class))
+                .ownerName(rows.getString(7))
+                .held(rows.getBigDecimal(8))
+                .build();
+    }
+
+    /**
+     * Параметры строки счета в порядке {@link #COLUMNS}, начиная с первой позиции.
+     */
+    private static void bindRow(PreparedStatement statement, AccountState state) throws SQLException {
+        statement.setLong(1, state.getId());
+        bindFields(statement, 2, state);
+    }
+
+    /**
+     * Параметры семи столбцов счета после ID, начиная с позиции first.
+     */
+    private static void bindFields(PreparedStatement statement, int first, AccountState state) throws SQLException {
+        statement.setString(first, state.getAccountNumber());
+        statement.setBigDecimal(first + 1, state.getBalance());
+        statement.setString(first + 2, state.getCurrency());
+        statement.setString(first + 3, state.getStatus().name());
+        statement.setObject(first + 4, state.getCreatedAt());
+        statement.setString(first + 5, state.getOwnerName());
+        statement.setBigDecimal(first + 6, state.getHeld());
+    }
+
+    private void checkSequence(long sequence) {
+        if (sequence > sequencer.watermark()) {
+            throw new SnapshotUnavailableException(sequence, "изменения с этим номером еще не зафиксированы");
+        }
+        checkPruned(sequence);
+    }
+
+    private void checkPruned(long sequence) {
+        if (sequence < prunedBefore.get()) {
+            throw new SnapshotUnavailableException(sequence, "версии этого момента уже удалены");
+        }
+    }
+
+    private void notifyCommitted(AccountState previous, AccountState current, long transactionId) {
+        for (AccountCommitListener listener : listeners) {
+            try {
+                if (transactionId == NO_TRANSACTION) {
+                    listener.committed(previous, current);
+                } else {
+                    listener.committed(previous, current, transactionId);
+                }
+            } catch (RuntimeException e) {
+                // Изменение уже зафиксировано: сбой получателя не должен превращаться в ошибку операции
+                log.error("Получатель фиксаций {} не обработал счет {}", listener.getClass().getSimpleName(),
+                        current.getId(), e);
+            }
+        }
+    }
+
+    private <T> T inTransaction(String action, SqlWork<T> work) {
+        try (Connection connection = dataSource.getConnection()) {
+            try {
+                T result = work.run(connection);
+                connection.commit();
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new StorageAccessException(action, e);
+        }
+    }
+
+    @FunctionalInterface
+    interface SqlWork<T> {
+        T run(Connection connection) throws SQLException;
+    }
+
+    /**
+     * Зафиксированное изменение счета для подписчиков.
+     */
+    private static final class Change {
+        final AccountState previous;
+        final AccountState current;
+
+        Change(AccountState previous, AccountState current) {
+            this.previous = previous;
+            this.current = current;
+        }
+    }
+}
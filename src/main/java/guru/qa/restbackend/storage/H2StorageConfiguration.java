@@ -0,0 +1,94 @@
+package guru.qa.restbackend.storage;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.util.StreamUtils;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Встроенная база H2 в файловом режиме (bank.storage.type=H2): пул соединений и схема.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(prefix = "bank.storage", name = "type", havingValue = "H2")
+public class H2StorageConfiguration {
+
+    private static final String SCHEMA = "db/h2/schema.sql";
+
+    @Bean(destroyMethod = "close")
+    public HikariDataSource ledgerDataSource(H2StorageProperties properties) {
+        return createDataSource(properties);
+    }
+
+    /**
+     * Пул соединений к базе в каталоге bank.storage.h2.dir с подготовленной схемой.
+     * <p>
+     * Пул фиксированного размера без автофиксации: каждая операция хранилища - одна явная транзакция.
+     * Кэш разобранных запросов H2 живет в сессии, поэтому соединения пула не пересоздаются
+     * и повторная подготовка того же SQL обходится без разбора.
+     */
+    public static HikariDataSource createDataSource(H2StorageProperties properties) {
+        Path file = Paths.get(properties.getDir()).toAbsolutePath().resolve("ledger");
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("ledger-h2");
+        config.setJdbcUrl("jdbc:h2:file:" + file
+                + ";QUERY_CACHE_SIZE=" + properties.getQueryCacheSize()
+                + ";CACHE_SIZE=" + properties.getCacheSize().toKilobytes()
+                + ";LOCK_TIMEOUT=" + properties.getLockTimeout().toMillis()
+                + ";DB_CLOSE_ON_EXIT=FALSE");
+        config.setUsername("sa");
+        config.setPassword("");
+        config.setAutoCommit(false);
+        config.setTransactionIsolation("TRANSACTION_READ_COMMITTED");
+        config.setMaximumPoolSize(properties.getPoolSize());
+        config.setMinimumIdle(properties.getPoolSize());
+        config.setConnectionTimeout(properties.getConnectionTimeout().toMillis());
+
+        HikariDataSource dataSource = new HikariDataSource(config);
+        try {
+            initSchema(dataSource, properties.isResetOnStartup());
+        } catch (RuntimeException e) {
+            dataSource.close();
+            throw e;
+        }
+        log.info("Хранилище H2: {} (пул {} соединений)", file, properties.getPoolSize());
+        return dataSource;
+    }
+
+    private static void initSchema(DataSource dataSource, boolean reset) {
+        String script;
+        try {
+            script = StreamUtils.copyToString(new ClassPathResource(SCHEMA).getInputStream(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось прочитать схему " + SCHEMA, e);
+        }
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            if (reset) {
+                statement.execute("DROP ALL OBJECTS");
+            }
+            for (String sql : script.replaceAll("(?m)^\\s*--.*$", "").split(";")) {
+                if (!sql.isBlank()) {
+                    statement.execute(sql);
+                }
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            throw new StorageAccessException("Не удалось подготовить схему H2", e);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package guru.qa.restbackend.storage;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Настройки встроенной базы H2 (префикс bank.storage.h2, используются при bank.storage.type=H2).
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "bank.storage.h2")
+public class H2StorageProperties {
+
+    /**
+     * Каталог файлов базы (файловый режим, без отдельного сервера).
+     */
+    private String dir = "data/h2";
+
+    /**
+     * Пересоздать схему при старте. false - продолжить с данными прошлого запуска.
+     */
+    private boolean resetOnStartup = true;
+
+    /**
+     * Размер пула соединений (фиксированный: соединения не закрываются по простою,
+     * поэтому кэш разобранных запросов каждого соединения не теряется).
+     */
+    private int poolSize = 8;
+
+    /**
+     * Сколько ждать свободного соединения из пула.
+     */
+    private Duration connectionTimeout = Duration.ofSeconds(5);
+
+    /**
+     * Кэш разобранных запросов на одно соединение (QUERY_CACHE_SIZE): повторная подготовка
+     * того же SQL не разбирает и не планирует его заново.
+     */
+    private int queryCacheSize = 64;
+
+    /**
+     * Кэш страниц базы в памяти (CACHE_SIZE).
+     */
+    private DataSize cacheSize = DataSize.ofMegabytes(64);
+
+    /**
+     * Сколько ждать блокировки строки, занятой параллельной транзакцией (LOCK_TIMEOUT).
+     */
+    private Duration lockTimeout = Duration.ofSeconds(10);
+
+    /**
+     * Максимум строк в одном пакете INSERT (addBatch/executeBatch) и в одной транзакции загрузки.
+     */
+    private int batchSize = 1000;
+
+    /**
+     * Период удаления версий счетов, вышедших за глубину bank.storage.accounts.retained-commits.
+     */
+    private Duration pruneInterval = Duration.ofSeconds(30);
+}
@@ -0,0 +1,352 @@
+package guru.qa.restbackend.storage;
+
+import guru.qa.restbackend.domain.Transaction;
+import guru.qa.restbackend.domain.TransactionStatus;
+import guru.qa.restbackend.domain.TransactionType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Хранилище транзакций во встроенной базе H2 (bank.storage.type=H2).
+ * <p>
+ * Строки пишутся пакетными INSERT одним подготовленным оператором. Онлайн-операции сервиса пишет
+ * {@link H2AccountRepository}: строка транзакции вставляется на том же соединении и в той же фиксации,
+ * что и изменение балансов ({@link #insert(Connection, Transaction)}). Отдельный save группирует запись:
+ * каждая транзакция встает в очередь, и поток, захвативший блокировку записи, пишет всю накопившуюся
+ * очередь одним пакетом и одной фиксацией. Остальные ждут блокировку и, получив ее, обычно находят свою
+ * транзакцию уже записанной. Под нагрузкой пакеты растут сами, без таймеров; save возвращается только
+ * после фиксации, так что транзакция сразу видна в истории счета.
+ */
+@Component
+@ConditionalOnProperty(prefix = "bank.storage", name = "type", havingValue = "H2")
+public class H2TransactionRepository implements TransactionRepository {
+
+    private static final String COLUMNS = "id, type, amount, from_account_id, to_account_id, ts, description, status";
+    private static final String INSERT = "INSERT INTO transactions (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String SELECT_TAKEN_IDS = "SELECT id FROM transactions WHERE id = ANY(?)";
+    private static final String SELECT_PAGE = "SELECT " + COLUMNS + " FROM transactions WHERE id > ? ORDER BY id LIMIT ?";
+
+    // SQLSTATE нарушения уникальности ключа
+    private static final String DUPLICATE_KEY = "23505";
+
+    // Страница обхода всех транзакций для выгрузки
+    private static final int PAGE_SIZE = 10_000;
+
+    private final DataSource dataSource;
+    private final H2StorageProperties properties;
+    private final Queue<PendingWrite> pending = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    @Autowired
+    public H2TransactionRepository(DataSource dataSource, H2StorageProperties properties) {
+        this.dataSource = dataSource;
+        this.properties = properties;
+    }
+
+    /**
+     * Запись с группировкой: транзакция записывается пакетом вместе с параллельно сохраняемыми.
+     */
+    @Override
+    public void save(Transaction transaction) {
+        PendingWrite write = new PendingWrite(transaction);
+        pending.add(write);
+        writeLock.lock();
+        try {
+            while (!write.done) {
+                flushPending();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+        if (write.error != null) {
+            throw new StorageAccessException("Не удалось сохранить транзакцию " + transaction.getId(), write.error);
+        }
+    }
+
+    /**
+     * Пакетная загрузка одной фиксацией, строки пишутся пакетами по bank.storage.h2.batch-size.
+     * Занятые ID отсеиваются запросом до вставки; если параллельная загрузка заняла ID между запросом
+     * и вставкой, вставка откатывается и повторяется без них.
+     */
+    @Override
+    public List<Transaction> saveAll(Collection<Transaction> batch) {
+        List<Transaction> conflicts = new ArrayList<>();
+        Map<Long, Transaction> rows = new LinkedHashMap<>();
+        for (Transaction transaction : batch) {
+            if (rows.putIfAbsent(transaction.getId(), transaction) != null) {
+                conflicts.add(transaction);
+            }
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            while (true) {
+                try {
+                    for (Long taken : takenIds(connection, rows.keySet())) {
+                        conflicts.add(rows.remove(taken));
+                    }
+                    insertAll(connection, rows.values());
+                    connection.commit();
+                    return conflicts;
+                } catch (SQLException e) {
+                    connection.rollback();
+                    if (!isDuplicateKey(e)) {
+                        throw e;
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new StorageAccessException("Не удалось загрузить пакет транзакций", e);
+        }
+    }
+
+    @Override
+    public List<Transaction> findByAccount(Long accountId) {
+        return findByAccount(accountId, null, null);
+    }
+
+    /**
+     * История счета двумя поисками по индексам (как отправителя и как получателя), от новых к старым.
+     */
+    @Override
+    public List<Transaction> findByAccount(Long accountId, LocalDateTime from, LocalDateTime to) {
+        String period = (from != null ? " AND ts >= ?" : "") + (to != null ? " AND ts < ?" : "");
+        String sql = "SELECT " + COLUMNS + " FROM transactions WHERE from_account_id = ?" + period
+                + " UNION ALL SELECT " + COLUMNS + " FROM transactions WHERE to_account_id = ?" + period;
+        List<Transaction> result = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement select = connection.prepareStatement(sql)) {
+            int index = 1;
+            for (int side = 0; side < 2; side++) {
+                select.setLong(index++, accountId);
+                if (from != null) {
+                    select.setObject(index++, from);
+                }
+                if (to != null) {
+                    select.setObject(index++, to);
+                }
+            }
+            try (ResultSet rows = select.executeQuery()) {
+                while (rows.next()) {
+                    result.add(read(rows));
+                }
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            throw new StorageAccessException("Не удалось прочитать историю счета " + accountId, e);
+        }
+        result.sort(Comparator.comparingLong(TransactionIdGenerator::orderKey).reversed());
+        return result;
+    }
+
+    @Override
+    public long count() {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("SELECT COUNT(*) FROM transactions")) {
+            rows.next();
+            long count = rows.getLong(1);
+            connection.commit();
+            return count;
+        } catch (SQLException e) {
+            throw new StorageAccessException("Не удалось посчитать транзакции", e);
+        }
+    }
+
+    /**
+     * Один уровень - таблица. Транзакции отдаются страницами по возрастанию ID: соединение
+     * не удерживается на время всей выгрузки.
+     */
+    @Override
+    public void visitTiers(TierVisitor visitor) throws IOException {
+        visitor.visit(List.of(), new AbstractCollection<>() {
+            @Override
+            public Iterator<Transaction> iterator() {
+                return new PageIterator();
+            }
+
+            @Override
+            public int size() {
+                return (int) Math.min(count(), Integer.MAX_VALUE);
+            }
+        });
+    }
+
+    /**
+     * Запись всей очереди одним пакетом (вызывается под блокировкой записи).
+     */
+    private void flushPending() {
+        List<PendingWrite> batch = new ArrayList<>();
+        PendingWrite next;
+        while (batch.size() < properties.getBatchSize() && (next = pending.poll()) != null) {
+            batch.add(next);
+        }
+        SQLException error = null;
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement insert = connection.prepareStatement(INSERT)) {
+            try {
+                for (PendingWrite write : batch) {
+                    bind(insert, write.transaction);
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            error = e;
+        }
+        for (PendingWrite write : batch) {
+            write.error = error;
+            write.done = true;
+        }
+    }
+
+    private void insertAll(Connection connection, Collection<Transaction> rows) throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement(INSERT)) {
+            int count = 0;
+            for (Transaction transaction : rows) {
+                bind(insert, transaction);
+                insert.addBatch();
+                if (++count % properties.getBatchSize() == 0) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+    }
+
+    /**
+     * ID из ids, уже занятые в таблице (запросы по bank.storage.h2.batch-size ID).
+     */
+    private List<Long> takenIds(Connection connection, Collection<Long> ids) throws SQLException {
+        List<Long> taken = new ArrayList<>();
+        List<Long> all = new ArrayList<>(ids);
+        try (PreparedStatement select = connection.prepareStatement(SELECT_TAKEN_IDS)) {
+            for (int from = 0; from < all.size(); from += properties.getBatchSize()) {
+                List<Long> chunk = all.subList(from, Math.min(from + properties.getBatchSize(), all.size()));
+                select.setArray(1, connection.createArrayOf("BIGINT", chunk.toArray()));
+                try (ResultSet rows = select.executeQuery()) {
+                    while (rows.next()) {
+                        taken.add(rows.getLong(1));
+                    }
+                }
+            }
+        }
+        return taken;
+    }
+
+    private static boolean isDuplicateKey(SQLException e) {
+        for (SQLException next = e; next != null; next = next.getNextException()) {
+            if (DUPLICATE_KEY.equals(next.getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private List<Transaction> readPage(long afterId) {
+        List<Transaction> page = new ArrayList<>(PAGE_SIZE);
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement select = connection.prepareStatement(SELECT_PAGE)) {
+            select.setLong(1, afterId);
+            select.setInt(2, PAGE_SIZE);
+            try (ResultSet rows = select.executeQuery()) {
+                while (rows.next()) {
+                    page.add(read(rows));
+                }
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            throw new StorageAccessException("Не удалось прочитать транзакции после " + afterId, e);
+        }
+        return page;
+    }
+
+    /**
+     * Вставка строки транзакции в открытую транзакцию соединения; фиксирует вызывающий.
+     */
+    static void insert(Connection connection, Transaction transaction) throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement(INSERT)) {
+            bind(insert, transaction);
+            insert.executeUpdate();
+        }
+    }
+
+    private static void bind(PreparedStatement statement, Transaction transaction) throws SQLException {
+        statement.setLong(1, transaction.getId());
+        statement.setString(2, transaction.getType().name());
+        statement.setBigDecimal(3, transaction.getAmount());
+        statement.setObject(4, transaction.getFromAccountId(), Types.BIGINT);
+        statement.setObject(5, transaction.getToAccountId(), Types.BIGINT);
+        statement.setObject(6, transaction.getTimestamp());
+        statement.setString(7, transaction.getDescription());
+        statement.setString(8, transaction.getStatus().name());
+    }
+
+    private static Transaction read(ResultSet rows) throws SQLException {
+        return Transaction.builder()
+                .id(rows.getLong(1))
+                .type(TransactionType.valueOf(rows.getString(2)))
+                .amount(rows.getBigDecimal(3))
+                .fromAccountId(rows.getObject(4, Long.class))
+                .toAccountId(rows.getObject(5, Long.class))
+                .timestamp(rows.getObject(6, LocalDateTime.class))
+                .description(rows.getString(7))
+                .status(TransactionStatus.valueOf(rows.getString(8)))
+                .build();
+    }
+
+    /**
+     * Транзакция в очереди групповой записи. Поля пишет поток, записавший пакет, под блокировкой
+     * записи; владелец читает их после захвата той же блокировки.
+     */
+    private static final class PendingWrite {
+        final Transaction transaction;
+        boolean done;
+        SQLException error;
+
+        PendingWrite(Transaction transaction) {
+            this.transaction = transaction;
+        }
+    }
+
+    /**
+     * Обход таблицы по страницам (keyset по ID).
+     */
+    private final class PageIterator implements Iterator<Transaction> {
+        private Iterator<Transaction> page = Collections.emptyIterator();
+        private long lastId = Long.MIN_VALUE;
+        private boolean exhausted;
+
+        @Override
+        public boolean hasNext() {
+            if (!page.hasNext() && !exhausted) {
+                List<Transaction> next = readPage(lastId);
+                exhausted = next.size() < PAGE_SIZE;
+                if (!next.isEmpty()) {
+                    lastId = next.get(next.size() - 1).getId();
+                }
+                page = next.iterator();
+            }
+            return page.hasNext();
+        }
+
+        @Override
+        public Transaction next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return page.next();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package guru.qa.restbackend.storage;
+
+import guru.qa.restbackend.domain.Transaction;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Хранилище транзакций целиком в памяти (bank.storage.type=MEMORY).
+ * <p>
+ * Кроме основной карты по ID ведется индекс по счетам: у каждого счета свой список его транзакций
+ * (перевод попадает в списки обоих счетов), поэтому история счета читается без обхода всех транзакций.
+ * Списки ({@link AccountHistory}) держатся в порядке времени, поэтому выборка за период не зависит
+ * от длины истории.
+ * Объем кучи растет с длиной истории, на диск ничего не вытесняется, поэтому транзакции хранятся
+ * компактными записями ({@link CompactTransaction}), а DTO создаются при чтении.
+ */
+@Component
+@ConditionalOnProperty(prefix = "bank.storage", name = "type", havingValue = "MEMORY")
+public class InMemoryTransactionRepository implements TransactionRepository {
+
+    // Словарь описаний: значения по умолчанию и повторяющиеся пользовательские
+    private static final int DICTIONARY_CAPACITY = 4096;
+    private static final int DICTIONARY_MAX_LENGTH = 256;
+
+    private final Map<Long, CompactTransaction> transactions = new ConcurrentHashMap<>();
+    private final Map<Long, AccountHistory> byAccount = new ConcurrentHashMap<>();
+    private final StringDictionary descriptions = new StringDictionary(DICTIONARY_CAPACITY, DICTIONARY_MAX_LENGTH);
+    private final LongAdder count = new LongAdder();
+
+    @Override
+    public void save(Transaction transaction) {
+        store(CompactTransaction.of(transaction, descriptions));
+    }
+
+    @Override
+    public List<Transaction> saveAll(Collection<Transaction> batch) {
+        List<Transaction> conflicts = new ArrayList<>();
+        for (Transaction transaction : batch) {
+            if (!store(CompactTransaction.of(transaction, descriptions))) {
+                conflicts.add(transaction);
+            }
+        }
+        return conflicts;
+    }
+
+    @Override
+    public List<Transaction> findByAccount(Long accountId) {
+        return findByAccount(accountId, null, null);
+    }
+
+    @Override
+    public List<Transaction> findByAccount(Long accountId, LocalDateTime from, LocalDateTime to) {
+        AccountHistory history = byAccount.get(accountId);
+        if (history == null) {
+            return new ArrayList<>();
+        }
+        List<CompactTransaction> records = history.between(from, to);
+        List<Transaction> result = new ArrayList<>(records.size());
+        for (CompactTransaction record : records) {
+            result.add(record.toTransaction());
+        }
+        result.sort(Comparator.comparingLong(TransactionIdGenerator::orderKey).reversed());
+        return result;
+    }
+
+    @Override
+    public long count() {
+        return count.sum();
+    }
+
+    /**
+     * Единственный уровень - память: сегментов нет.
+     */
+    @Override
+    public void visitTiers(TierVisitor visitor) throws IOException {
+        visitor.visit(List.of(), CompactTransaction.view(transactions.values()));
+    }
+
+    /**
+     * Запись транзакции, если ее ID свободен.
+     */
+    private boolean store(CompactTransaction record) {
+        if (transactions.putIfAbsent(record.id, record) != null) {
+            return false;
+        }
+        count.increment();
+        index(record.fromAccountId, record);
+        index(record.toAccountId, record);
+        return true;
+    }
+
+    private void index(long accountId, CompactTransaction record) {
+        if (accountId == CompactTransaction.NO_ACCOUNT) {
+            return;
+        }
+        byAccount.computeIfAbsent(accountId, id -> new AccountHistory()).add(record);
+    }
+}
@@ -0,0 +1,12 @@
+package guru.qa.restbackend.storage;
+
+import java.sql.SQLException;
+
+/**
+ * Ошибка обращения к базе хранилища (непроверяемая обертка над {@link SQLException}).
+ */
+public class StorageAccessException extends RuntimeException {
+    public StorageAccessException(String message, SQLException cause) {
+        super(message + ": " + cause.getMessage(), cause);
+    }
+}
@@ -0,0 +1,48 @@
+package guru.qa.restbackend.storage;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Словарь повторяющихся строк: одинаковые значения заменяются одним общим экземпляром.
+ * <p>
+ * Описания транзакций - в основном несколько значений по умолчанию и немного повторяющихся
+ * пользовательских, но каждое пришедшее в запросе описание - новый объект строки. Словарь ограничен:
+ * строки длиннее maxLength и новые строки после заполнения хранятся как есть, поэтому уникальные
+ * описания не раздувают его. Потокобезопасен.
+ */
+final class StringDictionary {
+
+    private final Map<String, String> entries = new ConcurrentHashMap<>();
+    private final int capacity;
+    private final int maxLength;
+
+    StringDictionary(int capacity, int maxLength) {
+        this.capacity = capacity;
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * Общий экземпляр строки.
+     *
+     * @return экземпляр из словаря или сама строка, если ее нет в словаре и добавить нельзя
+     */
+    String intern(String value) {
+        if (value == null || value.length() > maxLength) {
+            return value;
+        }
+        String canonical = entries.get(value);
+        if (canonical != null) {
+            return canonical;
+        }
+        if (entries.size() >= capacity) {
+            return value;
+        }
+        canonical = entries.putIfAbsent(value, value);
+        return canonical != null ? canonical : value;
+    }
+
+    int size() {
+        return entries.size();
+    }
+}
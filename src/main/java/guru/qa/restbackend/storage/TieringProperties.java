@@ -0,0 +1,42 @@
+package guru.qa.restbackend.storage;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Настройки вытеснения старых транзакций в сегменты на диске (префикс bank.storage.tiering).
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "bank.storage.tiering")
+public class TieringProperties {
+
+    /**
+     * Включить вытеснение холодных транзакций.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Транзакции старше этого возраста переносятся из памяти в сегменты.
+     */
+    private Duration hotAge = Duration.ofDays(7);
+
+    /**
+     * Каталог файлов сегментов. Очищается при старте: журнал хранится в памяти,
+     * сегменты прошлого запуска ему не соответствуют.
+     */
+    private String dir = "data/segments";
+
+    /**
+     * Максимум транзакций в одном сегменте (ограничивает память на сортировку при записи).
+     */
+    private int maxSegmentTransactions = 1_000_000;
+
+    /**
+     * Количество записей в сжатом блоке: шаг разреженного индекса.
+     */
+    private int blockSize = 512;
+}
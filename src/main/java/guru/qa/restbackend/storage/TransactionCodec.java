@@ -0,0 +1,75 @@
+package guru.qa.restbackend.storage;
+
+import guru.qa.restbackend.domain.Transaction;
+import guru.qa.restbackend.domain.TransactionStatus;
+import guru.qa.restbackend.domain.TransactionType;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Двоичное представление транзакции в файлах сегментов.
+ * <p>
+ * Сумма хранится как масштаб + unscaled-значение, время - как секунды и наносекунды
+ * (LocalDateTime без часового пояса, поэтому смещение условно UTC), пустой ID счета - как 0.
+ */
+final class TransactionCodec {
+
+    private static final long NO_ACCOUNT = 0L;
+    private static final byte NULL_ENUM = -1;
+
+    private TransactionCodec() {
+    }
+
+    static void write(DataOutput out, Transaction transaction) throws IOException {
+        out.writeLong(transaction.getId());
+        out.writeByte(transaction.getType() != null ? transaction.getType().ordinal() : NULL_ENUM);
+
+        byte[] unscaled = transaction.getAmount().unscaledValue().toByteArray();
+        out.writeByte(transaction.getAmount().scale());
+        out.writeByte(unscaled.length);
+        out.write(unscaled);
+
+        out.writeLong(transaction.getFromAccountId() != null ? transaction.getFromAccountId() : NO_ACCOUNT);
+        out.writeLong(transaction.getToAccountId() != null ? transaction.getToAccountId() : NO_ACCOUNT);
+        out.writeLong(transaction.getTimestamp().toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(transaction.getTimestamp().getNano());
+        out.writeBoolean(transaction.getDescription() != null);
+        if (transaction.getDescription() != null) {
+            out.writeUTF(transaction.getDescription());
+        }
+        out.writeByte(transaction.getStatus() != null ? transaction.getStatus().ordinal() : NULL_ENUM);
+    }
+
+    static Transaction read(DataInput in) throws IOException {
+        long id = in.readLong();
+        byte type = in.readByte();
+
+        int scale = in.readByte();
+        byte[] unscaled = new byte[in.readUnsignedByte()];
+        in.readFully(unscaled);
+
+        long from = in.readLong();
+        long to = in.readLong();
+        long epochSecond = in.readLong();
+        int nano = in.readInt();
+        String description = in.readBoolean() ? in.readUTF() : null;
+        byte status = in.readByte();
+
+        return Transaction.builder()
+                .id(id)
+                .type(type != NULL_ENUM ? TransactionType.values()[type] : null)
+                .amount(new BigDecimal(new BigInteger(unscaled), scale))
+                .fromAccountId(from != NO_ACCOUNT ? from : null)
+                .toAccountId(to != NO_ACCOUNT ? to : null)
+                .timestamp(LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC))
+                .description(description)
+                .status(status != NULL_ENUM ? TransactionStatus.values()[status] : null)
+                .build();
+    }
+}
@@ -0,0 +1,169 @@
+package guru.qa.restbackend.storage;
+
+import guru.qa.restbackend.domain.Transaction;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Генератор 64-битных ID транзакций, упорядоченных по времени (в духе Snowflake).
+ * <p>
+ * Формат ID: [41 бит - миллисекунды от 2015-01-01Z][10 бит - шард][12 бит - номер в миллисекунде].
+ * Каждый поток закреплен за шардом и берет у него блоки по {@value #BLOCK_SIZE} номеров одним CAS,
+ * а внутри блока выдает ID без общих атомарных операций. Метка времени транзакции восстанавливается
+ * из ID, поэтому порядок ID совпадает с порядком времени, а история сортируется сравнением long.
+ * Если номера миллисекунды в шарде кончились, шард занимает следующую миллисекунду.
+ * <p>
+ * ID, загруженные из других систем (тестовые данные, импорт), могут не нести времени - для них
+ * ключ порядка строится из метки времени (см. {@link #orderKey(Transaction)}).
+ */
+@Component
+public class TransactionIdGenerator {
+
+    private static final long EPOCH_MILLIS = 1_420_070_400_000L; // 2015-01-01T00:00:00Z
+    private static final int SEQUENCE_BITS = 12;
+    private static final int SHARD_BITS = 10;
+    private static final int DISCRIMINATOR_BITS = SEQUENCE_BITS + SHARD_BITS;
+    private static final long SEQUENCE_LIMIT = 1L << SEQUENCE_BITS;
+    private static final int SHARDS = 1 << SHARD_BITS;
+    // В состоянии шарда номер хранится до SEQUENCE_LIMIT включительно (миллисекунда исчерпана)
+    private static final int STATE_SHIFT = SEQUENCE_BITS + 1;
+    private static final int BLOCK_SIZE = 64;
+    // Состояния шардов разнесены по разным кэш-линиям
+    private static final int SHARD_STRIDE = 8;
+    // ID меньше этой границы не несут времени (они меньше любого ID, выданного после 2015-01-01 00:04:22Z)
+    private static final long TIME_ORDERED_FLOOR = 1L << 40;
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    // Состояние шарда: (миллисекунда << STATE_SHIFT) | первый свободный номер
+    private final AtomicLongArray shards = new AtomicLongArray(SHARDS * SHARD_STRIDE);
+    private final AtomicInteger nextShard = new AtomicInteger();
+    private final ThreadLocal<Block> blocks = ThreadLocal.withInitial(
+            () -> new Block(nextShard.getAndIncrement() & (SHARDS - 1)));
+    // Нижняя граница миллисекунд новых ID: выше всех загруженных ID, несущих время
+    private final AtomicLong floorMillis = new AtomicLong();
+
+    /**
+     * Следующий ID транзакции.
+     */
+    public long nextId() {
+        Block block = blocks.get();
+        long now = System.currentTimeMillis() - EPOCH_MILLIS;
+        if (block.millis < now || block.next >= block.end) {
+            refill(block, now);
+        }
+        return (block.millis << DISCRIMINATOR_BITS) | ((long) block.shard << SEQUENCE_BITS) | block.next++;
+    }
+
+    /**
+     * Сдвиг генератора за загруженный ID, чтобы новые ID с ним не совпали.
+     */
+    public void advancePast(long loadedId) {
+        if (isTimeOrdered(loadedId)) {
+            floorMillis.accumulateAndGet((loadedId >>> DISCRIMINATOR_BITS) + 1, Math::max);
+        }
+    }
+
+    /**
+     * Метка времени, зашитая в ID (с точностью до миллисекунды).
+     */
+    public static LocalDateTime timestampOf(long id) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli((id >>> DISCRIMINATOR_BITS) + EPOCH_MILLIS), ZONE);
+    }
+
+    /**
+     * ID для транзакции с заданным временем, построенный вне генератора (массовая загрузка).
+     * Уникальность обеспечивает вызывающий: разные discriminator в пределах одной миллисекунды.
+     *
+     * @param timestamp     время транзакции, не раньше 2015-01-01
+     * @param discriminator номер транзакции в миллисекунде, меньше 2^22
+     */
+    public static long idAt(LocalDateTime timestamp, long discriminator) {
+        long millis = timestamp.atZone(ZONE).toInstant().toEpochMilli() - EPOCH_MILLIS;
+        if (millis < 0 || discriminator < 0 || discriminator >= 1L << DISCRIMINATOR_BITS) {
+            throw new IllegalArgumentException("Нельзя построить ID для " + timestamp + " / " + discriminator);
+        }
+        return (millis << DISCRIMINATOR_BITS) | discriminator;
+    }
+
+    /**
+     * Наибольший ключ порядка ({@link #orderKey(Transaction)}) у транзакций с меткой времени
+     * не позже timestamp (с точностью до миллисекунды); -1 для моментов до 2015-01-01.
+     */
+    public static long lastKeyAt(LocalDateTime timestamp) {
+        long millis = timestamp.atZone(ZONE).toInstant().toEpochMilli() - EPOCH_MILLIS;
+        return millis < 0 ? -1 : (millis << DISCRIMINATOR_BITS) | ((1L << DISCRIMINATOR_BITS) - 1);
+    }
+
+    /**
+     * Нижняя граница ID, которые генератор выдаст с этого момента: первый ID текущей миллисекунды.
+     */
+    public static long currentFloor() {
+        return (System.currentTimeMillis() - EPOCH_MILLIS) << DISCRIMINATOR_BITS;
+    }
+
+    /**
+     * Несет ли ID время (выдан генератором или построен idAt).
+     */
+    public static boolean isTimeOrdered(long id) {
+        return id >= TIME_ORDERED_FLOOR;
+    }
+
+    /**
+     * Ключ хронологического порядка транзакции: сам ID, если он несет время,
+     * иначе начало миллисекунды ее метки времени.
+     */
+    public static long orderKey(Transaction transaction) {
+        if (isTimeOrdered(transaction.getId())) {
+            return transaction.getId();
+        }
+        long millis = transaction.getTimestamp().atZone(ZONE).toInstant().toEpochMilli() - EPOCH_MILLIS;
+        return millis << DISCRIMINATOR_BITS;
+    }
+
+    /**
+     * Новый блок номеров шарда: в текущей миллисекунде, а если она занята - в следующей свободной.
+     */
+    private void refill(Block block, long now) {
+        int index = block.shard * SHARD_STRIDE;
+        long start = Math.max(now, floorMillis.get());
+        while (true) {
+            long state = shards.get(index);
+            long millis = state >>> STATE_SHIFT;
+            long first = state & ((1L << STATE_SHIFT) - 1);
+            if (millis < start) {
+                millis = start;
+                first = 0;
+            } else if (first >= SEQUENCE_LIMIT) {
+                millis++;
+                first = 0;
+            }
+            long end = Math.min(first + BLOCK_SIZE, SEQUENCE_LIMIT);
+            if (shards.compareAndSet(index, state, (millis << STATE_SHIFT) | end)) {
+                block.millis = millis;
+                block.next = first;
+                block.end = end;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Блок номеров, принадлежащий одному потоку.
+     */
+    private static final class Block {
+        final int shard;
+        long millis = -1;
+        long next;
+        long end;
+
+        Block(int shard) {
+            this.shard = shard;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package guru.qa.restbackend.storage;
+
+import guru.qa.restbackend.domain.Transaction;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Хранилище транзакций (SPI): пакетная запись, выборка по индексу счета и по периоду,
+ * согласованный обход для выгрузки. Реализация выбирается настройкой bank.storage.type.
+ */
+public interface TransactionRepository {
+
+    /**
+     * Сохранение новой транзакции.
+     */
+    void save(Transaction transaction);
+
+    /**
+     * Сохранение пачки транзакций. Транзакция с ID, который уже занят, не сохраняется
+     * и существующую не заменяет.
+     *
+     * @param batch транзакции с назначенными ID
+     * @return транзакции, не сохраненные из-за совпадения ID с существующими
+     */
+    List<Transaction> saveAll(Collection<Transaction> batch);
+
+    /**
+     * Все транзакции счета от новых к старым.
+     *
+     * @param accountId ID счета
+     * @return список транзакций, где счет - отправитель или получатель
+     */
+    List<Transaction> findByAccount(Long accountId);
+
+    /**
+     * Транзакции счета за период от новых к старым.
+     *
+     * @param accountId ID счета
+     * @param from      начало периода включительно (null - без ограничения)
+     * @param to        конец периода не включительно (null - без ограничения)
+     */
+    default List<Transaction> findByAccount(Long accountId, LocalDateTime from, LocalDateTime to) {
+        List<Transaction> result = findByAccount(accountId);
+        result.removeIf(transaction -> (from != null && transaction.getTimestamp().isBefore(from))
+                || (to != null && !transaction.getTimestamp().isBefore(to)));
+        return result;
+    }
+
+    /**
+     * Общее количество транзакций.
+     */
+    long count();
+
+    /**
+     * Обход всех транзакций, при котором каждая попадает ровно в один уровень хранения.
+     *
+     * @param visitor получатель снимка сегментов на диске (от старых к новым) и транзакций в памяти
+     */
+    void visitTiers(TierVisitor visitor) throws IOException;
+
+    /**
+     * Обработчик согласованного снимка уровней хранилища.
+     */
+    @FunctionalInterface
+    interface TierVisitor {
+        void visit(List<TransactionSegment> segments, Collection<Transaction> hot) throws IOException;
+    }
+}
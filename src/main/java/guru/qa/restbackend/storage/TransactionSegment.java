@@ -0,0 +1,365 @@
+package guru.qa.restbackend.storage;
+
+import guru.qa.restbackend.domain.Transaction;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Неизменяемый сегмент холодных транзакций на диске.
+ * <p>
+ * Записи отсортированы по ID счета, внутри счета - от новых к старым. Перевод хранится дважды:
+ * под счетом отправителя и под счетом получателя, поэтому история счета читается одним
+ * непрерывным диапазоном. Записи сжимаются блоками, в памяти держится только разреженный
+ * индекс: первый и последний ID счета каждого блока и его положение в файле. Отдельно хранится
+ * отсортированный список ID транзакций сегмента - для проверки совпадения ID при загрузке.
+ * <p>
+ * Формат файла: [сжатые блоки][ID транзакций][индекс блоков][метаданные][смещение индекса][MAGIC].
+ */
+public class TransactionSegment implements Closeable {
+
+    private static final int MAGIC = 0x54534732; // "TSG2"
+    private static final int TRAILER_SIZE = Long.BYTES + Integer.BYTES;
+
+    // Порядок записей: счет по возрастанию, затем от новых к старым (см. TransactionIdGenerator.orderKey)
+    private static final Comparator<Entry> ENTRY_ORDER = Comparator
+            .comparingLong((Entry entry) -> entry.accountId)
+            .thenComparing(Comparator.comparingLong((Entry entry) -> entry.orderKey).reversed())
+            .thenComparing(Comparator.comparingLong((Entry entry) -> entry.transaction.getId()).reversed());
+
+    private final Path path;
+    private final FileChannel channel;
+
+    // Разреженный индекс: по одному элементу на блок
+    private final long[] firstAccountIds;
+    private final long[] lastAccountIds;
+    private final long[] offsets;
+    private final int[] compressedLengths;
+    private final int[] rawLengths;
+
+    private final long transactionCount;
+    private final LocalDateTime minTimestamp;
+    private final LocalDateTime maxTimestamp;
+    // Отсортированные ID транзакций: смещение в файле и диапазон
+    private final long idsOffset;
+    private final long minId;
+    private final long maxId;
+
+    private TransactionSegment(Path path) throws IOException {
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+
+        ByteBuffer trailer = readFully(channel.size() - TRAILER_SIZE, TRAILER_SIZE);
+        long indexOffset = trailer.getLong();
+        if (trailer.getInt() != MAGIC) {
+            channel.close();
+            throw new IOException("Файл " + path + " не является сегментом транзакций");
+        }
+
+        DataInputStream index = new DataInputStream(new ByteArrayInputStream(
+                readFully(indexOffset, (int) (channel.size() - TRAILER_SIZE - indexOffset)).array()));
+        int blocks = index.readInt();
+        firstAccountIds = new long[blocks];
+        lastAccountIds = new long[blocks];
+        offsets = new long[blocks];
+        compressedLengths = new int[blocks];
+        rawLengths = new int[blocks];
+        for (int block = 0; block < blocks; block++) {
+            firstAccountIds[block] = index.readLong();
+            lastAccountIds[block] = index.readLong();
+            offsets[block] = index.readLong();
+            compressedLengths[block] = index.readInt();
+            rawLengths[block] = index.readInt();
+        }
+        transactionCount = index.readLong();
+        minTimestamp = LocalDateTime.ofEpochSecond(index.readLong(), 0, ZoneOffset.UTC);
+        maxTimestamp = LocalDateTime.ofEpochSecond(index.readLong(), 0, ZoneOffset.UTC);
+        idsOffset = index.readLong();
+        minId = index.readLong();
+        maxId = index.readLong();
+    }
+
+    /**
+     * Запись нового сегмента. Файл сначала пишется во временный, сбрасывается на диск
+     * и только потом атомарно переименовывается, поэтому недописанный сегмент никогда не открывается.
+     *
+     * @param path         путь к файлу сегмента
+     * @param transactions транзакции сегмента (непустой список)
+     * @param blockSize    количество записей в одном сжатом блоке
+     * @return открытый сегмент
+     */
+    public static TransactionSegment write(Path path, List<Transaction> transactions, int blockSize) throws IOException {
+        Entry[] entries = toEntries(transactions);
+
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileOutputStream file = new FileOutputStream(temp.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+
+            int blocks = (entries.length + blockSize - 1) / blockSize;
+            ByteArrayOutputStream index = new ByteArrayOutputStream(blocks * 36 + 32);
+            DataOutputStream indexOut = new DataOutputStream(index);
+            indexOut.writeInt(blocks);
+
+            ByteArrayOutputStream raw = new ByteArrayOutputStream(blockSize * 64);
+            DataOutputStream rawOut = new DataOutputStream(raw);
+            Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+            byte[] compressed = new byte[1 << 16];
+            long offset = 0;
+            try {
+                for (int from = 0; from < entries.length; from += blockSize) {
+                    int to = Math.min(from + blockSize, entries.length);
+                    raw.reset();
+                    for (int i = from; i < to; i++) {
+                        rawOut.writeLong(entries[i].accountId);
+                        TransactionCodec.write(rawOut, entries[i].transaction);
+                    }
+
+                    deflater.reset();
+                    deflater.setInput(raw.toByteArray());
+                    deflater.finish();
+                    int compressedLength = 0;
+                    while (!deflater.finished()) {
+                        int written = deflater.deflate(compressed);
+                        out.write(compressed, 0, written);
+                        compressedLength += written;
+                    }
+
+                    indexOut.writeLong(entries[from].accountId);
+                    indexOut.writeLong(entries[to - 1].accountId);
+                    indexOut.writeLong(offset);
+                    indexOut.writeInt(compressedLength);
+                    indexOut.writeInt(raw.size());
+                    offset += compressedLength;
+                }
+            } finally {
+                deflater.end();
+            }
+
+            long[] ids = transactions.stream().mapToLong(Transaction::getId).sorted().toArray();
+            long idsOffset = offset;
+            for (long id : ids) {
+                out.writeLong(id);
+            }
+            offset += (long) ids.length * Long.BYTES;
+
+            LocalDateTime min = transactions.stream().map(Transaction::getTimestamp)
+                    .min(Comparator.naturalOrder()).orElseThrow();
+            LocalDateTime max = transactions.stream().map(Transaction::getTimestamp)
+                    .max(Comparator.naturalOrder()).orElseThrow();
+            indexOut.writeLong(transactions.size());
+            indexOut.writeLong(min.toEpochSecond(ZoneOffset.UTC));
+            // Верхняя граница округляется вверх до целой секунды
+            indexOut.writeLong(max.toEpochSecond(ZoneOffset.UTC) + (max.getNano() > 0 ? 1 : 0));
+            indexOut.writeLong(idsOffset);
+            indexOut.writeLong(ids[0]);
+            indexOut.writeLong(ids[ids.length - 1]);
+
+            index.writeTo(out);
+            out.writeLong(offset);
+            out.writeInt(MAGIC);
+            out.flush();
+            file.getFD().sync();
+        }
+
+        Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return open(path);
+    }
+
+    /**
+     * Открытие существующего сегмента: в память читается только индекс.
+     */
+    public static TransactionSegment open(Path path) throws IOException {
+        return new TransactionSegment(path);
+    }
+
+    /**
+     * Обход транзакций счета от новых к старым. Читаются только блоки,
+     * диапазон ID счетов которых содержит искомый.
+     *
+     * @param accountId ID счета
+     * @param consumer  получатель транзакций
+     */
+    public void forEachOfAccount(long accountId, Consumer<Transaction> consumer) throws IOException {
+        for (int block = firstBlockFor(accountId); block < firstAccountIds.length
+                && firstAccountIds[block] <= accountId; block++) {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(readBlock(block)));
+            while (in.available() > 0) {
+                long entryAccountId = in.readLong();
+                if (entryAccountId > accountId) {
+                    return;
+                }
+                Transaction transaction = TransactionCodec.read(in);
+                if (entryAccountId == accountId) {
+                    consumer.accept(transaction);
+                }
+            }
+        }
+    }
+
+    /**
+     * Обход всех транзакций сегмента, каждая ровно один раз (перевод хранится дважды,
+     * берется запись под счетом отправителя). Порядок - по ID счета.
+     *
+     * @param consumer получатель транзакций
+     */
+    public void forEach(Consumer<Transaction> consumer) throws IOException {
+        for (int block = 0; block < firstAccountIds.length; block++) {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(readBlock(block)));
+            while (in.available() > 0) {
+                long entryAccountId = in.readLong();
+                Transaction transaction = TransactionCodec.read(in);
+                Long primaryAccountId = transaction.getFromAccountId() != null ?
+                        transaction.getFromAccountId() : transaction.getToAccountId();
+                if (primaryAccountId == entryAccountId) {
+                    consumer.accept(transaction);
+                }
+            }
+        }
+    }
+
+    /**
+     * Может ли сегмент содержать транзакции счета (проверка по индексу, без чтения диска).
+     */
+    public boolean mayContainAccount(long accountId) {
+        return firstAccountIds.length > 0
+                && firstAccountIds[0] <= accountId
+                && lastAccountIds[lastAccountIds.length - 1] >= accountId;
+    }
+
+    /**
+     * ID из ids, под которыми в сегменте есть транзакции. Список ID сегмента читается с диска,
+     * только если хотя бы один искомый ID попадает в его диапазон.
+     *
+     * @param ids искомые ID
+     * @return найденные ID
+     */
+    public Set<Long> containedIds(Collection<Long> ids) throws IOException {
+        if (ids.stream().noneMatch(id -> id >= minId && id <= maxId)) {
+            return Set.of();
+        }
+        long[] segmentIds = new long[(int) transactionCount];
+        readFully(idsOffset, segmentIds.length * Long.BYTES).asLongBuffer().get(segmentIds);
+        Set<Long> found = new HashSet<>();
+        for (Long id : ids) {
+            if (Arrays.binarySearch(segmentIds, id) >= 0) {
+                found.add(id);
+            }
+        }
+        return found;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public long getTransactionCount() {
+        return transactionCount;
+    }
+
+    public LocalDateTime getMinTimestamp() {
+        return minTimestamp;
+    }
+
+    public LocalDateTime getMaxTimestamp() {
+        return maxTimestamp;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Первый блок, последний ID счета которого не меньше искомого (бинарный поиск).
+     */
+    private int firstBlockFor(long accountId) {
+        int low = 0;
+        int high = lastAccountIds.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (lastAccountIds[middle] < accountId) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private byte[] readBlock(int block) throws IOException {
+        ByteBuffer compressed = readFully(offsets[block], compressedLengths[block]);
+        byte[] raw = new byte[rawLengths[block]];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed.array());
+            int length = 0;
+            while (length < raw.length && !inflater.finished()) {
+                length += inflater.inflate(raw, length, raw.length - length);
+            }
+            return raw;
+        } catch (DataFormatException e) {
+            throw new IOException("Поврежден блок " + block + " сегмента " + path, e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private ByteBuffer readFully(long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Неожиданный конец сегмента " + path);
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static Entry[] toEntries(List<Transaction> transactions) {
+        Entry[] entries = new Entry[transactions.size() * 2];
+        int size = 0;
+        for (Transaction transaction : transactions) {
+            if (transaction.getFromAccountId() != null) {
+                entries[size++] = new Entry(transaction.getFromAccountId(), transaction);
+            }
+            if (transaction.getToAccountId() != null) {
+                entries[size++] = new Entry(transaction.getToAccountId(), transaction);
+            }
+        }
+        Entry[] result = Arrays.copyOf(entries, size);
+        Arrays.parallelSort(result, ENTRY_ORDER);
+        return result;
+    }
+
+    /**
+     * Запись сегмента: транзакция под ключом одного из ее счетов.
+     */
+    private static class Entry {
+        final long accountId;
+        final long orderKey;
+        final Transaction transaction;
+
+        Entry(long accountId, Transaction transaction) {
+            this.accountId = accountId;
+            this.orderKey = TransactionIdGenerator.orderKey(transaction);
+            this.transaction = transaction;
+        }
+    }
+}
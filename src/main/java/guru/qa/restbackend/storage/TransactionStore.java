@@ -0,0 +1,317 @@
+package guru.qa.restbackend.storage;
+
+import guru.qa.restbackend.domain.Transaction;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Хранилище транзакций в два уровня.
+ * <p>
+ * Горячий уровень - карта в памяти, куда пишутся все новые транзакции. Периодическая задача
+ * переносит транзакции старше bank.storage.tiering.hot-age в неизменяемые сжатые сегменты
+ * на диске (см. {@link TransactionSegment}), так что объем кучи определяется возрастом горячих
+ * данных, а не длиной истории. Запросы истории читают оба уровня прозрачно: горячий уровень
+ * проиндексирован по счетам ({@link AccountHistory}), сегменты отбираются по периоду и фильтру счетов.
+ * В памяти транзакции хранятся компактными записями ({@link CompactTransaction}), DTO создаются при чтении.
+ * Реализация по умолчанию (bank.storage.type=FILE).
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "bank.storage", name = "type", havingValue = "FILE", matchIfMissing = true)
+public class TransactionStore implements TransactionRepository {
+
+    private static final String SEGMENT_GLOB = "segment-*.seg*";
+    // Словарь описаний: значения по умолчанию и повторяющиеся пользовательские
+    private static final int DICTIONARY_CAPACITY = 4096;
+    private static final int DICTIONARY_MAX_LENGTH = 256;
+
+    private final Map<Long, CompactTransaction> hot = new ConcurrentHashMap<>();
+    // Горячие транзакции по счетам; меняется вместе с hot
+    private final Map<Long, AccountHistory> hotByAccount = new ConcurrentHashMap<>();
+    private final StringDictionary descriptions = new StringDictionary(DICTIONARY_CAPACITY, DICTIONARY_MAX_LENGTH);
+    private final List<TransactionSegment> segments = new CopyOnWriteArrayList<>();
+    private final AtomicLong segmentSequence = new AtomicLong();
+    // Снимок обоих уровней и запись в память не должны пересекаться с публикацией сегмента и чисткой памяти
+    private final ReadWriteLock tierLock = new ReentrantReadWriteLock();
+    private final TieringProperties properties;
+
+    @Autowired
+    public TransactionStore(TieringProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Подготовка каталога сегментов: файлы прошлого запуска удаляются.
+     */
+    @PostConstruct
+    public void init() throws IOException {
+        Path dir = Paths.get(properties.getDir());
+        Files.createDirectories(dir);
+        try (DirectoryStream<Path> stale = Files.newDirectoryStream(dir, SEGMENT_GLOB)) {
+            for (Path file : stale) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        for (TransactionSegment segment : segments) {
+            segment.close();
+        }
+    }
+
+    /**
+     * Сохранение новой транзакции (всегда в горячий уровень).
+     */
+    @Override
+    public void save(Transaction transaction) {
+        store(CompactTransaction.of(transaction, descriptions));
+    }
+
+    /**
+     * Сохранение пачки транзакций. Занятые ID ищутся на обоих уровнях: сегменты, опубликованные
+     * до начала загрузки, проверяются без блокировки, а новые сегменты и память - под блокировкой
+     * уровней, чтобы перенос не увел существующую транзакцию из памяти между проверками.
+     */
+    @Override
+    public List<Transaction> saveAll(Collection<Transaction> batch) {
+        List<Long> ids = new ArrayList<>(batch.size());
+        for (Transaction transaction : batch) {
+            ids.add(transaction.getId());
+        }
+        List<TransactionSegment> checked = List.copyOf(segments);
+        Set<Long> taken = containedIds(checked, ids);
+        List<Transaction> conflicts = new ArrayList<>();
+        tierLock.readLock().lock();
+        try {
+            // Сегменты только добавляются и только под блокировкой записи
+            taken.addAll(containedIds(segments.subList(checked.size(), segments.size()), ids));
+            for (Transaction transaction : batch) {
+                if (taken.contains(transaction.getId()) || !store(CompactTransaction.of(transaction, descriptions))) {
+                    conflicts.add(transaction);
+                }
+            }
+        } finally {
+            tierLock.readLock().unlock();
+        }
+        return conflicts;
+    }
+
+    /**
+     * Все транзакции счета с обоих уровней, от новых к старым.
+     *
+     * @param accountId ID счета
+     * @return список транзакций, где счет - отправитель или получатель
+     */
+    @Override
+    public List<Transaction> findByAccount(Long accountId) {
+        return findByAccount(accountId, null, null);
+    }
+
+    /**
+     * Транзакции счета за период: горячие - из индекса счета, сегменты вне периода не читаются.
+     */
+    @Override
+    public List<Transaction> findByAccount(Long accountId, LocalDateTime from, LocalDateTime to) {
+        // Транзакция может оказаться на обоих уровнях, пока идет перенос - дубликаты отсекаются по ID
+        // Индекс читается раньше списка сегментов: запись удаляется из него только после публикации сегмента
+        Map<Long, Transaction> found = new HashMap<>();
+        AccountHistory history = hotByAccount.get(accountId);
+        if (history != null) {
+            for (CompactTransaction record : history.between(from, to)) {
+                found.put(record.id, record.toTransaction());
+            }
+        }
+        try {
+            for (TransactionSegment segment : segments) {
+                if (segment.mayContainAccount(accountId)
+                        && (to == null || segment.getMinTimestamp().isBefore(to))
+                        && (from == null || !segment.getMaxTimestamp().isBefore(from))) {
+                    segment.forEachOfAccount(accountId, transaction -> {
+                        if (inPeriod(transaction.getTimestamp(), from, to)) {
+                            found.putIfAbsent(transaction.getId(), transaction);
+                        }
+                    });
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось прочитать историю счета " + accountId, e);
+        }
+
+        List<Transaction> result = new ArrayList<>(found.values());
+        // Хронологический порядок - сравнение long: ID новых транзакций упорядочены по времени
+        result.sort(Comparator.comparingLong(TransactionIdGenerator::orderKey).reversed());
+        return result;
+    }
+
+    /**
+     * Обход обоих уровней с гарантией, что каждая транзакция попадет ровно в один из них.
+     * Под блокировкой берется только снимок: список сегментов и копия ссылок на горячие записи.
+     * Обход идет уже без блокировки, поэтому медленный получатель (выгрузка клиенту) не задерживает
+     * перенос в сегменты. Опубликованные сегменты не меняются, а запись, перенесенная после снимка,
+     * остается в копии горячего уровня и в снимок сегментов не попадает.
+     *
+     * @param visitor получатель снимка сегментов (от старых к новым) и горячих транзакций
+     */
+    @Override
+    public void visitTiers(TierVisitor visitor) throws IOException {
+        List<TransactionSegment> segmentSnapshot;
+        List<CompactTransaction> hotSnapshot;
+        tierLock.readLock().lock();
+        try {
+            segmentSnapshot = List.copyOf(segments);
+            hotSnapshot = new ArrayList<>(hot.values());
+        } finally {
+            tierLock.readLock().unlock();
+        }
+        visitor.visit(segmentSnapshot, CompactTransaction.view(hotSnapshot));
+    }
+
+    /**
+     * Общее количество транзакций на обоих уровнях.
+     */
+    @Override
+    public long count() {
+        return hot.size() + segments.stream().mapToLong(TransactionSegment::getTransactionCount).sum();
+    }
+
+    /**
+     * Количество транзакций в памяти.
+     */
+    public long hotCount() {
+        return hot.size();
+    }
+
+    /**
+     * Перенос транзакций старше hot-age из памяти в новые сегменты.
+     * Сегмент сначала записывается и публикуется, и только потом транзакции удаляются из памяти,
+     * поэтому читатель в любой момент видит каждую транзакцию хотя бы на одном уровне.
+     */
+    @Scheduled(fixedDelayString = "${bank.storage.tiering.interval:PT1M}")
+    public synchronized void tierColdTransactions() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minus(properties.getHotAge());
+        List<CompactTransaction> batch = new ArrayList<>();
+        long moved = 0;
+        try {
+            for (CompactTransaction record : hot.values()) {
+                if (record.isBefore(cutoff)) {
+                    batch.add(record);
+                    if (batch.size() >= properties.getMaxSegmentTransactions()) {
+                        moved += flush(batch);
+                        batch.clear();
+                    }
+                }
+            }
+            if (!batch.isEmpty()) {
+                moved += flush(batch);
+            }
+        } catch (IOException e) {
+            log.error("Не удалось перенести транзакции в сегмент, они остаются в памяти", e);
+        }
+        if (moved > 0) {
+            log.info("В сегменты перенесено {} транзакций, в памяти осталось {}, сегментов {}",
+                    moved, hot.size(), segments.size());
+        }
+    }
+
+    private static boolean inPeriod(LocalDateTime timestamp, LocalDateTime from, LocalDateTime to) {
+        return (from == null || !timestamp.isBefore(from)) && (to == null || timestamp.isBefore(to));
+    }
+
+    private static Set<Long> containedIds(List<TransactionSegment> checked, List<Long> ids) {
+        Set<Long> found = new HashSet<>();
+        try {
+            for (TransactionSegment segment : checked) {
+                found.addAll(segment.containedIds(ids));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось проверить ID транзакций в сегментах", e);
+        }
+        return found;
+    }
+
+    private int flush(List<CompactTransaction> batch) throws IOException {
+        Path file = Paths.get(properties.getDir())
+                .resolve(String.format("segment-%08d.seg", segmentSequence.incrementAndGet()));
+        List<Transaction> transactions = new ArrayList<>(batch.size());
+        for (CompactTransaction record : batch) {
+            transactions.add(record.toTransaction());
+        }
+        TransactionSegment segment = TransactionSegment.write(file, transactions, properties.getBlockSize());
+
+        tierLock.writeLock().lock();
+        try {
+            segments.add(segment);
+            Map<Long, List<CompactTransaction>> removed = new HashMap<>();
+            for (CompactTransaction record : batch) {
+                if (hot.remove(record.id, record)) {
+                    byAccount(removed, record.fromAccountId, record);
+                    byAccount(removed, record.toAccountId, record);
+                }
+            }
+            removed.forEach((accountId, records) -> {
+                AccountHistory history = hotByAccount.get(accountId);
+                if (history != null) {
+                    history.removeAll(records);
+                }
+            });
+        } finally {
+            tierLock.writeLock().unlock();
+        }
+        return batch.size();
+    }
+
+    /**
+     * Запись в горячий уровень и индекс счетов, если ID не занят в памяти. Под блокировкой уровней:
+     * перенос не должен увидеть запись в памяти раньше, чем она попала в индекс счетов.
+     */
+    private boolean store(CompactTransaction record) {
+        tierLock.readLock().lock();
+        try {
+            if (hot.putIfAbsent(record.id, record) != null) {
+                return false;
+            }
+            index(record.fromAccountId, record);
+            index(record.toAccountId, record);
+            return true;
+        } finally {
+            tierLock.readLock().unlock();
+        }
+    }
+
+    private void index(long accountId, CompactTransaction record) {
+        if (accountId != CompactTransaction.NO_ACCOUNT) {
+            hotByAccount.computeIfAbsent(accountId, id -> new AccountHistory()).add(record);
+        }
+    }
+
+    private static void byAccount(Map<Long, List<CompactTransaction>> grouped, long accountId,
+                                  CompactTransaction record) {
+        if (accountId != CompactTransaction.NO_ACCOUNT) {
+            grouped.computeIfAbsent(accountId, id -> new ArrayList<>()).add(record);
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package guru.qa.restbackend.storage;
+
+import guru.qa.restbackend.monitoring.ContentionProbe;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Цепочка неизменяемых версий одного счета, от новой к старой.
+ * <p>
+ * Голова цепочки меняется только CAS-ом. Одиночное изменение читает голову, строит новую версию
+ * и ставит ее CAS-ом, при конфликте повторяет. Изменение нескольких счетов (перевод) сначала
+ * резервирует головы маркером - одиночные изменения ждут, пока маркер не снимут, - затем ставит
+ * версии всех счетов с одним номером фиксации. Читатели идут по цепочке без блокировок, маркер
+ * пропускают.
+ * <p>
+ * Горячий счет дополнительно делится на полосы - отдельные цепочки с частью баланса
+ * (см. {@link AccountStore}); здесь хранится главная часть и все поля, кроме остатка полос.
+ */
+final class VersionedAccount {
+
+    // Номер маркера резервирования: больше любого номера снимка, поэтому читатели его пропускают
+    private static final long RESERVED = Long.MAX_VALUE;
+    private static final VarHandle HEAD;
+
+    static {
+        try {
+            HEAD = MethodHandles.lookup().findVarHandle(VersionedAccount.class, "head", Version.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    final long createdSequence;
+    private volatile Version head;
+    // Номер последней чистки старых версий (оценка: гонка двух чисток безвредна)
+    private volatile long prunedAt;
+    // Полосы баланса горячего счета; появляются один раз под резервом головы и больше не меняются
+    private volatile VersionedAccount[] stripes;
+    // Конфликты писателей с contentionSince (оценка: инкременты без синхронизации)
+    private volatile int contention;
+    private volatile long contentionSince = System.nanoTime();
+
+    VersionedAccount(long createdSequence, AccountState state) {
+        this.createdSequence = createdSequence;
+        this.head = new Version(createdSequence, state, null);
+        this.prunedAt = createdSequence;
+    }
+
+    /**
+     * Последнее зафиксированное состояние.
+     */
+    AccountState latest() {
+        Version version = head;
+        return version.sequence == RESERVED ? version.previous.state : version.state;
+    }
+
+    /**
+     * Версия, видимая снимку с номером sequence.
+     *
+     * @return состояние или null, если счет открыт позже снимка
+     * @throws IllegalStateException если нужная версия уже удалена чисткой
+     */
+    AccountState at(long sequence) {
+        if (sequence < createdSequence) {
+            return null;
+        }
+        for (Version version = head; version != null; version = version.previous) {
+            if (version.sequence <= sequence) {
+                return version.state;
+            }
+        }
+        throw new IllegalStateException("Версия счета на момент " + sequence + " удалена");
+    }
+
+    /**
+     * Текущая зафиксированная голова; если она зарезервирована переводом - ожидание снятия маркера.
+     */
+    Version awaitHead() {
+        int spins = 0;
+        long waitStarted = 0;
+        Version version;
+        while ((version = head).sequence == RESERVED) {
+            if (spins == 0) {
+                waitStarted = System.nanoTime();
+            }
+            backOff(++spins);
+        }
+        if (spins > 0) {
+            noteContention();
+            ContentionProbe.waited(System.nanoTime() - waitStarted);
+        }
+        return version;
+    }
+
+    /**
+     * Установка новой версии, если голова не изменилась с момента чтения.
+     */
+    boolean compareAndSet(Version expected, long sequence, AccountState state) {
+        return HEAD.compareAndSet(this, expected, new Version(sequence, state, expected));
+    }
+
+    /**
+     * Резервирование головы для изменения нескольких счетов.
+     *
+     * @return зафиксированная голова на момент резервирования
+     */
+    Version reserve() {
+        while (true) {
+            Version current = awaitHead();
+            if (HEAD.compareAndSet(this, current, new Version(RESERVED, current.state, current))) {
+                return current;
+            }
+            noteContention();
+            ContentionProbe.conflict();
+        }
+    }
+
+    /**
+     * Снятие резерва без изменений (только владелец резерва).
+     */
+    void release(Version reserved) {
+        head = reserved;
+    }
+
+    /**
+     * Установка версии поверх зарезервированной головы (только владелец резерва).
+     */
+    void install(Version reserved, long sequence, AccountState state) {
+        head = new Version(sequence, state, reserved);
+    }
+
+    /**
+     * Удаление версий старше sequence - retainedCommits, кроме последней из них (она видна снимкам
+     * на самой границе). Цепочка просматривается не чаще, чем раз в retainedCommits / 2 фиксаций.
+     */
+    void prune(long sequence, long retainedCommits) {
+        if (sequence - prunedAt < retainedCommits / 2) {
+            return;
+        }
+        prunedAt = sequence;
+        long horizon = sequence - retainedCommits;
+        for (Version version = head; version != null; version = version.previous) {
+            if (version.sequence <= horizon) {
+                version.previous = null;
+                return;
+            }
+        }
+    }
+
+    VersionedAccount[] stripes() {
+        return stripes;
+    }
+
+    /**
+     * Установка полос (только владелец резерва главной головы).
+     */
+    void setStripes(VersionedAccount[] stripes) {
+        this.stripes = stripes;
+    }
+
+    /**
+     * Учет конфликта: ожидание чужого резерва или проигранный CAS.
+     */
+    void noteContention() {
+        contention++;
+    }
+
+    /**
+     * Набралось ли threshold конфликтов быстрее, чем за windowNanos. При достижении порога
+     * счетчик начинается заново, так что измеряется частота, а не накопленное число.
+     */
+    boolean isContended(int threshold, long windowNanos) {
+        if (contention < threshold) {
+            return false;
+        }
+        long now = System.nanoTime();
+        boolean contended = now - contentionSince <= windowNanos;
+        contention = 0;
+        contentionSince = now;
+        return contended;
+    }
+
+    private static void backOff(int spins) {
+        if (spins < 100) {
+            Thread.onSpinWait();
+        } else {
+            Thread.yield();
+        }
+    }
+
+    static final class Version {
+        final long sequence;
+        final AccountState state;
+        // Обнуляется только чисткой; читатель, увидевший старое значение, получает корректную версию
+        Version previous;
+
+        Version(long sequence, AccountState state, Version previous) {
+            this.sequence = sequence;
+            this.state = state;
+            this.previous = previous;
+        }
+
+        AccountState state() {
+            return state;
+        }
+    }
+}
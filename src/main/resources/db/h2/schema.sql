@@ -0,0 +1,47 @@
+-- Схема хранилища bank.storage.type=H2
+
+-- Текущее состояние счетов: изменения баланса - условные UPDATE по этой таблице
+CREATE TABLE IF NOT EXISTS accounts (
+    id             BIGINT PRIMARY KEY,
+    account_number VARCHAR,
+    balance        DECIMAL(19, 2) NOT NULL,
+    currency       VARCHAR,
+    status         VARCHAR        NOT NULL,
+    created_at     TIMESTAMP,
+    owner_name     VARCHAR,
+    held           DECIMAL(19, 2) NOT NULL DEFAULT 0
+);
+
+-- Сумма холдов (доступный остаток - balance - held) в базах, созданных до ее появления
+ALTER TABLE accounts ADD COLUMN IF NOT EXISTS held DECIMAL(19, 2) NOT NULL DEFAULT 0;
+
+-- Версии счетов для повторяемого чтения ?asOf=: строка на каждую фиксацию счета
+CREATE TABLE IF NOT EXISTS account_versions (
+    account_id     BIGINT         NOT NULL,
+    seq            BIGINT         NOT NULL,
+    account_number VARCHAR,
+    balance        DECIMAL(19, 2) NOT NULL,
+    currency       VARCHAR,
+    status         VARCHAR        NOT NULL,
+    created_at     TIMESTAMP,
+    owner_name     VARCHAR,
+    held           DECIMAL(19, 2) NOT NULL DEFAULT 0,
+    PRIMARY KEY (account_id, seq)
+);
+
+ALTER TABLE account_versions ADD COLUMN IF NOT EXISTS held DECIMAL(19, 2) NOT NULL DEFAULT 0;
+
+CREATE TABLE IF NOT EXISTS transactions (
+    id              BIGINT PRIMARY KEY,
+    type            VARCHAR        NOT NULL,
+    amount          DECIMAL(19, 2) NOT NULL,
+    from_account_id BIGINT,
+    to_account_id   BIGINT,
+    ts              TIMESTAMP      NOT NULL,
+    description     VARCHAR,
+    status          VARCHAR        NOT NULL
+);
+
+-- История счета читается двумя поисками по индексу: как отправителя и как получателя
+CREATE INDEX IF NOT EXISTS transactions_from_idx ON transactions (from_account_id, ts);
+CREATE INDEX IF NOT EXISTS transactions_to_idx ON transactions (to_account_id, ts);
@@ -0,0 +1,150 @@
+package guru.qa.restbackend.batch;
+
+import guru.qa.restbackend.domain.*;
+import guru.qa.restbackend.helpers.PaymentServiceFixture;
+import guru.qa.restbackend.monitoring.OnlineLatencyMonitor;
+import guru.qa.restbackend.service.PaymentService;
+import io.qameta.allure.Feature;
+import io.qameta.allure.Owner;
+import io.qameta.allure.Story;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.qameta.allure.Allure.step;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Закрытие дня без запущенного сервиса: сервис собирается на хранилищах в памяти.
+ */
+@Owner("sergeyglukhov")
+@Feature("Закрытие дня")
+public class EndOfDayJobTests {
+
+    private static final int ACCOUNTS = 1000;
+    private static final LocalDate BUSINESS_DATE = LocalDate.of(2023, 6, 30);
+    // 1000.00 * 3.65% / 365 = 0.10 процентов, комиссия 0.03
+    private static final BigDecimal BALANCE = new BigDecimal("1000.00");
+    private static final BigDecimal EXPECTED = new BigDecimal("1000.07");
+    // Сбой после проводок 300-го счета: посередине второй партиции из 256 счетов
+    private static final int CRASH_AT = 300;
+    // Счет непройденной части, клиент которого пополняет его с описанием, как у начисления процентов
+    private static final long LOOKALIKE_ID = 400;
+    private static final BigDecimal LOOKALIKE_AMOUNT = new BigDecimal("0.10");
+    private static final String OWNER = "End of day";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @Story("Контрольная точка")
+    @DisplayName("Повторный запуск после сбоя посередине партиции не проводит начисления дважды")
+    void resumeAfterCrashMidPartitionTest() throws InterruptedException {
+        AtomicBoolean crash = new AtomicBoolean(true);
+        AtomicInteger withdrawals = new AtomicInteger();
+        PaymentService service = service(crash, withdrawals);
+        EndOfDayJob job = new EndOfDayJob(service, properties(), new OnlineLatencyMonitor());
+        try {
+            EndOfDayProgress failed = step("Запустить закрытие дня и прервать его сбоем", () -> run(job));
+            step("Проверить, что задача прервана, а первая партиция зафиксирована", () -> {
+                assertThat(failed.getState()).isEqualTo(BatchJobState.FAILED);
+                assertThat(failed.getCompletedPartitions()).isEqualTo(1);
+                assertThat(withdrawals.get()).isEqualTo(CRASH_AT);
+            });
+
+            step("Пополнить счет " + LOOKALIKE_ID + " с описанием начисления процентов за дату", () ->
+                    service.deposit(LOOKALIKE_ID, new TransactionRequest(LOOKALIKE_AMOUNT,
+                            "Начисление процентов за " + BUSINESS_DATE)));
+
+            crash.set(false);
+            EndOfDayProgress resumed = step("Повторно запустить закрытие дня за ту же дату", () -> run(job));
+            step("Проверить, что задача продолжила с контрольной точки", () -> {
+                assertThat(resumed.getState()).isEqualTo(BatchJobState.COMPLETED);
+                assertThat(resumed.getResumedPartitions()).isEqualTo(1);
+                assertThat(resumed.getCompletedPartitions()).isEqualTo(4);
+            });
+
+            step("Проверить, что каждому счету проценты и комиссия проведены ровно один раз", () -> {
+                for (long id = 1; id <= ACCOUNTS; id++) {
+                    boolean lookalike = id == LOOKALIKE_ID;
+                    assertThat(service.getBalance(id)).as("Баланс счета %d", id)
+                            .isEqualByComparingTo(lookalike ? EXPECTED.add(LOOKALIKE_AMOUNT) : EXPECTED);
+                    assertThat(service.getAccountTransactions(id)).as("Проводки счета %d", id)
+                            .hasSize(lookalike ? 3 : 2);
+                }
+            });
+        } finally {
+            job.shutdown();
+        }
+    }
+
+    @Test
+    @Story("Партиции")
+    @DisplayName("Закрытие дня проходит только партиции, в которых есть счета")
+    void farAccountIdTest() throws InterruptedException {
+        PaymentService service = service(new AtomicBoolean(false), new AtomicInteger());
+        long farId = 999_999_999L;
+        service.loadAccounts(List.of(PaymentServiceFixture.account(farId, BALANCE, "USD", OWNER)));
+        EndOfDayJob job = new EndOfDayJob(service, properties(), new OnlineLatencyMonitor());
+        try {
+            EndOfDayProgress progress = step("Запустить закрытие дня со счетом с дальним ID", () -> run(job));
+            step("Проверить, что пройдены четыре партиции первых счетов и одна - дальнего", () -> {
+                assertThat(progress.getState()).isEqualTo(BatchJobState.COMPLETED);
+                assertThat(progress.getTotalPartitions()).isEqualTo(5);
+                assertThat(progress.getAccountsProcessed()).isEqualTo(ACCOUNTS + 1);
+                assertThat(service.getBalance(farId)).isEqualByComparingTo(EXPECTED);
+            });
+        } finally {
+            job.shutdown();
+        }
+    }
+
+    private static EndOfDayProgress run(EndOfDayJob job) throws InterruptedException {
+        job.start(BUSINESS_DATE);
+        EndOfDayProgress progress = job.getProgress();
+        while (progress.getState() == BatchJobState.RUNNING) {
+            Thread.sleep(10);
+            progress = job.getProgress();
+        }
+        return progress;
+    }
+
+    private EndOfDayProperties properties() {
+        EndOfDayProperties properties = new EndOfDayProperties();
+        properties.setParallelism(1);
+        properties.setPartitionSize(256);
+        properties.setCheckpointDir(tempDir.toString());
+        properties.setInterestRates(Map.of("USD", new BigDecimal("3.65")));
+        properties.setMaintenanceFees(Map.of("USD", new BigDecimal("0.03")));
+        return properties;
+    }
+
+    /**
+     * Сервис, который "падает" сразу после списания комиссии с CRASH_AT-го счета, пока включен crash.
+     */
+    private static PaymentService service(AtomicBoolean crash, AtomicInteger withdrawals) {
+        PaymentService service = new PaymentServiceFixture().build((testDataInitializer, accounts, transactions,
+                statistics, accountTable, balanceHistory, transactionIds, contention) ->
+                new PaymentService(testDataInitializer, accounts, transactions, statistics, accountTable,
+                        balanceHistory, transactionIds, contention) {
+                    @Override
+                    public Transaction chargeFee(Long accountId, BigDecimal amount, String description) {
+                        Transaction transaction = super.chargeFee(accountId, amount, description);
+                        if (withdrawals.incrementAndGet() == CRASH_AT && crash.get()) {
+                            throw new IllegalStateException("Сбой закрытия дня");
+                        }
+                        return transaction;
+                    }
+                });
+        service.loadAccounts(PaymentServiceFixture.accounts(ACCOUNTS, BALANCE, "USD", OWNER));
+        return service;
+    }
+}
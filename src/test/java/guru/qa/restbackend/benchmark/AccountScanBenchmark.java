@@ -0,0 +1,161 @@
+package guru.qa.restbackend.benchmark;
+
+import guru.qa.restbackend.domain.Account;
+import guru.qa.restbackend.domain.AccountStatus;
+import guru.qa.restbackend.domain.BalanceTotals;
+import guru.qa.restbackend.storage.AccountStore;
+import guru.qa.restbackend.storage.AccountStoreProperties;
+import guru.qa.restbackend.storage.AccountTable;
+import io.qameta.allure.Allure;
+import io.qameta.allure.Feature;
+import io.qameta.allure.Owner;
+import io.qameta.allure.Story;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.function.LongSupplier;
+
+import static io.qameta.allure.Allure.step;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Время полного прохода по счетам: суммы балансов по валютам для счетов со статусом и поиск счетов
+ * со статусом. Сравниваются обход снимка хранилища (как /account/totals), обход готового списка
+ * объектов Account и проход по колоночной таблице счетов. Проверяется, что таблица дает те же итоги
+ * и те же счета, что и снимок.
+ * Запуск: gradle benchmark (объем - -Dbenchmark.accounts, по умолчанию миллион).
+ */
+@Tag("benchmark")
+@Owner("sergeyglukhov")
+@Feature("Benchmark")
+@DisplayName("Бенчмарк прохода по счетам")
+public class AccountScanBenchmark {
+
+    private static final String[] CURRENCIES = {"RUB", "USD", "EUR"};
+    private static final int ROUNDS = 10;
+    private static final int BATCH_SIZE = 10_000;
+
+    private final int accountCount = Integer.getInteger("benchmark.accounts", 1_000_000);
+
+    @Test
+    @Story("Колоночная таблица счетов")
+    @DisplayName("Итоги и фильтр по статусу: снимок, список объектов и колоночная таблица")
+    void accountScanTest() {
+        AccountTable table = new AccountTable();
+        AccountStore store = new AccountStore(new AccountStoreProperties(), List.of(table));
+        step("Загрузить " + accountCount + " счетов", () -> load(store));
+        List<Account> objects = new ArrayList<>(accountCount);
+        store.forEachAt(store.currentSequence(), objects::add);
+        long sequence = store.currentSequence();
+
+        step("Проверить, что таблица совпадает со снимком", () -> {
+            BalanceTotals totals = table.totals(AccountStatus.ACTIVE, null);
+            assertThat(totals.getBalancesByCurrency()).isEqualTo(snapshotTotals(store, sequence));
+            List<Long> blocked = new ArrayList<>();
+            table.forEachId(AccountStatus.BLOCKED, blocked::add);
+            assertThat(blocked).hasSize((int) snapshotCount(store, sequence, AccountStatus.BLOCKED));
+        });
+
+        StringBuilder report = new StringBuilder(String.format("%-28s %12s %12s%n", "scan", "median ms", "ns/account"));
+        step("Замер сумм балансов ACTIVE", () -> {
+            report.append(measure("totals: store snapshot", () -> snapshotTotals(store, sequence).size()));
+            report.append(measure("totals: Account list", () -> listTotals(objects).size()));
+            report.append(measure("totals: column table", () ->
+                    table.totals(AccountStatus.ACTIVE, null).getBalancesByCurrency().size()));
+        });
+        step("Замер поиска счетов BLOCKED", () -> {
+            report.append(measure("filter: store snapshot", () -> snapshotCount(store, sequence, AccountStatus.BLOCKED)));
+            report.append(measure("filter: Account list", () -> objects.stream()
+                    .filter(account -> account.getStatus() == AccountStatus.BLOCKED).count()));
+            report.append(measure("filter: column table", () -> {
+                long[] count = new long[1];
+                table.forEachId(AccountStatus.BLOCKED, id -> count[0]++);
+                return count[0];
+            }));
+        });
+
+        System.out.println(report);
+        Allure.addAttachment("Результаты", "text/plain", report.toString());
+    }
+
+    private void load(AccountStore store) {
+        SplittableRandom random = new SplittableRandom(42);
+        LocalDateTime start = LocalDateTime.of(2015, 1, 1, 0, 0);
+        List<Account> batch = new ArrayList<>(BATCH_SIZE);
+        for (long id = 1; id <= accountCount; id++) {
+            int roll = random.nextInt(100);
+            batch.add(Account.builder()
+                    .id(id)
+                    .accountNumber(String.format("40817810%012d", id))
+                    .balance(BigDecimal.valueOf(random.nextLong(100_000_000L), 2))
+                    .currency(CURRENCIES[random.nextInt(CURRENCIES.length)])
+                    .status(roll < 90 ? AccountStatus.ACTIVE : roll < 97 ? AccountStatus.BLOCKED : AccountStatus.CLOSED)
+                    .createdAt(start.plusMinutes(random.nextInt(5_000_000)))
+                    .ownerName("Owner " + id)
+                    .heldAmount(BigDecimal.ZERO)
+                    .build());
+            if (batch.size() == BATCH_SIZE) {
+                store.insertAll(batch);
+                batch.clear();
+            }
+        }
+        store.insertAll(batch);
+    }
+
+    private static Map<String, BigDecimal> snapshotTotals(AccountStore store, long sequence) {
+        Map<String, BigDecimal> balances = new TreeMap<>();
+        store.forEachAt(sequence, account -> {
+            if (account.getStatus() == AccountStatus.ACTIVE) {
+                balances.merge(account.getCurrency(), account.getBalance(), BigDecimal::add);
+            }
+        });
+        return balances;
+    }
+
+    private static Map<String, BigDecimal> listTotals(List<Account> accounts) {
+        Map<String, BigDecimal> balances = new TreeMap<>();
+        for (Account account : accounts) {
+            if (account.getStatus() == AccountStatus.ACTIVE) {
+                balances.merge(account.getCurrency(), account.getBalance(), BigDecimal::add);
+            }
+        }
+        return balances;
+    }
+
+    private static long snapshotCount(AccountStore store, long sequence, AccountStatus status) {
+        long[] count = new long[1];
+        store.forEachAt(sequence, account -> {
+            if (account.getStatus() == status) {
+                count[0]++;
+            }
+        });
+        return count[0];
+    }
+
+    private String measure(String scan, LongSupplier body) {
+        long sink = 0;
+        // Прогрев
+        for (int i = 0; i < 3; i++) {
+            sink += body.getAsLong();
+        }
+        long[] nanos = new long[ROUNDS];
+        for (int i = 0; i < ROUNDS; i++) {
+            long started = System.nanoTime();
+            sink += body.getAsLong();
+            nanos[i] = System.nanoTime() - started;
+        }
+        assertThat(sink).isPositive();
+        Arrays.sort(nanos);
+        long median = nanos[ROUNDS / 2];
+        return String.format("%-28s %12.1f %12d%n", scan, median / 1e6, median / accountCount);
+    }
+}
@@ -0,0 +1,136 @@
+package guru.qa.restbackend.benchmark;
+
+import guru.qa.restbackend.domain.Account;
+import guru.qa.restbackend.domain.AccountStatus;
+import guru.qa.restbackend.storage.AccountStore;
+import guru.qa.restbackend.storage.AccountStoreProperties;
+import guru.qa.restbackend.storage.AccountUpdateMode;
+import io.qameta.allure.Allure;
+import io.qameta.allure.Feature;
+import io.qameta.allure.Owner;
+import io.qameta.allure.Story;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import static io.qameta.allure.Allure.step;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Сравнение изменения одного счета CAS-ом и под монитором при разной степени конкуренции:
+ * все потоки пополняют счета, выбранные случайно из "горячего" набора заданного размера.
+ * Запуск: gradle benchmark (длительность замера - -Dbenchmark.seconds, потоки - -Dbenchmark.threads).
+ */
+@Tag("benchmark")
+@Owner("sergeyglukhov")
+@Feature("Benchmark")
+@DisplayName("Бенчмарк конкурентного изменения счетов")
+public class AccountUpdateBenchmark {
+
+    private static final int[] HOT_ACCOUNTS = {1, 4, 64, 4096};
+    private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+
+    private final int threads = Integer.getInteger("benchmark.threads",
+            Math.max(4, Runtime.getRuntime().availableProcessors() * 2));
+    private final long measureNanos = TimeUnit.SECONDS.toNanos(Long.getLong("benchmark.seconds", 2));
+    private final long warmupNanos = measureNanos / 2;
+
+    @Test
+    @Story("Изменение одного счета")
+    @DisplayName("CAS против блокировки: пополнения горячих счетов")
+    void casVersusLockTest() throws InterruptedException {
+        StringBuilder report = new StringBuilder(String.format("%-6s %8s %14s %12s%n",
+                "mode", "accounts", "ops/s", "retries"));
+        for (int hotAccounts : HOT_ACCOUNTS) {
+            for (AccountUpdateMode mode : AccountUpdateMode.values()) {
+                Result result = step("Замер " + mode + " на " + hotAccounts + " счетах", () -> run(mode, hotAccounts));
+                report.append(String.format("%-6s %8d %14d %12d%n",
+                        mode, hotAccounts, result.opsPerSecond, result.retries));
+            }
+        }
+        System.out.println(report);
+        Allure.addAttachment("Результаты (" + threads + " потоков)", "text/plain", report.toString());
+    }
+
+    private Result run(AccountUpdateMode mode, int hotAccounts) throws InterruptedException {
+        AccountStoreProperties properties = new AccountStoreProperties();
+        properties.setUpdateMode(mode);
+        AccountStore store = new AccountStore(properties);
+        List<Account> accounts = new ArrayList<>(hotAccounts);
+        for (long id = 1; id <= hotAccounts; id++) {
+            accounts.add(Account.builder()
+                    .id(id)
+                    .accountNumber(String.valueOf(id))
+                    .balance(BigDecimal.ZERO)
+                    .currency("USD")
+                    .status(AccountStatus.ACTIVE)
+                    .createdAt(LocalDateTime.now())
+                    .ownerName("Benchmark")
+                    .build());
+        }
+        store.insertAll(accounts);
+
+        AtomicBoolean measuring = new AtomicBoolean();
+        AtomicBoolean stop = new AtomicBoolean();
+        LongAdder measured = new LongAdder();
+        LongAdder total = new LongAdder();
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            SplittableRandom random = new SplittableRandom(t);
+            Thread worker = new Thread(() -> {
+                long local = 0;
+                long localMeasured = 0;
+                while (!stop.get()) {
+                    long id = 1 + random.nextInt(hotAccounts);
+                    store.update(id, account -> account.withBalance(account.getBalance().add(AMOUNT)));
+                    local++;
+                    if (measuring.get()) {
+                        localMeasured++;
+                    }
+                }
+                total.add(local);
+                measured.add(localMeasured);
+                done.countDown();
+            }, "benchmark-" + t);
+            worker.start();
+        }
+
+        TimeUnit.NANOSECONDS.sleep(warmupNanos);
+        long retriesBefore = store.getConflictRetries();
+        long startedAt = System.nanoTime();
+        measuring.set(true);
+        TimeUnit.NANOSECONDS.sleep(measureNanos);
+        measuring.set(false);
+        long elapsed = System.nanoTime() - startedAt;
+        long retries = store.getConflictRetries() - retriesBefore;
+        stop.set(true);
+        done.await();
+
+        // Ни одно пополнение не потеряно: сумма балансов равна числу операций
+        BigDecimal[] sum = {BigDecimal.ZERO};
+        store.forEachAt(store.currentSequence(), account -> sum[0] = sum[0].add(account.getBalance()));
+        assertThat(sum[0]).isEqualByComparingTo(AMOUNT.multiply(BigDecimal.valueOf(total.sum())));
+
+        return new Result(measured.sum() * 1_000_000_000L / elapsed, retries);
+    }
+
+    private static class Result {
+        final long opsPerSecond;
+        final long retries;
+
+        Result(long opsPerSecond, long retries) {
+            this.opsPerSecond = opsPerSecond;
+            this.retries = retries;
+        }
+    }
+}
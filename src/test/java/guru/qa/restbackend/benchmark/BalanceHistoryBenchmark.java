@@ -0,0 +1,186 @@
+package guru.qa.restbackend.benchmark;
+
+import guru.qa.restbackend.domain.Account;
+import guru.qa.restbackend.domain.AccountStatus;
+import guru.qa.restbackend.domain.Transaction;
+import guru.qa.restbackend.domain.TransactionStatus;
+import guru.qa.restbackend.domain.TransactionType;
+import guru.qa.restbackend.history.BalanceHistory;
+import guru.qa.restbackend.history.BalanceHistoryProperties;
+import guru.qa.restbackend.storage.AccountStore;
+import guru.qa.restbackend.storage.AccountStoreProperties;
+import guru.qa.restbackend.storage.InMemoryTransactionRepository;
+import guru.qa.restbackend.storage.TransactionIdGenerator;
+import io.qameta.allure.Allure;
+import io.qameta.allure.Feature;
+import io.qameta.allure.Owner;
+import io.qameta.allure.Story;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static io.qameta.allure.Allure.step;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Стоимость запроса баланса на момент при разной длине истории счета: пересчет всей истории
+ * (как сейчас делает клиент: текущий баланс минус транзакции после момента) против контрольных точек
+ * и пересчета не больше checkpoint-interval транзакций. Две истории: загруженная задним числом
+ * (точки строятся первым запросом) и проведенная онлайн-операциями (точки ставятся при фиксации).
+ * Моменты случайные по всей истории. Проверяется, что оба способа дают одинаковый баланс.
+ * Запуск: gradle benchmark.
+ */
+@Tag("benchmark")
+@Owner("sergeyglukhov")
+@Feature("Benchmark")
+@DisplayName("Бенчмарк баланса на момент")
+public class BalanceHistoryBenchmark {
+
+    private static final int[] SIZES = {1_000, 10_000, 100_000, 1_000_000};
+    private static final int QUERIES = 50;
+    private static final long ACCOUNT_ID = 1L;
+    private static final BigDecimal OPENING = new BigDecimal("500.00");
+    private static final LocalDateTime START = LocalDateTime.of(2020, 1, 1, 0, 0);
+
+    @Test
+    @Story("Баланс на момент")
+    @DisplayName("Полный пересчет истории против контрольных точек")
+    void balanceAtTest() {
+        StringBuilder report = new StringBuilder(String.format("%-10s %-8s %14s %14s %14s%n",
+                "history", "source", "full replay us", "first query ms", "checkpoint us"));
+        for (int size : SIZES) {
+            step("Замер: загруженная история из " + size + " транзакций", () -> report.append(loaded(size)));
+            step("Замер: онлайн-история из " + size + " транзакций", () -> report.append(online(size)));
+        }
+        System.out.println(report);
+        Allure.addAttachment("Результаты", "text/plain", report.toString());
+    }
+
+    /**
+     * История загружена задним числом вместе со счетом, как тестовые данные.
+     */
+    private String loaded(int size) {
+        SplittableRandom random = new SplittableRandom(size);
+        InMemoryTransactionRepository transactions = new InMemoryTransactionRepository();
+        BalanceHistory balanceHistory = new BalanceHistory(transactions, new BalanceHistoryProperties());
+        AccountStore accounts = new AccountStore(new AccountStoreProperties(), List.of(balanceHistory));
+        List<Transaction> history = new ArrayList<>(size);
+        BigDecimal balance = OPENING;
+        for (int i = 0; i < size; i++) {
+            boolean deposit = i % 3 != 2;
+            BigDecimal amount = amount(random);
+            balance = deposit ? balance.add(amount) : balance.subtract(amount);
+            history.add(transaction(i + 1L, START.plusSeconds(i * 60L), deposit, amount));
+        }
+        accounts.insertAll(List.of(account(balance)));
+        transactions.saveAll(history);
+        balanceHistory.historyLoaded(history);
+
+        LocalDateTime[] moments = new LocalDateTime[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            moments[i] = START.plusSeconds(random.nextLong(size * 60L));
+        }
+        return measure("loaded", size, accounts, transactions, balanceHistory, moments);
+    }
+
+    /**
+     * История проведена переносами через хранилище счетов, как онлайн-операции сервиса.
+     */
+    private String online(int size) {
+        SplittableRandom random = new SplittableRandom(size);
+        InMemoryTransactionRepository transactions = new InMemoryTransactionRepository();
+        BalanceHistory balanceHistory = new BalanceHistory(transactions, new BalanceHistoryProperties());
+        AccountStore accounts = new AccountStore(new AccountStoreProperties(), List.of(balanceHistory));
+        accounts.insertAll(List.of(account(OPENING)));
+        TransactionIdGenerator ids = new TransactionIdGenerator();
+        LocalDateTime[] timestamps = new LocalDateTime[size];
+        for (int i = 0; i < size; i++) {
+            boolean deposit = i % 3 != 2;
+            BigDecimal amount = amount(random);
+            long id = ids.nextId();
+            accounts.move(deposit ? null : ACCOUNT_ID, deposit ? ACCOUNT_ID : null, amount, id, (from, to) -> {
+            }, () -> new IllegalStateException("Недостаточно средств"));
+            timestamps[i] = TransactionIdGenerator.timestampOf(id);
+            transactions.save(transaction(id, timestamps[i], deposit, amount));
+        }
+
+        LocalDateTime[] moments = new LocalDateTime[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            moments[i] = timestamps[random.nextInt(size)];
+        }
+        return measure("online", size, accounts, transactions, balanceHistory, moments);
+    }
+
+    private static String measure(String source, int size, AccountStore accounts,
+                                  InMemoryTransactionRepository transactions, BalanceHistory balanceHistory,
+                                  LocalDateTime[] moments) {
+        BigDecimal[] expected = new BigDecimal[QUERIES];
+        long startedAt = System.nanoTime();
+        for (int i = 0; i < QUERIES; i++) {
+            expected[i] = fullReplay(accounts, transactions, moments[i]);
+        }
+        long fullNanos = System.nanoTime() - startedAt;
+
+        startedAt = System.nanoTime();
+        BigDecimal first = balanceHistory.balanceAt(ACCOUNT_ID, moments[0]);
+        long firstNanos = System.nanoTime() - startedAt;
+        assertThat(first).isEqualByComparingTo(expected[0]);
+
+        startedAt = System.nanoTime();
+        for (int i = 1; i < QUERIES; i++) {
+            assertThat(balanceHistory.balanceAt(ACCOUNT_ID, moments[i]))
+                    .as("Баланс на %s", moments[i]).isEqualByComparingTo(expected[i]);
+        }
+        long checkpointNanos = System.nanoTime() - startedAt;
+        return String.format("%-10d %-8s %14d %14.1f %14d%n", size, source, fullNanos / QUERIES / 1000,
+                firstNanos / 1e6, checkpointNanos / (QUERIES - 1) / 1000);
+    }
+
+    private static BigDecimal fullReplay(AccountStore accounts, InMemoryTransactionRepository transactions,
+                                         LocalDateTime at) {
+        BigDecimal balance = accounts.findLatest(ACCOUNT_ID).orElseThrow().getBalance();
+        for (Transaction transaction : transactions.findByAccount(ACCOUNT_ID)) {
+            if (transaction.getTimestamp().isAfter(at)) {
+                boolean credit = transaction.getToAccountId() != null && transaction.getToAccountId() == ACCOUNT_ID;
+                balance = credit ? balance.subtract(transaction.getAmount()) : balance.add(transaction.getAmount());
+            }
+        }
+        return balance;
+    }
+
+    private static BigDecimal amount(SplittableRandom random) {
+        return BigDecimal.valueOf(1 + random.nextInt(10_000), 2);
+    }
+
+    private static Account account(BigDecimal balance) {
+        return Account.builder()
+                .id(ACCOUNT_ID)
+                .accountNumber("40817810000000000001")
+                .balance(balance)
+                .currency("RUB")
+                .status(AccountStatus.ACTIVE)
+                .createdAt(START)
+                .ownerName("History")
+                .heldAmount(BigDecimal.ZERO)
+                .build();
+    }
+
+    private static Transaction transaction(long id, LocalDateTime timestamp, boolean deposit, BigDecimal amount) {
+        return Transaction.builder()
+                .id(id)
+                .type(deposit ? TransactionType.DEPOSIT : TransactionType.WITHDRAWAL)
+                .amount(amount)
+                .fromAccountId(deposit ? null : ACCOUNT_ID)
+                .toAccountId(deposit ? ACCOUNT_ID : null)
+                .timestamp(timestamp)
+                .description("History")
+                .status(TransactionStatus.SUCCESS)
+                .build();
+    }
+}
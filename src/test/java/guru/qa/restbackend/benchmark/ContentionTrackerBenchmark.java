@@ -0,0 +1,150 @@
+package guru.qa.restbackend.benchmark;
+
+import guru.qa.restbackend.domain.AccountContention;
+import guru.qa.restbackend.domain.ContentionReport;
+import guru.qa.restbackend.domain.TransactionRequest;
+import guru.qa.restbackend.domain.TransferRequest;
+import guru.qa.restbackend.helpers.PaymentServiceFixture;
+import guru.qa.restbackend.monitoring.ContentionProperties;
+import guru.qa.restbackend.monitoring.ContentionTracker;
+import guru.qa.restbackend.service.PaymentService;
+import io.qameta.allure.Allure;
+import io.qameta.allure.Feature;
+import io.qameta.allure.Owner;
+import io.qameta.allure.Story;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import static io.qameta.allure.Allure.step;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Стоимость учета конфликтов в операциях PaymentService и точность top-K: переводы между случайными
+ * счетами, часть которых идет через несколько горячих счетов, с выключенным и включенным учетом.
+ * С учетом проверяется, что горячие счета - первые в отчете.
+ * Запуск: gradle benchmark (длительность замера - -Dbenchmark.seconds, потоки - -Dbenchmark.threads).
+ */
+@Tag("benchmark")
+@Owner("sergeyglukhov")
+@Feature("Benchmark")
+@DisplayName("Бенчмарк учета конфликтов по счетам")
+public class ContentionTrackerBenchmark {
+
+    private static final int ACCOUNTS = 10_000;
+    private static final int HOT_ACCOUNTS = 3;
+    // Доля операций (в процентах), затрагивающих горячий счет
+    private static final int HOT_PERCENT = 30;
+    private static final int CAPACITY = 16;
+    // Меньше конфликтных операций (на одном ядре их мало) - порядок в отчете не проверяется
+    private static final long MIN_SAMPLES = 100;
+    private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+    private static final BigDecimal BALANCE = new BigDecimal("1000000.00");
+
+    private final int threads = Integer.getInteger("benchmark.threads",
+            Math.max(4, Runtime.getRuntime().availableProcessors() * 2));
+    private final long measureNanos = TimeUnit.SECONDS.toNanos(Long.getLong("benchmark.seconds", 2));
+    private final long warmupNanos = measureNanos / 2;
+
+    @Test
+    @Story("Конфликтные счета")
+    @DisplayName("Переводы с горячими счетами без учета конфликтов и с учетом")
+    void trackerOverheadTest() throws InterruptedException {
+        StringBuilder report = new StringBuilder(String.format("%-8s %12s %10s %10s%n",
+                "tracker", "ops/s", "ns/op", "overhead"));
+        long baseline = 0;
+        for (boolean enabled : new boolean[]{false, true}) {
+            ContentionProperties properties = new ContentionProperties();
+            properties.setEnabled(enabled);
+            properties.setCapacity(CAPACITY);
+            ContentionTracker tracker = new ContentionTracker(properties);
+            long opsPerSecond = step("Замер: учет " + (enabled ? "включен" : "выключен"), () -> run(tracker));
+            if (baseline == 0) {
+                baseline = opsPerSecond;
+            }
+            report.append(String.format("%-8s %12d %10d %9.1f%%%n", enabled ? "on" : "off", opsPerSecond,
+                    threads * 1_000_000_000L / Math.max(1, opsPerSecond),
+                    100.0 * (baseline - opsPerSecond) / baseline));
+            if (enabled) {
+                ContentionReport contention = tracker.getReport(HOT_ACCOUNTS + 2);
+                report.append(String.format("    operations=%d contended=%d%n",
+                        contention.getOperations(), contention.getContendedOperations()));
+                for (AccountContention account : contention.getAccounts()) {
+                    report.append("    ").append(account).append(System.lineSeparator());
+                }
+                if (contention.getContendedOperations() >= MIN_SAMPLES) {
+                    // Горячий счет участвует в каждой десятой операции, обычный - в одной из нескольких тысяч
+                    for (AccountContention account : contention.getAccounts().subList(0, HOT_ACCOUNTS)) {
+                        assertThat(account.getAccountId()).isLessThanOrEqualTo(HOT_ACCOUNTS);
+                    }
+                }
+            }
+        }
+        System.out.println(report);
+        Allure.addAttachment("Результаты (" + threads + " потоков)", "text/plain", report.toString());
+    }
+
+    private long run(ContentionTracker tracker) throws InterruptedException {
+        PaymentService service = new PaymentServiceFixture().contention(tracker).build();
+        service.loadAccounts(PaymentServiceFixture.accounts(ACCOUNTS, BALANCE, "RUB", "Benchmark"));
+
+        AtomicBoolean measuring = new AtomicBoolean();
+        AtomicBoolean stop = new AtomicBoolean();
+        LongAdder measured = new LongAdder();
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            SplittableRandom random = new SplittableRandom(t);
+            Thread worker = new Thread(() -> {
+                long localMeasured = 0;
+                while (!stop.get()) {
+                    long accountId = 1 + HOT_ACCOUNTS + random.nextInt(ACCOUNTS - HOT_ACCOUNTS);
+                    if (random.nextInt(100) < HOT_PERCENT) {
+                        long hot = 1 + random.nextInt(HOT_ACCOUNTS);
+                        if (random.nextBoolean()) {
+                            service.deposit(hot, TransactionRequest.builder().amount(AMOUNT).build());
+                        } else {
+                            service.transfer(TransferRequest.builder()
+                                    .fromAccountId(accountId)
+                                    .toAccountId(hot)
+                                    .amount(AMOUNT)
+                                    .build());
+                        }
+                    } else {
+                        long counterpart = 1 + HOT_ACCOUNTS + random.nextInt(ACCOUNTS - HOT_ACCOUNTS);
+                        if (counterpart == accountId) {
+                            continue;
+                        }
+                        service.transfer(TransferRequest.builder()
+                                .fromAccountId(accountId)
+                                .toAccountId(counterpart)
+                                .amount(AMOUNT)
+                                .build());
+                    }
+                    if (measuring.get()) {
+                        localMeasured++;
+                    }
+                }
+                measured.add(localMeasured);
+                done.countDown();
+            }, "benchmark-" + t);
+            worker.start();
+        }
+
+        TimeUnit.NANOSECONDS.sleep(warmupNanos);
+        long startedAt = System.nanoTime();
+        measuring.set(true);
+        TimeUnit.NANOSECONDS.sleep(measureNanos);
+        measuring.set(false);
+        long elapsed = System.nanoTime() - startedAt;
+        stop.set(true);
+        done.await();
+        return measured.sum() * 1_000_000_000L / elapsed;
+    }
+}
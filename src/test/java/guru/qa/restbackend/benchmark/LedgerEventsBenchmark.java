@@ -0,0 +1,198 @@
+package guru.qa.restbackend.benchmark;
+
+import guru.qa.restbackend.domain.TransactionRequest;
+import guru.qa.restbackend.domain.TransactionType;
+import guru.qa.restbackend.domain.TransferRequest;
+import guru.qa.restbackend.exception.InsufficientFundsException;
+import guru.qa.restbackend.helpers.PaymentServiceFixture;
+import guru.qa.restbackend.jfr.LedgerRecording;
+import guru.qa.restbackend.service.PaymentService;
+import io.qameta.allure.Allure;
+import io.qameta.allure.Feature;
+import io.qameta.allure.Owner;
+import io.qameta.allure.Story;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import static io.qameta.allure.Allure.step;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Стоимость событий JFR в операциях PaymentService: одна и та же смесь пополнений, снятий, переводов
+ * и чтений истории без записи JFR, с записью только событий профиля jfr/ledger.jfc и с профилем
+ * поверх стандартного профиля JDK. Для записей проверяется, что на каждую операцию пришлось ровно
+ * одно событие, а на каждый отказ - событие отказа.
+ * Запуск: gradle benchmark (длительность замера - -Dbenchmark.seconds, потоки - -Dbenchmark.threads).
+ */
+@Tag("benchmark")
+@Owner("sergeyglukhov")
+@Feature("Benchmark")
+@DisplayName("Бенчмарк событий JFR операций со счетами")
+public class LedgerEventsBenchmark {
+
+    private static final String PREFIX = "guru.qa.restbackend.";
+    private static final int ACCOUNTS = 10_000;
+    private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+    // Снятие больше любого баланса: отказ InsufficientFunds
+    private static final BigDecimal TOO_MUCH = new BigDecimal("1000000000.00");
+    private static final BigDecimal BALANCE = new BigDecimal("1000.00");
+
+    private final int threads = Integer.getInteger("benchmark.threads",
+            Math.max(4, Runtime.getRuntime().availableProcessors() * 2));
+    private final long measureNanos = TimeUnit.SECONDS.toNanos(Long.getLong("benchmark.seconds", 2));
+    private final long warmupNanos = measureNanos / 2;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @Story("JFR")
+    @DisplayName("Операции без записи JFR и с записью событий ledger")
+    void eventOverheadTest() throws Exception {
+        StringBuilder report = new StringBuilder(String.format("%-16s %12s %10s %10s%n",
+                "recording", "ops/s", "ns/op", "overhead"));
+        long baseline = 0;
+        for (String mode : new String[]{"off", "none", "default"}) {
+            Result result = step("Замер: запись " + mode, () -> run(mode));
+            if (baseline == 0) {
+                baseline = result.opsPerSecond;
+            }
+            report.append(String.format("%-16s %12d %10d %9.1f%%%n",
+                    mode.equals("off") ? "off" : mode + "+ledger", result.opsPerSecond,
+                    threads * 1_000_000_000L / Math.max(1, result.opsPerSecond),
+                    100.0 * (baseline - result.opsPerSecond) / baseline));
+            if (result.events != null) {
+                report.append("    events: ").append(result.events).append(System.lineSeparator());
+            }
+        }
+        System.out.println(report);
+        Allure.addAttachment("Результаты (" + threads + " потоков)", "text/plain", report.toString());
+    }
+
+    /**
+     * @param mode off - без записи, иначе запись с профилем JDK mode (none - только ledger.jfc)
+     */
+    private Result run(String mode) throws InterruptedException, IOException {
+        PaymentService service = new PaymentServiceFixture().build();
+        service.loadAccounts(PaymentServiceFixture.accounts(ACCOUNTS, BALANCE, "RUB", "Benchmark"));
+
+        Recording recording = null;
+        if (!mode.equals("off")) {
+            recording = new Recording(LedgerRecording.settings(mode));
+            recording.setToDisk(true);
+            recording.start();
+        }
+
+        AtomicBoolean measuring = new AtomicBoolean();
+        AtomicBoolean stop = new AtomicBoolean();
+        LongAdder measured = new LongAdder();
+        LongAdder operations = new LongAdder();
+        LongAdder rejections = new LongAdder();
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            SplittableRandom random = new SplittableRandom(t);
+            Thread worker = new Thread(() -> {
+                long localMeasured = 0;
+                long localOperations = 0;
+                long localRejections = 0;
+                while (!stop.get()) {
+                    long accountId = 1 + random.nextInt(ACCOUNTS);
+                    int operation = random.nextInt(100);
+                    try {
+                        if (operation < 40) {
+                            service.deposit(accountId, TransactionRequest.builder().amount(AMOUNT).build());
+                        } else if (operation < 65) {
+                            service.withdraw(accountId, TransactionRequest.builder().amount(AMOUNT).build());
+                        } else if (operation < 70) {
+                            service.withdraw(accountId, TransactionRequest.builder().amount(TOO_MUCH).build());
+                        } else if (operation < 99) {
+                            long counterpart = accountId % ACCOUNTS + 1;
+                            service.transfer(TransferRequest.builder()
+                                    .fromAccountId(accountId)
+                                    .toAccountId(counterpart)
+                                    .amount(AMOUNT)
+                                    .build());
+                        } else {
+                            service.getAccountTransactionsByType(accountId, TransactionType.TRANSFER);
+                        }
+                    } catch (InsufficientFundsException e) {
+                        localRejections++;
+                    }
+                    localOperations++;
+                    if (measuring.get()) {
+                        localMeasured++;
+                    }
+                }
+                measured.add(localMeasured);
+                operations.add(localOperations);
+                rejections.add(localRejections);
+                done.countDown();
+            }, "benchmark-" + t);
+            worker.start();
+        }
+
+        TimeUnit.NANOSECONDS.sleep(warmupNanos);
+        long startedAt = System.nanoTime();
+        measuring.set(true);
+        TimeUnit.NANOSECONDS.sleep(measureNanos);
+        measuring.set(false);
+        long elapsed = System.nanoTime() - startedAt;
+        stop.set(true);
+        done.await();
+        long opsPerSecond = measured.sum() * 1_000_000_000L / elapsed;
+        if (recording == null) {
+            return new Result(opsPerSecond, null);
+        }
+
+        recording.stop();
+        Path file = tempDir.resolve(mode + ".jfr");
+        recording.dump(file);
+        recording.close();
+        Map<String, Long> events = countLedgerEvents(file);
+        long operationEvents = events.getOrDefault("Deposit", 0L) + events.getOrDefault("Withdraw", 0L)
+                + events.getOrDefault("Transfer", 0L) + events.getOrDefault("HistoryQuery", 0L);
+        assertThat(operationEvents).as("события операций").isEqualTo(operations.sum());
+        assertThat(events.getOrDefault("OperationRejected", 0L)).as("события отказов").isEqualTo(rejections.sum());
+        return new Result(opsPerSecond, events);
+    }
+
+    private static Map<String, Long> countLedgerEvents(Path file) throws IOException {
+        Map<String, Long> counts = new TreeMap<>();
+        try (RecordingFile recording = new RecordingFile(file)) {
+            while (recording.hasMoreEvents()) {
+                RecordedEvent event = recording.readEvent();
+                String name = event.getEventType().getName();
+                if (name.startsWith(PREFIX)) {
+                    counts.merge(name.substring(PREFIX.length()), 1L, Long::sum);
+                }
+            }
+        }
+        return counts;
+    }
+
+    private static class Result {
+        final long opsPerSecond;
+        final Map<String, Long> events;
+
+        Result(long opsPerSecond, Map<String, Long> events) {
+            this.opsPerSecond = opsPerSecond;
+            this.events = events;
+        }
+    }
+}
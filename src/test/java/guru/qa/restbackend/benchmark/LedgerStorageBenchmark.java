@@ -0,0 +1,261 @@
+package guru.qa.restbackend.benchmark;
+
+import com.zaxxer.hikari.HikariDataSource;
+import guru.qa.restbackend.domain.Account;
+import guru.qa.restbackend.domain.AccountStatus;
+import guru.qa.restbackend.domain.Transaction;
+import guru.qa.restbackend.domain.TransactionStatus;
+import guru.qa.restbackend.domain.TransactionType;
+import guru.qa.restbackend.storage.*;
+import io.qameta.allure.Allure;
+import io.qameta.allure.Feature;
+import io.qameta.allure.Owner;
+import io.qameta.allure.Story;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import static io.qameta.allure.Allure.step;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Сравнение реализаций хранилища на одинаковой нагрузке: пакетная загрузка счетов и истории,
+ * затем смесь онлайн-операций в нескольких потоках - чтение истории счета (70%), истории за последние
+ * сутки (10%) и перевод с записью транзакции (20%). После замера проверяется, что сумма балансов не изменилась.
+ * Запуск: gradle benchmark (длительность замера - -Dbenchmark.seconds, потоки - -Dbenchmark.threads,
+ * объем - -Dbenchmark.accounts и -Dbenchmark.transactions).
+ */
+@Tag("benchmark")
+@Owner("sergeyglukhov")
+@Feature("Benchmark")
+@DisplayName("Бенчмарк реализаций хранилища")
+public class LedgerStorageBenchmark {
+
+    private static final int BATCH_SIZE = 1000;
+    private static final Duration HISTORY = Duration.ofDays(30);
+    private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+    private static final BigDecimal BALANCE = new BigDecimal("1000000.00");
+
+    private final int threads = Integer.getInteger("benchmark.threads",
+            Math.max(4, Runtime.getRuntime().availableProcessors() * 2));
+    private final int accountCount = Integer.getInteger("benchmark.accounts", 10_000);
+    private final int transactionCount = Integer.getInteger("benchmark.transactions", 200_000);
+    private final long measureNanos = TimeUnit.SECONDS.toNanos(Long.getLong("benchmark.seconds", 2));
+    private final long warmupNanos = measureNanos / 2;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @Story("Хранилище")
+    @DisplayName("MEMORY, FILE и H2: загрузка и онлайн-операции")
+    void storageImplementationsTest() throws Exception {
+        Map<String, Storage> candidates = new LinkedHashMap<>();
+        candidates.put("MEMORY", () -> new Repositories(accountStore(), new InMemoryTransactionRepository(), () -> {
+        }));
+        candidates.put("FILE", () -> {
+            TieringProperties tiering = new TieringProperties();
+            tiering.setDir(tempDir.resolve("segments-" + System.nanoTime()).toString());
+            // История старше трех суток уходит в сегменты на диске
+            tiering.setHotAge(Duration.ofDays(3));
+            TransactionStore store = new TransactionStore(tiering);
+            store.init();
+            return new Repositories(accountStore(), store, store::close);
+        });
+        candidates.put("H2", () -> {
+            H2StorageProperties h2 = new H2StorageProperties();
+            h2.setDir(tempDir.resolve("h2-" + System.nanoTime()).toString());
+            h2.setPoolSize(threads);
+            h2.setBatchSize(BATCH_SIZE);
+            HikariDataSource dataSource = H2StorageConfiguration.createDataSource(h2);
+            H2AccountRepository accounts = new H2AccountRepository(dataSource, new AccountStoreProperties(), h2,
+                    List.of());
+            accounts.init();
+            return new Repositories(accounts, new H2TransactionRepository(dataSource, h2), dataSource::close);
+        });
+
+        // Прогрев JIT на уменьшенном объеме, чтобы первая реализация не платила за компиляцию
+        for (Map.Entry<String, Storage> candidate : candidates.entrySet()) {
+            step("Прогрев " + candidate.getKey(), () ->
+                    run(candidate.getValue().open(), accountCount / 10, transactionCount / 10, warmupNanos));
+        }
+
+        StringBuilder report = new StringBuilder(String.format("%-8s %14s %14s %14s%n",
+                "storage", "accounts/s", "rows/s", "online ops/s"));
+        for (Map.Entry<String, Storage> candidate : candidates.entrySet()) {
+            Result result = step("Замер " + candidate.getKey(), () ->
+                    run(candidate.getValue().open(), accountCount, transactionCount, measureNanos));
+            report.append(String.format("%-8s %14d %14d %14d%n", candidate.getKey(),
+                    result.accountsPerSecond, result.rowsPerSecond, result.onlineOpsPerSecond));
+        }
+        System.out.println(report);
+        Allure.addAttachment("Результаты (" + accountCount + " счетов, " + transactionCount + " транзакций, "
+                + threads + " потоков)", "text/plain", report.toString());
+    }
+
+    private Result run(Repositories storage, int accountCount, int transactionCount, long measureNanos)
+            throws Exception {
+        long started = System.nanoTime();
+        List<Account> accounts = new ArrayList<>(BATCH_SIZE);
+        for (long id = 1; id <= accountCount; id++) {
+            accounts.add(account(id));
+            if (accounts.size() == BATCH_SIZE || id == accountCount) {
+                storage.accounts.insertAll(accounts);
+                accounts.clear();
+            }
+        }
+        long accountsElapsed = System.nanoTime() - started;
+
+        started = System.nanoTime();
+        SplittableRandom random = new SplittableRandom(42);
+        LocalDateTime first = LocalDateTime.now().minus(HISTORY);
+        long spacingNanos = HISTORY.toNanos() / transactionCount;
+        List<Transaction> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < transactionCount; i++) {
+            LocalDateTime timestamp = first.plusNanos(i * spacingNanos);
+            batch.add(transfer(TransactionIdGenerator.idAt(timestamp, i & 0x3FFFFF), timestamp,
+                    1 + random.nextInt(accountCount), 1 + random.nextInt(accountCount)));
+            if (batch.size() == BATCH_SIZE || i == transactionCount - 1) {
+                storage.transactions.saveAll(batch);
+                batch.clear();
+            }
+        }
+        if (storage.transactions instanceof TransactionStore) {
+            ((TransactionStore) storage.transactions).tierColdTransactions();
+        }
+        long rowsElapsed = System.nanoTime() - started;
+
+        long online = online(storage, accountCount, measureNanos);
+        assertThat(storage.transactions.count()).isGreaterThanOrEqualTo(transactionCount);
+        // Переводы не создают и не теряют денег
+        BigDecimal[] total = {BigDecimal.ZERO};
+        storage.accounts.forEachAt(storage.accounts.currentSequence(),
+                account -> total[0] = total[0].add(account.getBalance()));
+        assertThat(total[0]).isEqualByComparingTo(BALANCE.multiply(BigDecimal.valueOf(accountCount)));
+        storage.close.close();
+        return new Result(accountCount * 1_000_000_000L / accountsElapsed,
+                transactionCount * 1_000_000_000L / rowsElapsed, online);
+    }
+
+    private long online(Repositories storage, int accountCount, long measureNanos) throws InterruptedException {
+        TransactionIdGenerator ids = new TransactionIdGenerator();
+        AtomicBoolean measuring = new AtomicBoolean();
+        AtomicBoolean stop = new AtomicBoolean();
+        LongAdder measured = new LongAdder();
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            SplittableRandom random = new SplittableRandom(t);
+            Thread worker = new Thread(() -> {
+                long localMeasured = 0;
+                while (!stop.get()) {
+                    long accountId = 1 + random.nextInt(accountCount);
+                    int operation = random.nextInt(10);
+                    if (operation < 7) {
+                        storage.transactions.findByAccount(accountId);
+                    } else if (operation < 8) {
+                        storage.transactions.findByAccount(accountId, LocalDateTime.now().minusDays(1), null);
+                    } else {
+                        long counterpart = 1 + random.nextInt(accountCount);
+                        if (counterpart == accountId) {
+                            continue;
+                        }
+                        long id = ids.nextId();
+                        storage.accounts.move(accountId, counterpart, AMOUNT, id, (from, to) -> {
+                        }, () -> new IllegalStateException("Недостаточно средств"));
+                        storage.transactions.save(transfer(id, TransactionIdGenerator.timestampOf(id),
+                                accountId, counterpart));
+                    }
+                    if (measuring.get()) {
+                        localMeasured++;
+                    }
+                }
+                measured.add(localMeasured);
+                done.countDown();
+            }, "benchmark-" + t);
+            worker.start();
+        }
+
+        TimeUnit.NANOSECONDS.sleep(warmupNanos);
+        long startedAt = System.nanoTime();
+        measuring.set(true);
+        TimeUnit.NANOSECONDS.sleep(measureNanos);
+        measuring.set(false);
+        long elapsed = System.nanoTime() - startedAt;
+        stop.set(true);
+        done.await();
+        return measured.sum() * 1_000_000_000L / elapsed;
+    }
+
+    private static AccountStore accountStore() {
+        return new AccountStore(new AccountStoreProperties());
+    }
+
+    private static Account account(long id) {
+        return Account.builder()
+                .id(id)
+                .accountNumber(String.valueOf(id))
+                .balance(BALANCE)
+                .currency("USD")
+                .status(AccountStatus.ACTIVE)
+                .createdAt(LocalDateTime.now())
+                .ownerName("Benchmark")
+                .build();
+    }
+
+    private static Transaction transfer(long id, LocalDateTime timestamp, long fromAccountId, long toAccountId) {
+        return Transaction.builder()
+                .id(id)
+                .type(TransactionType.TRANSFER)
+                .amount(AMOUNT)
+                .fromAccountId(fromAccountId)
+                .toAccountId(toAccountId)
+                .timestamp(timestamp)
+                .description("Benchmark")
+                .status(TransactionStatus.SUCCESS)
+                .build();
+    }
+
+    @FunctionalInterface
+    private interface Storage {
+        Repositories open() throws Exception;
+    }
+
+    private static class Repositories {
+        final AccountRepository accounts;
+        final TransactionRepository transactions;
+        final AutoCloseable close;
+
+        Repositories(AccountRepository accounts, TransactionRepository transactions, AutoCloseable close) {
+            this.accounts = accounts;
+            this.transactions = transactions;
+            this.close = close;
+        }
+    }
+
+    private static class Result {
+        final long accountsPerSecond;
+        final long rowsPerSecond;
+        final long onlineOpsPerSecond;
+
+        Result(long accountsPerSecond, long rowsPerSecond, long onlineOpsPerSecond) {
+            this.accountsPerSecond = accountsPerSecond;
+            this.rowsPerSecond = rowsPerSecond;
+            this.onlineOpsPerSecond = onlineOpsPerSecond;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package guru.qa.restbackend.benchmark;
+
+import guru.qa.restbackend.security.SessionProperties;
+import guru.qa.restbackend.security.SessionTokenService;
+import io.qameta.allure.Allure;
+import io.qameta.allure.Feature;
+import io.qameta.allure.Owner;
+import io.qameta.allure.Story;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import static io.qameta.allure.Allure.step;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Стоимость аутентификации одного запроса: проверка подписи HMAC на каждом запросе
+ * против кэша проверенных токенов, для одного и нескольких потоков.
+ * Запуск: gradle benchmark (длительность замера - -Dbenchmark.seconds, потоки - -Dbenchmark.threads).
+ */
+@Tag("benchmark")
+@Owner("sergeyglukhov")
+@Feature("Benchmark")
+@DisplayName("Бенчмарк проверки токенов сессии")
+public class SessionTokenBenchmark {
+
+    // Число одновременно активных сессий: все помещаются в кэш
+    private static final int SESSIONS = 1000;
+    private static final int CACHE_CAPACITY = 10_000;
+
+    private final int threads = Integer.getInteger("benchmark.threads",
+            Math.max(4, Runtime.getRuntime().availableProcessors() * 2));
+    private final long measureNanos = TimeUnit.SECONDS.toNanos(Long.getLong("benchmark.seconds", 2));
+    private final long warmupNanos = measureNanos / 2;
+
+    @Test
+    @Story("Аутентификация запроса")
+    @DisplayName("HMAC на каждом запросе против кэша проверенных токенов")
+    void signatureVersusCacheTest() throws InterruptedException {
+        StringBuilder report = new StringBuilder(String.format("%-10s %8s %14s %12s%n",
+                "mode", "threads", "ops/s", "ns/op"));
+        for (int threadCount : new int[]{1, threads}) {
+            for (int capacity : new int[]{0, CACHE_CAPACITY}) {
+                String mode = capacity > 0 ? "cache" : "signature";
+                long opsPerSecond = step("Замер " + mode + " в " + threadCount + " потоках", () ->
+                        run(capacity, threadCount));
+                report.append(String.format("%-10s %8d %14d %12d%n", mode, threadCount, opsPerSecond,
+                        threadCount * 1_000_000_000L / Math.max(1, opsPerSecond)));
+            }
+        }
+        System.out.println(report);
+        Allure.addAttachment("Результаты (" + SESSIONS + " сессий)", "text/plain", report.toString());
+    }
+
+    private long run(int cacheCapacity, int threadCount) throws InterruptedException {
+        SessionProperties properties = new SessionProperties();
+        properties.setCacheCapacity(cacheCapacity);
+        SessionTokenService service = new SessionTokenService(properties);
+        String[] tokens = new String[SESSIONS];
+        for (int i = 0; i < SESSIONS; i++) {
+            tokens[i] = service.issue("user-" + i).getToken();
+        }
+
+        AtomicBoolean measuring = new AtomicBoolean();
+        AtomicBoolean stop = new AtomicBoolean();
+        LongAdder measured = new LongAdder();
+        CountDownLatch done = new CountDownLatch(threadCount);
+        for (int t = 0; t < threadCount; t++) {
+            SplittableRandom random = new SplittableRandom(t);
+            Thread worker = new Thread(() -> {
+                long localMeasured = 0;
+                while (!stop.get()) {
+                    int session = random.nextInt(SESSIONS);
+                    if (!service.verify(tokens[session]).getName().endsWith(String.valueOf(session))) {
+                        throw new AssertionError("Токен сессии " + session + " проверен неверно");
+                    }
+                    if (measuring.get()) {
+                        localMeasured++;
+                    }
+                }
+                measured.add(localMeasured);
+                done.countDown();
+            }, "benchmark-" + t);
+            worker.start();
+        }
+
+        TimeUnit.NANOSECONDS.sleep(warmupNanos);
+        long startedAt = System.nanoTime();
+        measuring.set(true);
+        TimeUnit.NANOSECONDS.sleep(measureNanos);
+        measuring.set(false);
+        long elapsed = System.nanoTime() - startedAt;
+        stop.set(true);
+        done.await();
+
+        if (cacheCapacity > 0) {
+            // Подпись считалась только на первом обращении потока к каждой сессии
+            assertThat(service.getCacheMisses()).isLessThanOrEqualTo((long) SESSIONS * threadCount);
+        }
+        return measured.sum() * 1_000_000_000L / elapsed;
+    }
+}
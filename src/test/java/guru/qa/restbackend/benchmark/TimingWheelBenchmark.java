@@ -0,0 +1,100 @@
+package guru.qa.restbackend.benchmark;
+
+import guru.qa.restbackend.schedule.TimingWheel;
+import io.qameta.allure.Allure;
+import io.qameta.allure.Feature;
+import io.qameta.allure.Owner;
+import io.qameta.allure.Story;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static io.qameta.allure.Allure.step;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Стоимость добавления, отмены и срабатывания таймеров в колесе времени планировщика переводов
+ * при разном числе ожидающих таймеров: время операции не должно расти с их числом. Сроки случайные,
+ * от шага до года (при шаге 100 мс), часть таймеров отменяется. Проверяется, что каждый неотмененный
+ * таймер сработал ровно один раз и не раньше срока, а отмененные не сработали.
+ * Запуск: gradle benchmark.
+ */
+@Tag("benchmark")
+@Owner("sergeyglukhov")
+@Feature("Benchmark")
+@DisplayName("Бенчмарк колеса времени")
+public class TimingWheelBenchmark {
+
+    private static final int[] SIZES = {10_000, 100_000, 1_000_000};
+    // Год при шаге колеса 100 мс
+    private static final long MAX_DELAY_TICKS = 365L * 24 * 3600 * 10;
+    // Доля отменяемых таймеров (в процентах)
+    private static final int CANCEL_PERCENT = 20;
+    private static final long START_TICK = 17_000_000_000L;
+
+    @Test
+    @Story("Колесо времени")
+    @DisplayName("Добавление, отмена и срабатывание таймеров")
+    void timingWheelTest() {
+        StringBuilder report = new StringBuilder(String.format("%-10s %12s %12s %12s %12s%n",
+                "timers", "add ns/op", "cancel ns/op", "fire ns/op", "advance ms"));
+        for (int size : SIZES) {
+            step("Замер: " + size + " таймеров", () -> report.append(run(size)));
+        }
+        System.out.println(report);
+        Allure.addAttachment("Результаты", "text/plain", report.toString());
+    }
+
+    private String run(int size) {
+        TimingWheel<long[]> wheel = new TimingWheel<>(START_TICK);
+        SplittableRandom random = new SplittableRandom(size);
+        // Данные таймера: [срок, шаг срабатывания, число срабатываний]
+        long[][] payloads = new long[size][];
+        @SuppressWarnings("unchecked")
+        TimingWheel.Timer<long[]>[] timers = new TimingWheel.Timer[size];
+        long[] fired = new long[1];
+
+        long startedAt = System.nanoTime();
+        for (int i = 0; i < size; i++) {
+            payloads[i] = new long[]{START_TICK + 1 + random.nextLong(MAX_DELAY_TICKS), 0, 0};
+            timers[i] = wheel.add(payloads[i][0], payloads[i], payload -> fired[0]++);
+        }
+        long addNanos = System.nanoTime() - startedAt;
+        assertThat(wheel.size()).isEqualTo(size);
+
+        int cancelled = 0;
+        startedAt = System.nanoTime();
+        for (int i = 0; i < size; i++) {
+            if (i % 100 < CANCEL_PERCENT) {
+                assertThat(wheel.cancel(timers[i])).isTrue();
+                cancelled++;
+            }
+        }
+        long cancelNanos = System.nanoTime() - startedAt;
+        assertThat(wheel.size()).isEqualTo(size - cancelled);
+
+        startedAt = System.nanoTime();
+        wheel.advance(START_TICK + MAX_DELAY_TICKS + 1, payload -> {
+            payload[1] = wheel.currentTick();
+            payload[2]++;
+        });
+        long advanceNanos = System.nanoTime() - startedAt;
+
+        assertThat(wheel.size()).isZero();
+        assertThat(fired[0]).isZero();
+        for (int i = 0; i < size; i++) {
+            long[] payload = payloads[i];
+            if (i % 100 < CANCEL_PERCENT) {
+                assertThat(payload[2]).as("Отмененный таймер %d", i).isZero();
+            } else {
+                assertThat(payload[2]).as("Число срабатываний таймера %d", i).isEqualTo(1);
+                assertThat(payload[1]).as("Шаг срабатывания таймера %d", i).isEqualTo(payload[0]);
+            }
+        }
+        return String.format("%-10d %12d %12d %12d %12d%n", size, addNanos / size,
+                cancelNanos / Math.max(1, cancelled), advanceNanos / (size - cancelled),
+                advanceNanos / 1_000_000);
+    }
+}
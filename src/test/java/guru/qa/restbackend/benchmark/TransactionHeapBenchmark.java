@@ -0,0 +1,175 @@
+package guru.qa.restbackend.benchmark;
+
+import guru.qa.restbackend.domain.Transaction;
+import guru.qa.restbackend.domain.TransactionStatus;
+import guru.qa.restbackend.domain.TransactionType;
+import guru.qa.restbackend.storage.InMemoryTransactionRepository;
+import guru.qa.restbackend.storage.TieringProperties;
+import guru.qa.restbackend.storage.TransactionRepository;
+import guru.qa.restbackend.storage.TransactionStore;
+import io.qameta.allure.Allure;
+import io.qameta.allure.Feature;
+import io.qameta.allure.Owner;
+import io.qameta.allure.Story;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static io.qameta.allure.Allure.step;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Куча, занятая историей транзакций в памяти: хранилища FILE (горячий уровень) и MEMORY с компактными
+ * записями против тех же структур с DTO {@link Transaction}, как хранилось раньше. Описания - типовые
+ * строки, но каждая транзакция приходит со своим экземпляром, как после разбора JSON. Проверяется,
+ * что компактные записи занимают меньше половины памяти DTO и что история счета читается без потерь.
+ * Запуск: gradle benchmark (объем - -Dbenchmark.transactions, по умолчанию миллион; нужна куча от 1 ГБ).
+ */
+@Tag("benchmark")
+@Owner("sergeyglukhov")
+@Feature("Benchmark")
+@DisplayName("Бенчмарк памяти истории транзакций")
+public class TransactionHeapBenchmark {
+
+    private static final String[] DESCRIPTIONS = {
+            "Пополнение счета", "Снятие со счета", "Перевод между счетами", "Списание по холду"};
+    private static final TransactionType[] TYPES = {
+            TransactionType.DEPOSIT, TransactionType.WITHDRAWAL, TransactionType.TRANSFER, TransactionType.WITHDRAWAL};
+    private static final int ACCOUNTS = 10_000;
+    private static final double MB = 1024 * 1024;
+
+    private final int transactionCount = Integer.getInteger("benchmark.transactions", 1_000_000);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @Story("Память")
+    @DisplayName("Компактные записи против DTO")
+    void transactionHeapTest() throws Exception {
+        StringBuilder report = new StringBuilder(String.format("%-22s %12s %14s %10s%n",
+                "layout", "heap MB", "MB per 1M tx", "bytes/tx"));
+
+        long dtoMap = step("DTO: карта по ID", () -> measure(report, "DTO map", () -> {
+            Map<Long, Transaction> map = new ConcurrentHashMap<>();
+            for (int i = 0; i < transactionCount; i++) {
+                Transaction transaction = transaction(i);
+                map.put(transaction.getId(), transaction);
+            }
+            return map;
+        }));
+        long fileStore = step("FILE: горячий уровень", () -> measure(report, "FILE (compact)", () -> {
+            TieringProperties tiering = new TieringProperties();
+            tiering.setDir(tempDir.resolve("segments").toString());
+            // Все транзакции остаются в горячем уровне
+            tiering.setHotAge(Duration.ofDays(36500));
+            TransactionStore store = new TransactionStore(tiering);
+            store.init();
+            fill(store);
+            return store;
+        }));
+        long dtoIndexed = step("DTO: карта и списки по счетам", () -> measure(report, "DTO map + index", () -> {
+            Map<Long, Transaction> map = new ConcurrentHashMap<>();
+            Map<Long, List<Transaction>> byAccount = new ConcurrentHashMap<>();
+            for (int i = 0; i < transactionCount; i++) {
+                Transaction transaction = transaction(i);
+                map.put(transaction.getId(), transaction);
+                for (Long accountId : new Long[]{transaction.getFromAccountId(), transaction.getToAccountId()}) {
+                    if (accountId != null) {
+                        byAccount.computeIfAbsent(accountId, id -> new ArrayList<>()).add(transaction);
+                    }
+                }
+            }
+            return new Object[]{map, byAccount};
+        }));
+        long memoryStore = step("MEMORY", () -> measure(report, "MEMORY (compact)", () -> {
+            InMemoryTransactionRepository repository = new InMemoryTransactionRepository();
+            fill(repository);
+            return repository;
+        }));
+
+        System.out.println(report);
+        Allure.addAttachment("Результаты", "text/plain", report.toString());
+
+        step("Проверить экономию памяти", () -> {
+            assertThat(fileStore).isLessThan(dtoMap / 2);
+            assertThat(memoryStore).isLessThan(dtoIndexed / 2);
+        });
+        step("Проверить историю счета после чтения", () -> {
+            InMemoryTransactionRepository repository = new InMemoryTransactionRepository();
+            List<Transaction> expected = new ArrayList<>();
+            for (int i = 0; i < 10_000; i++) {
+                Transaction transaction = transaction(i);
+                repository.save(transaction);
+                if (transaction.getToAccountId() != null && transaction.getToAccountId() == 1L
+                        || transaction.getFromAccountId() != null && transaction.getFromAccountId() == 1L) {
+                    expected.add(transaction);
+                }
+            }
+            assertThat(repository.findByAccount(1L)).containsExactlyInAnyOrderElementsOf(expected);
+        });
+    }
+
+    private void fill(TransactionRepository repository) {
+        List<Transaction> batch = new ArrayList<>();
+        for (int i = 0; i < transactionCount; i++) {
+            batch.add(transaction(i));
+            if (batch.size() == 1000) {
+                repository.saveAll(batch);
+                batch.clear();
+            }
+        }
+        repository.saveAll(batch);
+    }
+
+    private long measure(StringBuilder report, String layout, Callable<Object> build) throws Exception {
+        long before = usedHeap();
+        Object retained = build.call();
+        long used = usedHeap() - before;
+        report.append(String.format("%-22s %12.1f %14.1f %10d%n", layout, used / MB,
+                used / MB * 1_000_000 / transactionCount, used / transactionCount));
+        // Держим структуру до замера
+        assertThat(retained).isNotNull();
+        return used;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+
+    private static Transaction transaction(int i) {
+        SplittableRandom random = new SplittableRandom(i);
+        int kind = i % DESCRIPTIONS.length;
+        Long from = kind == 0 ? null : 1L + random.nextInt(ACCOUNTS);
+        Long to = kind == 1 || kind == 3 ? null : 1L + random.nextInt(ACCOUNTS);
+        return Transaction.builder()
+                .id(i + 1L)
+                .type(TYPES[kind])
+                .amount(BigDecimal.valueOf(1 + random.nextInt(1_000_000), 2))
+                .fromAccountId(from)
+                .toAccountId(to)
+                .timestamp(LocalDateTime.of(2024, 1, 1, 0, 0).plusSeconds(i).plusNanos(random.nextInt(1_000_000_000)))
+                // Отдельный экземпляр строки на каждую транзакцию
+                .description(new String(DESCRIPTIONS[kind].toCharArray()))
+                .status(TransactionStatus.SUCCESS)
+                .build();
+    }
+}
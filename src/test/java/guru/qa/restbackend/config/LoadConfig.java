@@ -0,0 +1,85 @@
+package guru.qa.restbackend.config;
+
+import org.aeonbits.owner.Config;
+
+/**
+ * Параметры нагрузочного теста: значения из load.properties переопределяются системными свойствами
+ * (gradle loadTest -Dload.rate=500).
+ */
+@Config.LoadPolicy(Config.LoadType.MERGE)
+@Config.Sources({
+        "system:properties",
+        "classpath:load.properties"
+})
+public interface LoadConfig extends Config {
+
+    @Key("load.baseUri")
+    String baseUri();
+
+    // Одновременные клиенты: у каждого свое соединение и свое расписание запросов
+    @Key("load.clients")
+    int clients();
+
+    // Целевой поток запросов в секунду (открытая модель: не зависит от скорости ответов)
+    @Key("load.rate")
+    int rate();
+
+    @Key("load.warmupSeconds")
+    int warmupSeconds();
+
+    @Key("load.durationSeconds")
+    int durationSeconds();
+
+    @Key("load.hotAccounts")
+    int hotAccounts();
+
+    @Key("load.coldAccounts")
+    int coldAccounts();
+
+    // Доля операций с горячими счетами, %
+    @Key("load.hotPercent")
+    int hotPercent();
+
+    // Веса операций в смеси
+    @Key("load.mix.deposit")
+    int depositWeight();
+
+    @Key("load.mix.withdraw")
+    int withdrawWeight();
+
+    @Key("load.mix.transfer")
+    int transferWeight();
+
+    @Key("load.mix.read")
+    int readWeight();
+
+    // SLO: перцентили задержки с поправкой на coordinated omission, мс
+    @Key("load.slo.p50Millis")
+    long sloP50Millis();
+
+    @Key("load.slo.p99Millis")
+    long sloP99Millis();
+
+    @Key("load.slo.p999Millis")
+    long sloP999Millis();
+
+    // SLO: доля ответов с ошибкой, %
+    @Key("load.slo.maxErrorPercent")
+    double sloMaxErrorPercent();
+
+    // SLO: достигнутая пропускная способность от целевой, %
+    @Key("load.slo.minThroughputPercent")
+    double sloMinThroughputPercent();
+
+    // Воспроизведение записи трафика (bank.capture.*): файл capture-*.bcap.gz
+    @Key("load.replay.file")
+    String replayFile();
+
+    // Ускорение относительно записи: 1 - как записано, N - в N раз быстрее, 0 - как можно быстрее
+    @Key("load.replay.speed")
+    double replaySpeed();
+
+    // Максимум одновременных запросов при воспроизведении
+    @Key("load.replay.clients")
+    int replayClients();
+}
@@ -0,0 +1,106 @@
+package guru.qa.restbackend.data;
+
+import guru.qa.restbackend.domain.Account;
+import guru.qa.restbackend.domain.Transaction;
+import guru.qa.restbackend.helpers.PaymentServiceFixture;
+import guru.qa.restbackend.service.PaymentService;
+import io.qameta.allure.Feature;
+import io.qameta.allure.Owner;
+import io.qameta.allure.Story;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static io.qameta.allure.Allure.step;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Генератор синтетических данных без запущенного сервиса: сервис собирается на хранилищах в памяти.
+ */
+@Owner("sergeyglukhov")
+@Feature("Синтетические данные")
+public class SyntheticDataGeneratorTests {
+
+    private static final int ACCOUNTS = 5000;
+
+    @Test
+    @Story("Детерминированность")
+    @DisplayName("Один и тот же seed дает одни и те же счета и транзакции")
+    void sameSeedGivesSameDataTest() {
+        Generated first = step("Сгенерировать данные в 4 потока", () -> generate(4));
+        Generated second = step("Сгенерировать данные с тем же seed в 1 поток", () -> generate(1));
+
+        step("Проверить, что счета и транзакции совпадают", () -> {
+            assertThat(second.accounts).isEqualTo(first.accounts);
+            assertThat(second.transactions).isEqualTo(first.transactions);
+        });
+    }
+
+    @Test
+    @Story("Согласованность")
+    @DisplayName("Счета открываются по всей истории, транзакции - после открытия обоих счетов")
+    void transactionsFollowAccountCreationTest() {
+        Generated generated = step("Сгенерировать данные", () -> generate(2));
+        Map<Long, Account> byId = new HashMap<>();
+        generated.accounts.forEach(account -> byId.put(account.getId(), account));
+
+        step("Проверить, что даты открытия разнесены по глубине истории", () -> {
+            LocalDateTime first = generated.accounts.stream().map(Account::getCreatedAt)
+                    .min(Comparator.naturalOrder()).orElseThrow();
+            LocalDateTime last = generated.accounts.stream().map(Account::getCreatedAt)
+                    .max(Comparator.naturalOrder()).orElseThrow();
+            assertThat(first.plusDays(300)).isBefore(last);
+        });
+        step("Проверить, что транзакции не раньше открытия счетов и балансы равны сумме истории", () -> {
+            Map<Long, BigDecimal> sums = new HashMap<>();
+            for (Transaction transaction : generated.transactions) {
+                if (transaction.getFromAccountId() != null) {
+                    Account from = byId.get(transaction.getFromAccountId());
+                    assertThat(transaction.getTimestamp()).isAfterOrEqualTo(from.getCreatedAt());
+                    sums.merge(from.getId(), transaction.getAmount().negate(), BigDecimal::add);
+                }
+                if (transaction.getToAccountId() != null) {
+                    Account to = byId.get(transaction.getToAccountId());
+                    assertThat(transaction.getTimestamp()).isAfterOrEqualTo(to.getCreatedAt());
+                    sums.merge(to.getId(), transaction.getAmount(), BigDecimal::add);
+                }
+            }
+            generated.accounts.forEach(account ->
+                    assertThat(account.getBalance()).isEqualByComparingTo(sums.get(account.getId())));
+        });
+    }
+
+    private static Generated generate(int parallelism) {
+        PaymentService service = new PaymentServiceFixture().build();
+        SyntheticDataProperties properties = new SyntheticDataProperties();
+        properties.setAccounts(ACCOUNTS);
+        properties.setTransactionsPerAccount(8);
+        properties.setParallelism(parallelism);
+        new SyntheticDataGenerator(service, properties).populate();
+
+        List<Account> accounts = service.getAllAccounts();
+        accounts.sort(Comparator.comparing(Account::getId));
+        List<Transaction> transactions = accounts.stream()
+                .flatMap(account -> service.getAccountTransactions(account.getId()).stream())
+                .distinct()
+                .sorted(Comparator.comparing(Transaction::getId))
+                .toList();
+        return new Generated(accounts, transactions);
+    }
+
+    private static final class Generated {
+        final List<Account> accounts;
+        final List<Transaction> transactions;
+
+        Generated(List<Account> accounts, List<Transaction> transactions) {
+            this.accounts = accounts;
+            this.transactions = transactions;
+        }
+    }
+}
@@ -23,7 +23,8 @@ public class TestData {
             "USD",
             AccountStatus.ACTIVE,
             LocalDateTime.now().minusDays(30),
-            "Sergey Gluhov"
+            "Sergey Gluhov",
+            BigDecimal.ZERO
     );
 
     public static final Account SECOND_USER_DATA = new Account(
@@ -33,7 +34,8 @@ public class TestData {
             "EUR",
             AccountStatus.ACTIVE,
             LocalDateTime.now().minusDays(20),
-            "Dima Ivanov"
+            "Dima Ivanov",
+            BigDecimal.ZERO
     );
 
     public static final Account THIRD_USER_DATA = new Account(
@@ -43,7 +45,8 @@ public class TestData {
             "RUB",
             AccountStatus.ACTIVE,
             LocalDateTime.now().minusDays(15),
-            "Alex Petrov"
+            "Alex Petrov",
+            BigDecimal.ZERO
     );
 
     public static final Account FOURTH_USER_DATA = new Account(
@@ -53,7 +56,8 @@ public class TestData {
             "USD",
             AccountStatus.BLOCKED,
             LocalDateTime.now().minusDays(10),
-            "Dasha Smirnova"
+            "Dasha Smirnova",
+            BigDecimal.ZERO
     );
 
     public static final TransferRequest SUCCESS_TEST_TRANSFER_REQUEST_DATA = new TransferRequest(
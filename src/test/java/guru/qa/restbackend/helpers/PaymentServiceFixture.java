@@ -0,0 +1,106 @@
+package guru.qa.restbackend.helpers;
+
+import guru.qa.restbackend.data.TestDataInitializer;
+import guru.qa.restbackend.domain.Account;
+import guru.qa.restbackend.domain.AccountStatus;
+import guru.qa.restbackend.history.BalanceHistory;
+import guru.qa.restbackend.history.BalanceHistoryProperties;
+import guru.qa.restbackend.monitoring.ContentionProperties;
+import guru.qa.restbackend.monitoring.ContentionTracker;
+import guru.qa.restbackend.service.PaymentService;
+import guru.qa.restbackend.stats.LedgerStatistics;
+import guru.qa.restbackend.storage.AccountRepository;
+import guru.qa.restbackend.storage.AccountStore;
+import guru.qa.restbackend.storage.AccountStoreProperties;
+import guru.qa.restbackend.storage.AccountTable;
+import guru.qa.restbackend.storage.InMemoryTransactionRepository;
+import guru.qa.restbackend.storage.TransactionIdGenerator;
+import guru.qa.restbackend.storage.TransactionRepository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * PaymentService для тестов и бенчмарков без запущенного сервиса: хранилище счетов в памяти,
+ * история балансов и колоночная таблица получают фиксации так же, как в приложении.
+ * По умолчанию транзакции хранятся в памяти, настройки - стандартные.
+ */
+public class PaymentServiceFixture {
+
+    private TransactionRepository transactions = new InMemoryTransactionRepository();
+    private BalanceHistoryProperties historyProperties = new BalanceHistoryProperties();
+    private AccountStoreProperties storeProperties = new AccountStoreProperties();
+    private ContentionTracker contention = new ContentionTracker(new ContentionProperties());
+
+    public PaymentServiceFixture transactions(TransactionRepository transactions) {
+        this.transactions = transactions;
+        return this;
+    }
+
+    public PaymentServiceFixture historyProperties(BalanceHistoryProperties historyProperties) {
+        this.historyProperties = historyProperties;
+        return this;
+    }
+
+    public PaymentServiceFixture storeProperties(AccountStoreProperties storeProperties) {
+        this.storeProperties = storeProperties;
+        return this;
+    }
+
+    public PaymentServiceFixture contention(ContentionTracker contention) {
+        this.contention = contention;
+        return this;
+    }
+
+    public PaymentService build() {
+        return build(PaymentService::new);
+    }
+
+    /**
+     * Сборка через фабрику: тест может вернуть подкласс сервиса с переопределенными операциями.
+     */
+    public PaymentService build(ServiceFactory factory) {
+        BalanceHistory balanceHistory = new BalanceHistory(transactions, historyProperties);
+        AccountTable accountTable = new AccountTable();
+        AccountStore store = new AccountStore(storeProperties, List.of(balanceHistory, accountTable));
+        return factory.create(new TestDataInitializer(), store, transactions, new LedgerStatistics(),
+                accountTable, balanceHistory, new TransactionIdGenerator(), contention);
+    }
+
+    /**
+     * Активные счета с ID от 1 до count.
+     */
+    public static List<Account> accounts(int count, BigDecimal balance, String currency, String ownerPrefix) {
+        List<Account> accounts = new ArrayList<>(count);
+        for (long id = 1; id <= count; id++) {
+            accounts.add(account(id, balance, currency, ownerPrefix));
+        }
+        return accounts;
+    }
+
+    public static Account account(long id, BigDecimal balance, String currency, String ownerPrefix) {
+        return Account.builder()
+                .id(id)
+                .accountNumber(PaymentService.generateAccountNumber(id))
+                .balance(balance)
+                .currency(currency)
+                .status(AccountStatus.ACTIVE)
+                .createdAt(LocalDateTime.now())
+                .ownerName(ownerPrefix + " " + id)
+                .heldAmount(BigDecimal.ZERO)
+                .build();
+    }
+
+    /**
+     * Конструктор сервиса (сигнатура конструктора PaymentService).
+     */
+    @FunctionalInterface
+    public interface ServiceFactory {
+        PaymentService create(TestDataInitializer testDataInitializer, AccountRepository accounts,
+                              TransactionRepository transactions, LedgerStatistics statistics,
+                              AccountTable accountTable, BalanceHistory balanceHistory,
+                              TransactionIdGenerator transactionIds, ContentionTracker contention);
+    }
+}
@@ -0,0 +1,49 @@
+package guru.qa.restbackend.helpers;
+
+import io.restassured.filter.Filter;
+import io.restassured.filter.FilterContext;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+
+import static guru.qa.restbackend.data.TestData.CORRECT_AUTH_DATA;
+import static io.restassured.RestAssured.given;
+import static io.restassured.http.ContentType.JSON;
+
+/**
+ * Подставляет токен сессии в запросы без заголовка Authorization.
+ * Токен получается один раз через /user/login под тестовым пользователем.
+ */
+public class SessionTokenFilter implements Filter {
+    private static final String AUTHORIZATION = "Authorization";
+
+    private static volatile String token;
+
+    @Override
+    public Response filter(FilterableRequestSpecification requestSpec,
+                           FilterableResponseSpecification responseSpec, FilterContext ctx) {
+        if (!requestSpec.getHeaders().hasHeaderWithName(AUTHORIZATION)) {
+            requestSpec.header(AUTHORIZATION, "Bearer " + token(requestSpec));
+        }
+        return ctx.next(requestSpec, responseSpec);
+    }
+
+    private static String token(FilterableRequestSpecification requestSpec) {
+        if (token == null) {
+            synchronized (SessionTokenFilter.class) {
+                if (token == null) {
+                    token = given()
+                            .baseUri(requestSpec.getBaseUri())
+                            .port(requestSpec.getPort())
+                            .contentType(JSON)
+                            .body(CORRECT_AUTH_DATA)
+                            .post("/user/login")
+                            .then()
+                            .statusCode(200)
+                            .extract().path("token");
+                }
+            }
+        }
+        return token;
+    }
+}
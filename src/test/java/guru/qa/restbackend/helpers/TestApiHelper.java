@@ -3,6 +3,8 @@ package guru.qa.restbackend.helpers;
 import io.qameta.allure.Step;
 import io.restassured.response.Response;
 
+import java.nio.charset.StandardCharsets;
+
 import static guru.qa.restbackend.specs.BaseSpecs.baseReqSpec;
 import static guru.qa.restbackend.specs.BaseSpecs.baseRespSpec;
 import static io.restassured.RestAssured.given;
@@ -31,6 +33,18 @@ public class TestApiHelper {
                 .extract().response();
     }
 
+    @Step("Сделать POST запрос с телом в формате {contentType}")
+    public static Response executePostRaw(String path, String contentType, String body, int statusCode) {
+        return given(baseReqSpec)
+                .contentType(contentType)
+                .body(body.getBytes(StandardCharsets.UTF_8))
+                .when()
+                .post(path)
+                .then()
+                .spec(baseRespSpec(statusCode))
+                .extract().response();
+    }
+
     @Step("Сделать GET запрос")
     public static Response executeGet(String path, int statusCode) {
         return given(baseReqSpec)
@@ -49,6 +63,16 @@ public class TestApiHelper {
                 .extract().response();
     }
 
+    @Step("Сделать GET запрос с заголовком Authorization")
+    public static Response executeGetWithAuthorization(String path, String authorization, int statusCode) {
+        return given(baseReqSpec)
+                .header("Authorization", authorization)
+                .get(path)
+                .then()
+                .spec(baseRespSpec(statusCode))
+                .extract().response();
+    }
+
     @Step("Сделать DELETE запрос")
     public static Response executeDelete(String path, int statusCode) {
         return given(baseReqSpec)
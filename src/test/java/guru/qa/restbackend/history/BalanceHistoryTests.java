@@ -0,0 +1,160 @@
+package guru.qa.restbackend.history;
+
+import guru.qa.restbackend.domain.Transaction;
+import guru.qa.restbackend.domain.TransactionRequest;
+import guru.qa.restbackend.domain.TransferRequest;
+import guru.qa.restbackend.exception.InsufficientFundsException;
+import guru.qa.restbackend.helpers.PaymentServiceFixture;
+import guru.qa.restbackend.service.PaymentService;
+import guru.qa.restbackend.storage.AccountStoreProperties;
+import guru.qa.restbackend.storage.TieringProperties;
+import guru.qa.restbackend.storage.TransactionStore;
+import io.qameta.allure.Feature;
+import io.qameta.allure.Owner;
+import io.qameta.allure.Story;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static io.qameta.allure.Allure.step;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Баланс на момент без запущенного сервиса: сервис собирается на файловом хранилище транзакций.
+ */
+@Owner("sergeyglukhov")
+@Feature("Баланс на момент")
+public class BalanceHistoryTests {
+
+    private static final int ACCOUNTS = 8;
+    private static final int THREADS = 4;
+    private static final int OPERATIONS = 2000;
+    // Проверяется момент каждой SAMPLE_STEP-й транзакции счета
+    private static final int SAMPLE_STEP = 7;
+    private static final BigDecimal BALANCE = new BigDecimal("1000.00");
+    // Счет 1 - в режиме полос: изменения баланса приходят по частям
+    private static final long HOT_ACCOUNT = 1L;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @Story("Контрольные точки")
+    @DisplayName("Точки, поставленные при конкурентных фиксациях, дают баланс полного пересчета истории")
+    void checkpointsUnderConcurrentLoadTest() throws Exception {
+        TransactionStore transactions = transactionStore();
+        PaymentService service = service(transactions);
+
+        step("Провести операции в " + THREADS + " потока с запросами баланса и переносом в сегменты", () -> {
+            AtomicBoolean running = new AtomicBoolean(true);
+            List<Thread> writers = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                writers.add(new Thread(() -> operate(service, new SplittableRandom(Thread.currentThread().getId()))));
+            }
+            Thread reader = new Thread(() -> {
+                SplittableRandom random = new SplittableRandom(42);
+                while (running.get()) {
+                    LocalDateTime at = LocalDateTime.now().minusNanos(random.nextInt(5_000_000));
+                    service.getBalanceAt(1L + random.nextInt(ACCOUNTS), at);
+                }
+            });
+            writers.forEach(Thread::start);
+            reader.start();
+            for (Thread writer : writers) {
+                writer.join();
+                transactions.tierColdTransactions();
+            }
+            running.set(false);
+            reader.join();
+        });
+
+        step("Проверить баланс на моменты транзакций против полного пересчета", () -> {
+            assertThat(transactions.hotCount()).isLessThan(transactions.count());
+            for (long id = 1; id <= ACCOUNTS; id++) {
+                List<Transaction> history = service.getAccountTransactions(id);
+                BigDecimal current = service.getBalance(id);
+                for (int i = 0; i < history.size(); i += SAMPLE_STEP) {
+                    LocalDateTime at = history.get(i).getTimestamp();
+                    assertThat(service.getBalanceAt(id, at)).as("Баланс счета %d на %s", id, at)
+                            .isEqualByComparingTo(fullReplay(current, history, id, at));
+                }
+                assertThat(service.getBalanceAt(id, LocalDateTime.now())).isEqualByComparingTo(current);
+            }
+        });
+    }
+
+    private static void operate(PaymentService service, SplittableRandom random) {
+        for (int i = 0; i < OPERATIONS; i++) {
+            long accountId = 1L + random.nextInt(ACCOUNTS);
+            BigDecimal amount = BigDecimal.valueOf(1 + random.nextInt(5_000), 2);
+            try {
+                switch (random.nextInt(3)) {
+                    case 0 -> service.deposit(accountId, new TransactionRequest(amount, null));
+                    case 1 -> service.withdraw(accountId, new TransactionRequest(amount, null));
+                    default -> {
+                        long counterpart = 1L + random.nextInt(ACCOUNTS);
+                        if (counterpart != accountId) {
+                            service.transfer(new TransferRequest(accountId, counterpart, amount, null));
+                        }
+                    }
+                }
+            } catch (InsufficientFundsException ignored) {
+                // Отказ не меняет баланс и не пишет транзакцию
+            }
+        }
+    }
+
+    /**
+     * Текущий баланс минус транзакции с меткой времени позже момента.
+     */
+    private static BigDecimal fullReplay(BigDecimal current, List<Transaction> history, long accountId,
+                                         LocalDateTime at) {
+        BigDecimal balance = current;
+        for (Transaction transaction : history) {
+            if (transaction.getTimestamp().isAfter(at)) {
+                if (transaction.getToAccountId() != null && transaction.getToAccountId() == accountId) {
+                    balance = balance.subtract(transaction.getAmount());
+                }
+                if (transaction.getFromAccountId() != null && transaction.getFromAccountId() == accountId) {
+                    balance = balance.add(transaction.getAmount());
+                }
+            }
+        }
+        return balance;
+    }
+
+    private TransactionStore transactionStore() throws IOException {
+        TieringProperties properties = new TieringProperties();
+        properties.setDir(tempDir.toString());
+        properties.setHotAge(Duration.ZERO);
+        TransactionStore transactions = new TransactionStore(properties);
+        transactions.init();
+        return transactions;
+    }
+
+    private static PaymentService service(TransactionStore transactions) {
+        BalanceHistoryProperties historyProperties = new BalanceHistoryProperties();
+        historyProperties.setCheckpointInterval(4);
+        AccountStoreProperties storeProperties = new AccountStoreProperties();
+        storeProperties.setHotStripingEnabled(true);
+        storeProperties.setHotAccounts(Set.of(HOT_ACCOUNT));
+        PaymentService service = new PaymentServiceFixture()
+                .transactions(transactions)
+                .historyProperties(historyProperties)
+                .storeProperties(storeProperties)
+                .build();
+        service.loadAccounts(PaymentServiceFixture.accounts(ACCOUNTS, BALANCE, "USD", "Balance history"));
+        return service;
+    }
+}
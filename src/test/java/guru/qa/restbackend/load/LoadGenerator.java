@@ -0,0 +1,230 @@
+package guru.qa.restbackend.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import guru.qa.restbackend.config.LoadConfig;
+import guru.qa.restbackend.domain.CreateAccountRequest;
+import guru.qa.restbackend.domain.LoginInfo;
+import guru.qa.restbackend.domain.TransactionRequest;
+import guru.qa.restbackend.domain.TransferRequest;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Нагрузка на настоящие эндпоинты по открытой модели: у каждого клиента свое расписание запросов
+ * (rate / clients в секунду), и следующий запрос уходит по расписанию независимо от того, как быстро
+ * ответили на предыдущий. Отставший клиент отправляет накопившиеся запросы сразу, а их задержка считается
+ * от запланированного момента (см. {@link LoadReport}).
+ * <p>
+ * Запросы идут через java.net.http без логирования RestAssured и Allure: на сотнях запросов в секунду
+ * оно само стало бы узким местом. Каждый клиент держит свое соединение.
+ */
+public class LoadGenerator {
+
+    private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("1000000.00");
+    private static final String DESCRIPTION = "Load test";
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
+    // Сколько ждать отставших клиентов после конца расписания
+    private static final long DRAIN_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final LoadConfig config;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final LoadOperation[] mix;
+    private String authorization;
+    private long[] hotAccounts;
+    private long[] coldAccounts;
+
+    public LoadGenerator(LoadConfig config) {
+        this.config = config;
+        List<LoadOperation> weighted = new ArrayList<>();
+        addWeighted(weighted, LoadOperation.DEPOSIT, config.depositWeight());
+        addWeighted(weighted, LoadOperation.WITHDRAW, config.withdrawWeight());
+        addWeighted(weighted, LoadOperation.TRANSFER, config.transferWeight());
+        addWeighted(weighted, LoadOperation.READ, config.readWeight());
+        if (weighted.isEmpty()) {
+            throw new IllegalArgumentException("Все веса операций load.mix.* равны нулю");
+        }
+        this.mix = weighted.toArray(new LoadOperation[0]);
+    }
+
+    /**
+     * Вход под тестовым пользователем и создание горячих и холодных счетов с начальным балансом.
+     */
+    public void prepare(LoginInfo user) throws IOException, InterruptedException {
+        HttpClient client = newClient();
+        JsonNode login = mapper.readTree(send(client, post("/user/login", user, false)).body());
+        authorization = "Bearer " + login.get("token").asText();
+        hotAccounts = createAccounts(client, config.hotAccounts());
+        coldAccounts = createAccounts(client, config.coldAccounts());
+    }
+
+    /**
+     * Прогон: прогрев, затем окно замера load.durationSeconds.
+     */
+    public LoadReport run() throws InterruptedException {
+        int clients = config.clients();
+        long intervalNanos = TimeUnit.SECONDS.toNanos(clients) / config.rate();
+        long measureNanos = TimeUnit.SECONDS.toNanos(config.durationSeconds());
+        LoadReport report = new LoadReport(config.rate(), measureNanos);
+
+        long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(config.warmupSeconds());
+        long end = measureFrom + measureNanos;
+        CountDownLatch done = new CountDownLatch(clients);
+        for (int c = 0; c < clients; c++) {
+            // Расписания клиентов сдвинуты друг относительно друга, чтобы запросы шли равномерно
+            long first = start + intervalNanos * c / clients;
+            SplittableRandom random = new SplittableRandom(c);
+            Thread worker = new Thread(() -> {
+                try {
+                    runClient(report, random, first, intervalNanos, measureFrom, end);
+                } finally {
+                    done.countDown();
+                }
+            }, "load-client-" + c);
+            worker.start();
+        }
+        done.await();
+        return report;
+    }
+
+    private void runClient(LoadReport report, SplittableRandom random, long first, long intervalNanos,
+                           long measureFrom, long end) {
+        HttpClient client = newClient();
+        for (long intended = first; intended < end; intended += intervalNanos) {
+            long now;
+            while ((now = System.nanoTime()) < intended) {
+                LockSupport.parkNanos(intended - now);
+            }
+            if (now > end + DRAIN_NANOS) {
+                // Сервер не успевает: оставшиеся запросы окна замера считаются потерянными
+                for (long skipped = intended; skipped < end; skipped += intervalNanos) {
+                    if (skipped >= measureFrom) {
+                        report.missed();
+                    }
+                }
+                return;
+            }
+            LoadOperation operation = mix[random.nextInt(mix.length)];
+            long sent = System.nanoTime();
+            boolean success = execute(client, operation, random);
+            long completed = System.nanoTime();
+            if (intended >= measureFrom) {
+                report.record(operation, completed - intended, completed - sent, success);
+            }
+        }
+    }
+
+    private boolean execute(HttpClient client, LoadOperation operation, SplittableRandom random) {
+        long accountId = pickAccount(random);
+        HttpRequest request;
+        switch (operation) {
+            case DEPOSIT:
+                request = post("/account/" + accountId + "/deposit", new TransactionRequest(AMOUNT, DESCRIPTION), true);
+                break;
+            case WITHDRAW:
+                request = post("/account/" + accountId + "/withdraw", new TransactionRequest(AMOUNT, DESCRIPTION), true);
+                break;
+            case TRANSFER:
+                long counterpart = pickAccount(random);
+                while (counterpart == accountId) {
+                    counterpart = pickAccount(random);
+                }
+                request = post("/account/transfer", new TransferRequest(accountId, counterpart, AMOUNT, DESCRIPTION), true);
+                break;
+            default:
+                request = get(random.nextBoolean() ? "/account/" + accountId : "/account/" + accountId + "/balance");
+        }
+        try {
+            int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            return status >= 200 && status < 300;
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private long pickAccount(SplittableRandom random) {
+        boolean hot = hotAccounts.length > 0 && (coldAccounts.length == 0 || random.nextInt(100) < config.hotPercent());
+        long[] accounts = hot ? hotAccounts : coldAccounts;
+        return accounts[random.nextInt(accounts.length)];
+    }
+
+    private long[] createAccounts(HttpClient client, int count) throws IOException, InterruptedException {
+        long[] ids = new long[count];
+        for (int i = 0; i < count; i++) {
+            HttpResponse<String> created = send(client,
+                    post("/account/create", new CreateAccountRequest("Load " + i, "RUB"), true));
+            ids[i] = mapper.readTree(created.body()).get("id").asLong();
+            send(client, post("/account/" + ids[i] + "/deposit",
+                    new TransactionRequest(INITIAL_BALANCE, DESCRIPTION), true));
+        }
+        return ids;
+    }
+
+    private HttpResponse<String> send(HttpClient client, HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() >= 300) {
+            throw new IllegalStateException(request.method() + " " + request.uri() + " вернул "
+                    + response.statusCode() + ": " + response.body());
+        }
+        return response;
+    }
+
+    private HttpRequest post(String path, Object body, boolean authorized) {
+        HttpRequest.Builder request = request(path, authorized)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(json(body)));
+        return request.build();
+    }
+
+    private HttpRequest get(String path) {
+        return request(path, true).GET().build();
+    }
+
+    private HttpRequest.Builder request(String path, boolean authorized) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(config.baseUri() + path))
+                .timeout(REQUEST_TIMEOUT);
+        if (authorized) {
+            request.header("Authorization", authorization);
+        }
+        return request;
+    }
+
+    private byte[] json(Object body) {
+        try {
+            return mapper.writeValueAsBytes(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static HttpClient newClient() {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(REQUEST_TIMEOUT)
+                .build();
+    }
+
+    private static void addWeighted(List<LoadOperation> mix, LoadOperation operation, int weight) {
+        for (int i = 0; i < weight; i++) {
+            mix.add(operation);
+        }
+    }
+}
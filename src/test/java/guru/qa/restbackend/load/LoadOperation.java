@@ -0,0 +1,10 @@
+package guru.qa.restbackend.load;
+
+public enum LoadOperation {
+    DEPOSIT,
+    WITHDRAW,
+    TRANSFER,
+    READ,
+    // Прочие изменения счетов (создание, статус, владелец, удаление) - только при воспроизведении записи
+    OTHER
+}
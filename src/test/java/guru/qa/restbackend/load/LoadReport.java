@@ -0,0 +1,139 @@
+package guru.qa.restbackend.load;
+
+import guru.qa.restbackend.monitoring.LatencyHistogram;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Результаты нагрузочного прогона: по каждой операции и в сумме.
+ * <p>
+ * Время ответа считается от момента, когда запрос должен был уйти по расписанию, а не от фактической
+ * отправки: если клиент отстал, ожидание в очереди клиента входит в задержку (поправка на coordinated
+ * omission). Время обслуживания - от фактической отправки, только для сравнения.
+ */
+public class LoadReport {
+
+    private final Map<LoadOperation, Stats> operations = new EnumMap<>(LoadOperation.class);
+    private final Stats total = new Stats();
+    private final LongAdder missed = new LongAdder();
+    private final int targetRate;
+    private long measureNanos;
+
+    LoadReport(int targetRate, long measureNanos) {
+        this.targetRate = targetRate;
+        this.measureNanos = measureNanos;
+        for (LoadOperation operation : LoadOperation.values()) {
+            operations.put(operation, new Stats());
+        }
+    }
+
+    void record(LoadOperation operation, long responseNanos, long serviceNanos, boolean success) {
+        operations.get(operation).record(responseNanos, serviceNanos, success);
+        total.record(responseNanos, serviceNanos, success);
+    }
+
+    /**
+     * Длительность замера, если она известна только после прогона (воспроизведение записи).
+     */
+    void setMeasureNanos(long measureNanos) {
+        this.measureNanos = measureNanos;
+    }
+
+    /**
+     * Запрос из окна замера, который не успели отправить до конца прогона.
+     */
+    void missed() {
+        missed.increment();
+    }
+
+    public Stats getTotal() {
+        return total;
+    }
+
+    public long getMissed() {
+        return missed.sum();
+    }
+
+    public int getTargetRate() {
+        return targetRate;
+    }
+
+    /**
+     * Достигнутый поток завершенных запросов в секунду.
+     */
+    public double getThroughput() {
+        return total.getCount() * 1e9 / measureNanos;
+    }
+
+    /**
+     * Доля ошибок и неотправленных запросов, %.
+     */
+    public double getErrorPercent() {
+        long scheduled = total.getCount() + getMissed();
+        return scheduled == 0 ? 0 : 100.0 * (total.getErrors() + getMissed()) / scheduled;
+    }
+
+    public String format() {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("target %s, achieved %.1f rps, errors %.2f%%, missed %d%n%n",
+                targetRate > 0 ? targetRate + " rps" : "as fast as possible", getThroughput(), getErrorPercent(),
+                getMissed()));
+        report.append(String.format("%-9s %8s %7s | %-41s | %s%n", "", "", "",
+                "response time, ms (CO-corrected)", "service time, ms"));
+        report.append(String.format("%-9s %8s %7s | %7s %7s %7s %7s %8s | %7s %7s %8s%n",
+                "operation", "count", "errors", "p50", "p90", "p99", "p999", "max", "p50", "p99", "max"));
+        for (Map.Entry<LoadOperation, Stats> entry : operations.entrySet()) {
+            if (entry.getValue().getCount() > 0) {
+                report.append(line(entry.getKey().name(), entry.getValue()));
+            }
+        }
+        report.append(line("TOTAL", total));
+        return report.toString();
+    }
+
+    private static String line(String name, Stats stats) {
+        LatencyHistogram response = stats.response;
+        LatencyHistogram service = stats.service;
+        return String.format("%-9s %8d %7d | %7.1f %7.1f %7.1f %7.1f %8.1f | %7.1f %7.1f %8.1f%n",
+                name, stats.getCount(), stats.getErrors(),
+                millis(response.getValueAt(0.5)), millis(response.getValueAt(0.9)),
+                millis(response.getValueAt(0.99)), millis(response.getValueAt(0.999)), millis(response.getMax()),
+                millis(service.getValueAt(0.5)), millis(service.getValueAt(0.99)), millis(service.getMax()));
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    public static class Stats {
+        private final LatencyHistogram response = new LatencyHistogram();
+        private final LatencyHistogram service = new LatencyHistogram();
+        private final LongAdder errors = new LongAdder();
+
+        void record(long responseNanos, long serviceNanos, boolean success) {
+            response.record(TimeUnit.NANOSECONDS.toMicros(responseNanos));
+            service.record(TimeUnit.NANOSECONDS.toMicros(serviceNanos));
+            if (!success) {
+                errors.increment();
+            }
+        }
+
+        public long getCount() {
+            return response.getCount();
+        }
+
+        public long getErrors() {
+            return errors.sum();
+        }
+
+        /**
+         * Перцентиль времени ответа с поправкой на coordinated omission, мс.
+         */
+        public double getResponseMillis(double quantile) {
+            return millis(response.getValueAt(quantile));
+        }
+    }
+}
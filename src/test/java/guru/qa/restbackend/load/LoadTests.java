@@ -0,0 +1,58 @@
+package guru.qa.restbackend.load;
+
+import guru.qa.restbackend.config.LoadConfig;
+import io.qameta.allure.Allure;
+import io.qameta.allure.Feature;
+import io.qameta.allure.Owner;
+import io.qameta.allure.Story;
+import org.aeonbits.owner.ConfigFactory;
+import org.assertj.core.api.SoftAssertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static guru.qa.restbackend.data.TestData.CORRECT_AUTH_DATA;
+import static io.qameta.allure.Allure.step;
+
+/**
+ * Нагрузочный тест запущенного сервиса: смесь пополнений, снятий, переводов и чтений по горячим
+ * и холодным счетам с заданным потоком запросов. Падает, если нарушен хотя бы один SLO из load.properties.
+ * Запуск: gradle loadTest (параметры - -Dload.rate, -Dload.clients, -Dload.durationSeconds и т.д.).
+ */
+@Tag("load")
+@Owner("sergeyglukhov")
+@Feature("Load")
+@DisplayName("Нагрузочные тесты")
+public class LoadTests {
+
+    private final LoadConfig config = ConfigFactory.create(LoadConfig.class);
+
+    @Test
+    @Story("Смешанная нагрузка")
+    @DisplayName("Смесь операций по горячим и холодным счетам укладывается в SLO")
+    void mixedLoadMeetsSloTest() throws Exception {
+        LoadGenerator generator = new LoadGenerator(config);
+
+        step("Создать " + config.hotAccounts() + " горячих и " + config.coldAccounts() + " холодных счетов", () ->
+                generator.prepare(CORRECT_AUTH_DATA));
+
+        LoadReport report = step("Дать нагрузку " + config.rate() + " запросов/с от " + config.clients()
+                + " клиентов в течение " + config.durationSeconds() + " с", generator::run);
+
+        String text = report.format();
+        System.out.println(text);
+        Allure.addAttachment("Результаты нагрузки", "text/plain", text);
+
+        step("Проверить SLO", () -> {
+            LoadReport.Stats total = report.getTotal();
+            SoftAssertions slo = new SoftAssertions();
+            slo.assertThat(total.getResponseMillis(0.5)).as("p50, мс").isLessThanOrEqualTo(config.sloP50Millis());
+            slo.assertThat(total.getResponseMillis(0.99)).as("p99, мс").isLessThanOrEqualTo(config.sloP99Millis());
+            slo.assertThat(total.getResponseMillis(0.999)).as("p999, мс").isLessThanOrEqualTo(config.sloP999Millis());
+            slo.assertThat(report.getErrorPercent()).as("ошибки, %").isLessThanOrEqualTo(config.sloMaxErrorPercent());
+            slo.assertThat(report.getThroughput()).as("запросов в секунду")
+                    .isGreaterThanOrEqualTo(config.rate() * config.sloMinThroughputPercent() / 100);
+            slo.assertAll();
+        });
+    }
+}
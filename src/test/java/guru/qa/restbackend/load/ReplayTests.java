@@ -0,0 +1,61 @@
+package guru.qa.restbackend.load;
+
+import guru.qa.restbackend.config.LoadConfig;
+import io.qameta.allure.Allure;
+import io.qameta.allure.Feature;
+import io.qameta.allure.Owner;
+import io.qameta.allure.Story;
+import org.aeonbits.owner.ConfigFactory;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Paths;
+import java.util.List;
+
+import static guru.qa.restbackend.data.TestData.CORRECT_AUTH_DATA;
+import static io.qameta.allure.Allure.step;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Воспроизведение записанного трафика на свежем экземпляре: пропускная способность и задержки,
+ * затем сверка итогового состояния счетов с записанным. Без load.replay.file тест пропускается.
+ * Запуск: gradle loadTest --tests '*ReplayTests' -Dload.replay.file=data/capture/capture-....bcap.gz
+ * -Dload.replay.speed=0 (1 - как записано, N - в N раз быстрее, 0 - как можно быстрее).
+ */
+@Tag("load")
+@Owner("sergeyglukhov")
+@Feature("Load")
+@DisplayName("Воспроизведение записанного трафика")
+public class ReplayTests {
+
+    private final LoadConfig config = ConfigFactory.create(LoadConfig.class);
+
+    @Test
+    @Story("Воспроизведение трафика")
+    @DisplayName("Воспроизведение записи приводит к тому же состоянию счетов")
+    void replayReproducesLedgerTest() throws Exception {
+        assumeTrue(config.replayFile() != null && !config.replayFile().isEmpty(), "load.replay.file не задан");
+        TrafficReplayer replayer = new TrafficReplayer(config);
+
+        int requests = step("Прочитать запись " + config.replayFile(), () ->
+                replayer.load(Paths.get(config.replayFile())));
+
+        LoadReport report = step("Воспроизвести " + requests + " запросов, ускорение " + config.replaySpeed(), () ->
+                replayer.run(CORRECT_AUTH_DATA));
+
+        StringBuilder text = new StringBuilder(report.format());
+        if (!replayer.getStatusMismatches().isEmpty()) {
+            text.append(System.lineSeparator()).append("status mismatches:").append(System.lineSeparator());
+            replayer.getStatusMismatches().forEach(line -> text.append("    ").append(line).append(System.lineSeparator()));
+        }
+        System.out.println(text);
+        Allure.addAttachment("Результаты воспроизведения", "text/plain", text.toString());
+
+        assumeTrue(replayer.hasFinalState(), "Запись остановлена не штатно: итогового состояния счетов нет");
+        List<String> differences = step("Сверить состояние счетов с записанным", replayer::compareLedger);
+        Allure.addAttachment("Расхождения состояния счетов", "text/plain", String.join("\n", differences));
+        assertThat(differences).as("расхождения состояния счетов").isEmpty();
+    }
+}
@@ -0,0 +1,306 @@
+package guru.qa.restbackend.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import guru.qa.restbackend.capture.CaptureFileReader;
+import guru.qa.restbackend.capture.CapturedRequest;
+import guru.qa.restbackend.config.LoadConfig;
+import guru.qa.restbackend.domain.Account;
+import guru.qa.restbackend.domain.LoginInfo;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Воспроизведение записи трафика (см. guru.qa.restbackend.capture.TrafficCapture) на свежем экземпляре
+ * с той же конфигурацией.
+ * <p>
+ * Запросы уходят в порядке начала, по записанному расписанию с ускорением load.replay.speed
+ * (0 - без пауз). Порядок, наблюдавшийся при записи, сохраняется: запрос не отправляется, пока не ответили
+ * все запросы, завершившиеся при записи раньше его начала. Переставиться могут только запросы,
+ * которые и при записи выполнялись одновременно, поэтому итоговое состояние счетов детерминировано
+ * с точностью до таких гонок.
+ * <p>
+ * Ошибкой в отчете считается ответ со статусом, отличным от записанного. Токены сессии не записываются:
+ * воспроизведение входит под своим пользователем.
+ */
+public class TrafficReplayer {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    private static final int MAX_EXAMPLES = 20;
+
+    private final LoadConfig config;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final List<CapturedRequest> requests = new ArrayList<>();
+    private final List<String> statusMismatches = Collections.synchronizedList(new ArrayList<>());
+    private List<Account> finalAccounts;
+    private String authorization;
+
+    public TrafficReplayer(LoadConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * Чтение записи: запросы в порядке начала и итоговое состояние счетов.
+     *
+     * @return число запросов
+     */
+    public int load(Path file) throws IOException {
+        try (CaptureFileReader reader = new CaptureFileReader(file)) {
+            CapturedRequest request;
+            while ((request = reader.next()) != null) {
+                requests.add(request);
+            }
+            finalAccounts = reader.isComplete() ? reader.getFinalAccounts() : null;
+        }
+        requests.sort(Comparator.comparingLong(CapturedRequest::getStartMicros));
+        return requests.size();
+    }
+
+    /**
+     * Есть ли в записи итоговое состояние счетов (запись остановлена штатно).
+     */
+    public boolean hasFinalState() {
+        return finalAccounts != null;
+    }
+
+    public List<String> getStatusMismatches() {
+        return statusMismatches;
+    }
+
+    public LoadReport run(LoginInfo user) throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(REQUEST_TIMEOUT)
+                .build();
+        login(client, user);
+
+        double speed = config.replaySpeed();
+        int clients = config.replayClients();
+        LoadReport report = new LoadReport(speed > 0 ? (int) Math.round(capturedRate() * speed) : 0, 0);
+        if (requests.isEmpty()) {
+            return report;
+        }
+        CompletionOrder order = new CompletionOrder(requests);
+        Semaphore inFlight = new Semaphore(clients);
+        AtomicInteger threads = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(clients, task ->
+                new Thread(task, "replay-client-" + threads.incrementAndGet()));
+        long firstMicros = requests.get(0).getStartMicros();
+        long base = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+        try {
+            for (int i = 0; i < requests.size(); i++) {
+                CapturedRequest captured = requests.get(i);
+                long intended = speed > 0 ?
+                        base + (long) (TimeUnit.MICROSECONDS.toNanos(captured.getStartMicros() - firstMicros) / speed) : 0;
+                order.awaitPredecessors(i);
+                long now;
+                while ((now = System.nanoTime()) < intended) {
+                    LockSupport.parkNanos(intended - now);
+                }
+                inFlight.acquire();
+                long scheduled = speed > 0 ? intended : System.nanoTime();
+                int index = i;
+                pool.execute(() -> {
+                    try {
+                        send(client, captured, scheduled, report);
+                    } finally {
+                        order.completed(index);
+                        inFlight.release();
+                    }
+                });
+            }
+            inFlight.acquire(clients);
+        } finally {
+            pool.shutdown();
+        }
+        report.setMeasureNanos(System.nanoTime() - base);
+        return report;
+    }
+
+    /**
+     * Сверка счетов экземпляра с итоговым состоянием из записи.
+     *
+     * @return расхождения (пусто, если состояние совпало)
+     */
+    public List<String> compareLedger() throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newHttpClient();
+        HttpResponse<String> response = client.send(request("/account/all").GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        Map<Long, JsonNode> actual = new HashMap<>();
+        for (JsonNode account : mapper.readTree(response.body())) {
+            actual.put(account.get("id").asLong(), account);
+        }
+        List<String> differences = new ArrayList<>();
+        for (Account expected : finalAccounts) {
+            JsonNode account = actual.remove(expected.getId());
+            if (account == null) {
+                differences.add("счет " + expected.getId() + ": нет после воспроизведения");
+                continue;
+            }
+            BigDecimal balance = account.get("balance").decimalValue();
+            String status = account.get("status").asText();
+            if (balance.compareTo(expected.getBalance()) != 0 || !status.equals(expected.getStatus().name())
+                    || !Objects.equals(account.get("currency").asText(), expected.getCurrency())) {
+                differences.add(String.format("счет %d: записано %s %s %s, после воспроизведения %s %s %s",
+                        expected.getId(), expected.getBalance(), expected.getCurrency(), expected.getStatus(),
+                        balance, account.get("currency").asText(), status));
+            }
+        }
+        for (Long id : actual.keySet()) {
+            differences.add("счет " + id + ": лишний после воспроизведения");
+        }
+        return differences;
+    }
+
+    private void send(HttpClient client, CapturedRequest captured, long scheduled, LoadReport report) {
+        HttpRequest.Builder request = request(captured.getPath());
+        if (captured.getBody().length > 0) {
+            request.header("Content-Type", "application/json")
+                    .method(captured.getMethod(), HttpRequest.BodyPublishers.ofByteArray(captured.getBody()));
+        } else {
+            request.method(captured.getMethod(), HttpRequest.BodyPublishers.noBody());
+        }
+        long sent = System.nanoTime();
+        int status;
+        try {
+            status = client.send(request.build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (IOException e) {
+            status = -1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            status = -1;
+        }
+        long completed = System.nanoTime();
+        boolean matched = status == captured.getStatus();
+        report.record(operation(captured), completed - scheduled, completed - sent, matched);
+        if (!matched && statusMismatches.size() < MAX_EXAMPLES) {
+            statusMismatches.add(captured.getMethod() + " " + captured.getPath() + ": записано "
+                    + captured.getStatus() + ", получено " + status);
+        }
+    }
+
+    private void login(HttpClient client, LoginInfo user) throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(config.baseUri() + "/user/login"))
+                        .timeout(REQUEST_TIMEOUT)
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofByteArray(mapper.writeValueAsBytes(user)))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Вход не выполнен: " + response.statusCode() + " " + response.body());
+        }
+        authorization = "Bearer " + mapper.readTree(response.body()).get("token").asText();
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create(config.baseUri() + path))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Authorization", authorization);
+    }
+
+    /**
+     * Средний поток запросов при записи, в секунду.
+     */
+    private double capturedRate() {
+        long spanMicros = requests.get(requests.size() - 1).getStartMicros() - requests.get(0).getStartMicros();
+        return spanMicros > 0 ? requests.size() * 1e6 / spanMicros : requests.size();
+    }
+
+    private static LoadOperation operation(CapturedRequest request) {
+        String path = request.getPath();
+        if ("GET".equals(request.getMethod())) {
+            return LoadOperation.READ;
+        } else if (path.endsWith("/deposit")) {
+            return LoadOperation.DEPOSIT;
+        } else if (path.endsWith("/withdraw")) {
+            return LoadOperation.WITHDRAW;
+        } else if (path.endsWith("/transfer")) {
+            return LoadOperation.TRANSFER;
+        }
+        return LoadOperation.OTHER;
+    }
+
+    /**
+     * Порядок завершения при записи: для каждого запроса - сколько запросов завершилось раньше его начала.
+     * Ответы при воспроизведении приходят в любом порядке, поэтому ждем непрерывный префикс завершенных
+     * в записанном порядке завершения.
+     */
+    private static final class CompletionOrder {
+
+        // Позиция запроса (по началу) в порядке завершения
+        private final int[] rank;
+        // Сколько запросов завершилось при записи строго до начала запроса
+        private final int[] predecessors;
+        private final boolean[] done;
+        private int watermark;
+
+        CompletionOrder(List<CapturedRequest> requests) {
+            int size = requests.size();
+            Integer[] byEnd = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                byEnd[i] = i;
+            }
+            Arrays.sort(byEnd, Comparator.comparingLong(i -> requests.get(i).getEndMicros()));
+            long[] ends = new long[size];
+            rank = new int[size];
+            for (int r = 0; r < size; r++) {
+                rank[byEnd[r]] = r;
+                ends[r] = requests.get(byEnd[r]).getEndMicros();
+            }
+            predecessors = new int[size];
+            for (int i = 0; i < size; i++) {
+                predecessors[i] = countBefore(ends, requests.get(i).getStartMicros());
+            }
+            done = new boolean[size];
+        }
+
+        synchronized void awaitPredecessors(int index) throws InterruptedException {
+            while (watermark < predecessors[index]) {
+                wait();
+            }
+        }
+
+        synchronized void completed(int index) {
+            done[rank[index]] = true;
+            while (watermark < done.length && done[watermark]) {
+                watermark++;
+            }
+            notifyAll();
+        }
+
+        private static int countBefore(long[] sorted, long value) {
+            int low = 0;
+            int high = sorted.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (sorted[middle] < value) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package guru.qa.restbackend.monitoring;
+
+import guru.qa.restbackend.domain.AccountContention;
+import guru.qa.restbackend.domain.ContentionReport;
+import io.qameta.allure.Feature;
+import io.qameta.allure.Owner;
+import io.qameta.allure.Story;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static io.qameta.allure.Allure.step;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Учет конфликтных счетов без запущенного сервиса: замеры подаются в трекер напрямую.
+ */
+@Owner("sergeyglukhov")
+@Feature("Конфликтные счета")
+public class ContentionTrackerTests {
+
+    private static final int CAPACITY = 16;
+    private static final int ACCOUNTS = 1000;
+    private static final int THREADS = 8;
+    private static final int OPERATIONS = 20_000;
+    private static final long HOT_ACCOUNT = 1L;
+
+    @Test
+    @Story("Конкурентный учет")
+    @DisplayName("Замеры параллельных потоков не теряются, а горячий счет остается в таблице")
+    void concurrentSamplesAreNotLostTest() throws InterruptedException {
+        ContentionTracker tracker = tracker();
+
+        step("Записать конфликтные переводы горячего счета с остальными в " + THREADS + " потоков", () -> {
+            List<Thread> workers = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                SplittableRandom random = new SplittableRandom(t);
+                workers.add(new Thread(() -> {
+                    for (int i = 0; i < OPERATIONS; i++) {
+                        tracker.record(contendedProbe(), HOT_ACCOUNT, 2L + random.nextInt(ACCOUNTS - 1));
+                    }
+                }));
+            }
+            workers.forEach(Thread::start);
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        });
+
+        ContentionReport report = tracker.getReport(CAPACITY);
+
+        step("Проверить, что учтена каждая операция", () -> {
+            long total = (long) THREADS * OPERATIONS;
+            assertThat(report.getContendedOperations()).isEqualTo(total);
+            // В Space-Saving сумма счетчиков таблицы равна числу учтенных замеров
+            assertThat(report.getAccounts().stream().mapToLong(AccountContention::getContendedOperations).sum())
+                    .isEqualTo(2 * total);
+            AccountContention hot = report.getAccounts().get(0);
+            assertThat(hot.getAccountId()).isEqualTo(HOT_ACCOUNT);
+            assertThat(hot.getContendedOperations()).isEqualTo(total);
+            assertThat(hot.getConflicts()).isEqualTo(total);
+        });
+    }
+
+    @Test
+    @Story("Top-K")
+    @DisplayName("Счетчики вытеснения ограничивают истинное число операций счета")
+    void spaceSavingBoundsTest() {
+        ContentionTracker tracker = tracker();
+        Map<Long, Long> exact = new HashMap<>();
+        int samples = 50_000;
+
+        step("Записать " + samples + " замеров с перекосом в сторону младших счетов", () -> {
+            SplittableRandom random = new SplittableRandom(42);
+            for (int i = 0; i < samples; i++) {
+                // Счет 1 получает около 18% замеров, остальные - по нескольку процентов и меньше
+                long accountId = 1 + (long) (Math.pow(random.nextDouble(), 4) * ACCOUNTS);
+                tracker.record(contendedProbe(), accountId, null);
+                exact.merge(accountId, 1L, Long::sum);
+            }
+        });
+
+        ContentionReport report = tracker.getReport(CAPACITY);
+
+        step("Проверить границы счетчиков и присутствие частых счетов", () -> {
+            assertThat(report.getAccounts()).hasSize(CAPACITY);
+            for (AccountContention account : report.getAccounts()) {
+                long actual = exact.getOrDefault(account.getAccountId(), 0L);
+                assertThat(account.getContendedOperations()).as("Счет %d", account.getAccountId())
+                        .isGreaterThanOrEqualTo(actual);
+                assertThat(account.getContendedOperations() - account.getOverestimate())
+                        .as("Счет %d", account.getAccountId()).isLessThanOrEqualTo(actual);
+            }
+            List<Long> tracked = report.getAccounts().stream().map(AccountContention::getAccountId).toList();
+            exact.forEach((accountId, count) -> {
+                if (count > samples / CAPACITY) {
+                    assertThat(tracked).as("Частый счет %d (%d замеров)", accountId, count).contains(accountId);
+                }
+            });
+        });
+    }
+
+    private static ContentionTracker tracker() {
+        ContentionProperties properties = new ContentionProperties();
+        properties.setCapacity(CAPACITY);
+        return new ContentionTracker(properties);
+    }
+
+    private static ContentionProbe contendedProbe() {
+        ContentionProbe probe = ContentionProbe.start();
+        ContentionProbe.conflict();
+        return probe;
+    }
+}
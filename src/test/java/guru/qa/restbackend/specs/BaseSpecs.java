@@ -1,5 +1,6 @@
 package guru.qa.restbackend.specs;
 
+import guru.qa.restbackend.helpers.SessionTokenFilter;
 import io.restassured.builder.ResponseSpecBuilder;
 import io.restassured.specification.RequestSpecification;
 import io.restassured.specification.ResponseSpecification;
@@ -12,6 +13,7 @@ import static io.restassured.http.ContentType.JSON;
 
 public class BaseSpecs {
     public static RequestSpecification baseReqSpec = with()
+            .filter(new SessionTokenFilter())
             .filter(withCustomTemplates())
             .basePath("/")
             .log().uri()
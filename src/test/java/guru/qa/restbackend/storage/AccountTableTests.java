@@ -0,0 +1,63 @@
+package guru.qa.restbackend.storage;
+
+import guru.qa.restbackend.domain.Account;
+import guru.qa.restbackend.domain.AccountStatus;
+import guru.qa.restbackend.domain.BalanceTotals;
+import io.qameta.allure.Feature;
+import io.qameta.allure.Owner;
+import io.qameta.allure.Story;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.qameta.allure.Allure.step;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Колоночная таблица счетов без запущенного сервиса.
+ */
+@Owner("sergeyglukhov")
+@Feature("Колоночная таблица счетов")
+public class AccountTableTests {
+
+    @Test
+    @Story("Разреженные ID")
+    @DisplayName("Счета с далекими ID учитываются в итогах и проходе по статусу")
+    void farAccountIdsTest() {
+        AccountTable table = new AccountTable();
+        long[] ids = {1L, AccountTable.DENSE_LIMIT, 1L << 40, Long.MAX_VALUE - 807};
+
+        step("Зафиксировать счета с ID на странице и за пределами страниц", () -> {
+            for (long id : ids) {
+                table.committed(null, AccountState.of(account(id, "100.00")));
+            }
+            table.committed(AccountState.of(account(1L << 40, "100.00")), AccountState.of(account(1L << 40, "250.50")));
+        });
+
+        step("Проверить итоги и порядок ID", () -> {
+            BalanceTotals totals = table.totals(AccountStatus.ACTIVE, null);
+            assertThat(totals.getAccounts()).isEqualTo(4);
+            assertThat(totals.getBalancesByCurrency().get("USD")).isEqualByComparingTo("550.50");
+            List<Long> visited = new ArrayList<>();
+            table.forEachId(AccountStatus.ACTIVE, visited::add);
+            assertThat(visited).containsExactly(ids[0], ids[1], ids[2], ids[3]);
+        });
+    }
+
+    private static Account account(long id, String balance) {
+        return Account.builder()
+                .id(id)
+                .accountNumber("40817810000000000001")
+                .balance(new BigDecimal(balance))
+                .currency("USD")
+                .status(AccountStatus.ACTIVE)
+                .createdAt(LocalDateTime.of(2024, 1, 1, 0, 0))
+                .ownerName("Far " + id)
+                .heldAmount(BigDecimal.ZERO)
+                .build();
+    }
+}
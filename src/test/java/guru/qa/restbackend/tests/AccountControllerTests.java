@@ -9,6 +9,7 @@ import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.stream.Stream;
 
 import static guru.qa.restbackend.data.TestData.*;
@@ -103,6 +104,29 @@ public class AccountControllerTests extends TestBase {
                 assertThat(response).isEqualTo(account.getBalance().toString()));
     }
 
+    @Test
+    @Story("Получение баланса")
+    @DisplayName("Успешное получение баланса счета ID1 на момент времени")
+    void successfulGetBalanceAtTimeTest() throws InterruptedException {
+        BigDecimal initial = step("Получить текущий баланс", () ->
+                new BigDecimal(executeGet("/account/1/balance", 200).asString()));
+
+        step("Пополнить счет на 50", () ->
+                executePost("/account/1/deposit", new TransactionRequest(new BigDecimal("50.00"), "Balance at"), 201));
+        Thread.sleep(50);
+        LocalDateTime between = LocalDateTime.now();
+        Thread.sleep(50);
+        step("Снять со счета 50", () ->
+                executePost("/account/1/withdraw", new TransactionRequest(new BigDecimal("50.00"), "Balance at"), 201));
+
+        step("Проверить баланс между пополнением и снятием и текущий баланс", () -> {
+            assertThat(new BigDecimal(executeGet("/account/1/balance?at=" + between, 200).asString()))
+                    .isEqualByComparingTo(initial.add(new BigDecimal("50.00")));
+            assertThat(new BigDecimal(executeGet("/account/1/balance", 200).asString()))
+                    .isEqualByComparingTo(initial);
+        });
+    }
+
     @Test
     @Story("Удаление счета")
     @DisplayName("Успешное удаление тестового счета по ID5")
@@ -349,6 +373,30 @@ public class AccountControllerTests extends TestBase {
         });
     }
 
+    @Test
+    @Story("Пополнение счета")
+    @DisplayName("Неуспешное пополнение сверх предела баланса, 400 - Bad Request, баланс не меняется")
+    void unsuccessfulDepositOverBalanceLimitTest() {
+        TransactionRequest depositRequest = new TransactionRequest(new BigDecimal("90000000000000000.00"), null);
+
+        String testAccountId = step("Создать счет и пополнить его на сумму у предела", () -> {
+            String id = getAccountId(executePost("/account/create", generateNewAccountData(), 201));
+            executePost("/account/{id}/deposit", id, depositRequest, 201);
+            return id;
+        });
+
+        Response response = step("Отправить запрос на повторное пополнение", () ->
+                executePost("/account/{id}/deposit", testAccountId, depositRequest, 400));
+
+        step("Проверить ответ, баланс и историю счета", () -> {
+            assertThat(response.path("message").toString()).startsWith("Баланс счета не может быть больше");
+            assertThat(getBalanceFromResponse(executeGet("/account/{id}", testAccountId, 200)))
+                    .isEqualByComparingTo(depositRequest.getAmount());
+            assertThat(executeGet("/account/{id}/transactions", testAccountId, 200).jsonPath().getList("$"))
+                    .hasSize(1);
+        });
+    }
+
     @Test
     @Story("Переводы")
     @DisplayName("Неуспешный перевод на тот же счет, 400 - Bad Request")
@@ -412,4 +460,75 @@ public class AccountControllerTests extends TestBase {
                     .isEqualTo("Счет с ID %s не найден", randomId);
         });
     }
-}
\ No newline at end of file
+
+    @Test
+    @Story("Согласованный снимок")
+    @DisplayName("Повторяемое чтение итогов по счетам по номеру снимка")
+    void successfulRepeatableTotalsReadTest() {
+        Response first = step("Отправить запрос на итоги по счетам", () ->
+                executeGet("/account/totals", 200));
+        String sequence = first.header("X-Ledger-Sequence");
+
+        step("Пополнить новый счет, чтобы изменить итоги", () -> {
+            Response account = executePost("/account/create", generateNewAccountData(), 201);
+            executePost("/account/{id}/deposit", String.valueOf(getAccountIdAsLong(account)),
+                    new TransactionRequest(new BigDecimal("10.00"), "Snapshot test"), 201);
+        });
+
+        Response repeated = step("Повторить запрос итогов с asOf из заголовка первого ответа", () ->
+                executeGet("/account/totals?asOf={sequence}", sequence, 200));
+
+        step("Проверить, что итоги совпадают с первым чтением", () -> {
+            assertThat(repeated.header("X-Ledger-Sequence")).isEqualTo(sequence);
+            assertThat(repeated.jsonPath().getMap("balancesByCurrency"))
+                    .isEqualTo(first.jsonPath().getMap("balancesByCurrency"));
+            assertThat(repeated.jsonPath().getLong("accounts")).isEqualTo(first.jsonPath().getLong("accounts"));
+        });
+    }
+
+    @Test
+    @Story("Согласованный снимок")
+    @DisplayName("Неуспешное чтение снимка, который еще не зафиксирован, 410 - Gone")
+    void unsuccessfulFutureSnapshotReadTest() {
+        Response response = step("Отправить запрос на все счета с номером снимка из будущего", () ->
+                executeGet("/account/all?asOf={sequence}", String.valueOf(Long.MAX_VALUE), 410));
+
+        step("Проверить ответ, что снимок недоступен", () -> {
+            assertThat(response.path("error").toString()).isEqualTo("Gone");
+            assertThat(response.path("message").toString()).contains("еще не зафиксированы");
+        });
+    }
+
+    @Test
+    @Story("Токен сессии")
+    @DisplayName("Неуспешный запрос к счетам без токена сессии, 401 - Unauthorized")
+    void unsuccessfulRequestWithoutSessionTokenTest() {
+        Response response = step("Отправить запрос на все счета без токена Bearer", () ->
+                executeGetWithAuthorization("/account/all", "Basic U2VyZ2V5OjEyMw==", 401));
+
+        step("Проверить ответ, что требуется токен сессии", () -> {
+            assertThat(response.path("error").toString()).isEqualTo("Unauthorized");
+            assertThat(response.path("message").toString()).contains("Требуется токен сессии");
+        });
+    }
+
+    @Test
+    @Story("Токен сессии")
+    @DisplayName("Неуспешный запрос к счетам с измененным токеном сессии, 401 - Unauthorized")
+    void unsuccessfulRequestWithTamperedSessionTokenTest() {
+        String token = step("Авторизоваться и получить токен сессии", () ->
+                executePost("user/login", CORRECT_AUTH_DATA, 200).path("token").toString());
+        String tampered = (token.charAt(0) == 'A' ? 'B' : 'A') + token.substring(1);
+
+        step("Проверить, что с полученным токеном счет доступен", () ->
+                executeGetWithAuthorization("/account/1", "Bearer " + token, 200));
+
+        Response response = step("Отправить запрос с токеном, в котором изменены данные", () ->
+                executeGetWithAuthorization("/account/1", "Bearer " + tampered, 401));
+
+        step("Проверить ответ, что подпись токена неверна", () -> {
+            assertThat(response.path("error").toString()).isEqualTo("Unauthorized");
+            assertThat(response.path("message").toString()).contains("неверная подпись");
+        });
+    }
+}
@@ -0,0 +1,36 @@
+package guru.qa.restbackend.tests;
+
+import io.qameta.allure.*;
+import io.restassured.response.Response;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static guru.qa.restbackend.helpers.TestApiHelper.executeGet;
+import static io.qameta.allure.Allure.step;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Owner("sergeyglukhov")
+@Feature("Audit")
+@DisplayName("Тесты на проверку журнала аудита")
+public class AuditControllerTests extends TestBase {
+
+    @Test
+    @Story("Журнал аудита")
+    @DisplayName("Вызов контроллера счетов попадает в журнал аудита")
+    void accountCallIsAuditedTest() {
+        long acceptedBefore = step("Получить счетчики журнала аудита", () ->
+                executeGet("/audit/stats", 200).jsonPath().getLong("accepted"));
+
+        step("Отправить запрос на получение счета по ID", () ->
+                executeGet("/account/{id}", "1", 200));
+
+        Response response = step("Получить счетчики журнала аудита повторно", () ->
+                executeGet("/audit/stats", 200));
+
+        step("Проверить, что событие принято в журнал и файл журнала открыт", () -> {
+            assertThat(response.jsonPath().getBoolean("enabled")).isTrue();
+            assertThat(response.jsonPath().getLong("accepted")).isGreaterThan(acceptedBefore);
+            assertThat(response.jsonPath().getLong("dropped")).isZero();
+        });
+    }
+}
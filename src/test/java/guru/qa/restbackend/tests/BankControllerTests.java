@@ -33,8 +33,11 @@ public class BankControllerTests extends TestBase {
         Response response = step("Отправить запрос на авторизацию", () ->
                 executePost("user/login", CORRECT_AUTH_DATA, 200));
 
-        step("Проверить что авторизация успешна", () ->
-        assertThat(response.path("userName").toString()).isEqualTo(CORRECT_AUTH_DATA.getUserName()));
+        step("Проверить что авторизация успешна", () -> {
+            assertThat(response.path("userName").toString()).isEqualTo(CORRECT_AUTH_DATA.getUserName());
+            assertThat(response.path("token").toString()).matches("[\\w-]+\\.[\\w-]+");
+            assertThat(response.path("tokenExpiresAt").toString()).isNotBlank();
+        });
     }
 
     @Test
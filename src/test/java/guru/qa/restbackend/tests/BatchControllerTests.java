@@ -0,0 +1,28 @@
+package guru.qa.restbackend.tests;
+
+import guru.qa.restbackend.domain.BatchJobState;
+import io.qameta.allure.*;
+import io.restassured.response.Response;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static guru.qa.restbackend.helpers.TestApiHelper.executeGet;
+import static io.qameta.allure.Allure.step;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Owner("sergeyglukhov")
+@Feature("Batch Jobs")
+@DisplayName("Тесты на проверку пакетных задач")
+public class BatchControllerTests extends TestBase {
+
+    @Test
+    @Story("Закрытие дня")
+    @DisplayName("Успешное получение прогресса закрытия дня")
+    void successfulGetEndOfDayStatusTest() {
+        Response response = step("Отправить запрос на получение прогресса закрытия дня", () ->
+                executeGet("/batch/eod/status", 200));
+
+        step("Проверить, что в ответе есть состояние задачи", () ->
+                assertThat(BatchJobState.valueOf(response.jsonPath().getString("state"))).isNotNull());
+    }
+}
@@ -0,0 +1,116 @@
+package guru.qa.restbackend.tests;
+
+import guru.qa.restbackend.domain.TransactionRequest;
+import guru.qa.restbackend.domain.TransferRequest;
+import io.qameta.allure.*;
+import io.restassured.response.Response;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static guru.qa.restbackend.helpers.ResponseHelpers.getAccountId;
+import static guru.qa.restbackend.helpers.TestApiHelper.executeDelete;
+import static guru.qa.restbackend.helpers.TestApiHelper.executeGet;
+import static guru.qa.restbackend.helpers.TestApiHelper.executePost;
+import static guru.qa.restbackend.utils.RandomUtils.generateNewAccountData;
+import static io.qameta.allure.Allure.step;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Owner("sergeyglukhov")
+@Feature("Diagnostics")
+@DisplayName("Тесты на проверку диагностики конкуренции")
+public class DiagnosticsControllerTests extends TestBase {
+
+    private static final int SENDERS = 8;
+    private static final int TRANSFERS_PER_SENDER = 25;
+
+    @Test
+    @Story("Конфликтные счета")
+    @DisplayName("Параллельные переводы на один счет учитываются в отчете о конфликтах")
+    void concurrentTransfersAreReportedTest() throws Exception {
+        String hotAccountId = step("Создать общий счет получателя", () ->
+                getAccountId(executePost("/account/create", generateNewAccountData(), 201)));
+
+        List<String> senders = step("Создать и пополнить счета отправителей", () -> {
+            List<String> ids = new ArrayList<>();
+            for (int i = 0; i < SENDERS; i++) {
+                String id = getAccountId(executePost("/account/create", generateNewAccountData(), 201));
+                executePost("/account/{id}/deposit", id,
+                        new TransactionRequest(new BigDecimal("100.00"), "Contention test"), 201);
+                ids.add(id);
+            }
+            return ids;
+        });
+
+        step("Сбросить отчет о конфликтах", () ->
+                executeDelete("/diagnostics/contention", 204));
+
+        step("Параллельно перевести деньги со всех счетов на общий", () -> {
+            ExecutorService executor = Executors.newFixedThreadPool(SENDERS);
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                for (String sender : senders) {
+                    futures.add(executor.submit(() -> {
+                        for (int i = 0; i < TRANSFERS_PER_SENDER; i++) {
+                            executePost("/account/transfer", new TransferRequest(Long.valueOf(sender),
+                                    Long.valueOf(hotAccountId), new BigDecimal("1.00"), "Contention test"), 201);
+                        }
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } finally {
+                executor.shutdown();
+            }
+        });
+
+        Response report = step("Получить отчет о конфликтах", () ->
+                executeGet("/diagnostics/contention?limit=5", 200));
+
+        step("Проверить отчет", () -> {
+            assertThat(report.jsonPath().getLong("operations"))
+                    .isGreaterThanOrEqualTo((long) SENDERS * TRANSFERS_PER_SENDER);
+            assertThat(report.jsonPath().getInt("capacity")).isPositive();
+            List<Map<String, Object>> accounts = report.jsonPath().getList("accounts");
+            assertThat(accounts).hasSizeLessThanOrEqualTo(5);
+            for (int i = 0; i < accounts.size(); i++) {
+                long operations = ((Number) accounts.get(i).get("contendedOperations")).longValue();
+                assertThat(((Number) accounts.get(i).get("overestimate")).longValue()).isLessThanOrEqualTo(operations);
+                if (i > 0) {
+                    assertThat(operations).isLessThanOrEqualTo(
+                            ((Number) accounts.get(i - 1).get("contendedOperations")).longValue());
+                }
+            }
+            // Общий счет участвует в каждой конфликтной операции и при равенстве идет первым (меньший ID)
+            if (report.jsonPath().getLong("contendedOperations") > 0) {
+                assertThat(accounts.get(0).get("accountId").toString()).isEqualTo(hotAccountId);
+            }
+        });
+    }
+
+    @Test
+    @Story("Запись трафика")
+    @DisplayName("Состояние записи трафика содержит счетчики")
+    void captureStatsTest() {
+        Response stats = step("Получить состояние записи трафика", () ->
+                executeGet("/diagnostics/capture", 200));
+
+        step("Проверить счетчики", () -> {
+            assertThat(stats.jsonPath().getLong("captured")).isNotNegative();
+            assertThat(stats.jsonPath().getLong("dropped")).isNotNegative();
+            assertThat(stats.jsonPath().getLong("written"))
+                    .isLessThanOrEqualTo(stats.jsonPath().getLong("captured"));
+            if (!stats.jsonPath().getBoolean("capturing") && !stats.jsonPath().getBoolean("finished")) {
+                assertThat(stats.jsonPath().getString("file")).isNull();
+            }
+        });
+    }
+}
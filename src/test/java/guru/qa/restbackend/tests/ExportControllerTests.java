@@ -0,0 +1,43 @@
+package guru.qa.restbackend.tests;
+
+import io.qameta.allure.*;
+import io.restassured.response.Response;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static guru.qa.restbackend.helpers.TestApiHelper.executeGet;
+import static io.qameta.allure.Allure.step;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Owner("sergeyglukhov")
+@Feature("Ledger Export")
+@DisplayName("Тесты на проверку выгрузки журнала транзакций")
+public class ExportControllerTests extends TestBase {
+
+    @Test
+    @Story("Выгрузка транзакций")
+    @DisplayName("Успешная выгрузка транзакций счета в CSV")
+    void successfulExportAccountTransactionsCsvTest() {
+        Response response = step("Отправить запрос на выгрузку транзакций счета с ID 1", () ->
+                executeGet("/export/transactions?format=CSV&accountId=1", 200));
+
+        step("Проверить тип содержимого и заголовок CSV", () -> {
+            assertThat(response.contentType()).startsWith("text/csv");
+            assertThat(response.asString()).startsWith("id,timestamp,type,status,amount,fromAccountId,toAccountId,description");
+        });
+        step("Проверить, что в выгрузке есть транзакции счета", () ->
+                assertThat(response.asString().lines().skip(1)).isNotEmpty()
+                        .allMatch(line -> line.contains(",1,")));
+    }
+
+    @Test
+    @Story("Выгрузка транзакций")
+    @DisplayName("Выгрузка транзакций несуществующего счета")
+    void exportNonExistentAccountTransactionsTest() {
+        Response response = step("Отправить запрос на выгрузку транзакций счета с ID 999", () ->
+                executeGet("/export/transactions?accountId=999", 404));
+
+        step("Проверить сообщение об ошибке", () ->
+                assertThat(response.jsonPath().getString("message")).isEqualTo("Счет с ID 999 не найден"));
+    }
+}
@@ -0,0 +1,167 @@
+package guru.qa.restbackend.tests;
+
+import guru.qa.restbackend.domain.CaptureHoldRequest;
+import guru.qa.restbackend.domain.HoldStatus;
+import guru.qa.restbackend.domain.TransactionRequest;
+import guru.qa.restbackend.domain.TransactionType;
+import io.qameta.allure.*;
+import io.restassured.response.Response;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+import static guru.qa.restbackend.helpers.ResponseHelpers.*;
+import static guru.qa.restbackend.helpers.TestApiHelper.*;
+import static guru.qa.restbackend.utils.RandomUtils.generateNewAccountData;
+import static io.qameta.allure.Allure.step;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Owner("sergeyglukhov")
+@Feature("Holds")
+@DisplayName("Тесты на проверку холдов")
+public class HoldControllerTests extends TestBase {
+
+    private static final long WAIT_MILLIS = 10_000;
+
+    @Test
+    @Story("Резервирование средств")
+    @DisplayName("Холд уменьшает доступный остаток, но не баланс")
+    void successfulPlaceHoldTest() {
+        String accountId = createFundedAccount("100.00");
+
+        Response hold = step("Зарезервировать 70.00", () ->
+                executePost("/account/{id}/holds", accountId, hold("70.00", null), 201));
+
+        step("Проверить холд", () -> {
+            assertThat(hold.jsonPath().getString("status")).isEqualTo(HoldStatus.ACTIVE.name());
+            assertThat(new BigDecimal(hold.jsonPath().getString("amount"))).isEqualByComparingTo("70.00");
+        });
+
+        Response account = step("Получить счет", () -> executeGet("/account/{id}", accountId, 200));
+
+        step("Проверить баланс и сумму холдов", () -> {
+            assertThat(getBalanceFromResponse(account)).isEqualByComparingTo("100.00");
+            assertThat(new BigDecimal(account.jsonPath().getString("heldAmount"))).isEqualByComparingTo("70.00");
+        });
+
+        Response withdraw = step("Снять больше доступного остатка", () ->
+                executePost("/account/{id}/withdraw", accountId, new TransactionRequest(new BigDecimal("50.00"), null), 400));
+
+        step("Проверить отказ и что доступный остаток можно снять", () -> {
+            assertThat(withdraw.path("message").toString()).isEqualTo("Недостаточно средств на счете " + accountId);
+            executePost("/account/{id}/withdraw", accountId, new TransactionRequest(new BigDecimal("30.00"), null), 201);
+            executePost("/account/{id}/holds", accountId, hold("0.01", null), 400);
+        });
+    }
+
+    @Test
+    @Story("Списание по холду")
+    @DisplayName("Частичное списание снимает остаток холда")
+    void successfulPartialCaptureTest() {
+        String accountId = createFundedAccount("100.00");
+        String holdId = step("Зарезервировать 30.00", () ->
+                executePost("/account/{id}/holds", accountId, hold("30.00", null), 201).jsonPath().getString("id"));
+
+        Response transaction = step("Списать 20.00 по холду", () ->
+                executePost("/account/holds/{holdId}/capture", holdId,
+                        new CaptureHoldRequest(new BigDecimal("20.00"), "Оплата картой"), 201));
+
+        step("Проверить транзакцию снятия", () -> {
+            assertThat(getTransactionTypeFromResponse(transaction)).isEqualTo(TransactionType.WITHDRAWAL);
+            assertThat(getAmountFromResponse(transaction)).isEqualByComparingTo("20.00");
+            assertThat(transaction.jsonPath().getString("description")).isEqualTo("Оплата картой");
+        });
+
+        step("Проверить холд, баланс и повторное списание", () -> {
+            Response captured = executeGet("/account/holds/{holdId}", holdId, 200);
+            assertThat(captured.jsonPath().getString("status")).isEqualTo(HoldStatus.CAPTURED.name());
+            assertThat(new BigDecimal(captured.jsonPath().getString("capturedAmount"))).isEqualByComparingTo("20.00");
+            assertThat(captured.jsonPath().getLong("transactionId")).isEqualTo(transaction.jsonPath().getLong("id"));
+
+            Response account = executeGet("/account/{id}", accountId, 200);
+            assertThat(getBalanceFromResponse(account)).isEqualByComparingTo("80.00");
+            assertThat(new BigDecimal(account.jsonPath().getString("heldAmount"))).isEqualByComparingTo("0");
+
+            executePost("/account/holds/{holdId}/capture", holdId, new CaptureHoldRequest(), 409);
+        });
+    }
+
+    @Test
+    @Story("Снятие холда")
+    @DisplayName("Снятый холд возвращает средства в доступный остаток")
+    void successfulReleaseHoldTest() {
+        String accountId = createFundedAccount("100.00");
+        String holdId = step("Зарезервировать весь баланс", () ->
+                executePost("/account/{id}/holds", accountId, hold("100.00", null), 201).jsonPath().getString("id"));
+
+        step("Проверить, что списание больше суммы холда невозможно", () ->
+                executePost("/account/holds/{holdId}/capture", holdId,
+                        new CaptureHoldRequest(new BigDecimal("100.01"), null), 400));
+
+        Response released = step("Снять холд", () ->
+                executePost("/account/holds/{holdId}/release", holdId, new HashMap<>(), 200));
+
+        step("Проверить холд и что баланс можно снять целиком", () -> {
+            assertThat(released.jsonPath().getString("status")).isEqualTo(HoldStatus.RELEASED.name());
+            executePost("/account/{id}/withdraw", accountId, new TransactionRequest(new BigDecimal("100.00"), null), 201);
+            executePost("/account/holds/{holdId}/release", holdId, new HashMap<>(), 409);
+        });
+    }
+
+    @Test
+    @Story("Истечение холда")
+    @DisplayName("Истекший холд снимается автоматически")
+    void successfulHoldExpiryTest() {
+        String accountId = createFundedAccount("100.00");
+        String holdId = step("Зарезервировать 40.00 на секунду", () ->
+                executePost("/account/{id}/holds", accountId, hold("40.00", "PT1S"), 201).jsonPath().getString("id"));
+
+        Response expired = step("Дождаться истечения", () -> awaitFinished(holdId));
+
+        step("Проверить холд и сумму холдов на счете", () -> {
+            assertThat(expired.jsonPath().getString("status")).isEqualTo(HoldStatus.EXPIRED.name());
+            Response account = executeGet("/account/{id}", accountId, 200);
+            assertThat(getBalanceFromResponse(account)).isEqualByComparingTo("100.00");
+            assertThat(new BigDecimal(account.jsonPath().getString("heldAmount"))).isEqualByComparingTo("0");
+        });
+    }
+
+    @Test
+    @Story("Получение холда")
+    @DisplayName("Неуспешное получение несуществующего холда, 404 - Not Found")
+    void unsuccessfulGetMissingHoldTest() {
+        Response response = step("Отправить запрос на получение холда", () ->
+                executeGet("/account/holds/{holdId}", "999999999", 404));
+
+        step("Проверить сообщение об ошибке", () ->
+                assertThat(response.path("message").toString()).isEqualTo("Холд с ID 999999999 не найден"));
+    }
+
+    private static String createFundedAccount(String amount) {
+        String id = getAccountId(executePost("/account/create", generateNewAccountData(), 201));
+        executePost("/account/{id}/deposit", id, new TransactionRequest(new BigDecimal(amount), "Hold test"), 201);
+        return id;
+    }
+
+    private static Map<String, Object> hold(String amount, String ttl) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("amount", new BigDecimal(amount));
+        body.put("description", "Hold test");
+        body.put("ttl", ttl);
+        return body;
+    }
+
+    private static Response awaitFinished(String holdId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WAIT_MILLIS;
+        Response response = executeGet("/account/holds/{holdId}", holdId, 200);
+        while (HoldStatus.ACTIVE.name().equals(response.jsonPath().getString("status"))
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(200);
+            response = executeGet("/account/holds/{holdId}", holdId, 200);
+        }
+        return response;
+    }
+}
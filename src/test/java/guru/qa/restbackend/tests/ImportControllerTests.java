@@ -0,0 +1,112 @@
+package guru.qa.restbackend.tests;
+
+import io.qameta.allure.*;
+import io.restassured.response.Response;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static guru.qa.restbackend.helpers.TestApiHelper.executeGet;
+import static guru.qa.restbackend.helpers.TestApiHelper.executePostRaw;
+import static io.qameta.allure.Allure.step;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Owner("sergeyglukhov")
+@Feature("Ledger Import")
+@DisplayName("Тесты на проверку массового импорта")
+public class ImportControllerTests extends TestBase {
+
+    private static final String ACCOUNTS_NDJSON =
+            "{\"id\":900001,\"balance\":150.00,\"currency\":\"USD\",\"ownerName\":\"Import Owner\"}\n" +
+            "{\"id\":900002,\"balance\":-1,\"currency\":\"USD\",\"ownerName\":\"Negative Owner\"}\n";
+
+    private static final String TRANSACTIONS_CSV =
+            "id,timestamp,type,status,amount,fromAccountId,toAccountId,description\n" +
+            "900001,2020-05-01T10:00:00,DEPOSIT,SUCCESS,150.00,,900001,\"Перенос, старая система\"\n" +
+            "900002,2020-05-02T10:00:00,TRANSFER,SUCCESS,10.00,900001,999999,Перевод\n";
+
+    @Test
+    @Story("Импорт данных")
+    @DisplayName("Импорт счетов и истории с отчетом об ошибочных записях")
+    void successfulImportAccountsAndTransactionsTest() {
+        Response accounts = step("Отправить на импорт два счета, один с отрицательным балансом", () ->
+                executePostRaw("/import/accounts", "application/x-ndjson", ACCOUNTS_NDJSON, 200));
+
+        step("Проверить, что загружен один счет, а второй отклонен со строкой 2", () -> {
+            assertThat(accounts.jsonPath().getLong("recordsImported")).isEqualTo(1);
+            assertThat(accounts.jsonPath().getLong("recordsRejected")).isEqualTo(1);
+            assertThat(accounts.jsonPath().getLong("errors[0].line")).isEqualTo(2);
+        });
+
+        Response transactions = step("Отправить на импорт историю в CSV, одна транзакция на несуществующий счет", () ->
+                executePostRaw("/import/transactions", "text/csv", TRANSACTIONS_CSV, 200));
+
+        step("Проверить, что загружена одна транзакция, а вторая отклонена со строкой 3", () -> {
+            assertThat(transactions.jsonPath().getLong("recordsImported")).isEqualTo(1);
+            assertThat(transactions.jsonPath().getLong("errors[0].line")).isEqualTo(3);
+            assertThat(transactions.jsonPath().getString("errors[0].message")).isEqualTo("Счет с ID 999999 не найден");
+        });
+
+        Response history = step("Получить историю импортированного счета", () ->
+                executeGet("/account/{id}/transactions", "900001", 200));
+
+        step("Проверить, что в истории есть импортированная транзакция", () ->
+                assertThat(history.jsonPath().getString("[0].description")).isEqualTo("Перенос, старая система"));
+    }
+
+    @Test
+    @Story("Импорт данных")
+    @DisplayName("Транзакции с уже занятым ID отклоняются построчно и не дублируются в истории")
+    void importTransactionsWithDuplicateIdsTest() {
+        String row = "900101,2020-06-01T10:00:00,DEPOSIT,SUCCESS,5.00,,1,Повторный ID\n";
+        String header = "id,timestamp,type,status,amount,fromAccountId,toAccountId,description\n";
+
+        Response first = step("Отправить на импорт файл, где ID повторяется дважды", () ->
+                executePostRaw("/import/transactions", "text/csv", header + row + row, 200));
+
+        step("Проверить, что загружена первая запись, а вторая отклонена", () -> {
+            assertThat(first.jsonPath().getLong("recordsImported")).isEqualTo(1);
+            assertThat(first.jsonPath().getLong("errors[0].line")).isEqualTo(3);
+            assertThat(first.jsonPath().getString("errors[0].message")).isEqualTo("Транзакция с ID 900101 уже существует");
+        });
+
+        Response second = step("Повторить импорт той же транзакции", () ->
+                executePostRaw("/import/transactions", "text/csv", header + row, 200));
+
+        step("Проверить, что запись отклонена, а в истории счета транзакция одна", () -> {
+            assertThat(second.jsonPath().getLong("recordsImported")).isEqualTo(0);
+            assertThat(second.jsonPath().getLong("recordsRejected")).isEqualTo(1);
+            assertThat(executeGet("/account/{id}/transactions", "1", 200).jsonPath().getList("id", Long.class))
+                    .containsOnlyOnce(900101L);
+        });
+    }
+
+    @Test
+    @Story("Импорт данных")
+    @DisplayName("Импорт счета с ID больше допустимого отклоняется построчно")
+    void importAccountWithTooLargeIdTest() {
+        Response response = step("Отправить на импорт счет с ID у границы long", () ->
+                executePostRaw("/import/accounts", "application/x-ndjson",
+                        "{\"id\":9223372036854775000,\"balance\":1.00,\"currency\":\"USD\",\"ownerName\":\"Far Owner\"}\n", 200));
+
+        step("Проверить, что запись отклонена с сообщением о пределе ID", () -> {
+            assertThat(response.jsonPath().getLong("recordsImported")).isEqualTo(0);
+            assertThat(response.jsonPath().getLong("errors[0].line")).isEqualTo(1);
+            assertThat(response.jsonPath().getString("errors[0].message")).startsWith("ID счета не может быть больше");
+        });
+
+        step("Проверить, что счет не создан", () ->
+                executeGet("/account/{id}", "9223372036854775000", 404));
+    }
+
+    @Test
+    @Story("Импорт данных")
+    @DisplayName("Импорт CSV без обязательных колонок")
+    void importCsvWithoutRequiredColumnsTest() {
+        Response response = step("Отправить на импорт CSV без колонки balance", () ->
+                executePostRaw("/import/accounts", "text/csv", "id,currency,ownerName\n1,USD,Owner\n", 400));
+
+        step("Проверить сообщение об ошибке", () ->
+                assertThat(response.jsonPath().getString("message"))
+                        .isEqualTo("В заголовке CSV нет обязательных колонок: balance"));
+    }
+}
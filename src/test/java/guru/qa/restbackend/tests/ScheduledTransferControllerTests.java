@@ -0,0 +1,146 @@
+package guru.qa.restbackend.tests;
+
+import guru.qa.restbackend.domain.TransactionRequest;
+import guru.qa.restbackend.domain.TransactionStatus;
+import io.qameta.allure.*;
+import io.restassured.response.Response;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+import static guru.qa.restbackend.helpers.ResponseHelpers.getAccountId;
+import static guru.qa.restbackend.helpers.TestApiHelper.*;
+import static guru.qa.restbackend.utils.RandomUtils.generateNewAccountData;
+import static io.qameta.allure.Allure.step;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Owner("sergeyglukhov")
+@Feature("Scheduled Transfers")
+@DisplayName("Тесты на проверку запланированных переводов")
+public class ScheduledTransferControllerTests extends TestBase {
+
+    private static final long WAIT_MILLIS = 15_000;
+
+    @Test
+    @Story("Однократный перевод")
+    @DisplayName("Запланированный перевод исполняется в срок")
+    void successfulScheduledTransferTest() {
+        String fromId = createFundedAccount("100.00");
+        String toId = createFundedAccount(null);
+
+        Response created = step("Запланировать перевод через секунду", () ->
+                executePost("/account/scheduled", schedule(fromId, toId, LocalDateTime.now().plusSeconds(1), null, null), 201));
+
+        step("Проверить, что перевод ожидает исполнения", () -> {
+            assertThat(created.jsonPath().getString("status")).isEqualTo(TransactionStatus.PENDING.name());
+            assertThat(created.jsonPath().getInt("runs")).isZero();
+        });
+
+        Response done = step("Дождаться исполнения", () -> awaitFinished(created.jsonPath().getString("id")));
+
+        step("Проверить результат и балансы", () -> {
+            assertThat(done.jsonPath().getString("status")).isEqualTo(TransactionStatus.SUCCESS.name());
+            assertThat(done.jsonPath().getInt("runs")).isEqualTo(1);
+            assertThat(done.jsonPath().getLong("lastTransactionId")).isPositive();
+            assertThat(new BigDecimal(executeGet("/account/{id}/balance", fromId, 200).asString()))
+                    .isEqualByComparingTo("90.00");
+            assertThat(new BigDecimal(executeGet("/account/{id}/balance", toId, 200).asString()))
+                    .isEqualByComparingTo("10.00");
+        });
+    }
+
+    @Test
+    @Story("Повторяющийся перевод")
+    @DisplayName("Повторяющийся перевод исполняется заданное число раз")
+    void successfulRecurringTransferTest() {
+        String fromId = createFundedAccount("100.00");
+        String toId = createFundedAccount(null);
+
+        Response created = step("Запланировать два перевода с интервалом в секунду", () ->
+                executePost("/account/scheduled", schedule(fromId, toId, LocalDateTime.now(), "PT1S", 2), 201));
+
+        Response done = step("Дождаться исполнения", () -> awaitFinished(created.jsonPath().getString("id")));
+
+        step("Проверить число переводов и баланс получателя", () -> {
+            assertThat(done.jsonPath().getString("status")).isEqualTo(TransactionStatus.SUCCESS.name());
+            assertThat(done.jsonPath().getInt("runs")).isEqualTo(2);
+            assertThat(new BigDecimal(executeGet("/account/{id}/balance", toId, 200).asString()))
+                    .isEqualByComparingTo("20.00");
+        });
+    }
+
+    @Test
+    @Story("Отмена перевода")
+    @DisplayName("Отмененный перевод не исполняется")
+    void successfulCancelScheduledTransferTest() {
+        String fromId = createFundedAccount("100.00");
+        String toId = createFundedAccount(null);
+
+        String scheduleId = step("Запланировать перевод через час", () ->
+                executePost("/account/scheduled", schedule(fromId, toId, LocalDateTime.now().plusHours(1), null, null), 201)
+                        .jsonPath().getString("id"));
+
+        step("Отменить перевод", () ->
+                executeDelete("/account/scheduled/{id}", scheduleId, 204));
+
+        Response cancelled = step("Получить расписание", () ->
+                executeGet("/account/scheduled/{id}", scheduleId, 200));
+
+        step("Проверить, что расписание отменено, а повторная отмена невозможна", () -> {
+            assertThat(cancelled.jsonPath().getString("status")).isEqualTo(TransactionStatus.FAILED.name());
+            assertThat(cancelled.jsonPath().getString("lastError")).isEqualTo("Перевод отменен");
+            assertThat(cancelled.jsonPath().getInt("runs")).isZero();
+            executeDelete("/account/scheduled/{id}", scheduleId, 404);
+        });
+    }
+
+    @Test
+    @Story("Валидация расписания")
+    @DisplayName("Неуспешное планирование с интервалом меньше минимального, 400 - Bad Request")
+    void unsuccessfulScheduleWithShortIntervalTest() {
+        String fromId = createFundedAccount("100.00");
+        String toId = createFundedAccount(null);
+
+        Response response = step("Отправить запрос с интервалом 100 мс", () ->
+                executePost("/account/scheduled", schedule(fromId, toId, LocalDateTime.now(), "PT0.1S", null), 400));
+
+        step("Проверить сообщение об ошибке", () ->
+                assertThat(response.path("message").toString()).startsWith("Интервал повторения должен быть не меньше"));
+    }
+
+    private static String createFundedAccount(String amount) {
+        String id = getAccountId(executePost("/account/create", generateNewAccountData(), 201));
+        if (amount != null) {
+            executePost("/account/{id}/deposit", id, new TransactionRequest(new BigDecimal(amount), "Schedule test"), 201);
+        }
+        return id;
+    }
+
+    private static Map<String, Object> schedule(String fromId, String toId, LocalDateTime executeAt,
+                                                String repeatEvery, Integer maxRuns) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("fromAccountId", Long.valueOf(fromId));
+        body.put("toAccountId", Long.valueOf(toId));
+        body.put("amount", new BigDecimal("10.00"));
+        body.put("description", "Scheduled test");
+        body.put("executeAt", executeAt.withNano(0).toString());
+        body.put("repeatEvery", repeatEvery);
+        body.put("maxRuns", maxRuns);
+        return body;
+    }
+
+    private static Response awaitFinished(String scheduleId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WAIT_MILLIS;
+        Response response = executeGet("/account/scheduled/{id}", scheduleId, 200);
+        while (TransactionStatus.PENDING.name().equals(response.jsonPath().getString("status"))
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(200);
+            response = executeGet("/account/scheduled/{id}", scheduleId, 200);
+        }
+        return response;
+    }
+}
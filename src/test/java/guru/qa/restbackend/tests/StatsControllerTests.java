@@ -0,0 +1,164 @@
+package guru.qa.restbackend.tests;
+
+import guru.qa.restbackend.domain.CreateAccountRequest;
+import guru.qa.restbackend.domain.TransactionRequest;
+import guru.qa.restbackend.domain.TransferRequest;
+import guru.qa.restbackend.domain.UpdateAccountStatusRequest;
+import io.qameta.allure.*;
+import io.restassured.response.Response;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import static guru.qa.restbackend.helpers.ResponseHelpers.getAccountId;
+import static guru.qa.restbackend.domain.AccountStatus.BLOCKED;
+import static guru.qa.restbackend.helpers.TestApiHelper.executeGet;
+import static guru.qa.restbackend.helpers.TestApiHelper.executePost;
+import static guru.qa.restbackend.helpers.TestApiHelper.executePut;
+import static guru.qa.restbackend.utils.RandomUtils.generateNewAccountData;
+import static io.qameta.allure.Allure.step;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Owner("sergeyglukhov")
+@Feature("Statistics")
+@DisplayName("Тесты на проверку статистики банка")
+public class StatsControllerTests extends TestBase {
+
+    @Test
+    @Story("Статистика банка")
+    @DisplayName("Пополнение нового счета учитывается в статистике")
+    void depositIsCountedInStatsTest() {
+        Response before = step("Получить статистику банка", () ->
+                executeGet("/stats", 200));
+
+        step("Создать новый счет и пополнить его", () -> {
+            String accountId = getAccountId(executePost("/account/create", generateNewAccountData(), 201));
+            executePost("/account/{id}/deposit", accountId,
+                    new TransactionRequest(new BigDecimal("25.00"), "Stats test"), 201);
+        });
+
+        Response after = step("Получить статистику банка повторно", () ->
+                executeGet("/stats", 200));
+
+        step("Проверить, что счет и пополнение учтены", () -> {
+            assertThat(after.jsonPath().getLong("accounts"))
+                    .isGreaterThan(before.jsonPath().getLong("accounts"));
+            assertThat(after.jsonPath().getLong("accountsByStatus.ACTIVE"))
+                    .isGreaterThan(before.jsonPath().getLong("accountsByStatus.ACTIVE"));
+            assertThat(after.jsonPath().getLong("transactions.lastMinute.DEPOSIT.count"))
+                    .isGreaterThan(before.jsonPath().getLong("transactions.lastMinute.DEPOSIT.count"));
+            assertThat(after.jsonPath().getLong("transactions.lastDay.DEPOSIT.count"))
+                    .isGreaterThan(before.jsonPath().getLong("transactions.lastDay.DEPOSIT.count"));
+        });
+    }
+
+    @Test
+    @Story("Кэш ответов")
+    @DisplayName("Повторное чтение счета обслуживается кэшем, пополнение сбрасывает кэш")
+    void accountReadIsCachedAndInvalidatedTest() {
+        String accountId = step("Создать новый счет", () ->
+                getAccountId(executePost("/account/create", generateNewAccountData(), 201)));
+
+        Response before = step("Прочитать счет и получить статистику кэша", () -> {
+            executeGet("/account/{id}", accountId, 200);
+            return executeGet("/stats/response-cache", 200);
+        });
+
+        Response cached = step("Прочитать счет повторно", () ->
+                executeGet("/account/{id}", accountId, 200));
+
+        step("Проверить, что повторное чтение - попадание в кэш", () ->
+                assertThat(executeGet("/stats/response-cache", 200).jsonPath().getLong("hits"))
+                        .isGreaterThan(before.jsonPath().getLong("hits")));
+
+        Response updated = step("Пополнить счет и прочитать его снова", () -> {
+            executePost("/account/{id}/deposit", accountId,
+                    new TransactionRequest(new BigDecimal("40.00"), "Cache test"), 201);
+            return executeGet("/account/{id}", accountId, 200);
+        });
+
+        step("Проверить, что после пополнения отдается новый баланс", () -> {
+            assertThat(new BigDecimal(cached.jsonPath().getString("balance"))).isEqualByComparingTo("0");
+            assertThat(new BigDecimal(updated.jsonPath().getString("balance"))).isEqualByComparingTo("40.00");
+            assertThat(new BigDecimal(executeGet("/account/{id}/balance", accountId, 200).asString()))
+                    .isEqualByComparingTo("40.00");
+        });
+    }
+
+    @Test
+    @Story("Латентность запросов")
+    @DisplayName("Перевод возвращает Server-Timing по фазам и попадает в гистограммы латентности")
+    void transferLatencyIsBrokenDownByPhaseTest() {
+        String fromAccountId = step("Создать счет отправителя и пополнить его", () -> {
+            String accountId = getAccountId(executePost("/account/create", generateNewAccountData(), 201));
+            executePost("/account/{id}/deposit", accountId,
+                    new TransactionRequest(new BigDecimal("100.00"), "Timing test"), 201);
+            return accountId;
+        });
+        String toAccountId = step("Создать счет получателя", () ->
+                getAccountId(executePost("/account/create", generateNewAccountData(), 201)));
+
+        Response transfer = step("Выполнить перевод", () -> executePost("/account/transfer",
+                new TransferRequest(Long.valueOf(fromAccountId), Long.valueOf(toAccountId),
+                        new BigDecimal("10.00"), "Timing test"), 201));
+
+        step("Проверить заголовок Server-Timing", () ->
+                assertThat(transfer.getHeader("Server-Timing"))
+                        .contains("bind;dur=", "validate;dur=", "lookup;dur=", "commit;dur=",
+                                "serialize;dur=", "total;dur="));
+
+        Response latency = step("Получить гистограммы латентности", () ->
+                executeGet("/stats/latency", 200));
+
+        step("Проверить перцентили общего времени перевода", () -> {
+            Map<String, Object> total = latency.jsonPath()
+                    .getMap("find { it.endpoint == 'POST /account/transfer' && it.phase == 'TOTAL' }");
+            assertThat(total).isNotNull();
+            assertThat(((Number) total.get("count")).longValue()).isPositive();
+            long p50 = ((Number) total.get("p50Micros")).longValue();
+            long p99 = ((Number) total.get("p99Micros")).longValue();
+            long p999 = ((Number) total.get("p999Micros")).longValue();
+            assertThat(p50).isPositive().isLessThanOrEqualTo(p99);
+            assertThat(p99).isLessThanOrEqualTo(p999);
+            assertThat(p999).isLessThanOrEqualTo(((Number) total.get("maxMicros")).longValue());
+        });
+    }
+
+    @Test
+    @Story("Балансы по статусу")
+    @DisplayName("Заблокированный счет учитывается в балансах и списке счетов со статусом BLOCKED")
+    void blockedAccountIsCountedInBalancesByStatusTest() {
+        CreateAccountRequest accountData = generateNewAccountData();
+        String accountId = step("Создать новый счет и пополнить его", () -> {
+            String id = getAccountId(executePost("/account/create", accountData, 201));
+            executePost("/account/{id}/deposit", id, new TransactionRequest(new BigDecimal("30.00"), "Table test"), 201);
+            return id;
+        });
+
+        Response before = step("Получить балансы заблокированных счетов", () ->
+                executeGet("/stats/balances?status=BLOCKED", 200));
+
+        step("Заблокировать счет", () ->
+                executePut("/account/{id}/status", accountId, new UpdateAccountStatusRequest(BLOCKED), 200));
+
+        Response after = step("Получить балансы заблокированных счетов повторно", () ->
+                executeGet("/stats/balances?status=BLOCKED", 200));
+
+        step("Проверить, что счет и его баланс учтены", () -> {
+            String currency = "balancesByCurrency." + accountData.getCurrency();
+            BigDecimal balanceBefore = before.jsonPath().getString(currency) != null
+                    ? new BigDecimal(before.jsonPath().getString(currency)) : BigDecimal.ZERO;
+            assertThat(after.jsonPath().getLong("accounts")).isEqualTo(before.jsonPath().getLong("accounts") + 1);
+            assertThat(new BigDecimal(after.jsonPath().getString(currency)).subtract(balanceBefore))
+                    .isEqualByComparingTo("30.00");
+        });
+
+        step("Проверить, что счет есть в списке заблокированных счетов", () -> {
+            Response blocked = executeGet("/account/all?status=BLOCKED", 200);
+            assertThat(blocked.jsonPath().getList("id", Long.class)).contains(Long.valueOf(accountId));
+            assertThat(blocked.jsonPath().getList("status", String.class)).containsOnly(BLOCKED.name());
+        });
+    }
+}